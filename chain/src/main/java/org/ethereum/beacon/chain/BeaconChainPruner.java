@@ -0,0 +1,249 @@
+package org.ethereum.beacon.chain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ethereum.beacon.chain.storage.BeaconBlockStorage;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.db.Database;
+import org.ethereum.beacon.schedulers.Scheduler;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+
+/**
+ * Removes data that is no longer needed once a new checkpoint gets finalized.
+ *
+ * <p>Blocks that don't descend from the finalized block and are not its ancestors can never become
+ * canonical, they are removed along with their states. Optionally, states of canonical blocks
+ * preceding the finalized one are thinned leaving only a state of the first block in each {@code
+ * N} epochs, a state of the finalized block is always kept.
+ *
+ * <p>Pruning is done on a given scheduler, removals are applied and committed in batches each of
+ * which is run while holding a monitor of given mutex, thus, they don't interleave with imports of
+ * new blocks. Canonical blocks up to the finalized one are moved to the block archive, see {@link
+ * BeaconBlockStorage#archive(Hash32)}. Storage engine is compacted once enough entries have been
+ * removed.
+ *
+ * <p><strong>Note:</strong> when states are delta-encoded, {@code N} epochs must be a multiple of
+ * the snapshot interval, otherwise a state that is kept might refer to a removed one.
+ */
+public class BeaconChainPruner {
+  private static final Logger logger = LogManager.getLogger(BeaconChainPruner.class);
+
+  /** A number of blocks and states that are removed in one batch. */
+  static final int BATCH_SIZE = 64;
+  /** A number of removed blocks and states which triggers compaction. */
+  static final int COMPACTION_THRESHOLD = 1 << 12;
+
+  private final BeaconChainSpec spec;
+  private final BeaconChainStorage chainStorage;
+  private final Database database;
+  private final Scheduler scheduler;
+  private final int stateThinningEpochs;
+
+  private int removedSinceCompaction = 0;
+
+  /**
+   * @param spec beacon chain spec.
+   * @param chainStorage chain storage.
+   * @param database a database backing chain storage, used for compaction.
+   * @param scheduler a scheduler pruning is run on, expected to be single threaded.
+   * @param stateThinningEpochs if positive then only one state of canonical chain is kept per this
+   *     number of epochs, otherwise, canonical states are not removed.
+   */
+  public BeaconChainPruner(
+      BeaconChainSpec spec,
+      BeaconChainStorage chainStorage,
+      Database database,
+      Scheduler scheduler,
+      int stateThinningEpochs) {
+    this.spec = spec;
+    this.chainStorage = chainStorage;
+    this.database = database;
+    this.scheduler = scheduler;
+    this.stateThinningEpochs = stateThinningEpochs;
+  }
+
+  /**
+   * Schedules pruning of data made redundant by a change of the finalized checkpoint.
+   *
+   * @param previous previous finalized checkpoint.
+   * @param finalized new finalized checkpoint.
+   * @param mutex an object which monitor is held while storage is modified.
+   * @return a future that is done when pruning is finished.
+   */
+  public CompletableFuture<Void> onFinalized(
+      Checkpoint previous, Checkpoint finalized, Object mutex) {
+    return scheduler.execute(() -> prune(previous, finalized, mutex));
+  }
+
+  private void prune(Checkpoint previous, Checkpoint finalized, Object mutex) {
+    if (finalized.getEpoch().lessEqual(previous.getEpoch())) {
+      return;
+    }
+
+    long s = System.nanoTime();
+
+    List<BeaconBlock> canonical = new ArrayList<>();
+    List<Hash32> canonicalRoots = new ArrayList<>();
+    collectCanonical(previous, finalized, canonical, canonicalRoots);
+    if (canonical.isEmpty()) {
+      return;
+    }
+
+    List<Hash32> orphans = collectOrphans(canonical, canonicalRoots);
+    List<Hash32> thinnedStates = collectThinnedStates(canonical, canonicalRoots, finalized);
+
+    BeaconBlockStorage blockStorage = chainStorage.getBlockStorage();
+    applyInBatches(orphans, chainStorage.getTupleStorage()::remove, mutex);
+    applyInBatches(thinnedStates, chainStorage.getStateStorage()::remove, mutex);
+    // finalized blocks are moved to the archive in order of their slots
+    applyInBatches(canonicalRoots, blockStorage::archive, mutex);
+
+    logger.info(
+        "Pruned {} blocks with their states, thinned {} states, archived {} blocks "
+            + "on finalized epoch {} in {}s",
+        orphans.size(),
+        thinnedStates.size(),
+        canonicalRoots.size(),
+        finalized.getEpoch(),
+        String.format("%.3f", (System.nanoTime() - s) / 1_000_000_000d));
+
+    removedSinceCompaction +=
+        orphans.size() * 2 + thinnedStates.size() + canonicalRoots.size();
+    if (removedSinceCompaction >= COMPACTION_THRESHOLD) {
+      database.compact();
+      removedSinceCompaction = 0;
+    }
+  }
+
+  private void applyInBatches(List<Hash32> roots, Consumer<Hash32> action, Object mutex) {
+    for (int from = 0; from < roots.size(); from += BATCH_SIZE) {
+      List<Hash32> batch = roots.subList(from, Math.min(roots.size(), from + BATCH_SIZE));
+      synchronized (mutex) {
+        batch.forEach(action);
+        chainStorage.commit();
+      }
+    }
+  }
+
+  /**
+   * Walks canonical chain back from the finalized block to the previous finalized one or, if states
+   * are thinned, to the first block of the thinning period the previous finalized block belongs to.
+   * The walk is finished with a block that precedes the range, if such a block exists.
+   *
+   * <p>Blocks and their roots are returned in ascending order.
+   */
+  private void collectCanonical(
+      Checkpoint previous,
+      Checkpoint finalized,
+      List<BeaconBlock> canonical,
+      List<Hash32> canonicalRoots) {
+    BeaconBlockStorage blockStorage = chainStorage.getBlockStorage();
+    SlotNumber lowestSlot;
+    if (stateThinningEpochs > 0) {
+      EpochNumber epoch = previous.getEpoch();
+      lowestSlot =
+          spec.compute_start_slot_of_epoch(
+              epoch.minus(epoch.modulo(EpochNumber.of(stateThinningEpochs))));
+    } else {
+      lowestSlot =
+          blockStorage
+              .get(previous.getRoot())
+              .map(BeaconBlock::getSlot)
+              .orElse(spec.compute_start_slot_of_epoch(previous.getEpoch()));
+    }
+
+    Hash32 root = finalized.getRoot();
+    Optional<BeaconBlock> block = blockStorage.get(root);
+    while (block.isPresent()) {
+      canonical.add(block.get());
+      canonicalRoots.add(root);
+      if (block.get().getSlot().less(lowestSlot)) {
+        break;
+      }
+      root = block.get().getParentRoot();
+      block = blockStorage.get(root);
+    }
+
+    Collections.reverse(canonical);
+    Collections.reverse(canonicalRoots);
+  }
+
+  /**
+   * Collects blocks that fork off given part of canonical chain. Descendants precede their
+   * ancestors in the list, thus, an interrupted pruning never leaves a block which parent has been
+   * already removed.
+   *
+   * <p>Slots following the first canonical block are read from the slot index in a single pass,
+   * a parent is always met before its children.
+   */
+  private List<Hash32> collectOrphans(List<BeaconBlock> canonical, List<Hash32> canonicalRoots) {
+    BeaconBlockStorage blockStorage = chainStorage.getBlockStorage();
+    Set<Hash32> canonicalSet = new HashSet<>(canonicalRoots);
+    // descendants of the finalized block are not touched
+    Set<Hash32> forkRoots = new HashSet<>(canonicalRoots.subList(0, canonicalRoots.size() - 1));
+    Set<Hash32> orphanSet = new HashSet<>();
+    List<Hash32> orphans = new ArrayList<>();
+
+    SlotNumber from = canonical.get(0).getSlot().increment();
+    for (List<Hash32> hashes :
+        blockStorage.getSlotBlocks(from, blockStorage.getMaxSlot().increment()).values()) {
+      blockStorage
+          .getAll(hashes)
+          .forEach(
+              (root, block) -> {
+                Hash32 parent = block.getParentRoot();
+                if (!canonicalSet.contains(root)
+                    && (forkRoots.contains(parent) || orphanSet.contains(parent))) {
+                  orphanSet.add(root);
+                  orphans.add(root);
+                }
+              });
+    }
+
+    Collections.reverse(orphans);
+    return orphans;
+  }
+
+  /**
+   * Collects states of canonical blocks that are not the first ones in their thinning periods.
+   * Blocks of the period the finalized block belongs to are left until the next pruning.
+   */
+  private List<Hash32> collectThinnedStates(
+      List<BeaconBlock> canonical, List<Hash32> canonicalRoots, Checkpoint finalized) {
+    if (stateThinningEpochs <= 0) {
+      return Collections.emptyList();
+    }
+
+    BeaconBlock finalizedBlock = canonical.get(canonical.size() - 1);
+    long finalizedPeriod = thinningPeriod(finalizedBlock.getSlot());
+    List<Hash32> states = new ArrayList<>();
+    for (int i = 1; i < canonical.size(); i++) {
+      BeaconBlock block = canonical.get(i);
+      long period = thinningPeriod(block.getSlot());
+      if (period >= finalizedPeriod || canonicalRoots.get(i).equals(finalized.getRoot())) {
+        break;
+      }
+      if (period == thinningPeriod(canonical.get(i - 1).getSlot())) {
+        states.add(block.getStateRoot());
+      }
+    }
+    return states;
+  }
+
+  private long thinningPeriod(SlotNumber slot) {
+    return spec.compute_epoch_of_slot(slot).getValue() / stateThinningEpochs;
+  }
+}
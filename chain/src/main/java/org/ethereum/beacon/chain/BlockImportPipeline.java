@@ -0,0 +1,285 @@
+package org.ethereum.beacon.chain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
+import org.ethereum.beacon.consensus.verifier.BeaconBlockVerifier;
+import org.ethereum.beacon.consensus.verifier.VerificationResult;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.schedulers.Scheduler;
+import org.reactivestreams.Publisher;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+
+/**
+ * Imports blocks in three stages, so that block verification, which is dominated by BLS signature
+ * checks, is not run under the chain monitor:
+ *
+ * <ol>
+ *   <li>structural checks are run on the caller thread, known blocks, blocks with unknown parents
+ *       and blocks exceeding operation limits are rejected right away;
+ *   <li>a pre-block state is computed from the parent state and the block is verified against it
+ *       on a worker pool, blocks with different parents are verified in parallel;
+ *   <li>blocks are inserted into the chain in the order they were submitted in, verification is
+ *       skipped for blocks that have passed it at the second stage.
+ * </ol>
+ *
+ * <p>A block verification result depends only on the block and its pre-block state which, in
+ * turn, is determined by the parent. Hence, the result obtained at the second stage holds at the
+ * third one. If the parent is imported by the pipeline too, verification waits until the parent is
+ * inserted.
+ *
+ * <p>Batches are passed to {@link DefaultBeaconChain#insertBatch(List)} as is, in the long range
+ * sync each block is a child of the previous one and can't be verified ahead of the import.
+ */
+public class BlockImportPipeline implements MutableBeaconChain {
+  private static final Logger logger = LogManager.getLogger(BlockImportPipeline.class);
+
+  private final BeaconChainSpec spec;
+  private final DefaultBeaconChain chain;
+  private final BeaconChainStorage chainStorage;
+  private final EmptySlotTransition preBlockTransition;
+  private final BeaconBlockVerifier blockVerifier;
+  private final Scheduler verifyScheduler;
+  private final Scheduler importScheduler;
+
+  private final Map<Hash32, CompletableFuture<ImportResult>> inFlight = new ConcurrentHashMap<>();
+  private final StageStats verificationStats = new StageStats();
+  private final StageStats importStats = new StageStats();
+
+  private CompletableFuture<ImportResult> lastImport =
+      CompletableFuture.completedFuture(ImportResult.OK);
+
+  /**
+   * @param spec beacon chain spec.
+   * @param chain a chain blocks are inserted to.
+   * @param chainStorage chain storage.
+   * @param preBlockTransition the same transition as the chain uses to get pre-block states.
+   * @param blockVerifier the same block verifier as the chain uses.
+   * @param verifyScheduler a scheduler blocks are verified on, expected to be a multi threaded one.
+   * @param importScheduler a scheduler blocks are inserted on, expected to be single threaded.
+   */
+  public BlockImportPipeline(
+      BeaconChainSpec spec,
+      DefaultBeaconChain chain,
+      BeaconChainStorage chainStorage,
+      EmptySlotTransition preBlockTransition,
+      BeaconBlockVerifier blockVerifier,
+      Scheduler verifyScheduler,
+      Scheduler importScheduler) {
+    this.spec = spec;
+    this.chain = chain;
+    this.chainStorage = chainStorage;
+    this.preBlockTransition = preBlockTransition;
+    this.blockVerifier = blockVerifier;
+    this.verifyScheduler = verifyScheduler;
+    this.importScheduler = importScheduler;
+  }
+
+  /**
+   * Submits a block to the pipeline.
+   *
+   * @param block a block.
+   * @return a future that is done when the block has left the pipeline.
+   */
+  public synchronized CompletableFuture<ImportResult> submit(BeaconBlock block) {
+    Hash32 root = spec.signing_root(block);
+    if (inFlight.containsKey(root) || chainStorage.getBlockStorage().get(root).isPresent()) {
+      return CompletableFuture.completedFuture(ImportResult.ExistingBlock);
+    }
+    CompletableFuture<ImportResult> parentImport = inFlight.get(block.getParentRoot());
+    if (parentImport == null
+        && !chainStorage.getBlockStorage().get(block.getParentRoot()).isPresent()) {
+      return CompletableFuture.completedFuture(ImportResult.NoParent);
+    }
+    if (!checkStructure(block.getBody())) {
+      logger.warn(
+          "Block exceeds operation limits: "
+              + block.toString(spec.getConstants(), null, spec::signing_root));
+      return CompletableFuture.completedFuture(ImportResult.InvalidBlock);
+    }
+
+    verificationStats.enqueued();
+    importStats.enqueued();
+    CompletableFuture<Verification> verified =
+        (parentImport == null ? CompletableFuture.completedFuture(ImportResult.OK) : parentImport)
+            .thenCompose(parentResult -> verifyScheduler.execute(() -> verify(block)))
+            .whenComplete((verification, t) -> verificationStats.dequeued());
+    CompletableFuture<ImportResult> imported =
+        lastImport
+            .thenCombine(verified, (previousResult, verification) -> verification)
+            .thenCompose(verification -> importScheduler.execute(() -> insert(block, verification)))
+            .exceptionally(
+                t -> {
+                  logger.error("Failed to import block " + root, t);
+                  return ImportResult.UnexpectedError;
+                })
+            .whenComplete((result, t) -> importStats.dequeued());
+
+    inFlight.put(root, imported);
+    // added after the put as the future might be already done
+    imported.whenComplete((result, t) -> inFlight.remove(root));
+    lastImport = imported;
+    return imported;
+  }
+
+  private boolean checkStructure(BeaconBlockBody body) {
+    SpecConstants constants = spec.getConstants();
+    return body.getProposerSlashings().size() <= constants.getMaxProposerSlashings()
+        && body.getAttesterSlashings().size() <= constants.getMaxAttesterSlashings()
+        && body.getAttestations().size() <= constants.getMaxAttestations()
+        && body.getDeposits().size() <= constants.getMaxDeposits()
+        && body.getVoluntaryExits().size() <= constants.getMaxVoluntaryExits()
+        && body.getTransfers().size() <= constants.getMaxTransfers();
+  }
+
+  /** @return verification result or {@code null} if the parent state is not in the storage. */
+  private Verification verify(BeaconBlock block) {
+    long s = System.nanoTime();
+    Optional<BeaconTuple> parent = chainStorage.getTupleStorage().get(block.getParentRoot());
+    if (!parent.isPresent()) {
+      return null;
+    }
+    BeaconStateEx parentState = parent.get().getState();
+    BeaconStateEx preBlockState = preBlockTransition.apply(parentState, block.getSlot());
+    VerificationResult result = blockVerifier.verify(block, preBlockState);
+    verificationStats.processed(System.nanoTime() - s);
+    return new Verification(parentState, preBlockState, result);
+  }
+
+  private ImportResult insert(BeaconBlock block, Verification verification) {
+    long s = System.nanoTime();
+    ImportResult result;
+    if (verification == null) {
+      // let the chain run all the checks itself
+      result = chain.insert(block);
+    } else if (!verification.result.isPassed()) {
+      logger.warn(
+          "Block verification failed: "
+              + verification.result
+              + ": "
+              + block.toString(
+                  spec.getConstants(),
+                  verification.parentState.getGenesisTime(),
+                  spec::signing_root));
+      result = ImportResult.InvalidBlock;
+    } else {
+      result = chain.insertVerified(block, verification.parentState, verification.preBlockState);
+    }
+    importStats.processed(System.nanoTime() - s);
+    return result;
+  }
+
+  @Override
+  public ImportResult insert(BeaconBlock block) {
+    return submit(block).join();
+  }
+
+  /** A single block is submitted to the pipeline, otherwise, the batch is passed to the chain. */
+  @Override
+  public List<ImportResult> insertBatch(List<BeaconBlock> blocks) {
+    if (blocks.size() == 1) {
+      return blocks.stream().map(this::insert).collect(Collectors.toList());
+    }
+
+    CompletableFuture<ImportResult> pending;
+    synchronized (this) {
+      pending = lastImport;
+    }
+    pending.handle((result, t) -> result).join();
+    return chain.insertBatch(blocks);
+  }
+
+  @Override
+  public Publisher<BeaconTupleDetails> getBlockStatesStream() {
+    return chain.getBlockStatesStream();
+  }
+
+  @Override
+  public BeaconTuple getRecentlyProcessed() {
+    return chain.getRecentlyProcessed();
+  }
+
+  @Override
+  public void init() {
+    chain.init();
+  }
+
+  /** @return stats of the verification stage. */
+  public StageStats getVerificationStats() {
+    return verificationStats;
+  }
+
+  /** @return stats of the import stage. */
+  public StageStats getImportStats() {
+    return importStats;
+  }
+
+  private static class Verification {
+    private final BeaconStateEx parentState;
+    private final BeaconStateEx preBlockState;
+    private final VerificationResult result;
+
+    Verification(
+        BeaconStateEx parentState, BeaconStateEx preBlockState, VerificationResult result) {
+      this.parentState = parentState;
+      this.preBlockState = preBlockState;
+      this.result = result;
+    }
+  }
+
+  /** Queue depth and processing time of a pipeline stage. */
+  public static class StageStats {
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong processingNanos = new AtomicLong();
+
+    void enqueued() {
+      queueSize.incrementAndGet();
+    }
+
+    void dequeued() {
+      queueSize.decrementAndGet();
+    }
+
+    void processed(long nanos) {
+      processedCount.incrementAndGet();
+      processingNanos.addAndGet(nanos);
+    }
+
+    /** @return a number of blocks that are waiting for the stage or are being processed by it. */
+    public int getQueueSize() {
+      return queueSize.get();
+    }
+
+    /** @return a number of blocks processed by the stage. */
+    public long getProcessedCount() {
+      return processedCount.get();
+    }
+
+    /** @return average time a block is processed by the stage in milliseconds. */
+    public double getAverageLatencyMillis() {
+      long count = processedCount.get();
+      return count == 0 ? 0 : processingNanos.get() / 1_000_000d / count;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "queue: %d, processed: %d, avg: %.3fms",
+          getQueueSize(), getProcessedCount(), getAverageLatencyMillis());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.ethereum.beacon.chain;
+
+import java.util.List;
+import java.util.Optional;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.util.cache.LRUCache;
+
+/**
+ * Keeps states of recent justified and finalized checkpoints which fork choice is run against.
+ *
+ * <p>A checkpoint state is a state of the checkpoint block advanced to the start slot of the
+ * checkpoint epoch. Active validators and their balances are computed once per checkpoint. As
+ * checkpoint states never change, an entry is evicted only when checkpoints move on.
+ */
+public class CheckpointStateCache {
+
+  /** Enough for current and previous justified and finalized checkpoints. */
+  private static final int CAPACITY = 4;
+
+  private final BeaconChainStorage chainStorage;
+  private final BeaconChainSpec spec;
+  private final EmptySlotTransition emptySlotTransition;
+  private final LRUCache<Checkpoint, CheckpointState> states = new LRUCache<>(CAPACITY);
+
+  public CheckpointStateCache(
+      BeaconChainStorage chainStorage,
+      BeaconChainSpec spec,
+      EmptySlotTransition emptySlotTransition) {
+    this.chainStorage = chainStorage;
+    this.spec = spec;
+    this.emptySlotTransition = emptySlotTransition;
+  }
+
+  /**
+   * @param checkpoint a checkpoint.
+   * @return the state of the checkpoint or nothing if the checkpoint block is not in the storage.
+   */
+  public Optional<CheckpointState> get(Checkpoint checkpoint) {
+    Optional<CheckpointState> cached = states.getExisting(checkpoint);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    // a missing block may get imported later, hence, nothing is cached for it
+    Optional<CheckpointState> loaded = load(checkpoint);
+    loaded.ifPresent(state -> states.put(checkpoint, state));
+    return loaded;
+  }
+
+  public Optional<CheckpointState> getJustified() {
+    return chainStorage.getJustifiedStorage().get().flatMap(this::get);
+  }
+
+  public Optional<CheckpointState> getFinalized() {
+    return chainStorage.getFinalizedStorage().get().flatMap(this::get);
+  }
+
+  private Optional<CheckpointState> load(Checkpoint checkpoint) {
+    return chainStorage
+        .getTupleStorage()
+        .get(checkpoint.getRoot())
+        .map(
+            tuple ->
+                new CheckpointState(
+                    checkpoint,
+                    emptySlotTransition.apply(
+                        tuple.getState(), spec.compute_start_slot_of_epoch(checkpoint.getEpoch())),
+                    spec));
+  }
+
+  /** A checkpoint state along with its active validators. */
+  public static class CheckpointState {
+
+    private final Checkpoint checkpoint;
+    private final BeaconStateEx state;
+    private final int[] activeIndices;
+    private final long[] activeBalances;
+
+    CheckpointState(Checkpoint checkpoint, BeaconStateEx state, BeaconChainSpec spec) {
+      this.checkpoint = checkpoint;
+      this.state = state;
+
+      List<ValidatorIndex> indices =
+          spec.get_active_validator_indices(state, spec.get_current_epoch(state));
+      this.activeIndices = new int[indices.size()];
+      this.activeBalances = new long[state.getValidators().size().intValue()];
+      for (int i = 0; i < activeIndices.length; i++) {
+        ValidatorIndex index = indices.get(i);
+        ValidatorRecord validator = state.getValidators().get(index);
+        activeIndices[i] = index.intValue();
+        activeBalances[index.intValue()] = validator.getEffectiveBalance().getValue();
+      }
+    }
+
+    public Checkpoint getCheckpoint() {
+      return checkpoint;
+    }
+
+    public BeaconStateEx getState() {
+      return state;
+    }
+
+    /** Indices of validators active in the checkpoint epoch, must not be modified. */
+    public int[] getActiveIndices() {
+      return activeIndices;
+    }
+
+    /**
+     * Effective balances indexed by validator index, zero for inactive validators, must not be
+     * modified.
+     */
+    public long[] getActiveBalances() {
+      return activeBalances;
+    }
+  }
+}
@@ -1,9 +1,15 @@
 package org.ethereum.beacon.chain;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Arrays.asList;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
@@ -12,17 +18,25 @@ import org.ethereum.beacon.consensus.BeaconStateEx;
 import org.ethereum.beacon.consensus.BlockTransition;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
+import org.ethereum.beacon.consensus.verifier.BatchingBlockVerifier;
 import org.ethereum.beacon.consensus.verifier.BeaconBlockVerifier;
 import org.ethereum.beacon.consensus.verifier.BeaconStateVerifier;
 import org.ethereum.beacon.consensus.verifier.VerificationResult;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.BeaconState;
 import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.ShardNumber;
 import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.crypto.BatchVerifier;
 import org.ethereum.beacon.schedulers.Schedulers;
 import org.ethereum.beacon.stream.SimpleProcessor;
+import org.javatuples.Pair;
 import org.reactivestreams.Publisher;
 import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+import tech.pegasys.artemis.util.uint.UInt64s;
 
 public class DefaultBeaconChain implements MutableBeaconChain {
   private static final Logger logger = LogManager.getLogger(DefaultBeaconChain.class);
@@ -39,6 +53,7 @@ public class DefaultBeaconChain implements MutableBeaconChain {
 
   private final SimpleProcessor<BeaconTupleDetails> blockStream;
   private final Schedulers schedulers;
+  @Nullable private final BeaconChainPruner pruner;
 
   private BeaconTuple recentlyProcessed;
 
@@ -51,6 +66,32 @@ public class DefaultBeaconChain implements MutableBeaconChain {
       BeaconStateVerifier stateVerifier,
       BeaconChainStorage chainStorage,
       Schedulers schedulers) {
+    this(
+        spec,
+        initialTransition,
+        preBlockTransition,
+        blockTransition,
+        blockVerifier,
+        stateVerifier,
+        chainStorage,
+        schedulers,
+        null);
+  }
+
+  /**
+   * @param pruner if set then it's triggered each time finalized checkpoint changes, pruning
+   *     batches are applied while holding a monitor of this chain instance.
+   */
+  public DefaultBeaconChain(
+      BeaconChainSpec spec,
+      BlockTransition<BeaconStateEx> initialTransition,
+      EmptySlotTransition preBlockTransition,
+      BlockTransition<BeaconStateEx> blockTransition,
+      BeaconBlockVerifier blockVerifier,
+      BeaconStateVerifier stateVerifier,
+      BeaconChainStorage chainStorage,
+      Schedulers schedulers,
+      @Nullable BeaconChainPruner pruner) {
     this.spec = spec;
     this.initialTransition = initialTransition;
     this.preBlockTransition = preBlockTransition;
@@ -60,6 +101,7 @@ public class DefaultBeaconChain implements MutableBeaconChain {
     this.chainStorage = chainStorage;
     this.tupleStorage = chainStorage.getTupleStorage();
     this.schedulers = schedulers;
+    this.pruner = pruner;
 
     blockStream = new SimpleProcessor<>(schedulers.events(), "DefaultBeaconChain.block");
   }
@@ -71,11 +113,30 @@ public class DefaultBeaconChain implements MutableBeaconChain {
     }
     this.recentlyProcessed = fetchRecentTuple();
     blockStream.onNext(new BeaconTupleDetails(recentlyProcessed));
+
+    BeaconStateEx recentState = recentlyProcessed.getState();
+    schedulers.cpuHeavy().execute(() -> warmUpCaches(recentState));
   }
 
+  /**
+   * Restores the chain from the persisted head. If the head is unknown, which is the case for
+   * databases written before the head has been persisted, a block with the highest slot is taken.
+   */
   private BeaconTuple fetchRecentTuple() {
+    Optional<BeaconTuple> head =
+        chainStorage.getHeadStorage().get().flatMap(tupleStorage::get);
+    if (head.isPresent()) {
+      return head.get();
+    }
+
     SlotNumber maxSlot = chainStorage.getBlockStorage().getMaxSlot();
     List<Hash32> latestBlockRoots = chainStorage.getBlockStorage().getSlotBlocks(maxSlot);
+    // the highest slots might have been occupied by pruned blocks only
+    for (SlotNumber slot = maxSlot;
+        latestBlockRoots.isEmpty() && slot.greater(SlotNumber.ZERO); ) {
+      slot = slot.minus(1);
+      latestBlockRoots = chainStorage.getBlockStorage().getSlotBlocks(slot);
+    }
     assert latestBlockRoots.size() > 0;
     return tupleStorage
         .get(latestBlockRoots.get(0))
@@ -83,6 +144,32 @@ public class DefaultBeaconChain implements MutableBeaconChain {
             () -> new RuntimeException("Block with stored maxSlot not found, maxSlot: " + maxSlot));
   }
 
+  /**
+   * Fills spec caches which otherwise are filled by the first imported blocks, namely, validator
+   * pubkey index, active validators and committees of the previous and current epochs.
+   */
+  private void warmUpCaches(BeaconStateEx state) {
+    long s = System.nanoTime();
+
+    if (state.getValidators().size().greater(ValidatorIndex.ZERO)) {
+      spec.get_validator_index_by_pubkey(
+          state, state.getValidators().get(ValidatorIndex.ZERO).getPubKey());
+    }
+    for (EpochNumber epoch : asList(spec.get_previous_epoch(state), spec.get_current_epoch(state))) {
+      spec.get_active_validator_indices(state, epoch);
+      for (UInt64 offset : UInt64s.iterate(UInt64.ZERO, spec.get_committee_count(state, epoch))) {
+        ShardNumber shard =
+            spec.get_start_shard(state, epoch)
+                .plusModulo(offset, spec.getConstants().getShardCount());
+        spec.get_crosslink_committee(state, epoch, shard);
+      }
+    }
+
+    logger.info(
+        "Caches warmed up in {}s",
+        String.format("%.3f", (System.nanoTime() - s) / 1_000_000_000d));
+  }
+
   private void initializeStorage() {
     BeaconBlock initialGenesis = spec.get_empty_block();
     BeaconStateEx initialState =
@@ -102,6 +189,201 @@ public class DefaultBeaconChain implements MutableBeaconChain {
 
   @Override
   public synchronized ImportResult insert(BeaconBlock block) {
+    ImportResult checkResult = check(block);
+    if (checkResult != ImportResult.OK) {
+      return checkResult;
+    }
+
+    return insertChecked(block, pullParentState(block), null);
+  }
+
+  /**
+   * Inserts a block which has been verified beforehand, block verification is skipped.
+   *
+   * @param block a block.
+   * @param parentState a state of the block parent.
+   * @param preBlockState a state the block has been verified against, it must be the one produced
+   *     by {@link #preBlockTransition} from the parent state.
+   * @return whether a block was inserted or not.
+   * @see BlockImportPipeline
+   */
+  synchronized ImportResult insertVerified(
+      BeaconBlock block, BeaconStateEx parentState, BeaconStateEx preBlockState) {
+    ImportResult checkResult = check(block);
+    if (checkResult != ImportResult.OK) {
+      return checkResult;
+    }
+
+    return insertChecked(block, parentState, preBlockState);
+  }
+
+  private ImportResult insertChecked(
+      BeaconBlock block, BeaconStateEx parentState, @Nullable BeaconStateEx verifiedState) {
+    long s = System.nanoTime();
+
+    Pair<ImportResult, BeaconTupleDetails> processed = process(block, parentState, verifiedState);
+    if (processed.getValue0() != ImportResult.OK) {
+      return processed.getValue0();
+    }
+
+    chainStorage.commit();
+
+    long total = System.nanoTime() - s;
+
+    blockStream.onNext(processed.getValue1());
+
+    logger.info(
+        "new block inserted: {} in {}s",
+        block.toString(
+            spec.getConstants(),
+            recentlyProcessed.getState().getGenesisTime(),
+            spec::signing_root),
+        String.format("%.3f", ((double) total) / 1_000_000_000d));
+
+    return ImportResult.OK;
+  }
+
+  /**
+   * Blocks are imported one by one, the post state of a block is passed directly to its child if
+   * the child follows it in the list. Storage changes are committed each time a new epoch is
+   * entered and in the end of the batch, a single event for the last imported block is published
+   * to the block stream.
+   *
+   * <p>With a {@link BatchingBlockVerifier} signatures of all the blocks are verified at once
+   * before anything is imported, see {@link #verifyBatch(List, BatchingBlockVerifier)}.
+   */
+  @Override
+  public synchronized List<ImportResult> insertBatch(List<BeaconBlock> blocks) {
+    long s = System.nanoTime();
+
+    Map<Hash32, VerifiedBlock> verifiedBlocks =
+        blockVerifier instanceof BatchingBlockVerifier
+            ? verifyBatch(blocks, (BatchingBlockVerifier) blockVerifier)
+            : Collections.emptyMap();
+
+    List<ImportResult> results = new ArrayList<>(blocks.size());
+    BeaconTupleDetails lastImported = null;
+    Hash32 lastImportedRoot = null;
+    EpochNumber uncommittedEpoch = null;
+    int importedCount = 0;
+
+    for (BeaconBlock block : blocks) {
+      ImportResult checkResult = check(block);
+      if (checkResult != ImportResult.OK) {
+        results.add(checkResult);
+        continue;
+      }
+
+      BeaconStateEx parentState =
+          lastImported != null && block.getParentRoot().equals(lastImportedRoot)
+              ? lastImported.getState()
+              : pullParentState(block);
+      VerifiedBlock verified = verifiedBlocks.get(spec.signing_root(block));
+      Pair<ImportResult, BeaconTupleDetails> processed =
+          verified != null
+              ? store(block, parentState, verified.preBlockState, verified.postBlockState)
+              : process(block, parentState, null);
+      results.add(processed.getValue0());
+      if (processed.getValue0() != ImportResult.OK) {
+        continue;
+      }
+
+      lastImported = processed.getValue1();
+      lastImportedRoot = spec.signing_root(block);
+      importedCount += 1;
+
+      EpochNumber epoch = spec.compute_epoch_of_slot(block.getSlot());
+      if (uncommittedEpoch == null) {
+        uncommittedEpoch = epoch;
+      } else if (epoch.greater(uncommittedEpoch)) {
+        chainStorage.commit();
+        uncommittedEpoch = epoch;
+      }
+    }
+
+    if (lastImported == null) {
+      return results;
+    }
+
+    chainStorage.commit();
+
+    long total = System.nanoTime() - s;
+
+    blockStream.onNext(lastImported);
+
+    logger.info(
+        "{} blocks inserted, last: {} in {}s",
+        importedCount,
+        lastImported
+            .getBlock()
+            .toString(
+                spec.getConstants(),
+                lastImported.getState().getGenesisTime(),
+                spec::signing_root),
+        String.format("%.3f", ((double) total) / 1_000_000_000d));
+
+    return results;
+  }
+
+  /**
+   * Verifies blocks of a batch collecting signatures of all of them into a single {@link
+   * BatchVerifier} which is checked once. If the batch fails, blocks are verified once again by
+   * eager verifier to find out invalid ones.
+   *
+   * <p>A block is verified against the post state of its parent verified earlier in the batch or
+   * against the state from the storage. Blocks which parents are found in neither are skipped.
+   *
+   * @return pre and post block states of blocks that passed verification, by block roots.
+   */
+  private Map<Hash32, VerifiedBlock> verifyBatch(
+      List<BeaconBlock> blocks, BatchingBlockVerifier verifier) {
+    BatchVerifier batch = new BatchVerifier();
+    BeaconBlockVerifier collector = verifier.createCollector(batch);
+
+    Map<Hash32, VerifiedBlock> verifiedBlocks = new HashMap<>();
+    for (BeaconBlock block : blocks) {
+      Hash32 root = spec.signing_root(block);
+      if (verifiedBlocks.containsKey(root) || exist(block)) {
+        continue;
+      }
+
+      VerifiedBlock parent = verifiedBlocks.get(block.getParentRoot());
+      Optional<BeaconStateEx> parentState =
+          parent != null
+              ? Optional.of(parent.postBlockState)
+              : tupleStorage.get(block.getParentRoot()).map(BeaconTuple::getState);
+      if (!parentState.isPresent()) {
+        continue;
+      }
+
+      BeaconStateEx preBlockState = preBlockTransition.apply(parentState.get(), block.getSlot());
+      // a failed block is verified once again and is rejected on import
+      if (collector.verify(block, preBlockState).isPassed()) {
+        verifiedBlocks.put(
+            root,
+            new VerifiedBlock(block, preBlockState, blockTransition.apply(preBlockState, block)));
+      }
+    }
+
+    if (!batch.verify()) {
+      logger.warn("Batch of {} block signatures failed verification", batch.size());
+      BeaconBlockVerifier eagerVerifier = verifier.getEagerVerifier();
+      verifiedBlocks
+          .values()
+          .removeIf(
+              verified -> !eagerVerifier.verify(verified.block, verified.preBlockState).isPassed());
+    }
+
+    return verifiedBlocks;
+  }
+
+  /**
+   * Runs checks that don't require a state transition.
+   *
+   * @return {@link ImportResult#OK} if the block should be processed, the reason of rejection
+   *     otherwise.
+   */
+  private ImportResult check(BeaconBlock block) {
     if (rejectedByTime(block)) {
       return ImportResult.ExpiredBlock;
     }
@@ -114,50 +396,65 @@ public class DefaultBeaconChain implements MutableBeaconChain {
       return ImportResult.NoParent;
     }
 
-    long s = System.nanoTime();
+    if (rejectedByFinality(block)) {
+      return ImportResult.ExpiredBlock;
+    }
 
-    BeaconStateEx parentState = pullParentState(block);
+    return ImportResult.OK;
+  }
 
-    BeaconStateEx preBlockState = preBlockTransition.apply(parentState, block.getSlot());
-    VerificationResult blockVerification =
-        blockVerifier.verify(block, preBlockState);
-    if (!blockVerification.isPassed()) {
-      logger.warn("Block verification failed: " + blockVerification + ": " +
-          block.toString(spec.getConstants(), parentState.getGenesisTime(), spec::signing_root));
-      return ImportResult.InvalidBlock;
+  /**
+   * Verifies the block and applies it on top of the parent state, a new tuple is put to the
+   * storage but is not committed.
+   *
+   * @param verifiedState if set then the block has been already verified against this state and
+   *     the state is used as a pre-block one.
+   * @return the result along with the details of the imported block, details are set only if the
+   *     result is {@link ImportResult#OK}.
+   */
+  private Pair<ImportResult, BeaconTupleDetails> process(
+      BeaconBlock block, BeaconStateEx parentState, @Nullable BeaconStateEx verifiedState) {
+    BeaconStateEx preBlockState;
+    if (verifiedState != null) {
+      preBlockState = verifiedState;
+    } else {
+      preBlockState = preBlockTransition.apply(parentState, block.getSlot());
+      VerificationResult blockVerification = blockVerifier.verify(block, preBlockState);
+      if (!blockVerification.isPassed()) {
+        logger.warn("Block verification failed: " + blockVerification + ": " +
+            block.toString(spec.getConstants(), parentState.getGenesisTime(), spec::signing_root));
+        return Pair.with(ImportResult.InvalidBlock, null);
+      }
     }
 
-    BeaconStateEx postBlockState = blockTransition.apply(preBlockState, block);
+    return store(block, parentState, preBlockState, blockTransition.apply(preBlockState, block));
+  }
 
+  /**
+   * Verifies the post block state of a verified block and puts a new tuple to the storage, the
+   * tuple is not committed.
+   */
+  private Pair<ImportResult, BeaconTupleDetails> store(
+      BeaconBlock block,
+      BeaconStateEx parentState,
+      BeaconStateEx preBlockState,
+      BeaconStateEx postBlockState) {
     VerificationResult stateVerification =
         stateVerifier.verify(postBlockState, block);
     if (!stateVerification.isPassed()) {
       logger.warn("State verification failed: " + stateVerification);
-      return ImportResult.StateMismatch;
+      return Pair.with(ImportResult.StateMismatch, null);
     }
 
     BeaconTuple newTuple = BeaconTuple.of(block, postBlockState);
     tupleStorage.put(newTuple);
     updateFinality(parentState, postBlockState);
 
-    chainStorage.commit();
-
-    long total = System.nanoTime() - s;
-
     this.recentlyProcessed = newTuple;
-    blockStream.onNext(new BeaconTupleDetails(block, preBlockState, postBlockState, postBlockState));
 
-    logger.info(
-        "new block inserted: {} in {}s",
-        newTuple
-            .getBlock()
-            .toString(
-                spec.getConstants(),
-                newTuple.getState().getGenesisTime(),
-                spec::signing_root),
-        String.format("%.3f", ((double) total) / 1_000_000_000d));
-
-    return ImportResult.OK;
+    return Pair.with(
+        ImportResult.OK,
+        new BeaconTupleDetails(block, preBlockState, postBlockState, postBlockState));
   }
 
   @Override
@@ -168,6 +465,10 @@ public class DefaultBeaconChain implements MutableBeaconChain {
   private void updateFinality(BeaconState previous, BeaconState current) {
     if (!previous.getFinalizedCheckpoint().equals(current.getFinalizedCheckpoint())) {
       chainStorage.getFinalizedStorage().set(current.getFinalizedCheckpoint());
+      if (pruner != null) {
+        pruner.onFinalized(
+            previous.getFinalizedCheckpoint(), current.getFinalizedCheckpoint(), this);
+      }
     }
     if (!previous.getCurrentJustifiedCheckpoint().equals(current.getCurrentJustifiedCheckpoint())) {
       chainStorage.getJustifiedStorage().set(current.getCurrentJustifiedCheckpoint());
@@ -191,6 +492,28 @@ public class DefaultBeaconChain implements MutableBeaconChain {
     return chainStorage.getBlockStorage().get(block.getParentRoot()).isPresent();
   }
 
+  /**
+   * A block which parent precedes the finalized block can never become canonical. Moreover, a
+   * state of the parent might have been already pruned.
+   *
+   * @param block block to run check on.
+   * @return true if block should be rejected, false otherwise.
+   */
+  private boolean rejectedByFinality(BeaconBlock block) {
+    Optional<SlotNumber> finalizedSlot =
+        chainStorage
+            .getFinalizedStorage()
+            .get()
+            .flatMap(checkpoint -> chainStorage.getBlockStorage().get(checkpoint.getRoot()))
+            .map(BeaconBlock::getSlot);
+    Optional<SlotNumber> parentSlot =
+        chainStorage.getBlockStorage().get(block.getParentRoot()).map(BeaconBlock::getSlot);
+
+    return finalizedSlot.isPresent()
+        && parentSlot.isPresent()
+        && parentSlot.get().less(finalizedSlot.get());
+  }
+
   /**
    * There is no sense in importing block with a slot that is too far in the future.
    *
@@ -208,4 +531,17 @@ public class DefaultBeaconChain implements MutableBeaconChain {
   public Publisher<BeaconTupleDetails> getBlockStatesStream() {
     return blockStream;
   }
+
+  /** A block which passed verification along with its states. */
+  private static class VerifiedBlock {
+    private final BeaconBlock block;
+    private final BeaconStateEx preBlockState;
+    private final BeaconStateEx postBlockState;
+
+    VerifiedBlock(BeaconBlock block, BeaconStateEx preBlockState, BeaconStateEx postBlockState) {
+      this.block = block;
+      this.preBlockState = preBlockState;
+      this.postBlockState = postBlockState;
+    }
+  }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.ethereum.beacon.chain.CheckpointStateCache.CheckpointState;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.HeadFunction;
@@ -28,11 +29,16 @@ public class LMDGhostHeadFunction implements HeadFunction {
 
   private final BeaconChainStorage chainStorage;
   private final BeaconChainSpec spec;
+  private final CheckpointStateCache checkpointStates;
   private final int SEARCH_LIMIT = Integer.MAX_VALUE;
 
-  public LMDGhostHeadFunction(BeaconChainStorage chainStorage, BeaconChainSpec spec) {
+  public LMDGhostHeadFunction(
+      BeaconChainStorage chainStorage,
+      BeaconChainSpec spec,
+      CheckpointStateCache checkpointStates) {
     this.chainStorage = chainStorage;
     this.spec = spec;
+    this.checkpointStates = checkpointStates;
   }
 
   @Override
@@ -73,6 +79,11 @@ public class LMDGhostHeadFunction implements HeadFunction {
         return chainStorage.getStateStorage().get(root);
       }
 
+      @Override
+      public Optional<BeaconState> getCheckpointState(Checkpoint checkpoint) {
+        return checkpointStates.get(checkpoint).map(CheckpointState::getState);
+      }
+
       @Override
       public Optional<LatestMessage> getLatestMessage(ValidatorIndex index) {
         return latestAttestationStorage.apply(index);
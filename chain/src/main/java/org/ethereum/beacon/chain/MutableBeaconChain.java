@@ -1,5 +1,7 @@
 package org.ethereum.beacon.chain;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import org.ethereum.beacon.core.BeaconBlock;
 
 public interface MutableBeaconChain extends BeaconChain {
@@ -21,4 +23,17 @@ public interface MutableBeaconChain extends BeaconChain {
    * @return whether a block was inserted or not.
    */
   ImportResult insert(BeaconBlock block);
+
+  /**
+   * Inserts a number of blocks into a chain, blocks are expected to go in order they should be
+   * imported in, i.e. parents precede their children. Intended for the long range sync.
+   *
+   * <p>Default implementation inserts blocks one by one.
+   *
+   * @param blocks a list of blocks.
+   * @return import results in the same order as the blocks are.
+   */
+  default List<ImportResult> insertBatch(List<BeaconBlock> blocks) {
+    return blocks.stream().map(this::insert).collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,229 @@
+package org.ethereum.beacon.chain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.ethereum.beacon.core.types.SlotNumber;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+
+/**
+ * A block tree kept in flat arrays, used by {@link ProtoArrayHeadFunction}.
+ *
+ * <p>Blocks are appended in the order they are added, hence, a parent always has a lower index
+ * than its children. Each block keeps an index of its parent, a weight of its subtree and pointers
+ * to its best child and best descendant. Votes are applied as balance deltas to voted blocks, after
+ * what a single backward pass propagates weights to ancestors and another one updates best
+ * children. A head of any block is then looked up in O(1) as its best descendant.
+ *
+ * <p>The best child is the one with the greatest weight, ties are broken in favour of the child
+ * with lower slot and then in favour of the child that has been added first. It's the same order
+ * {@link org.ethereum.beacon.chain.storage.BeaconBlockStorage#getChildren(Hash32, int)} returns
+ * children in.
+ *
+ * <p><strong>Note:</strong> this class is not thread-safe.
+ */
+public class ProtoArray {
+
+  private static final int NONE = -1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Map<Hash32, Integer> indices = new HashMap<>();
+  private Hash32[] roots = new Hash32[INITIAL_CAPACITY];
+  private long[] slots = new long[INITIAL_CAPACITY];
+  private int[] parents = new int[INITIAL_CAPACITY];
+  private long[] weights = new long[INITIAL_CAPACITY];
+  private int[] bestChildren = new int[INITIAL_CAPACITY];
+  private int[] bestDescendants = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /**
+   * Creates an array with a single block which every other block must descend from.
+   *
+   * @param anchorRoot a root of the anchor block.
+   * @param anchorSlot a slot of the anchor block.
+   */
+  public ProtoArray(Hash32 anchorRoot, SlotNumber anchorSlot) {
+    append(anchorRoot, NONE, anchorSlot.getValue());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** @return a slot of the anchor block. */
+  public SlotNumber getAnchorSlot() {
+    return SlotNumber.of(slots[0]);
+  }
+
+  public boolean contains(Hash32 root) {
+    return indices.containsKey(root);
+  }
+
+  /**
+   * @param root a block root.
+   * @return an index of the block or {@code -1} if the block is unknown.
+   */
+  public int indexOf(Hash32 root) {
+    Integer index = indices.get(root);
+    return index == null ? NONE : index;
+  }
+
+  /**
+   * Adds a block to the tree.
+   *
+   * @param root a block root.
+   * @param parentRoot a root of its parent.
+   * @param slot a block slot.
+   * @return {@code false} if the parent is unknown and the block has been skipped, {@code true}
+   *     otherwise.
+   */
+  public boolean onBlock(Hash32 root, Hash32 parentRoot, SlotNumber slot) {
+    if (contains(root)) {
+      return true;
+    }
+    int parent = indexOf(parentRoot);
+    if (parent == NONE) {
+      return false;
+    }
+    int index = append(root, parent, slot.getValue());
+    if (isBetterChild(index, bestChildren[parent])) {
+      // a new leaf has zero weight, usually it only wins when the parent has no other children
+      bestChildren[parent] = index;
+      updateBestDescendants(parent);
+    }
+    return true;
+  }
+
+  private int append(Hash32 root, int parent, long slot) {
+    if (size == roots.length) {
+      int capacity = size * 2;
+      roots = Arrays.copyOf(roots, capacity);
+      slots = Arrays.copyOf(slots, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      weights = Arrays.copyOf(weights, capacity);
+      bestChildren = Arrays.copyOf(bestChildren, capacity);
+      bestDescendants = Arrays.copyOf(bestDescendants, capacity);
+    }
+    int index = size++;
+    roots[index] = root;
+    slots[index] = slot;
+    parents[index] = parent;
+    weights[index] = 0;
+    bestChildren[index] = NONE;
+    bestDescendants[index] = index;
+    indices.put(root, index);
+    return index;
+  }
+
+  private void updateBestDescendants(int index) {
+    for (int i = index; i != NONE; i = parents[i]) {
+      int bestDescendant = bestDescendants[bestChildren[i]];
+      if (bestDescendants[i] == bestDescendant) {
+        break;
+      }
+      bestDescendants[i] = bestDescendant;
+      if (parents[i] != NONE && bestChildren[parents[i]] != i) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Applies vote changes and updates weights and best descendants of all the blocks.
+   *
+   * @param deltas balance deltas of votes indexed the same way blocks are, a delta of a block
+   *     doesn't include deltas of its descendants.
+   */
+  public void applyScoreChanges(long[] deltas) {
+    if (deltas.length != size) {
+      throw new IllegalArgumentException(
+          "Expected " + size + " deltas but got " + deltas.length);
+    }
+
+    long[] subtreeDeltas = Arrays.copyOf(deltas, size);
+    for (int i = size - 1; i >= 0; i--) {
+      weights[i] += subtreeDeltas[i];
+      if (parents[i] != NONE) {
+        subtreeDeltas[parents[i]] += subtreeDeltas[i];
+      }
+    }
+
+    Arrays.fill(bestChildren, 0, size, NONE);
+    for (int i = size - 1; i >= 0; i--) {
+      // all children of the block have greater indices and have already been visited
+      bestDescendants[i] = bestChildren[i] == NONE ? i : bestDescendants[bestChildren[i]];
+      int parent = parents[i];
+      if (parent != NONE && isBetterChild(i, bestChildren[parent])) {
+        bestChildren[parent] = i;
+      }
+    }
+  }
+
+  private boolean isBetterChild(int candidate, int best) {
+    if (best == NONE) {
+      return true;
+    }
+    if (weights[candidate] != weights[best]) {
+      return weights[candidate] > weights[best];
+    }
+    if (slots[candidate] != slots[best]) {
+      return slots[candidate] < slots[best];
+    }
+    return candidate < best;
+  }
+
+  /**
+   * @param root a block root.
+   * @return a root of the best descendant of the block or the block itself if it has no children.
+   * @throws IllegalArgumentException if the block is unknown.
+   */
+  public Hash32 findHead(Hash32 root) {
+    int index = indexOf(root);
+    if (index == NONE) {
+      throw new IllegalArgumentException("Unknown block " + root);
+    }
+    return roots[bestDescendants[index]];
+  }
+
+  /**
+   * Removes all the blocks that don't descend from given block. Weights of remaining blocks are
+   * kept intact.
+   *
+   * @param anchorRoot a root of the new anchor block.
+   * @throws IllegalArgumentException if the block is unknown.
+   */
+  public void prune(Hash32 anchorRoot) {
+    int anchor = indexOf(anchorRoot);
+    if (anchor == NONE) {
+      throw new IllegalArgumentException("Unknown block " + anchorRoot);
+    }
+
+    // descendants always have greater indices than their ancestors
+    int[] newIndices = new int[size];
+    Arrays.fill(newIndices, NONE);
+    newIndices[anchor] = 0;
+    int newSize = 1;
+    for (int i = anchor + 1; i < size; i++) {
+      if (newIndices[parents[i]] != NONE) {
+        newIndices[i] = newSize++;
+      }
+    }
+
+    indices.clear();
+    for (int i = anchor; i < size; i++) {
+      int index = newIndices[i];
+      if (index == NONE) {
+        continue;
+      }
+      roots[index] = roots[i];
+      slots[index] = slots[i];
+      parents[index] = i == anchor ? NONE : newIndices[parents[i]];
+      weights[index] = weights[i];
+      bestChildren[index] = bestChildren[i] == NONE ? NONE : newIndices[bestChildren[i]];
+      bestDescendants[index] = newIndices[bestDescendants[i]];
+      indices.put(roots[index], index);
+    }
+    Arrays.fill(roots, newSize, size, null);
+    size = newSize;
+  }
+}
@@ -0,0 +1,153 @@
+package org.ethereum.beacon.chain;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.function.Function;
+import org.ethereum.beacon.chain.CheckpointStateCache.CheckpointState;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.HeadFunction;
+import org.ethereum.beacon.consensus.spec.ForkChoice.LatestMessage;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+
+/**
+ * LMD GHOST fork choice backed by a {@link ProtoArray}.
+ *
+ * <p>Yields the same heads as {@link LMDGhostHeadFunction} but, instead of walking the tree and
+ * counting votes of all the validators for each child, keeps weights of non-finalized blocks
+ * between calls and applies only the votes that have been changed since the previous call, see
+ * {@link VoteTracker}.
+ *
+ * <p>The array is anchored at the justified block and is loaded from the storage on the first call
+ * and each time the justified block is missing in it. New blocks are passed via {@link
+ * #onBlock(BeaconBlock)}, blocks which don't descend from the justified one are pruned once in a
+ * while.
+ */
+public class ProtoArrayHeadFunction implements HeadFunction {
+
+  /** Number of blocks preceding the justified one which triggers pruning. */
+  static final int PRUNE_THRESHOLD = 256;
+
+  private final BeaconChainStorage chainStorage;
+  private final BeaconChainSpec spec;
+
+  private final VoteTracker votes;
+  private final CheckpointStateCache checkpointStates;
+
+  private ProtoArray protoArray;
+
+  /**
+   * @param chainStorage chain storage.
+   * @param spec beacon chain spec.
+   * @param votes latest messages of validators.
+   * @param checkpointStates checkpoint states.
+   */
+  public ProtoArrayHeadFunction(
+      BeaconChainStorage chainStorage,
+      BeaconChainSpec spec,
+      VoteTracker votes,
+      CheckpointStateCache checkpointStates) {
+    this.chainStorage = chainStorage;
+    this.spec = spec;
+    this.votes = votes;
+    this.checkpointStates = checkpointStates;
+  }
+
+  /**
+   * If the parent is unknown to the array, which happens when blocks are imported in batches and
+   * only the last one of them is passed, then missing ancestors are loaded from the storage.
+   */
+  @Override
+  public synchronized void onBlock(BeaconBlock block) {
+    if (protoArray == null
+        || protoArray.onBlock(spec.signing_root(block), block.getParentRoot(), block.getSlot())) {
+      return;
+    }
+
+    Deque<BeaconBlock> ancestors = new ArrayDeque<>();
+    ancestors.push(block);
+    BeaconBlock ancestor = block;
+    while (!protoArray.contains(ancestor.getParentRoot())) {
+      Optional<BeaconBlock> parent =
+          chainStorage.getBlockStorage().get(ancestor.getParentRoot());
+      // doesn't descend from the anchor of the array
+      if (!parent.isPresent() || parent.get().getSlot().lessEqual(protoArray.getAnchorSlot())) {
+        return;
+      }
+      ancestor = parent.get();
+      ancestors.push(ancestor);
+    }
+    for (BeaconBlock b : ancestors) {
+      protoArray.onBlock(spec.signing_root(b), b.getParentRoot(), b.getSlot());
+    }
+  }
+
+  /**
+   * Latest messages are read from the vote tracker given upon construction, which is expected to
+   * be the one backing {@code latestMessageStorage}.
+   */
+  @Override
+  public synchronized BeaconBlock getHead(
+      Function<ValidatorIndex, Optional<LatestMessage>> latestMessageStorage) {
+    Checkpoint justified =
+        chainStorage
+            .getJustifiedStorage()
+            .get()
+            .orElseThrow(() -> new RuntimeException("Justified root is not found"));
+    BeaconBlock justifiedBlock =
+        chainStorage
+            .getBlockStorage()
+            .get(justified.getRoot())
+            .orElseThrow(() -> new RuntimeException("Justified block is not found"));
+
+    if (protoArray == null || !protoArray.contains(justified.getRoot())) {
+      load(justified.getRoot(), justifiedBlock);
+    } else if (protoArray.indexOf(justified.getRoot()) >= PRUNE_THRESHOLD) {
+      protoArray.prune(justified.getRoot());
+    }
+
+    applyVotes(justified);
+    Hash32 headRoot = protoArray.findHead(justified.getRoot());
+
+    return chainStorage
+        .getBlockStorage()
+        .get(headRoot)
+        .orElseThrow(() -> new RuntimeException("Head block is not found: " + headRoot));
+  }
+
+  /** Loads all the descendants of the justified block from the storage. */
+  private void load(Hash32 justifiedRoot, BeaconBlock justifiedBlock) {
+    protoArray = new ProtoArray(justifiedRoot, justifiedBlock.getSlot());
+    votes.resetCurrentVotes();
+
+    Deque<Hash32> roots = new ArrayDeque<>();
+    roots.add(justifiedRoot);
+    while (!roots.isEmpty()) {
+      Hash32 parent = roots.poll();
+      for (BeaconBlock child :
+          chainStorage.getBlockStorage().getChildren(parent, Integer.MAX_VALUE)) {
+        Hash32 root = spec.signing_root(child);
+        protoArray.onBlock(root, parent, child.getSlot());
+        roots.add(root);
+      }
+    }
+  }
+
+  /**
+   * Applies votes changed since the previous call to weights of the array.
+   *
+   * <p>Validator set and balances are taken from the justified checkpoint state.
+   */
+  private void applyVotes(Checkpoint justified) {
+    long[] balances =
+        checkpointStates
+            .get(justified)
+            .map(CheckpointState::getActiveBalances)
+            .orElse(new long[0]);
+    protoArray.applyScoreChanges(votes.computeDeltas(protoArray, balances));
+  }
+}
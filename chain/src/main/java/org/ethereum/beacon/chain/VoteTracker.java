@@ -0,0 +1,114 @@
+package org.ethereum.beacon.chain;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import org.ethereum.beacon.consensus.spec.ForkChoice.LatestMessage;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * Keeps latest messages of validators in arrays indexed by validator index.
+ *
+ * <p>Each validator has a next vote, which is its latest message, and a current vote, which is the
+ * one that has been applied to fork choice weights along with the validator balance. Next votes
+ * are updated in place as attestations arrive, {@link #computeDeltas(ProtoArray, long[])} moves
+ * them to current ones and yields weight changes of blocks.
+ */
+public class VoteTracker {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private Hash32[] nextRoots = new Hash32[INITIAL_CAPACITY];
+  private long[] nextEpochs = new long[INITIAL_CAPACITY];
+  private Hash32[] currentRoots = new Hash32[INITIAL_CAPACITY];
+  private long[] currentBalances = new long[INITIAL_CAPACITY];
+
+  /**
+   * Registers a vote of a validator, the vote replaces the previous one if its target epoch is
+   * greater.
+   *
+   * @param index validator index.
+   * @param root a root of the block voted for.
+   * @param targetEpoch target epoch of the attestation.
+   */
+  public synchronized void processVote(ValidatorIndex index, Hash32 root, EpochNumber targetEpoch) {
+    int i = index.intValue();
+    ensureCapacity(i + 1);
+    if (nextRoots[i] == null || targetEpoch.getValue() > nextEpochs[i]) {
+      nextRoots[i] = root;
+      nextEpochs[i] = targetEpoch.getValue();
+    }
+  }
+
+  public synchronized Optional<LatestMessage> getLatestMessage(ValidatorIndex index) {
+    int i = index.intValue();
+    if (i >= nextRoots.length || nextRoots[i] == null) {
+      return Optional.empty();
+    }
+    EpochNumber epoch = EpochNumber.castFrom(UInt64.valueOf(nextEpochs[i]));
+    return Optional.of(new LatestMessage(epoch, nextRoots[i]));
+  }
+
+  /**
+   * Computes changes of block weights since the previous call and makes next votes current.
+   *
+   * <p>A vote of a validator gets weight of its balance if the block voted for is in the array, the
+   * weight is moved from the block voted for previously, if any. Votes for blocks that are missing
+   * in the array are kept in next votes until the block is added.
+   *
+   * @param blocks blocks.
+   * @param balances balances of validators which votes are counted, zero balance excludes a vote.
+   * @return deltas indexed the same way blocks are in the array.
+   */
+  public synchronized long[] computeDeltas(ProtoArray blocks, long[] balances) {
+    ensureCapacity(balances.length);
+    long[] deltas = new long[blocks.size()];
+    for (int i = 0; i < nextRoots.length; i++) {
+      Hash32 root = null;
+      long balance = 0;
+      if (i < balances.length
+          && balances[i] > 0
+          && nextRoots[i] != null
+          && blocks.contains(nextRoots[i])) {
+        root = nextRoots[i];
+        balance = balances[i];
+      }
+      if (Objects.equals(root, currentRoots[i]) && balance == currentBalances[i]) {
+        continue;
+      }
+
+      if (currentRoots[i] != null) {
+        int current = blocks.indexOf(currentRoots[i]);
+        // removed blocks don't contribute to weights of remaining ones
+        if (current >= 0) {
+          deltas[current] -= currentBalances[i];
+        }
+      }
+      if (root != null) {
+        deltas[blocks.indexOf(root)] += balance;
+      }
+      currentRoots[i] = root;
+      currentBalances[i] = balance;
+    }
+    return deltas;
+  }
+
+  /** Forgets current votes, must be called when weights of blocks are reset. */
+  public synchronized void resetCurrentVotes() {
+    Arrays.fill(currentRoots, null);
+    Arrays.fill(currentBalances, 0);
+  }
+
+  private void ensureCapacity(int size) {
+    if (size > nextRoots.length) {
+      int capacity = Math.max(size, nextRoots.length * 2);
+      nextRoots = Arrays.copyOf(nextRoots, capacity);
+      nextEpochs = Arrays.copyOf(nextEpochs, capacity);
+      currentRoots = Arrays.copyOf(currentRoots, capacity);
+      currentBalances = Arrays.copyOf(currentBalances, capacity);
+    }
+  }
+}
@@ -2,36 +2,35 @@ package org.ethereum.beacon.chain.observer;
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ethereum.beacon.chain.BeaconChainHead;
 import org.ethereum.beacon.chain.BeaconTuple;
 import org.ethereum.beacon.chain.BeaconTupleDetails;
+import org.ethereum.beacon.chain.CheckpointStateCache;
 import org.ethereum.beacon.chain.LMDGhostHeadFunction;
+import org.ethereum.beacon.chain.VoteTracker;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
 import org.ethereum.beacon.chain.storage.BeaconTupleStorage;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.BeaconStateEx;
 import org.ethereum.beacon.consensus.HeadFunction;
-import org.ethereum.beacon.consensus.spec.ForkChoice.LatestMessage;
 import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.BeaconState;
 import org.ethereum.beacon.core.operations.Attestation;
+import org.ethereum.beacon.core.operations.attestation.AttestationData;
 import org.ethereum.beacon.core.state.PendingAttestation;
 import org.ethereum.beacon.core.types.EpochNumber;
 import org.ethereum.beacon.core.types.SlotNumber;
 import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.db.source.SingleValueSource;
 import org.ethereum.beacon.schedulers.Scheduler;
 import org.ethereum.beacon.schedulers.Schedulers;
 import org.ethereum.beacon.stream.SimpleProcessor;
@@ -40,6 +39,7 @@ import org.ethereum.beacon.util.cache.LRUCache;
 import org.javatuples.Pair;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import tech.pegasys.artemis.ethereum.core.Hash32;
 
 public class ObservableStateProcessorImpl implements ObservableStateProcessor {
   private static final Logger logger = LogManager.getLogger(ObservableStateProcessorImpl.class);
@@ -50,8 +50,10 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
   private final int maxEmptySlotTransitions;
 
   private final BeaconTupleStorage tupleStorage;
+  private final SingleValueSource<Hash32> headStorage;
 
   private final HeadFunction headFunction;
+  private final VoteTracker voteTracker;
   private final BeaconChainSpec spec;
   private final EmptySlotTransition emptySlotTransition;
 
@@ -100,10 +102,44 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
       EmptySlotTransition emptySlotTransition,
       Schedulers schedulers,
       int maxEmptySlotTransitions) {
+    this(
+        chainStorage,
+        slotTicker,
+        attestationPublisher,
+        beaconPublisher,
+        spec,
+        emptySlotTransition,
+        schedulers,
+        maxEmptySlotTransitions,
+        new LMDGhostHeadFunction(
+            chainStorage,
+            spec,
+            new CheckpointStateCache(chainStorage, spec, emptySlotTransition)),
+        new VoteTracker());
+  }
+
+  /**
+   * @param headFunction a head function.
+   * @param voteTracker a tracker of latest messages, the processor feeds it with votes from
+   *     attestations and passes it to the head function.
+   */
+  public ObservableStateProcessorImpl(
+      BeaconChainStorage chainStorage,
+      Publisher<SlotNumber> slotTicker,
+      Publisher<Attestation> attestationPublisher,
+      Publisher<BeaconTupleDetails> beaconPublisher,
+      BeaconChainSpec spec,
+      EmptySlotTransition emptySlotTransition,
+      Schedulers schedulers,
+      int maxEmptySlotTransitions,
+      HeadFunction headFunction,
+      VoteTracker voteTracker) {
     this.tupleStorage = chainStorage.getTupleStorage();
+    this.headStorage = chainStorage.getHeadStorage();
     this.spec = spec;
     this.emptySlotTransition = emptySlotTransition;
-    this.headFunction = new LMDGhostHeadFunction(chainStorage, spec);
+    this.headFunction = headFunction;
+    this.voteTracker = voteTracker;
     this.slotTicker = slotTicker;
     this.attestationPublisher = attestationPublisher;
     this.beaconPublisher = beaconPublisher;
@@ -154,10 +190,18 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
           spec.get_attesting_indices(
               latestState, attestation.getData(), attestation.getAggregationBits());
 
-      participants.forEach(index -> addValidatorAttestation(index, attestation));
+      participants.forEach(
+          index -> {
+            addValidatorAttestation(index, attestation);
+            addValidatorVote(index, attestation.getData());
+          });
     }
   }
 
+  private void addValidatorVote(ValidatorIndex index, AttestationData data) {
+    voteTracker.processVote(index, data.getBeaconBlockRoot(), data.getTarget().getEpoch());
+  }
+
   private synchronized void addValidatorAttestation(ValidatorIndex index, Attestation attestation) {
     attestationCache.put(Pair.with(index, attestation.getData().getTarget().getEpoch()), attestation);
   }
@@ -184,8 +228,9 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
     tupleDetails.get(beaconTuple.getBlock(), (b) -> beaconTuple);
     runTaskInSeparateThread(
         () -> {
+          headFunction.onBlock(beaconTuple.getBlock());
           addAttestationsFromState(beaconTuple.getState());
-          updateHead(beaconTuple.getState());
+          updateHead();
         });
   }
 
@@ -203,6 +248,7 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
       participants.forEach(
           index -> {
             removeValidatorAttestation(index, targetEpoch);
+            addValidatorVote(index, pendingAttestation.getData());
           });
     }
   }
@@ -217,12 +263,8 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
         .removeIf(entry -> entry.getValue().getData().getTarget().getEpoch().less(targetEpoch));
   }
 
-  private synchronized Map<ValidatorIndex, List<Attestation>> copyAttestationCache() {
-    return attestationCache.entrySet().stream()
-        .collect(
-            Collectors.groupingBy(
-                e -> e.getKey().getValue0(),
-                Collectors.mapping(Entry::getValue, Collectors.toList())));
+  private synchronized List<Attestation> copyAttestationCache() {
+    return new ArrayList<>(attestationCache.values());
   }
 
   private BeaconTupleDetails head;
@@ -230,6 +272,7 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
 
   private void newHead(BeaconTupleDetails head) {
     this.head = head;
+    headStorage.set(spec.signing_root(head.getBlock()));
     headStream.onNext(new BeaconChainHead(this.head));
 
     if (latestState == null) {
@@ -295,9 +338,8 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
   }
 
   private PendingOperations getPendingOperations(
-      BeaconState state, Map<ValidatorIndex, List<Attestation>> attestationMap) {
-    List<Attestation> attestations = attestationMap.values().stream()
-        .flatMap(Collection::stream)
+      BeaconState state, List<Attestation> pendingAttestations) {
+    List<Attestation> attestations = pendingAttestations.stream()
         .filter(attestation ->
             attestation.getData().getTarget().getEpoch().lessEqual(spec.get_current_epoch(state)))
         .filter(attestation -> spec.verify_attestation(state, attestation))
@@ -307,21 +349,8 @@ public class ObservableStateProcessorImpl implements ObservableStateProcessor {
     return new PendingOperationsState(attestations);
   }
 
-  private void updateHead(BeaconState state) {
-    Map<ValidatorIndex, List<Attestation>> attestationCacheCopy = copyAttestationCache();
-    BeaconBlock newHead =
-        headFunction.getHead(
-            validatorIndex -> {
-              List<Attestation> validatorAttestations =
-                  attestationCacheCopy.getOrDefault(validatorIndex, Collections.emptyList());
-
-              return validatorAttestations.stream()
-                  .max(Comparator.comparing(attestation -> attestation.getData().getTarget().getEpoch()))
-                  .flatMap(a -> Optional.of(
-                      new LatestMessage(
-                          spec.compute_epoch_of_slot(spec.get_attestation_data_slot(state, a.getData())),
-                          a.getData().getBeaconBlockRoot())));
-            });
+  private void updateHead() {
+    BeaconBlock newHead = headFunction.getHead(voteTracker::getLatestMessage);
     if (this.head != null && this.head.getBlock().equals(newHead)) {
       return; // == old
     }
@@ -4,7 +4,10 @@ import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.types.SlotNumber;
 import tech.pegasys.artemis.ethereum.core.Hash32;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import tech.pegasys.artemis.util.uint.UInt64;
+import tech.pegasys.artemis.util.uint.UInt64s;
 
 public interface BeaconBlockStorage extends HashKeyStorage<Hash32, BeaconBlock> {
   /**
@@ -18,6 +21,28 @@ public interface BeaconBlockStorage extends HashKeyStorage<Hash32, BeaconBlock>
 
   List<Hash32> getSlotBlocks(SlotNumber slot);
 
+  /**
+   * Returns hashes of blocks stored in a range of slots, slots having no blocks are omitted.
+   *
+   * @param from first slot, inclusive.
+   * @param to last slot, exclusive, may exceed {@link #getMaxSlot()}.
+   * @return slot -> block hashes map ordered by slot.
+   */
+  default NavigableMap<SlotNumber, List<Hash32>> getSlotBlocks(SlotNumber from, SlotNumber to) {
+    NavigableMap<SlotNumber, List<Hash32>> ret = new TreeMap<>();
+    if (isEmpty()) {
+      return ret;
+    }
+    SlotNumber end = UInt64s.min(to, getMaxSlot().increment());
+    for (SlotNumber slot = from; slot.less(end); slot = slot.increment()) {
+      List<Hash32> hashes = getSlotBlocks(slot);
+      if (!hashes.isEmpty()) {
+        ret.put(slot, hashes);
+      }
+    }
+    return ret;
+  }
+
   /**
    * Searches for all children with limit slot distance from parent
    *
@@ -26,4 +51,12 @@ public interface BeaconBlockStorage extends HashKeyStorage<Hash32, BeaconBlock>
    * @return list of children
    */
   List<BeaconBlock> getChildren(Hash32 parent, int limit);
+
+  /**
+   * Moves a finalized block to a cold storage if the implementation has one, the block remains
+   * accessible by its hash. Does nothing if the block is missing or has been already archived.
+   *
+   * @param hash a hash of finalized block.
+   */
+  default void archive(Hash32 hash) {}
 }
@@ -20,5 +20,11 @@ public interface BeaconChainStorage {
 
   SingleValueSource<Checkpoint> getFinalizedStorage();
 
+  /**
+   * A root of the recent chain head, it's updated by fork choice and gets persisted along with the
+   * next commit. Used to restore the chain from the head on restart.
+   */
+  SingleValueSource<Hash32> getHeadStorage();
+
   void commit();
 }
@@ -4,27 +4,53 @@ import static java.util.Collections.singletonList;
 
 import com.google.common.base.MoreObjects;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.TreeMap;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.ethereum.beacon.chain.storage.BeaconBlockStorage;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.types.SlotNumber;
 import org.ethereum.beacon.db.Database;
+import org.ethereum.beacon.db.source.CloseableIterator;
 import org.ethereum.beacon.db.source.CodecSource;
 import org.ethereum.beacon.db.source.DataSource;
 import org.ethereum.beacon.db.source.HoleyList;
+import org.ethereum.beacon.db.source.ReadCache;
 import org.ethereum.beacon.db.source.impl.DataSourceList;
 import org.ethereum.beacon.ssz.annotation.SSZ;
 import org.ethereum.beacon.ssz.annotation.SSZSerializable;
 import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.Bytes8;
 import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.BytesValues;
 import tech.pegasys.artemis.util.uint.UInt64s;
 
 public class BeaconBlockStorageImpl implements BeaconBlockStorage {
 
+  /** Default max size of decoded blocks cache in bytes. */
+  public static final long DEFAULT_CACHE_SIZE = 32L << 20;
+  /**
+   * Max size of recently used children lists in bytes. Keeps the lists of non-finalized blocks,
+   * which are the ones being queried, in memory.
+   */
+  public static final long CHILDREN_CACHE_SIZE = 1L << 20;
+  /**
+   * A key of children storage entry which holds a version of children index, the entry is absent
+   * in databases created before the index has been introduced. The key is not 32 bytes long, hence,
+   * it never collides with block hashes.
+   */
+  static final BytesValue INDEX_VERSION_KEY = BytesValue.wrap("index-version".getBytes());
+  static final BytesValue INDEX_VERSION = BytesValue.of(1);
+
   private final ObjectHasher<Hash32> objectHasher;
 
   @SSZSerializable
@@ -58,8 +84,49 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
     }
   }
 
+  /** Hashes of children of a block. */
+  @SSZSerializable
+  public static class BlockChildren {
+
+    @SSZ private final List<Hash32> childHashes;
+
+    BlockChildren(Hash32 childHash) {
+      this(singletonList(childHash));
+    }
+
+    public BlockChildren(List<Hash32> childHashes) {
+      this.childHashes = childHashes;
+    }
+
+    public List<Hash32> getChildHashes() {
+      return childHashes;
+    }
+
+    BlockChildren addChild(Hash32 child) {
+      List<Hash32> children = new ArrayList<>(getChildHashes());
+      children.add(child);
+      return new BlockChildren(children);
+    }
+
+    BlockChildren removeChild(Hash32 child) {
+      List<Hash32> children = new ArrayList<>(getChildHashes());
+      children.remove(child);
+      return new BlockChildren(children);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("childHashes", childHashes)
+          .toString();
+    }
+  }
+
   private final DataSource<Hash32, BeaconBlock> rawBlocks;
   private final HoleyList<SlotBlocks> blockIndex;
+  @Nullable private final DataSource<Hash32, BlockChildren> childrenIndex;
+  @Nullable private final DataSource<SlotNumber, BeaconBlock> archivedBlocks;
+  @Nullable private final DataSource<Hash32, SlotNumber> archivedSlots;
   private final boolean checkBlockExistOnAdd;
   private final boolean checkParentExistOnAdd;
 
@@ -84,9 +151,66 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
       HoleyList<SlotBlocks> blockIndex,
       boolean checkBlockExistOnAdd,
       boolean checkParentExistOnAdd) {
+    this(objectHasher, rawBlocks, blockIndex, null, checkBlockExistOnAdd, checkParentExistOnAdd);
+  }
+
+  /**
+   * @param objectHasher object hasher
+   * @param rawBlocks hash -> block datasource
+   * @param blockIndex slot -> blocks datasource
+   * @param childrenIndex parent hash -> children datasource, if {@code null} children are looked
+   *     up by scanning {@code blockIndex}
+   * @param checkBlockExistOnAdd asserts that no duplicate blocks added (adds some overhead)
+   * @param checkParentExistOnAdd asserts that added block parent is already here (adds some
+   *     overhead)
+   */
+  public BeaconBlockStorageImpl(
+      ObjectHasher<Hash32> objectHasher,
+      DataSource<Hash32, BeaconBlock> rawBlocks,
+      HoleyList<SlotBlocks> blockIndex,
+      @Nullable DataSource<Hash32, BlockChildren> childrenIndex,
+      boolean checkBlockExistOnAdd,
+      boolean checkParentExistOnAdd) {
+    this(
+        objectHasher,
+        rawBlocks,
+        blockIndex,
+        childrenIndex,
+        null,
+        null,
+        checkBlockExistOnAdd,
+        checkParentExistOnAdd);
+  }
+
+  /**
+   * @param objectHasher object hasher
+   * @param rawBlocks hash -> block datasource
+   * @param blockIndex slot -> blocks datasource
+   * @param childrenIndex parent hash -> children datasource, if {@code null} children are looked
+   *     up by scanning {@code blockIndex}
+   * @param archivedBlocks slot -> finalized block archive, if {@code null} blocks are never
+   *     archived
+   * @param archivedSlots hash -> slot index of archived blocks, must be set along with {@code
+   *     archivedBlocks}
+   * @param checkBlockExistOnAdd asserts that no duplicate blocks added (adds some overhead)
+   * @param checkParentExistOnAdd asserts that added block parent is already here (adds some
+   *     overhead)
+   */
+  public BeaconBlockStorageImpl(
+      ObjectHasher<Hash32> objectHasher,
+      DataSource<Hash32, BeaconBlock> rawBlocks,
+      HoleyList<SlotBlocks> blockIndex,
+      @Nullable DataSource<Hash32, BlockChildren> childrenIndex,
+      @Nullable DataSource<SlotNumber, BeaconBlock> archivedBlocks,
+      @Nullable DataSource<Hash32, SlotNumber> archivedSlots,
+      boolean checkBlockExistOnAdd,
+      boolean checkParentExistOnAdd) {
     this.objectHasher = objectHasher;
     this.rawBlocks = rawBlocks;
     this.blockIndex = blockIndex;
+    this.childrenIndex = childrenIndex;
+    this.archivedBlocks = archivedBlocks;
+    this.archivedSlots = archivedSlots;
     this.checkBlockExistOnAdd = checkBlockExistOnAdd;
     this.checkParentExistOnAdd = checkParentExistOnAdd;
   }
@@ -104,9 +228,50 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
         .orElse(Collections.emptyList());
   }
 
+  @Override
+  public NavigableMap<SlotNumber, List<Hash32>> getSlotBlocks(SlotNumber from, SlotNumber to) {
+    NavigableMap<SlotNumber, List<Hash32>> ret = new TreeMap<>();
+    if (isEmpty()) {
+      return ret;
+    }
+    SlotNumber end = UInt64s.min(to, getMaxSlot().increment());
+    if (!from.less(end)) {
+      return ret;
+    }
+    try (CloseableIterator<Map.Entry<Long, SlotBlocks>> slots =
+        blockIndex.iterate(from.getValue(), end.getValue())) {
+      while (slots.hasNext()) {
+        Map.Entry<Long, SlotBlocks> slot = slots.next();
+        if (!slot.getValue().getBlockHashes().isEmpty()) {
+          ret.put(SlotNumber.of(slot.getKey()), new ArrayList<>(slot.getValue().getBlockHashes()));
+        }
+      }
+    }
+    return ret;
+  }
+
   @Override
   public Optional<BeaconBlock> get(@Nonnull Hash32 key) {
-    return rawBlocks.get(key);
+    Optional<BeaconBlock> block = rawBlocks.get(key);
+    if (!block.isPresent() && archivedSlots != null) {
+      return archivedSlots.get(key).flatMap(archivedBlocks::get);
+    }
+    return block;
+  }
+
+  @Override
+  public Map<Hash32, BeaconBlock> getAll(@Nonnull Collection<Hash32> keys) {
+    Map<Hash32, BeaconBlock> blocks = rawBlocks.getAll(keys);
+    if (archivedSlots == null || blocks.size() == keys.size()) {
+      return blocks;
+    }
+    Map<Hash32, BeaconBlock> ret = new HashMap<>(blocks);
+    for (Hash32 key : keys) {
+      if (!ret.containsKey(key)) {
+        archivedSlots.get(key).flatMap(archivedBlocks::get).ifPresent(b -> ret.put(key, b));
+      }
+    }
+    return ret;
   }
 
   @Override
@@ -130,6 +295,31 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
         newBlock.getSlot().getValue(),
         blocks -> blocks.addBlock(newBlockHash),
         () -> slotBlocks);
+    if (childrenIndex != null) {
+      addChild(newBlock.getParentRoot(), newBlockHash);
+    }
+  }
+
+  private void addChild(Hash32 parent, Hash32 child) {
+    Optional<BlockChildren> children = childrenIndex.get(parent);
+    // re-indexing might have been interrupted before a version of the index was stored
+    if (children.isPresent() && children.get().getChildHashes().contains(child)) {
+      return;
+    }
+    childrenIndex.put(
+        parent, children.map(c -> c.addChild(child)).orElseGet(() -> new BlockChildren(child)));
+  }
+
+  private void removeChild(Hash32 parent, Hash32 child) {
+    Optional<BlockChildren> children = childrenIndex.get(parent);
+    if (children.isPresent()) {
+      BlockChildren rest = children.get().removeChild(child);
+      if (rest.getChildHashes().isEmpty()) {
+        childrenIndex.remove(parent);
+      } else {
+        childrenIndex.put(parent, rest);
+      }
+    }
   }
 
   @Override
@@ -137,6 +327,7 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
     this.put(objectHasher.getHashTruncateLast(block), block);
   }
 
+  /** Archived blocks are finalized and are never removed. */
   @Override
   public void remove(@Nonnull Hash32 key) {
     Optional<BeaconBlock> block = rawBlocks.get(key);
@@ -155,9 +346,31 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
       blockIndex.put(
           block.get().getSlot().getValue(),
           new SlotBlocks(newBlocks));
+      if (childrenIndex != null) {
+        removeChild(block.get().getParentRoot(), key);
+        childrenIndex.remove(key);
+      }
     }
   }
 
+  @Override
+  public void archive(@Nonnull Hash32 hash) {
+    if (archivedBlocks == null) {
+      return;
+    }
+    Optional<BeaconBlock> block = rawBlocks.get(hash);
+    if (!block.isPresent()) {
+      return;
+    }
+    SlotNumber slot = block.get().getSlot();
+    // the block might have been appended to the archive before a crash
+    if (!archivedBlocks.get(slot).isPresent()) {
+      archivedBlocks.put(slot, block.get());
+    }
+    archivedSlots.put(hash, slot);
+    rawBlocks.remove(hash);
+  }
+
   @Override
   public List<BeaconBlock> getChildren(@Nonnull Hash32 parent, int limit) {
     Optional<BeaconBlock> block = get(parent);
@@ -165,21 +378,61 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
       return Collections.emptyList();
     }
     BeaconBlock start = block.get();
+    if (childrenIndex != null) {
+      return getIndexedChildren(start, parent, limit);
+    }
+    final List<Hash32> candidates = new ArrayList<>();
+    getSlotBlocks(start.getSlot().increment(), start.getSlot().plus(limit).increment())
+        .values()
+        .forEach(candidates::addAll);
+
+    // fetch all the candidates at once, keep them ordered by slot
+    Map<Hash32, BeaconBlock> blocks = getAll(candidates);
     final List<BeaconBlock> children = new ArrayList<>();
+    for (Hash32 hash : candidates) {
+      BeaconBlock candidate = blocks.get(hash);
+      if (candidate != null && candidate.getParentRoot().equals(parent)) {
+        children.add(candidate);
+      }
+    }
+
+    return children;
+  }
 
-    for (SlotNumber curSlot = start.getSlot().increment();
-        curSlot.lessEqual(UInt64s.min(start.getSlot().plus(limit), getMaxSlot()));
-        curSlot = curSlot.increment()) {
-      getSlotBlocks(curSlot).stream()
-          .map(this::get)
-          .filter(Optional::isPresent)
-          .filter(b -> b.get().getParentRoot().equals(parent))
-          .forEach(b -> children.add(b.get()));
+  private List<BeaconBlock> getIndexedChildren(BeaconBlock start, Hash32 parent, int limit) {
+    List<Hash32> hashes =
+        childrenIndex
+            .get(parent)
+            .map(BlockChildren::getChildHashes)
+            .orElse(Collections.emptyList());
+    if (hashes.isEmpty()) {
+      return Collections.emptyList();
     }
 
+    SlotNumber maxSlot = start.getSlot().plus(limit);
+    Map<Hash32, BeaconBlock> blocks = getAll(hashes);
+    final List<BeaconBlock> children = new ArrayList<>();
+    for (Hash32 hash : hashes) {
+      BeaconBlock child = blocks.get(hash);
+      if (child != null && child.getSlot().lessEqual(maxSlot)) {
+        children.add(child);
+      }
+    }
+    // keep children ordered by slot as the slot index does
+    children.sort((c1, c2) -> c1.getSlot().compareTo(c2.getSlot()));
     return children;
   }
 
+  /**
+   * Fills the children index with blocks which were stored before the index has been introduced.
+   */
+  private void indexChildren() {
+    getSlotBlocks(SlotNumber.ZERO, getMaxSlot().increment())
+        .values()
+        .forEach(
+            hashes -> getAll(hashes).forEach((hash, block) -> addChild(block.getParentRoot(), hash)));
+  }
+
   @Override
   public void flush() {
     // nothing to be done here. No cached data in this implementation
@@ -189,22 +442,99 @@ public class BeaconBlockStorageImpl implements BeaconBlockStorage {
       Database database,
       ObjectHasher<Hash32> objectHasher,
       SerializerFactory serializerFactory) {
+    return create(database, objectHasher, serializerFactory, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates an instance which caches recently used decoded blocks.
+   *
+   * @param database a database.
+   * @param objectHasher an object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param cacheSize max size of the cache in bytes, cache is disabled if size is not positive.
+   * @return a new instance.
+   */
+  public static BeaconBlockStorageImpl create(
+      Database database,
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      long cacheSize) {
     DataSource<BytesValue, BytesValue> backingBlockSource = database.createStorage("beacon-block");
     DataSource<BytesValue, BytesValue> backingIndexSource =
         database.createStorage("beacon-block-index");
+    DataSource<BytesValue, BytesValue> backingChildrenSource =
+        database.createStorage("beacon-block-children");
+    DataSource<BytesValue, BytesValue> backingArchiveSource =
+        database.createArchive("beacon-block-archive");
+    DataSource<BytesValue, BytesValue> backingArchiveIndexSource =
+        database.createStorage("beacon-block-archive-index");
 
     DataSource<Hash32, BeaconBlock> blockSource =
         new CodecSource<>(
             backingBlockSource,
             key -> key,
+            key -> Hash32.wrap(Bytes32.wrap(key, 0)),
             serializerFactory.getSerializer(BeaconBlock.class),
             serializerFactory.getDeserializer(BeaconBlock.class));
+    if (cacheSize > 0) {
+      blockSource =
+          ReadCache.lru(
+              blockSource,
+              "beacon-block",
+              cacheSize,
+              StorageSizeEvaluators.HASH32,
+              StorageSizeEvaluators.BEACON_BLOCK);
+    }
     HoleyList<SlotBlocks> indexSource =
         new DataSourceList<>(
             backingIndexSource,
             serializerFactory.getSerializer(SlotBlocks.class),
             serializerFactory.getDeserializer(SlotBlocks.class));
 
-    return new BeaconBlockStorageImpl(objectHasher, blockSource, indexSource);
+    DataSource<Hash32, BlockChildren> childrenSource =
+        ReadCache.lru(
+            new CodecSource<>(
+                backingChildrenSource,
+                key -> key,
+                key -> Hash32.wrap(Bytes32.wrap(key, 0)),
+                serializerFactory.getSerializer(BlockChildren.class),
+                serializerFactory.getDeserializer(BlockChildren.class)),
+            "beacon-block-children",
+            CHILDREN_CACHE_SIZE,
+            StorageSizeEvaluators.HASH32,
+            StorageSizeEvaluators.BLOCK_CHILDREN);
+
+    DataSource<SlotNumber, BeaconBlock> archiveSource =
+        new CodecSource<>(
+            backingArchiveSource,
+            slot -> Bytes8.longToBytes8(slot.getValue()),
+            key -> SlotNumber.of(BytesValues.extractLong(key)),
+            serializerFactory.getSerializer(BeaconBlock.class),
+            serializerFactory.getDeserializer(BeaconBlock.class));
+    DataSource<Hash32, SlotNumber> archiveIndexSource =
+        new CodecSource<>(
+            backingArchiveIndexSource,
+            key -> key,
+            key -> Hash32.wrap(Bytes32.wrap(key, 0)),
+            slot -> Bytes8.longToBytes8(slot.getValue()),
+            value -> SlotNumber.of(BytesValues.extractLong(value)));
+
+    BeaconBlockStorageImpl storage =
+        new BeaconBlockStorageImpl(
+            objectHasher,
+            blockSource,
+            indexSource,
+            childrenSource,
+            archiveSource,
+            archiveIndexSource,
+            true,
+            true);
+    if (!backingChildrenSource.get(INDEX_VERSION_KEY).isPresent()) {
+      if (!storage.isEmpty()) {
+        storage.indexChildren();
+      }
+      backingChildrenSource.put(INDEX_VERSION_KEY, INDEX_VERSION);
+    }
+    return storage;
   }
 }
@@ -21,6 +21,7 @@ public class BeaconChainStorageImpl implements BeaconChainStorage {
   private final BeaconTupleStorage tupleStorage;
   private final SingleValueSource<Checkpoint> justifiedStorage;
   private final SingleValueSource<Checkpoint> finalizedStorage;
+  private final SingleValueSource<Hash32> headStorage;
 
   public BeaconChainStorageImpl(
       Database database,
@@ -30,6 +31,26 @@ public class BeaconChainStorageImpl implements BeaconChainStorage {
       BeaconTupleStorage tupleStorage,
       SingleValueSource<Checkpoint> justifiedStorage,
       SingleValueSource<Checkpoint> finalizedStorage) {
+    this(
+        database,
+        blockStorage,
+        blockHeaderStorage,
+        stateStorage,
+        tupleStorage,
+        justifiedStorage,
+        finalizedStorage,
+        SingleValueSource.memSource());
+  }
+
+  public BeaconChainStorageImpl(
+      Database database,
+      BeaconBlockStorage blockStorage,
+      DataSource<Hash32, BeaconBlockHeader> blockHeaderStorage,
+      BeaconStateStorage stateStorage,
+      BeaconTupleStorage tupleStorage,
+      SingleValueSource<Checkpoint> justifiedStorage,
+      SingleValueSource<Checkpoint> finalizedStorage,
+      SingleValueSource<Hash32> headStorage) {
     this.database = database;
     this.blockStorage = blockStorage;
     this.blockHeaderStorage = blockHeaderStorage;
@@ -37,6 +58,7 @@ public class BeaconChainStorageImpl implements BeaconChainStorage {
     this.tupleStorage = tupleStorage;
     this.justifiedStorage = justifiedStorage;
     this.finalizedStorage = finalizedStorage;
+    this.headStorage = headStorage;
   }
 
   @Override
@@ -69,6 +91,11 @@ public class BeaconChainStorageImpl implements BeaconChainStorage {
     return finalizedStorage;
   }
 
+  @Override
+  public SingleValueSource<Hash32> getHeadStorage() {
+    return headStorage;
+  }
+
   @Override
   public void commit() {
     tupleStorage.flush();
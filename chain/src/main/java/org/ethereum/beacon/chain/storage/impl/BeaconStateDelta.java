@@ -0,0 +1,188 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import com.google.common.base.MoreObjects;
+import java.util.List;
+import org.ethereum.beacon.core.BeaconBlockHeader;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.state.Fork;
+import org.ethereum.beacon.core.types.ShardNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.Time;
+import org.ethereum.beacon.ssz.annotation.SSZ;
+import org.ethereum.beacon.ssz.annotation.SSZSerializable;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.collections.Bitvector;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * Changes that turn a base {@link BeaconState} into another state.
+ *
+ * <p>Fields of a fixed small size are kept as is. Lists and vectors are kept element-wise, only the
+ * elements that differ from the base are stored.
+ *
+ * @see BeaconStateDiffer
+ */
+@SSZSerializable
+public class BeaconStateDelta {
+
+  /** A root of the state which this delta is applied to. */
+  @SSZ private final Hash32 baseRoot;
+
+  @SSZ private final Time genesisTime;
+  @SSZ private final SlotNumber slot;
+  @SSZ private final Fork fork;
+  @SSZ private final BeaconBlockHeader latestBlockHeader;
+  @SSZ private final Eth1Data eth1Data;
+  @SSZ private final UInt64 eth1DepositIndex;
+  @SSZ private final ShardNumber startShard;
+
+  @SSZ(vectorLengthVar = "spec.JUSTIFICATION_BITS_LENGTH")
+  private final Bitvector justificationBits;
+
+  @SSZ private final Checkpoint previousJustifiedCheckpoint;
+  @SSZ private final Checkpoint currentJustifiedCheckpoint;
+  @SSZ private final Checkpoint finalizedCheckpoint;
+
+  /** Changed elements of lists and vectors, collections that are left intact are omitted. */
+  @SSZ private final List<ElementsDelta> elements;
+
+  public BeaconStateDelta(
+      Hash32 baseRoot,
+      Time genesisTime,
+      SlotNumber slot,
+      Fork fork,
+      BeaconBlockHeader latestBlockHeader,
+      Eth1Data eth1Data,
+      UInt64 eth1DepositIndex,
+      ShardNumber startShard,
+      Bitvector justificationBits,
+      Checkpoint previousJustifiedCheckpoint,
+      Checkpoint currentJustifiedCheckpoint,
+      Checkpoint finalizedCheckpoint,
+      List<ElementsDelta> elements) {
+    this.baseRoot = baseRoot;
+    this.genesisTime = genesisTime;
+    this.slot = slot;
+    this.fork = fork;
+    this.latestBlockHeader = latestBlockHeader;
+    this.eth1Data = eth1Data;
+    this.eth1DepositIndex = eth1DepositIndex;
+    this.startShard = startShard;
+    this.justificationBits = justificationBits;
+    this.previousJustifiedCheckpoint = previousJustifiedCheckpoint;
+    this.currentJustifiedCheckpoint = currentJustifiedCheckpoint;
+    this.finalizedCheckpoint = finalizedCheckpoint;
+    this.elements = elements;
+  }
+
+  public Hash32 getBaseRoot() {
+    return baseRoot;
+  }
+
+  public Time getGenesisTime() {
+    return genesisTime;
+  }
+
+  public SlotNumber getSlot() {
+    return slot;
+  }
+
+  public Fork getFork() {
+    return fork;
+  }
+
+  public BeaconBlockHeader getLatestBlockHeader() {
+    return latestBlockHeader;
+  }
+
+  public Eth1Data getEth1Data() {
+    return eth1Data;
+  }
+
+  public UInt64 getEth1DepositIndex() {
+    return eth1DepositIndex;
+  }
+
+  public ShardNumber getStartShard() {
+    return startShard;
+  }
+
+  public Bitvector getJustificationBits() {
+    return justificationBits;
+  }
+
+  public Checkpoint getPreviousJustifiedCheckpoint() {
+    return previousJustifiedCheckpoint;
+  }
+
+  public Checkpoint getCurrentJustifiedCheckpoint() {
+    return currentJustifiedCheckpoint;
+  }
+
+  public Checkpoint getFinalizedCheckpoint() {
+    return finalizedCheckpoint;
+  }
+
+  public List<ElementsDelta> getElements() {
+    return elements;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("baseRoot", baseRoot)
+        .add("slot", slot)
+        .add("elements", elements)
+        .toString();
+  }
+
+  /** Changed elements of a single list or vector. */
+  @SSZSerializable
+  public static class ElementsDelta {
+
+    /** An id of the state field, see {@link BeaconStateDiffer}. */
+    @SSZ private final Integer field;
+    /** A size of the collection after the change. */
+    @SSZ private final Integer size;
+    /** Indices of changed elements in ascending order. */
+    @SSZ private final List<Integer> indices;
+    /** Serialized values of changed elements. */
+    @SSZ private final List<BytesValue> values;
+
+    public ElementsDelta(
+        Integer field, Integer size, List<Integer> indices, List<BytesValue> values) {
+      this.field = field;
+      this.size = size;
+      this.indices = indices;
+      this.values = values;
+    }
+
+    public Integer getField() {
+      return field;
+    }
+
+    public Integer getSize() {
+      return size;
+    }
+
+    public List<Integer> getIndices() {
+      return indices;
+    }
+
+    public List<BytesValue> getValues() {
+      return values;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("field", field)
+          .add("size", size)
+          .add("changed", indices.size())
+          .toString();
+    }
+  }
+}
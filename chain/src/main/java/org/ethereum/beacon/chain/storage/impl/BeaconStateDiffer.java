@@ -0,0 +1,266 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.ethereum.beacon.chain.storage.impl.BeaconStateDelta.ElementsDelta;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.operations.attestation.Crosslink;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.state.PendingAttestation;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.ShardNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.Bytes8;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.collections.ReadList;
+import tech.pegasys.artemis.util.collections.WriteList;
+import tech.pegasys.artemis.util.collections.WriteVector;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * Computes {@link BeaconStateDelta} between two states and applies it to the base state.
+ *
+ * <p>Collections are compared element by element. Since a mutable copy of a state shares element
+ * instances with its origin, unchanged elements are mostly recognized by identity and comparison
+ * is cheap even for big validator registry.
+ */
+public class BeaconStateDiffer {
+
+  private final List<Field<?, ?>> fields;
+  private final Map<Integer, Field<?, ?>> fieldsById = new HashMap<>();
+
+  public BeaconStateDiffer(SerializerFactory serializerFactory) {
+    Function<Hash32, BytesValue> hashEncoder = hash -> hash;
+    Function<BytesValue, Hash32> hashDecoder = bytes -> Hash32.wrap(Bytes32.wrap(bytes, 0));
+    Function<Gwei, BytesValue> gweiEncoder = UInt64::toBytes8LittleEndian;
+    Function<BytesValue, Gwei> gweiDecoder =
+        bytes -> Gwei.castFrom(UInt64.fromBytesLittleEndian(Bytes8.wrap(bytes, 0)));
+
+    // ids are SSZ orders of BeaconState fields
+    this.fields =
+        Arrays.asList(
+            new Field<>(
+                4, BeaconState::getBlockRoots, MutableBeaconState::getBlockRoots,
+                SlotNumber::of, hashEncoder, hashDecoder),
+            new Field<>(
+                5, BeaconState::getStateRoots, MutableBeaconState::getStateRoots,
+                SlotNumber::of, hashEncoder, hashDecoder),
+            new Field<>(
+                6, BeaconState::getHistoricalRoots, MutableBeaconState::getHistoricalRoots,
+                Function.identity(), hashEncoder, hashDecoder),
+            new Field<>(
+                8, BeaconState::getEth1DataVotes, MutableBeaconState::getEth1DataVotes,
+                Function.identity(),
+                serializerFactory.getSerializer(Eth1Data.class),
+                serializerFactory.getDeserializer(Eth1Data.class)),
+            new Field<>(
+                10, BeaconState::getValidators, MutableBeaconState::getValidators,
+                ValidatorIndex::of,
+                serializerFactory.getSerializer(ValidatorRecord.class),
+                serializerFactory.getDeserializer(ValidatorRecord.class)),
+            new Field<>(
+                11, BeaconState::getBalances, MutableBeaconState::getBalances,
+                ValidatorIndex::of, gweiEncoder, gweiDecoder),
+            new Field<>(
+                13, BeaconState::getRandaoMixes, MutableBeaconState::getRandaoMixes,
+                EpochNumber::of, hashEncoder, hashDecoder),
+            new Field<>(
+                14, BeaconState::getActiveIndexRoots, MutableBeaconState::getActiveIndexRoots,
+                EpochNumber::of, hashEncoder, hashDecoder),
+            new Field<>(
+                15,
+                BeaconState::getCompactCommitteesRoots,
+                MutableBeaconState::getCompactCommitteesRoots,
+                EpochNumber::of, hashEncoder, hashDecoder),
+            new Field<>(
+                16, BeaconState::getSlashings, MutableBeaconState::getSlashings,
+                EpochNumber::of, gweiEncoder, gweiDecoder),
+            new Field<>(
+                17,
+                BeaconState::getPreviousEpochAttestations,
+                MutableBeaconState::getPreviousEpochAttestations,
+                Function.identity(),
+                serializerFactory.getSerializer(PendingAttestation.class),
+                serializerFactory.getDeserializer(PendingAttestation.class)),
+            new Field<>(
+                18,
+                BeaconState::getCurrentEpochAttestations,
+                MutableBeaconState::getCurrentEpochAttestations,
+                Function.identity(),
+                serializerFactory.getSerializer(PendingAttestation.class),
+                serializerFactory.getDeserializer(PendingAttestation.class)),
+            new Field<>(
+                19, BeaconState::getPreviousCrosslinks, MutableBeaconState::getPreviousCrosslinks,
+                ShardNumber::of,
+                serializerFactory.getSerializer(Crosslink.class),
+                serializerFactory.getDeserializer(Crosslink.class)),
+            new Field<>(
+                20, BeaconState::getCurrentCrosslinks, MutableBeaconState::getCurrentCrosslinks,
+                ShardNumber::of,
+                serializerFactory.getSerializer(Crosslink.class),
+                serializerFactory.getDeserializer(Crosslink.class)));
+    for (Field<?, ?> field : fields) {
+      fieldsById.put(field.id, field);
+    }
+  }
+
+  /**
+   * Computes changes made to the base state.
+   *
+   * @param baseRoot a root of the base state.
+   * @param base the base state.
+   * @param state a state derived from the base.
+   * @return a delta.
+   */
+  public BeaconStateDelta diff(Hash32 baseRoot, BeaconState base, BeaconState state) {
+    List<ElementsDelta> elements = new ArrayList<>();
+    for (Field<?, ?> field : fields) {
+      ElementsDelta delta = field.diff(base, state);
+      if (delta != null) {
+        elements.add(delta);
+      }
+    }
+
+    return new BeaconStateDelta(
+        baseRoot,
+        state.getGenesisTime(),
+        state.getSlot(),
+        state.getFork(),
+        state.getLatestBlockHeader(),
+        state.getEth1Data(),
+        state.getEth1DepositIndex(),
+        state.getStartShard(),
+        state.getJustificationBits(),
+        state.getPreviousJustifiedCheckpoint(),
+        state.getCurrentJustifiedCheckpoint(),
+        state.getFinalizedCheckpoint(),
+        elements);
+  }
+
+  /**
+   * Applies changes to the base state.
+   *
+   * @param base the state which root is {@link BeaconStateDelta#getBaseRoot()}.
+   * @param delta a delta.
+   * @return a new state, the base state is left intact.
+   */
+  public BeaconState apply(BeaconState base, BeaconStateDelta delta) {
+    MutableBeaconState state = base.createMutableCopy();
+    state.setGenesisTime(delta.getGenesisTime());
+    state.setSlot(delta.getSlot());
+    state.setFork(delta.getFork());
+    state.setLatestBlockHeader(delta.getLatestBlockHeader());
+    state.setEth1Data(delta.getEth1Data());
+    state.setEth1DepositIndex(delta.getEth1DepositIndex());
+    state.setStartShard(delta.getStartShard());
+    state.setJustificationBits(delta.getJustificationBits());
+    state.setPreviousJustifiedCheckpoint(delta.getPreviousJustifiedCheckpoint());
+    state.setCurrentJustifiedCheckpoint(delta.getCurrentJustifiedCheckpoint());
+    state.setFinalizedCheckpoint(delta.getFinalizedCheckpoint());
+
+    for (ElementsDelta elements : delta.getElements()) {
+      Field<?, ?> field = fieldsById.get(elements.getField());
+      if (field == null) {
+        throw new IllegalArgumentException("Unknown state field: " + elements.getField());
+      }
+      field.apply(state, elements);
+    }
+    return state.createImmutable();
+  }
+
+  /**
+   * Describes list or vector field of a state.
+   *
+   * @param <I> an index type.
+   * @param <V> an element type.
+   */
+  private static final class Field<I extends Number, V> {
+
+    private final int id;
+    private final Function<BeaconState, ReadList<I, V>> reader;
+    private final Function<MutableBeaconState, WriteVector<I, V>> writer;
+    private final Function<Integer, I> index;
+    private final Function<V, BytesValue> encoder;
+    private final Function<BytesValue, V> decoder;
+
+    Field(
+        int id,
+        Function<BeaconState, ReadList<I, V>> reader,
+        Function<MutableBeaconState, WriteVector<I, V>> writer,
+        Function<Integer, I> index,
+        Function<V, BytesValue> encoder,
+        Function<BytesValue, V> decoder) {
+      this.id = id;
+      this.reader = reader;
+      this.writer = writer;
+      this.index = index;
+      this.encoder = encoder;
+      this.decoder = decoder;
+    }
+
+    ElementsDelta diff(BeaconState baseState, BeaconState state) {
+      ReadList<I, V> base = reader.apply(baseState);
+      ReadList<I, V> current = reader.apply(state);
+      int baseSize = base.size().intValue();
+      int size = current.size().intValue();
+
+      List<Integer> indices = new ArrayList<>();
+      List<BytesValue> values = new ArrayList<>();
+      Iterator<V> baseIt = base.iterator();
+      Iterator<V> it = current.iterator();
+      for (int i = 0; it.hasNext(); i++) {
+        V value = it.next();
+        V baseValue = baseIt.hasNext() ? baseIt.next() : null;
+        if (baseValue == null || (value != baseValue && !value.equals(baseValue))) {
+          indices.add(i);
+          values.add(encoder.apply(value));
+        }
+      }
+
+      if (indices.isEmpty() && size == baseSize) {
+        return null;
+      }
+      return new ElementsDelta(id, size, indices, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    void apply(MutableBeaconState state, ElementsDelta delta) {
+      WriteVector<I, V> target = writer.apply(state);
+      int size = target.size().intValue();
+      if (delta.getSize() < size) {
+        if (!(target instanceof WriteList)) {
+          throw new IllegalArgumentException("Vector can't be resized, field: " + id);
+        }
+        WriteList<I, V> list = (WriteList<I, V>) target;
+        while (size > delta.getSize()) {
+          list.remove(index.apply(--size));
+        }
+      }
+
+      for (int i = 0; i < delta.getIndices().size(); i++) {
+        int idx = delta.getIndices().get(i);
+        V value = decoder.apply(delta.getValues().get(i));
+        if (idx < size) {
+          target.set(index.apply(idx), value);
+        } else if (idx == size && target instanceof WriteList) {
+          ((WriteList<I, V>) target).add(value);
+          size += 1;
+        } else {
+          throw new IllegalArgumentException(
+              "Index " + idx + " is out of bounds, field: " + id + ", size: " + size);
+        }
+      }
+    }
+  }
+}
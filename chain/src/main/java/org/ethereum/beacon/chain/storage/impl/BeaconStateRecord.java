@@ -0,0 +1,191 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import com.google.common.base.MoreObjects;
+import java.util.List;
+import org.ethereum.beacon.core.BeaconBlockHeader;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.state.Fork;
+import org.ethereum.beacon.core.state.PendingAttestation;
+import org.ethereum.beacon.core.types.ShardNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.Time;
+import org.ethereum.beacon.ssz.annotation.SSZ;
+import org.ethereum.beacon.ssz.annotation.SSZSerializable;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.collections.Bitvector;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * A {@link BeaconState} which big collections are replaced with references to Merkle nodes.
+ *
+ * <p>Fields of a small size are kept as is, each big list or vector is split into pages and kept as
+ * a list of page roots which are the nodes of hash tree of the collection.
+ *
+ * @see MerkleNodeStateSource
+ */
+@SSZSerializable
+public class BeaconStateRecord {
+
+  @SSZ private final Time genesisTime;
+  @SSZ private final SlotNumber slot;
+  @SSZ private final Fork fork;
+  @SSZ private final BeaconBlockHeader latestBlockHeader;
+  @SSZ private final Eth1Data eth1Data;
+  @SSZ private final List<Eth1Data> eth1DataVotes;
+  @SSZ private final UInt64 eth1DepositIndex;
+  @SSZ private final ShardNumber startShard;
+  @SSZ private final List<PendingAttestation> previousEpochAttestations;
+  @SSZ private final List<PendingAttestation> currentEpochAttestations;
+
+  @SSZ(vectorLengthVar = "spec.JUSTIFICATION_BITS_LENGTH")
+  private final Bitvector justificationBits;
+
+  @SSZ private final Checkpoint previousJustifiedCheckpoint;
+  @SSZ private final Checkpoint currentJustifiedCheckpoint;
+  @SSZ private final Checkpoint finalizedCheckpoint;
+
+  /** Pages of big lists and vectors. */
+  @SSZ private final List<Pages> pages;
+
+  public BeaconStateRecord(
+      Time genesisTime,
+      SlotNumber slot,
+      Fork fork,
+      BeaconBlockHeader latestBlockHeader,
+      Eth1Data eth1Data,
+      List<Eth1Data> eth1DataVotes,
+      UInt64 eth1DepositIndex,
+      ShardNumber startShard,
+      List<PendingAttestation> previousEpochAttestations,
+      List<PendingAttestation> currentEpochAttestations,
+      Bitvector justificationBits,
+      Checkpoint previousJustifiedCheckpoint,
+      Checkpoint currentJustifiedCheckpoint,
+      Checkpoint finalizedCheckpoint,
+      List<Pages> pages) {
+    this.genesisTime = genesisTime;
+    this.slot = slot;
+    this.fork = fork;
+    this.latestBlockHeader = latestBlockHeader;
+    this.eth1Data = eth1Data;
+    this.eth1DataVotes = eth1DataVotes;
+    this.eth1DepositIndex = eth1DepositIndex;
+    this.startShard = startShard;
+    this.previousEpochAttestations = previousEpochAttestations;
+    this.currentEpochAttestations = currentEpochAttestations;
+    this.justificationBits = justificationBits;
+    this.previousJustifiedCheckpoint = previousJustifiedCheckpoint;
+    this.currentJustifiedCheckpoint = currentJustifiedCheckpoint;
+    this.finalizedCheckpoint = finalizedCheckpoint;
+    this.pages = pages;
+  }
+
+  public Time getGenesisTime() {
+    return genesisTime;
+  }
+
+  public SlotNumber getSlot() {
+    return slot;
+  }
+
+  public Fork getFork() {
+    return fork;
+  }
+
+  public BeaconBlockHeader getLatestBlockHeader() {
+    return latestBlockHeader;
+  }
+
+  public Eth1Data getEth1Data() {
+    return eth1Data;
+  }
+
+  public List<Eth1Data> getEth1DataVotes() {
+    return eth1DataVotes;
+  }
+
+  public UInt64 getEth1DepositIndex() {
+    return eth1DepositIndex;
+  }
+
+  public ShardNumber getStartShard() {
+    return startShard;
+  }
+
+  public List<PendingAttestation> getPreviousEpochAttestations() {
+    return previousEpochAttestations;
+  }
+
+  public List<PendingAttestation> getCurrentEpochAttestations() {
+    return currentEpochAttestations;
+  }
+
+  public Bitvector getJustificationBits() {
+    return justificationBits;
+  }
+
+  public Checkpoint getPreviousJustifiedCheckpoint() {
+    return previousJustifiedCheckpoint;
+  }
+
+  public Checkpoint getCurrentJustifiedCheckpoint() {
+    return currentJustifiedCheckpoint;
+  }
+
+  public Checkpoint getFinalizedCheckpoint() {
+    return finalizedCheckpoint;
+  }
+
+  public List<Pages> getPages() {
+    return pages;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("slot", slot)
+        .add("pages", pages)
+        .toString();
+  }
+
+  /** Pages of a single list or vector. */
+  @SSZSerializable
+  public static class Pages {
+
+    /** An id of the state field, see {@link MerkleNodeStateSource}. */
+    @SSZ private final Integer field;
+    /** A number of elements in the collection. */
+    @SSZ private final Integer size;
+    /** Roots of pages in the order of elements. */
+    @SSZ private final List<Hash32> roots;
+
+    public Pages(Integer field, Integer size, List<Hash32> roots) {
+      this.field = field;
+      this.size = size;
+      this.roots = roots;
+    }
+
+    public Integer getField() {
+      return field;
+    }
+
+    public Integer getSize() {
+      return size;
+    }
+
+    public List<Hash32> getRoots() {
+      return roots;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("field", field)
+          .add("size", size)
+          .add("pages", roots.size())
+          .toString();
+    }
+  }
+}
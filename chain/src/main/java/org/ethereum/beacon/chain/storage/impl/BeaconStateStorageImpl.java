@@ -6,15 +6,23 @@ import javax.annotation.Nonnull;
 import org.ethereum.beacon.chain.storage.BeaconStateStorage;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
 import org.ethereum.beacon.core.state.BeaconStateImpl;
 import org.ethereum.beacon.db.Database;
 import org.ethereum.beacon.db.source.CodecSource;
 import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.source.ReadCache;
 import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.Bytes8;
 import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.uint.UInt64;
 
 public class BeaconStateStorageImpl implements BeaconStateStorage {
 
+  /** Default max size of decoded states cache in bytes. */
+  public static final long DEFAULT_CACHE_SIZE = 128L << 20;
+
   private final ObjectHasher<Hash32> objectHasher;
   private final DataSource<Hash32, BeaconState> source;
 
@@ -55,13 +63,139 @@ public class BeaconStateStorageImpl implements BeaconStateStorage {
 
   public static BeaconStateStorageImpl create(
       Database database, ObjectHasher<Hash32> objectHasher, SerializerFactory serializerFactory) {
-    DataSource<BytesValue, BytesValue> backingSource = database.createStorage("beacon-state");
-    DataSource<Hash32, BeaconState> stateSource =
+    return create(database, objectHasher, serializerFactory, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates an instance which caches decoded states, hence, a state that is read often is neither
+   * fetched from the database nor deserialized each time.
+   *
+   * <p>The cache uses W-TinyLFU eviction policy that protects states of recent head and checkpoints
+   * from being evicted by a one-off reads of old states.
+   *
+   * @param database a database.
+   * @param objectHasher an object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param cacheSize max size of the cache in bytes, cache is disabled if size is not positive.
+   * @return a new instance.
+   */
+  public static BeaconStateStorageImpl create(
+      Database database,
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      long cacheSize) {
+    return create(database, objectHasher, serializerFactory, cacheSize, 0);
+  }
+
+  /**
+   * Creates an instance which, if snapshot interval is positive, stores full states only once in
+   * the interval and deltas against parent states otherwise.
+   *
+   * @param database a database.
+   * @param objectHasher an object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param cacheSize max size of the cache in bytes, cache is disabled if size is not positive.
+   * @param snapshotInterval a number of slots between two full snapshots, if not positive then
+   *     every state is stored in full.
+   * @return a new instance.
+   * @see DeltaEncodedStateSource
+   */
+  public static BeaconStateStorageImpl create(
+      Database database,
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      long cacheSize,
+      long snapshotInterval) {
+    DataSource<Hash32, BeaconState> stateSource = createFullStateSource(database, serializerFactory);
+    if (snapshotInterval > 0) {
+      DataSource<BytesValue, BytesValue> backingDeltaSource =
+          database.createStorage("beacon-state-delta");
+      DataSource<Hash32, BeaconStateDelta> deltaSource =
+          new CodecSource<>(
+              backingDeltaSource,
+              key -> key,
+              serializerFactory.getSerializer(BeaconStateDelta.class),
+              serializerFactory.getDeserializer(BeaconStateDelta.class));
+      stateSource =
+          new DeltaEncodedStateSource(
+              stateSource,
+              deltaSource,
+              new BeaconStateDiffer(serializerFactory),
+              snapshotInterval);
+    }
+    if (cacheSize > 0) {
+      stateSource =
+          ReadCache.tinyLfu(
+              stateSource,
+              "beacon-state",
+              cacheSize,
+              StorageSizeEvaluators.HASH32,
+              StorageSizeEvaluators.BEACON_STATE);
+    }
+    return new BeaconStateStorageImpl(stateSource, objectHasher);
+  }
+
+  /**
+   * Creates an instance which stores states as references to content addressed nodes, hence,
+   * collections that are shared by states are stored once.
+   *
+   * @param database a database.
+   * @param objectHasher an incremental object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param specConstants spec constants.
+   * @param cacheSize max size of the cache in bytes, cache is disabled if size is not positive.
+   * @return a new instance.
+   * @see MerkleNodeStateSource
+   */
+  public static BeaconStateStorageImpl createMerkleNodeStorage(
+      Database database,
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      SpecConstants specConstants,
+      long cacheSize) {
+    DataSource<Hash32, BeaconStateRecord> recordSource =
+        new CodecSource<>(
+            database.createStorage("beacon-state-record"),
+            key -> key,
+            serializerFactory.getSerializer(BeaconStateRecord.class),
+            serializerFactory.getDeserializer(BeaconStateRecord.class));
+    DataSource<Hash32, BytesValue> nodeSource =
+        new CodecSource.KeyOnly<>(database.createStorage("beacon-state-node"), key -> key);
+    DataSource<Hash32, Long> referenceSource =
         new CodecSource<>(
-            backingSource,
+            database.createStorage("beacon-state-node-ref"),
             key -> key,
-            serializerFactory.getSerializer(BeaconState.class),
-            bytes -> serializerFactory.getDeserializer(BeaconStateImpl.class).apply(bytes));
+            counter -> UInt64.valueOf(counter).toBytes8LittleEndian(),
+            bytes -> UInt64.fromBytesLittleEndian(Bytes8.wrap(bytes, 0)).getValue());
+    DataSource<Hash32, BeaconState> stateSource =
+        new MerkleNodeStateSource(
+            recordSource,
+            nodeSource,
+            referenceSource,
+            createFullStateSource(database, serializerFactory),
+            objectHasher,
+            serializerFactory,
+            specConstants);
+    if (cacheSize > 0) {
+      stateSource =
+          ReadCache.tinyLfu(
+              stateSource,
+              "beacon-state",
+              cacheSize,
+              StorageSizeEvaluators.HASH32,
+              StorageSizeEvaluators.BEACON_STATE);
+    }
     return new BeaconStateStorageImpl(stateSource, objectHasher);
   }
+
+  private static DataSource<Hash32, BeaconState> createFullStateSource(
+      Database database, SerializerFactory serializerFactory) {
+    DataSource<BytesValue, BytesValue> backingSource = database.createStorage("beacon-state");
+    return new CodecSource<>(
+        backingSource,
+        key -> key,
+        key -> Hash32.wrap(Bytes32.wrap(key, 0)),
+        serializerFactory.getSerializer(BeaconState.class),
+        bytes -> serializerFactory.getDeserializer(BeaconStateImpl.class).apply(bytes));
+  }
 }
@@ -2,52 +2,119 @@ package org.ethereum.beacon.chain.storage.impl;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.ethereum.beacon.chain.storage.BeaconBlockStorage;
 import org.ethereum.beacon.chain.storage.BeaconStateStorage;
 import org.ethereum.beacon.chain.BeaconTuple;
 import org.ethereum.beacon.chain.storage.BeaconTupleStorage;
 import org.ethereum.beacon.consensus.TransitionType;
+import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
+import org.ethereum.beacon.db.source.BoundedCache;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
 import tech.pegasys.artemis.ethereum.core.Hash32;
 
 public class BeaconTupleStorageImpl implements BeaconTupleStorage {
 
+  /** Default memory budget of recent tuples cache in bytes. */
+  public static final long DEFAULT_CACHE_SIZE = 256L << 20;
+
   private final BeaconBlockStorage blockStorage;
   private final BeaconStateStorage stateStorage;
+  @Nullable private final ObjectHasher<Hash32> objectHasher;
+
+  @Nullable private final BoundedCache<Hash32, BeaconTuple> recentTuples;
+  private final AutoCloseableLock recentLock = AutoCloseableLock.wrap(new ReentrantLock());
 
   public BeaconTupleStorageImpl(BeaconBlockStorage blockStorage, BeaconStateStorage stateStorage) {
     this.blockStorage = blockStorage;
     this.stateStorage = stateStorage;
+    this.objectHasher = null;
+    this.recentTuples = null;
+  }
+
+  /**
+   * Creates an instance which keeps recently stored and read tuples in memory. Cached tuples carry
+   * states in the form they were put, with all the data that was built upon them by the state
+   * transition and the hasher, thus, a child of a recent block is imported without fetching and
+   * decoding parent state.
+   *
+   * <p>Tuple size is evaluated as if its state shares nothing with states of other tuples, hence,
+   * the budget is a conservative limit.
+   *
+   * @param blockStorage a block storage.
+   * @param stateStorage a state storage.
+   * @param objectHasher an object hasher to calculate signing roots of blocks.
+   * @param cacheSize memory budget of the cache in bytes.
+   */
+  public BeaconTupleStorageImpl(
+      BeaconBlockStorage blockStorage,
+      BeaconStateStorage stateStorage,
+      ObjectHasher<Hash32> objectHasher,
+      long cacheSize) {
+    this.blockStorage = blockStorage;
+    this.stateStorage = stateStorage;
+    this.objectHasher = objectHasher;
+    this.recentTuples =
+        BoundedCache.lru(
+            cacheSize,
+            StorageSizeEvaluators.HASH32,
+            tuple ->
+                StorageSizeEvaluators.BEACON_BLOCK.apply(tuple.getBlock())
+                    + StorageSizeEvaluators.BEACON_STATE.apply(tuple.getState()));
   }
 
   @Override
   public Optional<BeaconTuple> get(@Nonnull Hash32 hash) {
     Objects.requireNonNull(hash);
-    return blockStorage
-        .get(hash)
-        .map(
-            block ->
-                stateStorage
-                    .get(block.getStateRoot())
-                    .map(
-                        state ->
-                            BeaconTuple.of(
-                                block, new BeaconStateExImpl(state, TransitionType.UNKNOWN)))
-                    .orElseThrow(
-                        () -> new IllegalStateException("State inconsistency for block " + block)));
+
+    BeaconTuple recent = getRecent(hash);
+    if (recent != null) {
+      return Optional.of(recent);
+    }
+
+    Optional<BeaconTuple> tuple =
+        blockStorage
+            .get(hash)
+            .map(
+                block ->
+                    stateStorage
+                        .get(block.getStateRoot())
+                        .map(
+                            state ->
+                                BeaconTuple.of(
+                                    block, new BeaconStateExImpl(state, TransitionType.UNKNOWN)))
+                        .orElseThrow(
+                            () ->
+                                new IllegalStateException(
+                                    "State inconsistency for block " + block)));
+    tuple.ifPresent(t -> putRecent(hash, t));
+    return tuple;
   }
 
   @Override
   public void put(@Nonnull Hash32 hash, @Nonnull BeaconTuple tuple) {
-    put(tuple);
+    Objects.requireNonNull(hash);
+    Objects.requireNonNull(tuple);
+
+    blockStorage.put(hash, tuple.getBlock());
+    stateStorage.put(tuple.getBlock().getStateRoot(), tuple.getState());
+    putRecent(hash, tuple);
   }
 
   @Override
   public void remove(@Nonnull Hash32 hash) {
     Objects.requireNonNull(hash);
+    if (recentTuples != null) {
+      try (AutoCloseableLock l = recentLock.lock()) {
+        recentTuples.invalidate(hash);
+      }
+    }
+    // states are keyed by state roots
+    blockStorage.get(hash).ifPresent(block -> stateStorage.remove(block.getStateRoot()));
     blockStorage.remove(hash);
-    stateStorage.remove(hash);
   }
 
   @Override
@@ -65,7 +132,30 @@ public class BeaconTupleStorageImpl implements BeaconTupleStorage {
   public void put(@Nonnull BeaconTuple tuple) {
     Objects.requireNonNull(tuple);
 
-    blockStorage.put(tuple.getBlock());
-    stateStorage.put(tuple.getBlock().getStateRoot(), tuple.getState());
+    if (objectHasher != null) {
+      put(objectHasher.getHashTruncateLast(tuple.getBlock()), tuple);
+    } else {
+      blockStorage.put(tuple.getBlock());
+      stateStorage.put(tuple.getBlock().getStateRoot(), tuple.getState());
+    }
+  }
+
+  @Nullable
+  private BeaconTuple getRecent(Hash32 hash) {
+    if (recentTuples == null) {
+      return null;
+    }
+    try (AutoCloseableLock l = recentLock.lock()) {
+      return recentTuples.get(hash);
+    }
+  }
+
+  private void putRecent(Hash32 hash, BeaconTuple tuple) {
+    if (recentTuples == null) {
+      return;
+    }
+    try (AutoCloseableLock l = recentLock.lock()) {
+      recentTuples.put(hash, tuple);
+    }
   }
 }
@@ -1,5 +1,8 @@
 package org.ethereum.beacon.chain.storage.impl;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import org.ethereum.beacon.chain.storage.BeaconBlockStorage;
@@ -28,6 +31,13 @@ public class DelegateBlockHeaderStorageImpl implements DataSource<Hash32, Beacon
         .map(this::createHeader);
   }
 
+  @Override
+  public Map<Hash32, BeaconBlockHeader> getAll(@Nonnull Collection<Hash32> keys) {
+    Map<Hash32, BeaconBlockHeader> ret = new HashMap<>();
+    delegateBlockStorage.getAll(keys).forEach((key, block) -> ret.put(key, createHeader(block)));
+    return ret;
+  }
+
   private BeaconBlockHeader createHeader(BeaconBlock block) {
     return new BeaconBlockHeader(
         block.getSlot(),
@@ -0,0 +1,167 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.db.source.BoundedCache;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.collections.ReadList;
+
+/**
+ * Stores full snapshots of states once in a while and deltas against the parent state otherwise.
+ *
+ * <p>Slots are split into intervals of {@code snapshotInterval} length. The first state stored in
+ * an interval along a chain is stored as a full snapshot, every next state of the interval is
+ * stored as a {@link BeaconStateDelta} against its parent. Hence, a state is rebuilt by applying at
+ * most {@code snapshotInterval - 1} deltas to a snapshot.
+ *
+ * <p>The parent is looked up by roots kept in {@link BeaconState#getStateRoots()} among states
+ * that have recently been stored or read. If it's not found the state is stored as a snapshot.
+ *
+ * <p><strong>Note:</strong> a state that other states are based on must not be removed unless its
+ * descendants are removed as well.
+ */
+public class DeltaEncodedStateSource implements DataSource<Hash32, BeaconState> {
+
+  /** Number of recently used states that are kept to compute deltas against. */
+  static final int RECENT_STATES = 8;
+
+  private final DataSource<Hash32, BeaconState> snapshots;
+  private final DataSource<Hash32, BeaconStateDelta> deltas;
+  private final BeaconStateDiffer differ;
+  private final long snapshotInterval;
+
+  private final BoundedCache<Hash32, BeaconState> recentStates =
+      BoundedCache.lru(RECENT_STATES, key -> 0L, value -> 1L);
+  private final AutoCloseableLock recentLock = AutoCloseableLock.wrap(new ReentrantLock());
+
+  /**
+   * @param snapshots a source of full states.
+   * @param deltas a source of deltas.
+   * @param differ a differ.
+   * @param snapshotInterval a number of slots between two snapshots.
+   */
+  public DeltaEncodedStateSource(
+      DataSource<Hash32, BeaconState> snapshots,
+      DataSource<Hash32, BeaconStateDelta> deltas,
+      BeaconStateDiffer differ,
+      long snapshotInterval) {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+    }
+    this.snapshots = snapshots;
+    this.deltas = deltas;
+    this.differ = differ;
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  @Override
+  public Optional<BeaconState> get(@Nonnull Hash32 key) {
+    Objects.requireNonNull(key);
+
+    Deque<BeaconStateDelta> chain = new ArrayDeque<>();
+    Hash32 root = key;
+    BeaconState state = getRecent(root);
+    while (state == null) {
+      Optional<BeaconStateDelta> delta = deltas.get(root);
+      if (delta.isPresent()) {
+        chain.push(delta.get());
+        root = delta.get().getBaseRoot();
+        state = getRecent(root);
+        continue;
+      }
+
+      Optional<BeaconState> snapshot = snapshots.get(root);
+      if (!snapshot.isPresent()) {
+        if (chain.isEmpty()) {
+          return Optional.empty();
+        }
+        throw new IllegalStateException(
+            "Base state " + root + " of state " + key + " is missing in the storage");
+      }
+      state = snapshot.get();
+    }
+
+    while (!chain.isEmpty()) {
+      state = differ.apply(state, chain.pop());
+    }
+    putRecent(key, state);
+    return Optional.of(state);
+  }
+
+  @Override
+  public void put(@Nonnull Hash32 key, @Nonnull BeaconState value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    Hash32 parentRoot = findParent(value);
+    BeaconState parent = parentRoot == null ? null : getRecent(parentRoot);
+    if (parent != null) {
+      deltas.put(key, differ.diff(parentRoot, parent, value));
+    } else {
+      snapshots.put(key, value);
+    }
+    putRecent(key, value);
+  }
+
+  /**
+   * Walks back through state roots of the current interval looking for recently used state.
+   *
+   * @param state a state.
+   * @return a root of the parent state or {@code null} if the state must be stored as a snapshot.
+   */
+  @Nullable
+  private Hash32 findParent(BeaconState state) {
+    long slot = state.getSlot().getValue();
+    long intervalStart = slot - slot % snapshotInterval;
+    ReadList<SlotNumber, Hash32> stateRoots = state.getStateRoots();
+    long historyLength = stateRoots.size().longValue();
+
+    for (long parentSlot = slot - 1;
+        parentSlot >= intervalStart && slot - parentSlot <= historyLength;
+        parentSlot--) {
+      Hash32 root = stateRoots.get(SlotNumber.of(parentSlot % historyLength));
+      BeaconState parent = getRecent(root);
+      if (parent != null && parent.getSlot().getValue() == parentSlot) {
+        return root;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private BeaconState getRecent(Hash32 root) {
+    try (AutoCloseableLock l = recentLock.lock()) {
+      return recentStates.get(root);
+    }
+  }
+
+  private void putRecent(Hash32 root, BeaconState state) {
+    try (AutoCloseableLock l = recentLock.lock()) {
+      recentStates.put(root, state);
+    }
+  }
+
+  @Override
+  public void remove(@Nonnull Hash32 key) {
+    Objects.requireNonNull(key);
+    try (AutoCloseableLock l = recentLock.lock()) {
+      recentStates.invalidate(key);
+    }
+    deltas.remove(key);
+    snapshots.remove(key);
+  }
+
+  @Override
+  public void flush() {
+    // nothing to be done here, upstreams are flushed by the database
+  }
+}
@@ -22,7 +22,13 @@ public class MemBeaconChainStorageFactory  implements BeaconChainStorageFactory
   @Override
   public BeaconChainStorage create(Database database) {
     BeaconBlockStorage blockStorage =
-        new BeaconBlockStorageImpl(objectHasher, new HashMapDataSource<>(), new HashMapHoleyList<>());
+        new BeaconBlockStorageImpl(
+            objectHasher,
+            new HashMapDataSource<>(),
+            new HashMapHoleyList<>(),
+            new HashMapDataSource<>(),
+            true,
+            true);
     BeaconStateStorage stateStorage =
         new BeaconStateStorageImpl(new HashMapDataSource<>(), objectHasher);
     BeaconTupleStorage tupleStorage = new BeaconTupleStorageImpl(blockStorage, stateStorage);
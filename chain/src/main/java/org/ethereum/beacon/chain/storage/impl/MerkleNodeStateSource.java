@@ -0,0 +1,561 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import org.ethereum.beacon.chain.storage.impl.BeaconStateRecord.Pages;
+import org.ethereum.beacon.consensus.hasher.ObjectHasher;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.operations.attestation.Crosslink;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.BeaconStateImpl;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.crypto.Hashes;
+import org.ethereum.beacon.db.source.BoundedCache;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+import org.ethereum.beacon.ssz.visitor.MerkleTrie;
+import org.ethereum.beacon.ssz.visitor.SSZIncrementalHasher;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.Bytes8;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.collections.ReadList;
+import tech.pegasys.artemis.util.collections.WriteList;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * Stores states as {@link BeaconStateRecord}s which refer to content addressed nodes of hash trees
+ * of big collections.
+ *
+ * <p>Each big list or vector is split into pages of {@link #PAGE_CHUNKS} hash tree leaves. A page
+ * is stored once under the root of its subtree, which is taken from the trie that incremental
+ * hasher has already built for the collection. Consecutive states and states of different forks
+ * share most of their pages, thus, only a record and the pages that have been changed are written
+ * for each state.
+ *
+ * <p>Pages are read with a single batch request and only if they are missing in the cache of
+ * decoded pages. States that share a page share its elements as well. Decoded pages are cached per
+ * field since zero pages of different fields have the same root.
+ *
+ * <p>Each node has a counter of records referring to it. A node is written when it gets its first
+ * reference and is removed along with the last record referring to it. Records are added and
+ * removed under a lock which keeps counters consistent.
+ *
+ * <p>A state which collections haven't been hashed incrementally is stored in full to the
+ * snapshot source.
+ */
+public class MerkleNodeStateSource implements DataSource<Hash32, BeaconState> {
+
+  /** Depth of a page subtree. */
+  static final int PAGE_DEPTH = 6;
+  /** Number of hash tree leaves in a page. */
+  static final int PAGE_CHUNKS = 1 << PAGE_DEPTH;
+  /** Max number of decoded pages that are kept in memory. */
+  static final int PAGE_CACHE_SIZE = 1 << 14;
+
+  private static final int BYTES_PER_CHUNK = 32;
+  /** Marks a field which elements are hashed into a chunk each. */
+  private static final int COMPOSITE = 0;
+
+  private final DataSource<Hash32, BeaconStateRecord> records;
+  private final DataSource<Hash32, BytesValue> nodes;
+  private final DataSource<Hash32, Long> references;
+  private final DataSource<Hash32, BeaconState> snapshots;
+  private final ObjectHasher<Hash32> objectHasher;
+  private final SpecConstants specConstants;
+
+  private final List<PagedField<?, ?>> fields;
+  private final Map<Integer, PagedField<?, ?>> fieldsById = new HashMap<>();
+  private final Hash32[] zeroHashes = new Hash32[PAGE_DEPTH];
+
+  private final BoundedCache<PageKey, List<?>> pages =
+      BoundedCache.lru(PAGE_CACHE_SIZE, key -> 0L, value -> 1L);
+  private final AutoCloseableLock pagesLock = AutoCloseableLock.wrap(new ReentrantLock());
+  private final AutoCloseableLock nodesLock = AutoCloseableLock.wrap(new ReentrantLock());
+
+  /**
+   * @param records a source of state records.
+   * @param nodes a source of pages keyed by their roots.
+   * @param references a source of counters of records referring to nodes.
+   * @param snapshots a source of full states.
+   * @param objectHasher a hasher that builds tries of state collections.
+   * @param serializerFactory a serializer factory.
+   * @param specConstants spec constants.
+   */
+  public MerkleNodeStateSource(
+      DataSource<Hash32, BeaconStateRecord> records,
+      DataSource<Hash32, BytesValue> nodes,
+      DataSource<Hash32, Long> references,
+      DataSource<Hash32, BeaconState> snapshots,
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      SpecConstants specConstants) {
+    this.records = records;
+    this.nodes = nodes;
+    this.references = references;
+    this.snapshots = snapshots;
+    this.objectHasher = objectHasher;
+    this.specConstants = specConstants;
+
+    Function<Hash32, BytesValue> hashEncoder = hash -> hash;
+    Function<BytesValue, Hash32> hashDecoder = bytes -> Hash32.wrap(Bytes32.wrap(bytes, 0));
+    Function<Gwei, BytesValue> gweiEncoder = UInt64::toBytes8LittleEndian;
+    Function<BytesValue, Gwei> gweiDecoder =
+        bytes -> Gwei.castFrom(UInt64.fromBytesLittleEndian(Bytes8.wrap(bytes, 0)));
+
+    // ids are SSZ orders of BeaconState fields
+    this.fields =
+        Arrays.asList(
+            new PagedField<>(
+                4, BeaconState::getBlockRoots, BeaconStateImpl::getBlockRoots,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                5, BeaconState::getStateRoots, BeaconStateImpl::getStateRoots,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                6, BeaconState::getHistoricalRoots, BeaconStateImpl::getHistoricalRoots,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                10, BeaconState::getValidators, BeaconStateImpl::getValidators,
+                COMPOSITE,
+                serializerFactory.getSerializer(ValidatorRecord.class),
+                serializerFactory.getDeserializer(ValidatorRecord.class)),
+            new PagedField<>(
+                11, BeaconState::getBalances, BeaconStateImpl::getBalances,
+                Bytes8.SIZE, gweiEncoder, gweiDecoder),
+            new PagedField<>(
+                13, BeaconState::getRandaoMixes, BeaconStateImpl::getRandaoMixes,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                14, BeaconState::getActiveIndexRoots, BeaconStateImpl::getActiveIndexRoots,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                15,
+                BeaconState::getCompactCommitteesRoots,
+                BeaconStateImpl::getCompactCommitteesRoots,
+                Bytes32.SIZE, hashEncoder, hashDecoder),
+            new PagedField<>(
+                16, BeaconState::getSlashings, BeaconStateImpl::getSlashings,
+                Bytes8.SIZE, gweiEncoder, gweiDecoder),
+            new PagedField<>(
+                19, BeaconState::getPreviousCrosslinks, BeaconStateImpl::getPreviousCrosslinks,
+                COMPOSITE,
+                serializerFactory.getSerializer(Crosslink.class),
+                serializerFactory.getDeserializer(Crosslink.class)),
+            new PagedField<>(
+                20, BeaconState::getCurrentCrosslinks, BeaconStateImpl::getCurrentCrosslinks,
+                COMPOSITE,
+                serializerFactory.getSerializer(Crosslink.class),
+                serializerFactory.getDeserializer(Crosslink.class)));
+    for (PagedField<?, ?> field : fields) {
+      fieldsById.put(field.id, field);
+    }
+
+    zeroHashes[0] = Hash32.ZERO;
+    for (int i = 1; i < PAGE_DEPTH; i++) {
+      zeroHashes[i] = Hashes.sha256(BytesValue.concat(zeroHashes[i - 1], zeroHashes[i - 1]));
+    }
+  }
+
+  @Override
+  public Optional<BeaconState> get(@Nonnull Hash32 key) {
+    Objects.requireNonNull(key);
+
+    Optional<BeaconStateRecord> record = records.get(key);
+    if (!record.isPresent()) {
+      return snapshots.get(key);
+    }
+
+    Optional<Map<PageKey, List<?>>> loadedPages = loadPages(key, record.get());
+    if (!loadedPages.isPresent()) {
+      return Optional.empty();
+    }
+    Map<PageKey, List<?>> loaded = loadedPages.get();
+    BeaconStateImpl state = new BeaconStateImpl(specConstants);
+    state.setGenesisTime(record.get().getGenesisTime());
+    state.setSlot(record.get().getSlot());
+    state.setFork(record.get().getFork());
+    state.setLatestBlockHeader(record.get().getLatestBlockHeader());
+    state.setEth1Data(record.get().getEth1Data());
+    state.getEth1DataVotes().addAll(record.get().getEth1DataVotes());
+    state.setEth1DepositIndex(record.get().getEth1DepositIndex());
+    state.setStartShard(record.get().getStartShard());
+    state.getPreviousEpochAttestations().addAll(record.get().getPreviousEpochAttestations());
+    state.getCurrentEpochAttestations().addAll(record.get().getCurrentEpochAttestations());
+    state.setJustificationBits(record.get().getJustificationBits());
+    state.setPreviousJustifiedCheckpoint(record.get().getPreviousJustifiedCheckpoint());
+    state.setCurrentJustifiedCheckpoint(record.get().getCurrentJustifiedCheckpoint());
+    state.setFinalizedCheckpoint(record.get().getFinalizedCheckpoint());
+    for (Pages fieldPages : record.get().getPages()) {
+      getField(fieldPages.getField()).join(state, fieldPages, loaded);
+    }
+
+    return Optional.of(state.createImmutable());
+  }
+
+  /** @return pages or nothing if the state has been removed while its pages were loaded. */
+  private Optional<Map<PageKey, List<?>>> loadPages(Hash32 key, BeaconStateRecord record) {
+    Map<PageKey, List<?>> loaded = new HashMap<>();
+    Map<PageKey, Integer> missed = new LinkedHashMap<>();
+    try (AutoCloseableLock l = pagesLock.lock()) {
+      for (Pages fieldPages : record.getPages()) {
+        int pageSize = PAGE_CHUNKS * getField(fieldPages.getField()).elementsPerChunk;
+        for (int i = 0; i < fieldPages.getRoots().size(); i++) {
+          PageKey pageKey = new PageKey(fieldPages.getField(), fieldPages.getRoots().get(i));
+          List<?> page = pages.get(pageKey);
+          if (page != null) {
+            loaded.put(pageKey, page);
+          } else {
+            missed.put(pageKey, Math.min(pageSize, fieldPages.getSize() - i * pageSize));
+          }
+        }
+      }
+    }
+    if (missed.isEmpty()) {
+      return Optional.of(loaded);
+    }
+
+    Set<Hash32> roots = new LinkedHashSet<>();
+    missed.keySet().forEach(pageKey -> roots.add(pageKey.root));
+    Map<Hash32, BytesValue> fetched = nodes.getAll(roots);
+    for (Map.Entry<PageKey, Integer> entry : missed.entrySet()) {
+      BytesValue payload = fetched.get(entry.getKey().root);
+      if (payload == null) {
+        if (!records.get(key).isPresent()) {
+          return Optional.empty();
+        }
+        throw new IllegalStateException(
+            "Node " + entry.getKey().root + " of state " + key + " is missing in the storage");
+      }
+      PagedField<?, ?> field = getField(entry.getKey().field);
+      loaded.put(entry.getKey(), field.decode(payload, entry.getValue()));
+    }
+    try (AutoCloseableLock l = pagesLock.lock()) {
+      for (PageKey pageKey : missed.keySet()) {
+        pages.put(pageKey, loaded.get(pageKey));
+      }
+    }
+    return Optional.of(loaded);
+  }
+
+  private PagedField<?, ?> getField(int id) {
+    PagedField<?, ?> field = fieldsById.get(id);
+    if (field == null) {
+      throw new IllegalArgumentException("Unknown state field: " + id);
+    }
+    return field;
+  }
+
+  @Override
+  public void put(@Nonnull Hash32 key, @Nonnull BeaconState value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    // brings tries of collections up to date, it's cheap if the state has already been hashed
+    objectHasher.getHash(value);
+
+    try (AutoCloseableLock l = nodesLock.lock()) {
+      // nodes of a state that is stored again must not be referenced twice
+      if (records.get(key).isPresent()) {
+        return;
+      }
+
+      List<Pages> fieldPages = new ArrayList<>();
+      Map<PageKey, List<?>> newPages = new LinkedHashMap<>();
+      Map<Hash32, Supplier<BytesValue>> payloads = new LinkedHashMap<>();
+      for (PagedField<?, ?> field : fields) {
+        Optional<Pages> split = field.split(value, newPages, payloads);
+        if (!split.isPresent()) {
+          // collection hasn't been hashed incrementally, there are no nodes to reuse
+          snapshots.put(key, value);
+          return;
+        }
+        fieldPages.add(split.get());
+      }
+
+      retain(payloads);
+      try (AutoCloseableLock pl = pagesLock.lock()) {
+        newPages.forEach(pages::put);
+      }
+
+      records.put(
+          key,
+          new BeaconStateRecord(
+              value.getGenesisTime(),
+              value.getSlot(),
+              value.getFork(),
+              value.getLatestBlockHeader(),
+              value.getEth1Data(),
+              value.getEth1DataVotes().listCopy(),
+              value.getEth1DepositIndex(),
+              value.getStartShard(),
+              value.getPreviousEpochAttestations().listCopy(),
+              value.getCurrentEpochAttestations().listCopy(),
+              value.getJustificationBits(),
+              value.getPreviousJustifiedCheckpoint(),
+              value.getCurrentJustifiedCheckpoint(),
+              value.getFinalizedCheckpoint(),
+              fieldPages));
+    }
+  }
+
+  @Override
+  public void remove(@Nonnull Hash32 key) {
+    Objects.requireNonNull(key);
+    try (AutoCloseableLock l = nodesLock.lock()) {
+      Optional<BeaconStateRecord> record = records.get(key);
+      if (record.isPresent()) {
+        release(record.get());
+        records.remove(key);
+      }
+      snapshots.remove(key);
+    }
+  }
+
+  /**
+   * Increments counters of referenced nodes, a node which has no references yet is written.
+   *
+   * @param payloads encoders of referenced nodes keyed by their roots.
+   */
+  private void retain(Map<Hash32, Supplier<BytesValue>> payloads) {
+    Map<Hash32, Long> counters = references.getAll(payloads.keySet());
+    for (Map.Entry<Hash32, Supplier<BytesValue>> entry : payloads.entrySet()) {
+      long counter = counters.getOrDefault(entry.getKey(), 0L);
+      if (counter == 0) {
+        nodes.put(entry.getKey(), entry.getValue().get());
+      }
+      references.put(entry.getKey(), counter + 1);
+    }
+  }
+
+  /** Decrements counters of nodes referred by the record, removes nodes which are left unused. */
+  private void release(BeaconStateRecord record) {
+    Set<Hash32> roots = new LinkedHashSet<>();
+    for (Pages fieldPages : record.getPages()) {
+      roots.addAll(fieldPages.getRoots());
+    }
+    Map<Hash32, Long> counters = references.getAll(roots);
+    for (Hash32 root : roots) {
+      long counter = counters.getOrDefault(root, 0L);
+      if (counter > 1) {
+        references.put(root, counter - 1);
+      } else {
+        references.remove(root);
+        nodes.remove(root);
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    // nothing to be done here, upstreams are flushed by the database
+  }
+
+  private List<?> getKnownPage(PageKey pageKey) {
+    try (AutoCloseableLock l = pagesLock.lock()) {
+      return pages.get(pageKey);
+    }
+  }
+
+  /**
+   * Calculates a root of a page subtree out of the root of a smaller trie by padding it with zero
+   * subtrees.
+   */
+  private Hash32 padRoot(BytesValue root, int width) {
+    Hash32 padded = Hash32.wrap(Bytes32.leftPad(root));
+    for (int level = Integer.numberOfTrailingZeros(width); level < PAGE_DEPTH; level++) {
+      padded = Hashes.sha256(BytesValue.concat(padded, zeroHashes[level]));
+    }
+    return padded;
+  }
+
+  /**
+   * Describes list or vector field of a state that is stored in pages.
+   *
+   * @param <I> an index type.
+   * @param <V> an element type.
+   */
+  private final class PagedField<I extends Number, V> {
+
+    private final int id;
+    private final Function<BeaconState, ReadList<I, V>> reader;
+    private final Function<BeaconStateImpl, WriteList<I, V>> writer;
+    private final int elementSize;
+    private final int elementsPerChunk;
+    private final Function<V, BytesValue> encoder;
+    private final Function<BytesValue, V> decoder;
+    /** A value which encoding is a zero chunk or {@code null} for composite elements. */
+    private final V zero;
+
+    PagedField(
+        int id,
+        Function<BeaconState, ReadList<I, V>> reader,
+        Function<BeaconStateImpl, WriteList<I, V>> writer,
+        int elementSize,
+        Function<V, BytesValue> encoder,
+        Function<BytesValue, V> decoder) {
+      this.id = id;
+      this.reader = reader;
+      this.writer = writer;
+      this.elementSize = elementSize;
+      this.elementsPerChunk = elementSize == COMPOSITE ? 1 : BYTES_PER_CHUNK / elementSize;
+      this.encoder = encoder;
+      this.decoder = decoder;
+      this.zero =
+          elementSize == COMPOSITE ? null : decoder.apply(BytesValue.wrap(new byte[elementSize]));
+    }
+
+    /**
+     * Splits the collection into pages, pages that are not known yet are added to {@code
+     * newPages}, encoders of all the pages are added to {@code payloads}.
+     *
+     * @return pages or nothing if the collection has no up to date trie.
+     */
+    @SuppressWarnings("unchecked")
+    Optional<Pages> split(
+        BeaconState state,
+        Map<PageKey, List<?>> newPages,
+        Map<Hash32, Supplier<BytesValue>> payloads) {
+      ReadList<I, V> list = reader.apply(state);
+      int size = list.size().intValue();
+      if (size == 0) {
+        return Optional.of(new Pages(id, 0, Collections.emptyList()));
+      }
+
+      Optional<MerkleTrie> trie = SSZIncrementalHasher.getCachedTrie(list);
+      int chunks = (size - 1) / elementsPerChunk + 1;
+      if (!trie.isPresent() || trie.get().getWidth() < chunks) {
+        return Optional.empty();
+      }
+
+      int width = trie.get().getWidth();
+      int pageSize = PAGE_CHUNKS * elementsPerChunk;
+      List<V> elements = list.listCopy();
+      List<Hash32> roots = new ArrayList<>();
+      for (int page = 0, from = 0; from < size; page++, from += pageSize) {
+        Hash32 root =
+            width >= PAGE_CHUNKS
+                ? Hash32.wrap(Bytes32.leftPad(trie.get().getNode(width / PAGE_CHUNKS + page)))
+                : padRoot(trie.get().getNode(1), width);
+        roots.add(root);
+        PageKey pageKey = new PageKey(id, root);
+        List<?> known =
+            newPages.containsKey(pageKey) ? newPages.get(pageKey) : getKnownPage(pageKey);
+        if (known == null) {
+          known = new ArrayList<>(elements.subList(from, Math.min(size, from + pageSize)));
+          newPages.put(pageKey, known);
+        }
+        // the page is encoded only if its node is missing in the storage
+        List<V> content = (List<V>) known;
+        payloads.putIfAbsent(root, () -> encode(content));
+      }
+      return Optional.of(new Pages(id, size, roots));
+    }
+
+    /** Concatenates encoded elements, packed elements are padded to a whole chunk. */
+    BytesValue encode(List<V> content) {
+      List<BytesValue> encoded = new ArrayList<>();
+      for (V value : content) {
+        encoded.add(encoder.apply(value));
+      }
+      BytesValue payload = BytesValue.concat(encoded);
+      if (elementsPerChunk > 1 && payload.size() % BYTES_PER_CHUNK != 0) {
+        payload =
+            BytesValue.concat(
+                payload,
+                BytesValue.wrap(new byte[BYTES_PER_CHUNK - payload.size() % BYTES_PER_CHUNK]));
+      }
+      return payload;
+    }
+
+    /**
+     * Decodes a page.
+     *
+     * @param payload encoded page.
+     * @param count a number of elements in the page.
+     * @return decoded elements.
+     */
+    List<V> decode(BytesValue payload, int count) {
+      // composite elements of state collections have fixed size
+      int size = elementSize == COMPOSITE ? payload.size() / count : elementSize;
+      List<V> content = new ArrayList<>();
+      for (int offset = 0; offset + size <= payload.size(); offset += size) {
+        content.add(decoder.apply(payload.slice(offset, size)));
+      }
+      return content;
+    }
+
+    /**
+     * Appends elements of pages to the state. Pages with the same root may differ in a number of
+     * trailing zero chunks, missing elements of such pages are filled with zeros.
+     */
+    @SuppressWarnings("unchecked")
+    void join(BeaconStateImpl state, Pages fieldPages, Map<PageKey, List<?>> loaded) {
+      int pageSize = PAGE_CHUNKS * elementsPerChunk;
+      int remaining = fieldPages.getSize();
+      List<V> elements = new ArrayList<>(remaining);
+      for (Hash32 root : fieldPages.getRoots()) {
+        List<V> page = (List<V>) loaded.get(new PageKey(id, root));
+        int count = Math.min(remaining, pageSize);
+        if (page.size() >= count) {
+          elements.addAll(page.subList(0, count));
+        } else if (zero != null) {
+          elements.addAll(page);
+          elements.addAll(Collections.nCopies(count - page.size(), zero));
+        } else {
+          throw new IllegalStateException(
+              "Page " + root + " of field " + id + " has less than " + count + " elements");
+        }
+        remaining -= count;
+      }
+      if (remaining != 0) {
+        throw new IllegalStateException(
+            "Pages of field " + id + " have " + remaining + " elements less than expected");
+      }
+      writer.apply(state).addAll(elements);
+    }
+  }
+
+  /** A page of a particular field. */
+  private static final class PageKey {
+
+    private final int field;
+    private final Hash32 root;
+
+    PageKey(int field, Hash32 root) {
+      this.field = field;
+      this.root = root;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      PageKey pageKey = (PageKey) o;
+      return field == pageKey.field && root.equals(pageKey.root);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * field + root.hashCode();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.ethereum.beacon.chain.storage.impl;
 
+import java.util.function.Function;
 import org.ethereum.beacon.chain.storage.BeaconBlockStorage;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
 import org.ethereum.beacon.chain.storage.BeaconChainStorageFactory;
@@ -7,6 +8,7 @@ import org.ethereum.beacon.chain.storage.BeaconStateStorage;
 import org.ethereum.beacon.chain.storage.BeaconTupleStorage;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.consensus.hasher.SSZObjectHasher;
+import org.ethereum.beacon.core.spec.SpecConstants;
 import org.ethereum.beacon.core.state.Checkpoint;
 import org.ethereum.beacon.db.Database;
 import org.ethereum.beacon.db.source.DataSource;
@@ -22,26 +24,90 @@ import tech.pegasys.artemis.util.bytes.BytesValue;
 public class SSZBeaconChainStorageFactory implements BeaconChainStorageFactory {
   private final ObjectHasher<Hash32> objectHasher;
   private final SerializerFactory serializerFactory;
+  private final Function<Database, BeaconStateStorage> stateStorageFactory;
 
   public SSZBeaconChainStorageFactory(
       ObjectHasher<Hash32> objectHasher,
       SerializerFactory serializerFactory) {
+    this(objectHasher, serializerFactory, 0);
+  }
+
+  /**
+   * @param objectHasher an object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param stateSnapshotInterval if positive then states are delta-encoded and full snapshots are
+   *     stored once in this number of slots.
+   */
+  public SSZBeaconChainStorageFactory(
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      long stateSnapshotInterval) {
+    this(
+        objectHasher,
+        serializerFactory,
+        database ->
+            BeaconStateStorageImpl.create(
+                database,
+                objectHasher,
+                serializerFactory,
+                BeaconStateStorageImpl.DEFAULT_CACHE_SIZE,
+                stateSnapshotInterval));
+  }
+
+  private SSZBeaconChainStorageFactory(
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      Function<Database, BeaconStateStorage> stateStorageFactory) {
     this.objectHasher = objectHasher;
     this.serializerFactory = serializerFactory;
+    this.stateStorageFactory = stateStorageFactory;
+  }
+
+  /**
+   * Creates a factory which storage keeps states as references to content addressed nodes.
+   *
+   * @param objectHasher an incremental object hasher.
+   * @param serializerFactory a serializer factory.
+   * @param specConstants spec constants.
+   * @return a new instance.
+   * @see BeaconStateStorageImpl#createMerkleNodeStorage(Database, ObjectHasher, SerializerFactory,
+   *     SpecConstants, long)
+   */
+  public static SSZBeaconChainStorageFactory createWithMerkleNodeStates(
+      ObjectHasher<Hash32> objectHasher,
+      SerializerFactory serializerFactory,
+      SpecConstants specConstants) {
+    return new SSZBeaconChainStorageFactory(
+        objectHasher,
+        serializerFactory,
+        database ->
+            BeaconStateStorageImpl.createMerkleNodeStorage(
+                database,
+                objectHasher,
+                serializerFactory,
+                specConstants,
+                BeaconStateStorageImpl.DEFAULT_CACHE_SIZE));
   }
 
   @Override
   public BeaconChainStorage create(Database database) {
     BeaconBlockStorage blockStorage =
         BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory);
-    BeaconStateStorage stateStorage =
-        BeaconStateStorageImpl.create(database, objectHasher, serializerFactory);
-    BeaconTupleStorage tupleStorage = new BeaconTupleStorageImpl(blockStorage, stateStorage);
+    BeaconStateStorage stateStorage = stateStorageFactory.apply(database);
+    BeaconTupleStorage tupleStorage =
+        new BeaconTupleStorageImpl(
+            blockStorage, stateStorage, objectHasher, BeaconTupleStorageImpl.DEFAULT_CACHE_SIZE);
 
     SingleValueSource<Checkpoint> justifiedStorage =
         createSingleValueStorage(database, "justified-hash", Checkpoint.class);
     SingleValueSource<Checkpoint> finalizedStorage =
         createSingleValueStorage(database, "finalized-hash", Checkpoint.class);
+    SingleValueSource<Hash32> headStorage =
+        SingleValueSource.fromDataSource(
+            database.createStorage("head-hash"),
+            BytesValue.wrap("head-hash".getBytes()),
+            hash -> hash,
+            bytes -> Hash32.wrap(Bytes32.wrap(bytes, 0)));
 
     return new BeaconChainStorageImpl(
         database,
@@ -50,7 +116,8 @@ public class SSZBeaconChainStorageFactory implements BeaconChainStorageFactory {
         stateStorage,
         tupleStorage,
         justifiedStorage,
-        finalizedStorage);
+        finalizedStorage,
+        headStorage);
   }
 
   private <U> SingleValueSource<U> createSingleValueStorage(
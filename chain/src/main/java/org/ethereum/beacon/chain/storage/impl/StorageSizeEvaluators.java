@@ -0,0 +1,73 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import java.util.function.Function;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.BeaconState;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.collections.ReadList;
+
+/**
+ * Rough evaluators of memory footprints of decoded chain objects. Used to bound caches of storages.
+ *
+ * <p>Estimates account for list sizes only, sizes of list items are constant approximations.
+ */
+public abstract class StorageSizeEvaluators {
+  private StorageSizeEvaluators() {}
+
+  /** Hash bytes + array header + hash object header. */
+  private static final long HASH_SIZE = 32 + 16 + 16;
+  /** Validator record with its pubkey, credentials and epochs. */
+  private static final long VALIDATOR_SIZE = 320;
+  /** Boxed {@link tech.pegasys.artemis.util.uint.UInt64} value with a reference to it. */
+  private static final long UINT64_SIZE = 24 + 8;
+  /** Pending attestation or attestation with its data, bits and signature. */
+  private static final long ATTESTATION_SIZE = 512;
+  /** Deposit with its proof. */
+  private static final long DEPOSIT_SIZE = 33 * HASH_SIZE + 256;
+  /** Other block operations: slashings, exits and transfers. */
+  private static final long OPERATION_SIZE = 1024;
+  /** Headers, checkpoints, crosslinks and other small fields. */
+  private static final long FIXED_OVERHEAD = 4096;
+
+  public static final Function<Hash32, Long> HASH32 = hash -> HASH_SIZE;
+
+  public static final Function<BeaconState, Long> BEACON_STATE =
+      state ->
+          FIXED_OVERHEAD
+              + HASH_SIZE
+                  * (size(state.getBlockRoots())
+                      + size(state.getStateRoots())
+                      + size(state.getHistoricalRoots())
+                      + size(state.getRandaoMixes())
+                      + size(state.getActiveIndexRoots())
+                      + size(state.getCompactCommitteesRoots()))
+              + VALIDATOR_SIZE * size(state.getValidators())
+              + UINT64_SIZE * (size(state.getBalances()) + size(state.getSlashings()))
+              + ATTESTATION_SIZE
+                  * (size(state.getPreviousEpochAttestations())
+                      + size(state.getCurrentEpochAttestations()))
+              + HASH_SIZE
+                  * 3
+                  * (size(state.getPreviousCrosslinks()) + size(state.getCurrentCrosslinks()));
+
+  public static final Function<BeaconBlock, Long> BEACON_BLOCK =
+      block -> {
+        BeaconBlockBody body = block.getBody();
+        return FIXED_OVERHEAD
+            + ATTESTATION_SIZE * size(body.getAttestations())
+            + DEPOSIT_SIZE * size(body.getDeposits())
+            + OPERATION_SIZE
+                * (size(body.getProposerSlashings())
+                    + size(body.getAttesterSlashings())
+                    + size(body.getVoluntaryExits())
+                    + size(body.getTransfers()));
+      };
+
+  public static final Function<BeaconBlockStorageImpl.BlockChildren, Long> BLOCK_CHILDREN =
+      children -> HASH_SIZE * (children.getChildHashes().size() + 1);
+
+  private static long size(ReadList<?, ?> list) {
+    return list.size().longValue();
+  }
+}
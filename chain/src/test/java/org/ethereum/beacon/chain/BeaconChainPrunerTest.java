@@ -0,0 +1,225 @@
+package org.ethereum.beacon.chain;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.chain.storage.impl.SSZBeaconChainStorageFactory;
+import org.ethereum.beacon.chain.storage.impl.SerializerFactory;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.ChainStart;
+import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
+import org.ethereum.beacon.consensus.transition.InitialStateTransition;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.Time;
+import org.ethereum.beacon.db.Database;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.source.impl.DelegateDataSource;
+import org.ethereum.beacon.schedulers.Schedulers;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+public class BeaconChainPrunerTest {
+
+  /** Thinning period and snapshot interval are both 8 slots long. */
+  private static final int THINNING_EPOCHS = 2;
+  private static final long SNAPSHOT_INTERVAL = 8;
+
+  private final SpecConstants constants =
+      new SpecConstants() {
+        @Override
+        public SlotNumber.EpochLength getSlotsPerEpoch() {
+          return new SlotNumber.EpochLength(UInt64.valueOf(4));
+        }
+      };
+  private final BeaconChainSpec spec =
+      new BeaconChainSpec.Builder()
+          .withConstants(constants)
+          .withDefaultHasher(constants)
+          .withDefaultHashFunction()
+          .withVerifyDepositProof(false)
+          .build();
+
+  private final List<Hash32> removedBlocks = Collections.synchronizedList(new ArrayList<>());
+  private final Database database = recordBlockRemovals(Database.inMemoryDB());
+
+  @Test
+  public void pruneForkedChain() {
+    BeaconChainStorage storage = createStorage();
+
+    BeaconStateEx genesisState =
+        new InitialStateTransition(
+                new ChainStart(Time.ZERO, Eth1Data.EMPTY, Collections.emptyList()), spec)
+            .apply(spec.get_empty_block());
+    BeaconTuple genesis =
+        BeaconTuple.of(
+            spec.get_empty_block().withStateRoot(spec.hash_tree_root(genesisState)),
+            genesisState);
+    storage.getTupleStorage().put(genesis);
+
+    // canonical chain occupies slots 0..20, the others are forks
+    List<BeaconTuple> canonical = new ArrayList<>();
+    canonical.add(genesis);
+    BeaconTuple f3 = null, f4 = null, f6 = null, e18 = null, d17 = null;
+    for (int slot = 1; slot <= 20; slot++) {
+      BeaconTuple parent = canonical.get(slot - 1);
+      canonical.add(child(storage, parent, slot, 0));
+      if (slot == 2) {
+        f3 = child(storage, canonical.get(2), 3, 1);
+        f4 = child(storage, f3, 4, 2);
+      } else if (slot == 5) {
+        f6 = child(storage, canonical.get(5), 6, 3);
+      } else if (slot == 14) {
+        e18 = child(storage, canonical.get(14), 18, 4);
+      } else if (slot == 16) {
+        d17 = child(storage, canonical.get(16), 17, 5);
+      }
+    }
+    storage.getHeadStorage().set(root(canonical.get(20)));
+    storage.commit();
+
+    BeaconChainPruner pruner =
+        new BeaconChainPruner(
+            spec,
+            storage,
+            database,
+            Schedulers.createDefault().newSingleThreadDaemon("beacon-chain-pruner"),
+            THINNING_EPOCHS);
+    pruner
+        .onFinalized(
+            new Checkpoint(EpochNumber.ZERO, root(genesis)),
+            new Checkpoint(EpochNumber.of(4), root(canonical.get(16))),
+            new Object())
+        .join();
+
+    // orphans are removed descendants first and before canonical blocks are archived
+    List<BeaconTuple> orphans = asList(f3, f4, f6, e18);
+    Set<Hash32> orphanRoots = orphans.stream().map(this::root).collect(Collectors.toSet());
+    assertEquals(orphanRoots, new HashSet<>(removedBlocks.subList(0, orphans.size())));
+    assertTrue(removedBlocks.indexOf(root(f4)) < removedBlocks.indexOf(root(f3)));
+    for (BeaconTuple orphan : orphans) {
+      assertFalse(storage.getBlockStorage().get(root(orphan)).isPresent());
+      assertFalse(storage.getStateStorage().get(orphan.getBlock().getStateRoot()).isPresent());
+    }
+
+    // canonical blocks survive, states are thinned to one per period up to the finalized block
+    List<BeaconTuple> retained = new ArrayList<>();
+    for (int slot = 0; slot <= 20; slot++) {
+      BeaconTuple tuple = canonical.get(slot);
+      assertTrue(storage.getBlockStorage().get(root(tuple)).isPresent());
+      boolean thinned = slot < 16 && slot % SNAPSHOT_INTERVAL != 0;
+      assertEquals(
+          !thinned, storage.getStateStorage().get(tuple.getBlock().getStateRoot()).isPresent());
+      if (!thinned) {
+        retained.add(tuple);
+      }
+    }
+    retained.add(d17);
+
+    // restarted node reads retained states rebuilding them from snapshots
+    BeaconChainStorage restarted = createStorage();
+    Hash32 head = restarted.getHeadStorage().get().get();
+    assertEquals(root(canonical.get(20)), head);
+    assertTrue(restarted.getTupleStorage().get(head).isPresent());
+    for (BeaconTuple tuple : retained) {
+      BeaconState state =
+          restarted.getStateStorage().get(tuple.getBlock().getStateRoot()).get();
+      assertEquals(tuple.getBlock().getStateRoot(), spec.hash_tree_root(state));
+    }
+    assertEquals(
+        new HashSet<>(asList(canonical.get(17).getBlock(), d17.getBlock())),
+        new HashSet<>(
+            restarted.getBlockStorage().getChildren(root(canonical.get(16)), Integer.MAX_VALUE)));
+    assertEquals(
+        asList(canonical.get(15).getBlock()),
+        restarted.getBlockStorage().getChildren(root(canonical.get(14)), Integer.MAX_VALUE));
+    assertEquals(
+        asList(canonical.get(3).getBlock()),
+        restarted.getBlockStorage().getChildren(root(canonical.get(2)), Integer.MAX_VALUE));
+  }
+
+  private BeaconTuple child(BeaconChainStorage storage, BeaconTuple parent, long slot, long salt) {
+    long historyLength = constants.getSlotsPerHistoricalRoot().getValue();
+    MutableBeaconState state = parent.getState().createMutableCopy();
+    state.setSlot(SlotNumber.of(slot));
+    state
+        .getStateRoots()
+        .set(SlotNumber.of((slot - 1) % historyLength), parent.getBlock().getStateRoot());
+    // makes states of sibling blocks distinct
+    state.setEth1DepositIndex(UInt64.valueOf(salt));
+    BeaconStateEx stateEx = new BeaconStateExImpl(state.createImmutable());
+
+    BeaconBlock block =
+        new BeaconBlock(
+            SlotNumber.of(slot),
+            root(parent),
+            spec.hash_tree_root(stateEx),
+            BeaconBlockBody.getEmpty(constants),
+            BLSSignature.ZERO);
+    BeaconTuple tuple = BeaconTuple.of(block, stateEx);
+    storage.getTupleStorage().put(tuple);
+    return tuple;
+  }
+
+  private Hash32 root(BeaconTuple tuple) {
+    return spec.signing_root(tuple.getBlock());
+  }
+
+  private BeaconChainStorage createStorage() {
+    return new SSZBeaconChainStorageFactory(
+            spec.getObjectHasher(),
+            SerializerFactory.createSSZ(constants),
+            SNAPSHOT_INTERVAL)
+        .create(database);
+  }
+
+  private Database recordBlockRemovals(Database database) {
+    return new Database() {
+      @Override
+      public DataSource<BytesValue, BytesValue> createStorage(String name) {
+        DataSource<BytesValue, BytesValue> storage = database.createStorage(name);
+        if (!"beacon-block".equals(name)) {
+          return storage;
+        }
+        return new DelegateDataSource<BytesValue, BytesValue>(storage) {
+          @Override
+          public void remove(BytesValue key) {
+            removedBlocks.add(Hash32.wrap(Bytes32.wrap(key, 0)));
+            super.remove(key);
+          }
+        };
+      }
+
+      @Override
+      public void commit() {
+        database.commit();
+      }
+
+      @Override
+      public void close() {
+        database.close();
+      }
+    };
+  }
+}
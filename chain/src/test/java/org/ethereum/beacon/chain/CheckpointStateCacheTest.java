@@ -0,0 +1,207 @@
+package org.ethereum.beacon.chain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.ethereum.beacon.chain.CheckpointStateCache.CheckpointState;
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.chain.storage.impl.SSZBeaconChainStorageFactory;
+import org.ethereum.beacon.chain.storage.impl.SerializerFactory;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
+import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
+import org.ethereum.beacon.consensus.transition.ExtendedSlotTransition;
+import org.ethereum.beacon.consensus.transition.PerEpochTransition;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.BLSPubkey;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.db.Database;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+public class CheckpointStateCacheTest {
+
+  private final SpecConstants constants =
+      new SpecConstants() {
+        @Override
+        public SlotNumber.EpochLength getSlotsPerEpoch() {
+          return new SlotNumber.EpochLength(UInt64.valueOf(4));
+        }
+      };
+  private final BeaconChainSpec spec =
+      new BeaconChainSpec.Builder()
+          .withConstants(constants)
+          .withDefaultHasher(constants)
+          .withDefaultHashFunction()
+          .withVerifyDepositProof(false)
+          .build();
+
+  private final BeaconChainStorage chainStorage =
+      new SSZBeaconChainStorageFactory(
+              spec.getObjectHasher(), SerializerFactory.createSSZ(constants))
+          .create(Database.inMemoryDB());
+
+  private int slotTransitions = 0;
+  private final EmptySlotTransition emptySlotTransition =
+      new EmptySlotTransition(
+          new ExtendedSlotTransition(
+              new PerEpochTransition(spec) {
+                @Override
+                public BeaconStateEx apply(BeaconStateEx stateEx) {
+                  return stateEx;
+                }
+              },
+              state -> {
+                slotTransitions++;
+                return state;
+              },
+              spec));
+
+  @Test
+  public void stateIsAdvancedToCheckpointEpoch() {
+    EpochNumber farFuture = constants.getFarFutureEpoch();
+    // a block of epoch 1, the second validator gets activated in epoch 2, the third one exits
+    Hash32 root =
+        putTuple(
+            5,
+            validator(EpochNumber.ZERO, farFuture, 32),
+            validator(EpochNumber.of(2), farFuture, 31),
+            validator(EpochNumber.ZERO, EpochNumber.of(1), 30),
+            validator(farFuture, farFuture, 29),
+            validator(EpochNumber.ZERO, farFuture, 16));
+
+    CheckpointStateCache cache = new CheckpointStateCache(chainStorage, spec, emptySlotTransition);
+    Checkpoint checkpoint = new Checkpoint(EpochNumber.of(2), root);
+    CheckpointState checkpointState = cache.get(checkpoint).get();
+
+    BeaconStateEx state = checkpointState.getState();
+    assertEquals(checkpoint, checkpointState.getCheckpoint());
+    assertEquals(SlotNumber.of(8), state.getSlot());
+    assertEquals(3, slotTransitions);
+
+    List<ValidatorIndex> expected = spec.get_active_validator_indices(state, EpochNumber.of(2));
+    assertArrayEquals(
+        expected.stream().mapToInt(ValidatorIndex::intValue).toArray(),
+        checkpointState.getActiveIndices());
+    assertArrayEquals(new int[] {0, 1, 4}, checkpointState.getActiveIndices());
+    long[] balances = new long[state.getValidators().size().intValue()];
+    for (ValidatorIndex index : expected) {
+      balances[index.intValue()] =
+          state.getValidators().get(index).getEffectiveBalance().getValue();
+    }
+    assertArrayEquals(balances, checkpointState.getActiveBalances());
+    assertArrayEquals(
+        new long[] {Gwei.ofEthers(32).getValue(), Gwei.ofEthers(31).getValue(), 0, 0,
+            Gwei.ofEthers(16).getValue()},
+        checkpointState.getActiveBalances());
+
+    assertFalse(cache.get(new Checkpoint(EpochNumber.of(2), Hash32.ZERO)).isPresent());
+  }
+
+  @Test
+  public void stateIsComputedOncePerCheckpoint() {
+    Hash32 root = putTuple(5, validator(EpochNumber.ZERO, constants.getFarFutureEpoch(), 32));
+    CheckpointStateCache cache = new CheckpointStateCache(chainStorage, spec, emptySlotTransition);
+
+    Checkpoint justified = new Checkpoint(EpochNumber.of(2), root);
+    CheckpointState state = cache.get(justified).get();
+    int transitions = slotTransitions;
+    assertSame(state, cache.get(new Checkpoint(EpochNumber.of(2), root)).get());
+    assertEquals(transitions, slotTransitions);
+
+    chainStorage.getJustifiedStorage().set(justified);
+    assertSame(state, cache.getJustified().get());
+    assertEquals(transitions, slotTransitions);
+
+    // a checkpoint of the same block in a later epoch
+    Checkpoint next = new Checkpoint(EpochNumber.of(3), root);
+    CheckpointState nextState = cache.get(next).get();
+    assertNotSame(state, nextState);
+    assertEquals(SlotNumber.of(12), nextState.getState().getSlot());
+    assertEquals(transitions + 7, slotTransitions);
+  }
+
+  @Test
+  public void missingStateIsNotCached() {
+    CheckpointStateCache cache = new CheckpointStateCache(chainStorage, spec, emptySlotTransition);
+    BeaconTuple tuple = tuple(5, validator(EpochNumber.ZERO, constants.getFarFutureEpoch(), 32));
+
+    Checkpoint checkpoint =
+        new Checkpoint(EpochNumber.of(2), spec.signing_root(tuple.getBlock()));
+    assertFalse(cache.get(checkpoint).isPresent());
+
+    // the checkpoint block is imported afterwards
+    chainStorage.getTupleStorage().put(tuple);
+    assertTrue(cache.get(checkpoint).isPresent());
+  }
+
+  @Test
+  public void leastRecentlyUsedStateIsEvicted() {
+    Hash32 root = putTuple(5, validator(EpochNumber.ZERO, constants.getFarFutureEpoch(), 32));
+    CheckpointStateCache cache = new CheckpointStateCache(chainStorage, spec, emptySlotTransition);
+
+    CheckpointState first = cache.get(new Checkpoint(EpochNumber.of(2), root)).get();
+    CheckpointState second = cache.get(new Checkpoint(EpochNumber.of(3), root)).get();
+    cache.get(new Checkpoint(EpochNumber.of(4), root));
+    cache.get(new Checkpoint(EpochNumber.of(5), root));
+    // keeps the first one recently used
+    assertSame(first, cache.get(new Checkpoint(EpochNumber.of(2), root)).get());
+    cache.get(new Checkpoint(EpochNumber.of(6), root));
+
+    assertSame(first, cache.get(new Checkpoint(EpochNumber.of(2), root)).get());
+    assertNotSame(second, cache.get(new Checkpoint(EpochNumber.of(3), root)).get());
+  }
+
+  private Hash32 putTuple(long slot, ValidatorRecord... validators) {
+    BeaconTuple tuple = tuple(slot, validators);
+    chainStorage.getTupleStorage().put(tuple);
+    return spec.signing_root(tuple.getBlock());
+  }
+
+  private BeaconTuple tuple(long slot, ValidatorRecord... validators) {
+    MutableBeaconState state = BeaconStateEx.getEmpty(constants).createMutableCopy();
+    state.setSlot(SlotNumber.of(slot));
+    for (ValidatorRecord validator : validators) {
+      state.getValidators().add(validator);
+      state.getBalances().add(validator.getEffectiveBalance());
+    }
+    BeaconStateEx stateEx = new BeaconStateExImpl(state.createImmutable());
+    BeaconBlock block =
+        new BeaconBlock(
+            SlotNumber.of(slot),
+            Hash32.ZERO,
+            spec.hash_tree_root(stateEx),
+            BeaconBlockBody.getEmpty(constants),
+            BLSSignature.ZERO);
+    return BeaconTuple.of(block, stateEx);
+  }
+
+  private ValidatorRecord validator(EpochNumber activation, EpochNumber exit, int ethers) {
+    return ValidatorRecord.Builder.createEmpty()
+        .withPubKey(BLSPubkey.ZERO)
+        .withWithdrawalCredentials(Hash32.ZERO)
+        .withActivationEligibilityEpoch(EpochNumber.ZERO)
+        .withActivationEpoch(activation)
+        .withExitEpoch(exit)
+        .withWithdrawableEpoch(constants.getFarFutureEpoch())
+        .withSlashed(false)
+        .withEffectiveBalance(Gwei.ofEthers(ethers))
+        .build();
+  }
+}
@@ -1,6 +1,11 @@
 package org.ethereum.beacon.chain;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 import org.ethereum.beacon.chain.MutableBeaconChain.ImportResult;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
@@ -11,23 +16,33 @@ import org.ethereum.beacon.consensus.BeaconStateEx;
 import org.ethereum.beacon.consensus.BlockTransition;
 import org.ethereum.beacon.consensus.ChainStart;
 import org.ethereum.beacon.consensus.StateTransition;
+import org.ethereum.beacon.consensus.TestUtils;
 import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
 import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
 import org.ethereum.beacon.consensus.transition.ExtendedSlotTransition;
 import org.ethereum.beacon.consensus.transition.InitialStateTransition;
+import org.ethereum.beacon.consensus.transition.PerBlockTransition;
 import org.ethereum.beacon.consensus.transition.PerEpochTransition;
+import org.ethereum.beacon.consensus.util.CachingBeaconChainSpec;
+import org.ethereum.beacon.consensus.util.SignedBlockTestUtil;
 import org.ethereum.beacon.consensus.util.StateTransitionTestUtil;
+import org.ethereum.beacon.consensus.verifier.BatchingBlockVerifier;
 import org.ethereum.beacon.consensus.verifier.BeaconBlockVerifier;
 import org.ethereum.beacon.consensus.verifier.BeaconStateVerifier;
 import org.ethereum.beacon.consensus.verifier.VerificationResult;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.BeaconBlockBody;
 import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.operations.Deposit;
+import org.ethereum.beacon.core.spec.SpecConstants;
 import org.ethereum.beacon.core.state.Eth1Data;
 import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.SlotNumber;
 import org.ethereum.beacon.core.types.Time;
+import org.ethereum.beacon.crypto.BLS381.KeyPair;
 import org.ethereum.beacon.db.Database;
 import org.ethereum.beacon.schedulers.Schedulers;
+import org.javatuples.Pair;
 import org.junit.Assert;
 import org.junit.Test;
 import tech.pegasys.artemis.ethereum.core.Hash32;
@@ -66,6 +81,185 @@ public class DefaultBeaconChainTest {
             });
   }
 
+  @Test
+  public void insertABatch() {
+    Schedulers schedulers = Schedulers.createDefault();
+
+    BeaconChainSpec spec =
+        BeaconChainSpec.Builder.createWithDefaultParams()
+            .withComputableGenesisTime(false)
+            .withVerifyDepositProof(false)
+            .build();
+    StateTransition<BeaconStateEx> perSlotTransition =
+        StateTransitionTestUtil.createNextSlotTransition();
+    MutableBeaconChain beaconChain = createBeaconChain(spec, perSlotTransition, schedulers);
+
+    beaconChain.init();
+    BeaconTuple parent = beaconChain.getRecentlyProcessed();
+    List<BeaconBlock> blocks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      BeaconBlock aBlock =
+          createBlock(parent, spec, schedulers.getCurrentTime(), perSlotTransition);
+      blocks.add(aBlock);
+      parent = BeaconTuple.of(aBlock, parent.getState());
+    }
+    // the same block twice
+    blocks.add(blocks.get(blocks.size() - 1));
+
+    List<ImportResult> results = beaconChain.insertBatch(blocks);
+    Assert.assertEquals(blocks.size(), results.size());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(ImportResult.OK, results.get(i));
+    }
+    Assert.assertEquals(ImportResult.ExistingBlock, results.get(10));
+    Assert.assertEquals(blocks.get(9), beaconChain.getRecentlyProcessed().getBlock());
+  }
+
+  @Test
+  public void batchWithWrongSignatureIsVerifiedBlockByBlock() {
+    Schedulers schedulers = Schedulers.createDefault();
+
+    SpecConstants constants =
+        new SpecConstants() {
+          @Override
+          public SlotNumber.EpochLength getSlotsPerEpoch() {
+            return new SlotNumber.EpochLength(UInt64.valueOf(4));
+          }
+        };
+    BeaconChainSpec spec = BeaconChainSpec.createWithoutDepositVerification(constants);
+    Random rnd = new Random(1);
+    Pair<List<Deposit>, List<KeyPair>> deposits = TestUtils.getAnyDeposits(rnd, spec, 16);
+    List<KeyPair> keys = deposits.getValue1();
+    Eth1Data eth1Data =
+        new Eth1Data(
+            Hash32.random(rnd), UInt64.valueOf(deposits.getValue0().size()), Hash32.random(rnd));
+    EmptySlotTransition emptySlotTransition =
+        new EmptySlotTransition(ExtendedSlotTransition.create(spec));
+    PerBlockTransition perBlockTransition = new PerBlockTransition(spec);
+
+    MutableBeaconChain beaconChain =
+        new DefaultBeaconChain(
+            spec,
+            new InitialStateTransition(
+                new ChainStart(Time.of(0), eth1Data, deposits.getValue0()), spec),
+            emptySlotTransition,
+            perBlockTransition,
+            new BatchingBlockVerifier((CachingBeaconChainSpec) spec),
+            (block, state) -> VerificationResult.PASSED,
+            createChainStorage(spec),
+            schedulers);
+    beaconChain.init();
+
+    BeaconStateEx state = beaconChain.getRecentlyProcessed().getState();
+    List<BeaconBlock> blocks = new ArrayList<>();
+    for (int slot = 1; slot <= 4; slot++) {
+      BeaconStateEx preBlockState = emptySlotTransition.apply(state, SlotNumber.of(slot));
+      BeaconBlock block =
+          SignedBlockTestUtil.createBlock(spec, keys, preBlockState, Collections.emptyList());
+      blocks.add(block);
+      state = perBlockTransition.apply(preBlockState, block);
+    }
+    // a signature of another block, children of this block are valid
+    BeaconBlock wrongBlock =
+        BeaconBlock.Builder.fromBlock(blocks.get(1))
+            .withSignature(blocks.get(0).getSignature())
+            .build();
+
+    List<ImportResult> results =
+        beaconChain.insertBatch(
+            Arrays.asList(blocks.get(0), wrongBlock, blocks.get(2), blocks.get(3)));
+    Assert.assertEquals(
+        Arrays.asList(
+            ImportResult.OK, ImportResult.InvalidBlock, ImportResult.NoParent, ImportResult.NoParent),
+        results);
+    Assert.assertEquals(blocks.get(0), beaconChain.getRecentlyProcessed().getBlock());
+
+    results = beaconChain.insertBatch(blocks.subList(1, 4));
+    Assert.assertEquals(Collections.nCopies(3, ImportResult.OK), results);
+    Assert.assertEquals(blocks.get(3), beaconChain.getRecentlyProcessed().getBlock());
+  }
+
+  @Test
+  public void insertThroughPipeline() {
+    Schedulers schedulers = Schedulers.createDefault();
+
+    BeaconChainSpec spec =
+        BeaconChainSpec.Builder.createWithDefaultParams()
+            .withComputableGenesisTime(false)
+            .withVerifyDepositProof(false)
+            .build();
+    StateTransition<BeaconStateEx> perSlotTransition =
+        StateTransitionTestUtil.createNextSlotTransition();
+    BeaconChainStorage chainStorage = createChainStorage(spec);
+    DefaultBeaconChain beaconChain =
+        createBeaconChain(spec, perSlotTransition, schedulers, chainStorage);
+    BlockImportPipeline pipeline =
+        new BlockImportPipeline(
+            spec,
+            beaconChain,
+            chainStorage,
+            createEmptySlotTransition(spec, perSlotTransition),
+            (block, state) -> VerificationResult.PASSED,
+            schedulers.cpuHeavy(),
+            schedulers.newSingleThreadDaemon("block-importer"));
+
+    pipeline.init();
+    BeaconTuple parent = pipeline.getRecentlyProcessed();
+    List<BeaconBlock> blocks = new ArrayList<>();
+    List<CompletableFuture<ImportResult>> results = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      BeaconBlock aBlock =
+          createBlock(parent, spec, schedulers.getCurrentTime(), perSlotTransition);
+      blocks.add(aBlock);
+      results.add(pipeline.submit(aBlock));
+      parent = BeaconTuple.of(aBlock, parent.getState());
+    }
+    Assert.assertEquals(
+        ImportResult.ExistingBlock, pipeline.submit(blocks.get(blocks.size() - 1)).join());
+
+    results.forEach(result -> Assert.assertEquals(ImportResult.OK, result.join()));
+    Assert.assertEquals(blocks.get(9), pipeline.getRecentlyProcessed().getBlock());
+    Assert.assertEquals(0, pipeline.getImportStats().getQueueSize());
+    Assert.assertEquals(10, pipeline.getImportStats().getProcessedCount());
+  }
+
+  @Test
+  public void restoreFromPersistedHead() {
+    Schedulers schedulers = Schedulers.createDefault();
+
+    BeaconChainSpec spec =
+        BeaconChainSpec.Builder.createWithDefaultParams()
+            .withComputableGenesisTime(false)
+            .withVerifyDepositProof(false)
+            .build();
+    StateTransition<BeaconStateEx> perSlotTransition =
+        StateTransitionTestUtil.createNextSlotTransition();
+    BeaconChainStorage chainStorage = createChainStorage(spec);
+    MutableBeaconChain beaconChain =
+        createBeaconChain(spec, perSlotTransition, schedulers, chainStorage);
+
+    beaconChain.init();
+    List<BeaconBlock> blocks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      BeaconBlock aBlock =
+          createBlock(
+              beaconChain.getRecentlyProcessed(),
+              spec,
+              schedulers.getCurrentTime(),
+              perSlotTransition);
+      Assert.assertEquals(ImportResult.OK, beaconChain.insert(aBlock));
+      blocks.add(aBlock);
+    }
+
+    chainStorage.getHeadStorage().set(spec.signing_root(blocks.get(1)));
+    chainStorage.commit();
+
+    MutableBeaconChain restarted =
+        createBeaconChain(spec, perSlotTransition, schedulers, chainStorage);
+    restarted.init();
+    Assert.assertEquals(blocks.get(1), restarted.getRecentlyProcessed().getBlock());
+  }
+
   private BeaconBlock createBlock(
       BeaconTuple parent,
       BeaconChainSpec spec, long currentTime,
@@ -84,36 +278,52 @@ public class DefaultBeaconChainTest {
 
   private MutableBeaconChain createBeaconChain(
       BeaconChainSpec spec, StateTransition<BeaconStateEx> perSlotTransition, Schedulers schedulers) {
+    return createBeaconChain(spec, perSlotTransition, schedulers, createChainStorage(spec));
+  }
+
+  private BeaconChainStorage createChainStorage(BeaconChainSpec spec) {
+    Database database = Database.inMemoryDB();
+    return new SSZBeaconChainStorageFactory(
+            spec.getObjectHasher(), SerializerFactory.createSSZ(spec.getConstants()))
+            .create(database);
+  }
+
+  private DefaultBeaconChain createBeaconChain(
+      BeaconChainSpec spec,
+      StateTransition<BeaconStateEx> perSlotTransition,
+      Schedulers schedulers,
+      BeaconChainStorage chainStorage) {
     Time start = Time.castFrom(UInt64.valueOf(schedulers.getCurrentTime() / 1000));
     ChainStart chainStart = new ChainStart(start, Eth1Data.EMPTY, Collections.emptyList());
     BlockTransition<BeaconStateEx> initialTransition =
         new InitialStateTransition(chainStart, spec);
     BlockTransition<BeaconStateEx> perBlockTransition =
         StateTransitionTestUtil.createPerBlockTransition();
-    StateTransition<BeaconStateEx> perEpochTransition =
-        StateTransitionTestUtil.createStateWithNoTransition();
 
     BeaconBlockVerifier blockVerifier = (block, state) -> VerificationResult.PASSED;
     BeaconStateVerifier stateVerifier = (block, state) -> VerificationResult.PASSED;
-    Database database = Database.inMemoryDB();
-    BeaconChainStorage chainStorage = new SSZBeaconChainStorageFactory(
-            spec.getObjectHasher(), SerializerFactory.createSSZ(spec.getConstants()))
-            .create(database);
 
     return new DefaultBeaconChain(
         spec,
         initialTransition,
-        new EmptySlotTransition(
-            new ExtendedSlotTransition(new PerEpochTransition(spec) {
-              @Override
-              public BeaconStateEx apply(BeaconStateEx stateEx) {
-                return perEpochTransition.apply(stateEx);
-              }
-            }, perSlotTransition, spec)),
+        createEmptySlotTransition(spec, perSlotTransition),
         perBlockTransition,
         blockVerifier,
         stateVerifier,
         chainStorage,
         schedulers);
   }
+
+  private EmptySlotTransition createEmptySlotTransition(
+      BeaconChainSpec spec, StateTransition<BeaconStateEx> perSlotTransition) {
+    StateTransition<BeaconStateEx> perEpochTransition =
+        StateTransitionTestUtil.createStateWithNoTransition();
+    return new EmptySlotTransition(
+        new ExtendedSlotTransition(new PerEpochTransition(spec) {
+          @Override
+          public BeaconStateEx apply(BeaconStateEx stateEx) {
+            return perEpochTransition.apply(stateEx);
+          }
+        }, perSlotTransition, spec));
+  }
 }
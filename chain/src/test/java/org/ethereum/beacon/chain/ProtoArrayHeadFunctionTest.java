@@ -0,0 +1,201 @@
+package org.ethereum.beacon.chain;
+
+import static org.junit.Assert.assertEquals;
+
+import org.ethereum.beacon.chain.storage.BeaconChainStorage;
+import org.ethereum.beacon.chain.storage.impl.SSZBeaconChainStorageFactory;
+import org.ethereum.beacon.chain.storage.impl.SerializerFactory;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
+import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
+import org.ethereum.beacon.consensus.transition.ExtendedSlotTransition;
+import org.ethereum.beacon.consensus.transition.PerEpochTransition;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.BLSPubkey;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.db.Database;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+public class ProtoArrayHeadFunctionTest {
+
+  private final SpecConstants constants =
+      new SpecConstants() {
+        @Override
+        public SlotNumber.EpochLength getSlotsPerEpoch() {
+          return new SlotNumber.EpochLength(UInt64.valueOf(4));
+        }
+      };
+  private final BeaconChainSpec spec =
+      new BeaconChainSpec.Builder()
+          .withConstants(constants)
+          .withDefaultHasher(constants)
+          .withDefaultHashFunction()
+          .withVerifyDepositProof(false)
+          .build();
+
+  private final BeaconChainStorage chainStorage =
+      new SSZBeaconChainStorageFactory(
+              spec.getObjectHasher(), SerializerFactory.createSSZ(constants))
+          .create(Database.inMemoryDB());
+  private final CheckpointStateCache checkpointStates =
+      new CheckpointStateCache(
+          chainStorage,
+          spec,
+          new EmptySlotTransition(
+              new ExtendedSlotTransition(
+                  new PerEpochTransition(spec) {
+                    @Override
+                    public BeaconStateEx apply(BeaconStateEx stateEx) {
+                      return stateEx;
+                    }
+                  },
+                  state -> state,
+                  spec)));
+
+  private final VoteTracker votes = new VoteTracker();
+  private final LMDGhostHeadFunction lmdGhost =
+      new LMDGhostHeadFunction(chainStorage, spec, checkpointStates);
+  private final ProtoArrayHeadFunction protoArray =
+      new ProtoArrayHeadFunction(chainStorage, spec, votes, checkpointStates);
+
+  @Test
+  public void headsMatchLMDGhost() {
+    EpochNumber farFuture = constants.getFarFutureEpoch();
+    MutableBeaconState genesisState = BeaconStateEx.getEmpty(constants).createMutableCopy();
+    ValidatorRecord[] validators = {
+      validator(EpochNumber.ZERO, 32),
+      validator(EpochNumber.ZERO, 32),
+      validator(EpochNumber.ZERO, 16),
+      validator(EpochNumber.ZERO, 8),
+      validator(farFuture, 32),
+      validator(EpochNumber.ZERO, 32)
+    };
+    for (ValidatorRecord validator : validators) {
+      genesisState.getValidators().add(validator);
+      genesisState.getBalances().add(validator.getEffectiveBalance());
+    }
+    BeaconStateEx genesisStateEx = new BeaconStateExImpl(genesisState.createImmutable());
+    BeaconTuple genesis =
+        BeaconTuple.of(
+            new BeaconBlock(
+                SlotNumber.ZERO,
+                Hash32.ZERO,
+                spec.hash_tree_root(genesisStateEx),
+                BeaconBlockBody.getEmpty(constants),
+                BLSSignature.ZERO),
+            genesisStateEx);
+    chainStorage.getTupleStorage().put(genesis);
+    Checkpoint genesisCheckpoint = new Checkpoint(EpochNumber.ZERO, root(genesis));
+    chainStorage.getJustifiedStorage().set(genesisCheckpoint);
+    chainStorage.getFinalizedStorage().set(genesisCheckpoint);
+
+    BeaconTuple a1 = put(tuple(genesis, 1, 0));
+    BeaconTuple a2 = put(tuple(a1, 2, 0));
+    BeaconTuple b2 = put(tuple(a1, 2, 1));
+    BeaconTuple c3 = put(tuple(a1, 3, 0));
+    // no votes at all, the first child with the lowest slot wins
+    assertHead(a2);
+
+    vote(0, b2, 0);
+    vote(1, c3, 0);
+    // a tie of children with different slots
+    assertHead(b2);
+
+    vote(5, a2, 0);
+    // a tie of children with the same slot
+    assertHead(a2);
+
+    // a vote of inactive validator and a vote for a block which is unknown yet
+    BeaconTuple c4 = put(tuple(c3, 4, 0));
+    BeaconTuple d5 = tuple(c4, 5, 2);
+    BeaconTuple d6 = tuple(d5, 6, 0);
+    vote(4, c4, 0);
+    vote(3, d6, 0);
+    assertHead(a2);
+
+    BeaconTuple c5 = put(tuple(c4, 5, 0));
+    vote(2, c5, 1);
+    assertHead(c5);
+
+    // an older vote is ignored, a newer one moves the weight
+    vote(0, c5, 0);
+    vote(1, a2, 1);
+    assertHead(a2);
+
+    // the justified block is changed to the one on the lighter branch
+    chainStorage.getJustifiedStorage().set(new Checkpoint(EpochNumber.of(1), root(c4)));
+    assertHead(c5);
+
+    put(d5);
+    put(d6);
+    assertHead(c5);
+
+    vote(0, d5, 1);
+    assertHead(d6);
+
+    vote(5, c5, 1);
+    assertHead(c5);
+  }
+
+  private void assertHead(BeaconTuple expected) {
+    BeaconBlock lmdGhostHead = lmdGhost.getHead(votes::getLatestMessage);
+    BeaconBlock protoArrayHead = protoArray.getHead(votes::getLatestMessage);
+    assertEquals(spec.signing_root(lmdGhostHead), spec.signing_root(protoArrayHead));
+    assertEquals(root(expected), spec.signing_root(protoArrayHead));
+  }
+
+  private void vote(int validator, BeaconTuple tuple, int targetEpoch) {
+    votes.processVote(ValidatorIndex.of(validator), root(tuple), EpochNumber.of(targetEpoch));
+  }
+
+  private BeaconTuple tuple(BeaconTuple parent, long slot, long salt) {
+    MutableBeaconState state = parent.getState().createMutableCopy();
+    state.setSlot(SlotNumber.of(slot));
+    // makes states of sibling blocks distinct
+    state.setEth1DepositIndex(UInt64.valueOf(salt));
+    BeaconStateEx stateEx = new BeaconStateExImpl(state.createImmutable());
+    BeaconBlock block =
+        new BeaconBlock(
+            SlotNumber.of(slot),
+            root(parent),
+            spec.hash_tree_root(stateEx),
+            BeaconBlockBody.getEmpty(constants),
+            BLSSignature.ZERO);
+    return BeaconTuple.of(block, stateEx);
+  }
+
+  private BeaconTuple put(BeaconTuple tuple) {
+    chainStorage.getTupleStorage().put(tuple);
+    protoArray.onBlock(tuple.getBlock());
+    return tuple;
+  }
+
+  private Hash32 root(BeaconTuple tuple) {
+    return spec.signing_root(tuple.getBlock());
+  }
+
+  private ValidatorRecord validator(EpochNumber activation, int ethers) {
+    return ValidatorRecord.Builder.createEmpty()
+        .withPubKey(BLSPubkey.ZERO)
+        .withWithdrawalCredentials(Hash32.ZERO)
+        .withActivationEligibilityEpoch(EpochNumber.ZERO)
+        .withActivationEpoch(activation)
+        .withExitEpoch(constants.getFarFutureEpoch())
+        .withWithdrawableEpoch(constants.getFarFutureEpoch())
+        .withSlashed(false)
+        .withEffectiveBalance(Gwei.ofEthers(ethers))
+        .build();
+  }
+}
@@ -0,0 +1,129 @@
+package org.ethereum.beacon.chain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+public class ProtoArrayTest {
+
+  @Test
+  public void headFollowsWeights() {
+    ProtoArray array = new ProtoArray(root(0), SlotNumber.ZERO);
+    array.onBlock(root(1), root(0), SlotNumber.of(2));
+    array.onBlock(root(2), root(0), SlotNumber.of(1));
+    array.onBlock(root(3), root(1), SlotNumber.of(3));
+    assertFalse(array.onBlock(root(4), root(100), SlotNumber.of(3)));
+
+    // no votes, the child with lower slot wins
+    assertEquals(root(2), array.findHead(root(0)));
+
+    long[] deltas = new long[array.size()];
+    deltas[array.indexOf(root(3))] = 10;
+    array.applyScoreChanges(deltas);
+    assertEquals(root(3), array.findHead(root(0)));
+    assertEquals(root(3), array.findHead(root(1)));
+
+    deltas = new long[array.size()];
+    deltas[array.indexOf(root(3))] = -10;
+    deltas[array.indexOf(root(2))] = 5;
+    array.applyScoreChanges(deltas);
+    assertEquals(root(2), array.findHead(root(0)));
+
+    array.prune(root(1));
+    assertEquals(2, array.size());
+    assertFalse(array.contains(root(0)));
+    assertFalse(array.contains(root(2)));
+    assertEquals(root(3), array.findHead(root(1)));
+    assertTrue(array.onBlock(root(5), root(3), SlotNumber.of(4)));
+    assertEquals(root(5), array.findHead(root(1)));
+  }
+
+  @Test
+  public void sameHeadsAsTreeWalk() {
+    Random random = new Random(1);
+    List<Integer> parents = new ArrayList<>();
+    List<Long> slots = new ArrayList<>();
+    parents.add(-1);
+    slots.add(0L);
+    ProtoArray array = new ProtoArray(root(0), SlotNumber.ZERO);
+    long[] votes = new long[0];
+
+    for (int round = 0; round < 50; round++) {
+      for (int i = 0; i < 5; i++) {
+        int parent = random.nextInt(parents.size());
+        long slot = slots.get(parent) + 1 + random.nextInt(3);
+        parents.add(parent);
+        slots.add(slot);
+        array.onBlock(root(parents.size() - 1), root(parent), SlotNumber.of(slot));
+      }
+
+      // new blocks have no votes yet
+      votes = Arrays.copyOf(votes, parents.size());
+      assertEquals(root(walk(parents, slots, votes)), array.findHead(root(0)));
+
+      long[] deltas = new long[array.size()];
+      for (int i = 0; i < 10; i++) {
+        int block = random.nextInt(parents.size());
+        long delta = random.nextInt(100) - Math.min(votes[block], 50);
+        votes[block] += delta;
+        deltas[array.indexOf(root(block))] += delta;
+      }
+      array.applyScoreChanges(deltas);
+
+      assertEquals(root(walk(parents, slots, votes)), array.findHead(root(0)));
+    }
+  }
+
+  /** Straightforward GHOST walk which counts subtree weights on each step. */
+  private int walk(List<Integer> parents, List<Long> slots, long[] votes) {
+    int head = 0;
+    while (true) {
+      int best = -1;
+      long bestWeight = 0;
+      for (int child = 0; child < parents.size(); child++) {
+        if (parents.get(child) != head) {
+          continue;
+        }
+        long weight = 0;
+        for (int block = 0; block < parents.size(); block++) {
+          if (isAncestor(parents, child, block)) {
+            weight += votes[block];
+          }
+        }
+        if (best < 0
+            || weight > bestWeight
+            || (weight == bestWeight && slots.get(child) < slots.get(best))) {
+          best = child;
+          bestWeight = weight;
+        }
+      }
+      if (best < 0) {
+        return head;
+      }
+      head = best;
+    }
+  }
+
+  private boolean isAncestor(List<Integer> parents, int ancestor, int block) {
+    for (int i = block; i >= 0; i = parents.get(i)) {
+      if (i == ancestor) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Hash32 root(long value) {
+    return Hash32.wrap(Bytes32.leftPad(BytesValues.toMinimalBytes(value + 1)));
+  }
+}
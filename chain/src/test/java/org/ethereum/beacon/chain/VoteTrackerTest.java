@@ -0,0 +1,48 @@
+package org.ethereum.beacon.chain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+public class VoteTrackerTest {
+
+  @Test
+  public void deltasOfChangedVotes() {
+    ProtoArray blocks = new ProtoArray(root(0), SlotNumber.ZERO);
+    blocks.onBlock(root(1), root(0), SlotNumber.of(1));
+    blocks.onBlock(root(2), root(0), SlotNumber.of(1));
+    long[] balances = {10, 20, 30};
+
+    VoteTracker votes = new VoteTracker();
+    assertFalse(votes.getLatestMessage(ValidatorIndex.of(5000)).isPresent());
+    votes.processVote(ValidatorIndex.of(0), root(1), EpochNumber.of(1));
+    votes.processVote(ValidatorIndex.of(1), root(1), EpochNumber.of(1));
+    // block 3 is unknown yet
+    votes.processVote(ValidatorIndex.of(2), root(3), EpochNumber.of(1));
+    assertArrayEquals(new long[] {0, 30, 0}, votes.computeDeltas(blocks, balances));
+    assertArrayEquals(new long[] {0, 0, 0}, votes.computeDeltas(blocks, balances));
+
+    // older vote is ignored
+    votes.processVote(ValidatorIndex.of(0), root(2), EpochNumber.of(0));
+    votes.processVote(ValidatorIndex.of(1), root(2), EpochNumber.of(2));
+    assertEquals(root(2), votes.getLatestMessage(ValidatorIndex.of(1)).get().getRoot());
+    blocks.onBlock(root(3), root(2), SlotNumber.of(2));
+    assertArrayEquals(
+        new long[] {0, -20, 20, 30}, votes.computeDeltas(blocks, balances));
+
+    balances = new long[] {15, 0, 30};
+    assertArrayEquals(new long[] {0, 5, -20, 0}, votes.computeDeltas(blocks, balances));
+  }
+
+  private Hash32 root(long value) {
+    return Hash32.wrap(Bytes32.leftPad(BytesValues.toMinimalBytes(value + 1)));
+  }
+}
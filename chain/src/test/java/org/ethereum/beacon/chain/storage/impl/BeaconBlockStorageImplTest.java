@@ -0,0 +1,172 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import org.ethereum.beacon.consensus.hasher.ObjectHasher;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.crypto.Hashes;
+import org.ethereum.beacon.db.Database;
+import org.ethereum.beacon.db.XorKeyDatabase;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+public class BeaconBlockStorageImplTest {
+
+  private final SpecConstants specConstants = new SpecConstants() {};
+  private final ObjectHasher<Hash32> objectHasher =
+      ObjectHasher.createSSZOverSHA256(specConstants);
+  private final SerializerFactory serializerFactory = SerializerFactory.createSSZ(specConstants);
+
+  @Test
+  public void childrenAreIndexed() {
+    Database database = Database.inMemoryDB();
+    BeaconBlockStorageImpl storage =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory);
+
+    BeaconBlock genesis = block(0, Hash32.ZERO, 0);
+    Hash32 genesisRoot = put(storage, genesis);
+    BeaconBlock b1 = block(1, genesisRoot, 1);
+    Hash32 b1Root = put(storage, b1);
+    BeaconBlock b3 = block(3, genesisRoot, 2);
+    put(storage, b3);
+    BeaconBlock b2 = block(2, b1Root, 3);
+    put(storage, b2);
+
+    assertEquals(asList(b1, b3), storage.getChildren(genesisRoot, 10));
+    assertEquals(singletonList(b1), storage.getChildren(genesisRoot, 2));
+    assertEquals(singletonList(b2), storage.getChildren(b1Root, 10));
+
+    // a storage over existing database picks up the index
+    BeaconBlockStorageImpl reopened =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory, 0);
+    assertEquals(asList(b1, b3), reopened.getChildren(genesisRoot, 10));
+
+    reopened.remove(b1Root);
+    assertEquals(singletonList(b3), reopened.getChildren(genesisRoot, 10));
+    assertTrue(reopened.getChildren(b1Root, 10).isEmpty());
+  }
+
+  @Test
+  public void legacyDatabaseIsReopened() {
+    // storages of a legacy database share one key space and don't support iteration
+    Database database =
+        new XorKeyDatabase(new HashMapDataSource<>(), Hashes::sha256) {
+          @Override
+          public void commit() {}
+
+          @Override
+          public void close() {}
+        };
+    BeaconBlockStorageImpl storage =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory);
+
+    BeaconBlock genesis = block(0, Hash32.ZERO, 0);
+    Hash32 genesisRoot = put(storage, genesis);
+    BeaconBlock b1 = block(1, genesisRoot, 1);
+    Hash32 b1Root = put(storage, b1);
+    BeaconBlock b2 = block(2, genesisRoot, 2);
+    put(storage, b2);
+
+    // a database written before the children index was introduced
+    DataSource<BytesValue, BytesValue> children = database.createStorage("beacon-block-children");
+    children.remove(BeaconBlockStorageImpl.INDEX_VERSION_KEY);
+    children.remove(genesisRoot);
+    children.remove(Hash32.ZERO);
+
+    BeaconBlockStorageImpl reindexed =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory, 0);
+    assertEquals(asList(b1, b2), reindexed.getChildren(genesisRoot, 10));
+    assertTrue(children.get(BeaconBlockStorageImpl.INDEX_VERSION_KEY).isPresent());
+
+    // index is built once, interrupted re-indexing doesn't duplicate children
+    children.remove(BeaconBlockStorageImpl.INDEX_VERSION_KEY);
+    BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory, 0);
+    BeaconBlockStorageImpl reopened =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory, 0);
+    assertEquals(asList(b1, b2), reopened.getChildren(genesisRoot, 10));
+    assertTrue(reopened.getChildren(b1Root, 10).isEmpty());
+  }
+
+  @Test
+  public void finalizedBlocksAreArchived() {
+    Database database = Database.inMemoryDB();
+    BeaconBlockStorageImpl storage =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory);
+
+    BeaconBlock genesis = block(0, Hash32.ZERO, 0);
+    Hash32 genesisRoot = put(storage, genesis);
+    BeaconBlock b1 = block(1, genesisRoot, 1);
+    Hash32 b1Root = put(storage, b1);
+    BeaconBlock b2 = block(2, b1Root, 2);
+    Hash32 b2Root = put(storage, b2);
+
+    storage.archive(genesisRoot);
+    storage.archive(b1Root);
+    storage.archive(b1Root);
+
+    BeaconBlockStorageImpl reopened =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory, 0);
+    assertEquals(b1, reopened.get(b1Root).get());
+    assertEquals(3, reopened.getAll(asList(genesisRoot, b1Root, b2Root)).size());
+    assertEquals(singletonList(b1), reopened.getChildren(genesisRoot, 10));
+    assertEquals(singletonList(b2), reopened.getChildren(b1Root, 10));
+
+    // archived blocks are never removed
+    reopened.remove(b1Root);
+    assertTrue(reopened.get(b1Root).isPresent());
+  }
+
+  @Test
+  public void slotRangeSkipsEmptySlots() {
+    Database database = Database.inMemoryDB();
+    BeaconBlockStorageImpl storage =
+        BeaconBlockStorageImpl.create(database, objectHasher, serializerFactory);
+
+    Hash32 genesisRoot = put(storage, block(0, Hash32.ZERO, 0));
+    Hash32 b2Root = put(storage, block(2, genesisRoot, 1));
+    Hash32 b2ForkRoot = put(storage, block(2, genesisRoot, 2));
+    Hash32 b5Root = put(storage, block(5, b2Root, 3));
+
+    NavigableMap<SlotNumber, List<Hash32>> range =
+        storage.getSlotBlocks(SlotNumber.of(1), SlotNumber.of(Long.MAX_VALUE));
+    assertEquals(asList(SlotNumber.of(2), SlotNumber.of(5)), new ArrayList<>(range.keySet()));
+    assertEquals(asList(b2Root, b2ForkRoot), range.get(SlotNumber.of(2)));
+    assertEquals(singletonList(b5Root), range.get(SlotNumber.of(5)));
+
+    assertEquals(
+        singletonList(SlotNumber.of(0)),
+        new ArrayList<>(storage.getSlotBlocks(SlotNumber.ZERO, SlotNumber.of(2)).keySet()));
+    assertTrue(storage.getSlotBlocks(SlotNumber.of(3), SlotNumber.of(5)).isEmpty());
+    assertTrue(storage.getSlotBlocks(SlotNumber.of(6), SlotNumber.of(10)).isEmpty());
+  }
+
+  private Hash32 put(BeaconBlockStorageImpl storage, BeaconBlock block) {
+    Hash32 root = objectHasher.getHashTruncateLast(block);
+    storage.put(root, block);
+    return root;
+  }
+
+  private BeaconBlock block(long slot, Hash32 parentRoot, long salt) {
+    return new BeaconBlock(
+        SlotNumber.of(slot),
+        parentRoot,
+        Hash32.wrap(Bytes32.leftPad(BytesValues.toMinimalBytes(salt))),
+        BeaconBlockBody.getEmpty(specConstants),
+        BLSSignature.ZERO);
+  }
+}
@@ -0,0 +1,64 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.ethereum.beacon.chain.BeaconTuple;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.TransitionType;
+import org.ethereum.beacon.consensus.hasher.ObjectHasher;
+import org.ethereum.beacon.consensus.transition.BeaconStateExImpl;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.ethereum.beacon.db.source.impl.HashMapHoleyList;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+
+public class BeaconTupleStorageImplTest {
+
+  private final SpecConstants specConstants = new SpecConstants() {};
+  private final ObjectHasher<Hash32> objectHasher =
+      ObjectHasher.createSSZOverSHA256(specConstants);
+
+  @Test
+  public void recentTuplesAreNotDecoded() {
+    BeaconBlockStorageImpl blockStorage =
+        new BeaconBlockStorageImpl(
+            objectHasher, new HashMapDataSource<>(), new HashMapHoleyList<>());
+    BeaconStateStorageImpl stateStorage =
+        new BeaconStateStorageImpl(new HashMapDataSource<>(), objectHasher);
+    BeaconTupleStorageImpl tupleStorage =
+        new BeaconTupleStorageImpl(
+            blockStorage, stateStorage, objectHasher, BeaconTupleStorageImpl.DEFAULT_CACHE_SIZE);
+
+    BeaconStateEx state =
+        new BeaconStateExImpl(BeaconState.getEmpty(specConstants), TransitionType.BLOCK);
+    BeaconBlock block =
+        new BeaconBlock(
+            SlotNumber.ZERO,
+            Hash32.ZERO,
+            objectHasher.getHash(state),
+            BeaconBlockBody.getEmpty(specConstants),
+            BLSSignature.ZERO);
+    Hash32 blockRoot = objectHasher.getHashTruncateLast(block);
+    tupleStorage.put(BeaconTuple.of(block, state));
+
+    assertSame(state, tupleStorage.get(blockRoot).get().getState());
+
+    BeaconTupleStorageImpl uncached = new BeaconTupleStorageImpl(blockStorage, stateStorage);
+    BeaconStateEx stored = uncached.get(blockRoot).get().getState();
+    assertNotSame(state, stored);
+    assertEquals(objectHasher.getHash(state), objectHasher.getHash(stored));
+
+    tupleStorage.remove(blockRoot);
+    assertFalse(tupleStorage.get(blockRoot).isPresent());
+    assertFalse(stateStorage.get(block.getStateRoot()).isPresent());
+  }
+}
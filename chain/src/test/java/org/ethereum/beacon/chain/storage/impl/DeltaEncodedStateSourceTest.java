@@ -0,0 +1,93 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+public class DeltaEncodedStateSourceTest {
+
+  private final SpecConstants specConstants = new SpecConstants() {};
+  private final BeaconStateDiffer differ =
+      new BeaconStateDiffer(SerializerFactory.createSSZ(specConstants));
+
+  @Test
+  public void storeAndRestoreChain() {
+    HashMapDataSource<Hash32, BeaconState> snapshots = new HashMapDataSource<>();
+    HashMapDataSource<Hash32, BeaconStateDelta> deltas = new HashMapDataSource<>();
+    DeltaEncodedStateSource source = new DeltaEncodedStateSource(snapshots, deltas, differ, 4);
+
+    List<BeaconState> states = new ArrayList<>();
+    BeaconState state = BeaconState.getEmpty(specConstants);
+    for (int slot = 0; slot < 10; slot++) {
+      if (slot > 0) {
+        state = next(state, slot);
+      }
+      states.add(state);
+      source.put(root(slot), state);
+    }
+
+    for (int slot = 0; slot < 10; slot++) {
+      assertEquals(slot % 4 == 0, snapshots.getStore().containsKey(root(slot)));
+      assertEquals(slot % 4 != 0, deltas.getStore().containsKey(root(slot)));
+    }
+
+    // a fresh source has no recent states, all of them are rebuilt from the storage
+    DeltaEncodedStateSource restored = new DeltaEncodedStateSource(snapshots, deltas, differ, 4);
+    for (int slot = 9; slot >= 0; slot--) {
+      assertEquals(states.get(slot), restored.get(root(slot)).get());
+    }
+    assertFalse(restored.get(root(100)).isPresent());
+  }
+
+  @Test
+  public void snapshotWithoutKnownParent() {
+    HashMapDataSource<Hash32, BeaconState> snapshots = new HashMapDataSource<>();
+    HashMapDataSource<Hash32, BeaconStateDelta> deltas = new HashMapDataSource<>();
+    DeltaEncodedStateSource source = new DeltaEncodedStateSource(snapshots, deltas, differ, 4);
+
+    BeaconState state = next(next(BeaconState.getEmpty(specConstants), 1), 2);
+    source.put(root(2), state);
+    assertTrue(snapshots.getStore().containsKey(root(2)));
+    assertTrue(deltas.getStore().isEmpty());
+
+    source.remove(root(2));
+    assertFalse(source.get(root(2)).isPresent());
+  }
+
+  private BeaconState next(BeaconState parent, int slot) {
+    MutableBeaconState state = parent.createMutableCopy();
+    state.setSlot(SlotNumber.of(slot));
+    state
+        .getStateRoots()
+        .set(SlotNumber.of((slot - 1) % specConstants.getSlotsPerHistoricalRoot().intValue()),
+            root(slot - 1));
+    state.getBalances().add(Gwei.ofEthers(slot));
+    state.getRandaoMixes().set(EpochNumber.of(0), root(slot));
+    if (slot % 3 == 0) {
+      state.getEth1DataVotes().clear();
+    } else {
+      state.getEth1DataVotes().add(new Eth1Data(root(slot), UInt64.valueOf(slot), Hash32.ZERO));
+    }
+    return state.createImmutable();
+  }
+
+  private Hash32 root(long slot) {
+    return Hash32.wrap(Bytes32.leftPad(BytesValues.toMinimalBytes(slot + 1)));
+  }
+}
@@ -0,0 +1,140 @@
+package org.ethereum.beacon.chain.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.ethereum.beacon.consensus.hasher.ObjectHasher;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.BLSPubkey;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.Bytes48;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+public class MerkleNodeStateSourceTest {
+
+  private final SpecConstants specConstants = new SpecConstants() {};
+  private final ObjectHasher<Hash32> objectHasher =
+      ObjectHasher.createSSZOverSHA256(specConstants);
+  private final SerializerFactory serializerFactory = SerializerFactory.createSSZ(specConstants);
+
+  private final HashMapDataSource<Hash32, BeaconStateRecord> records = new HashMapDataSource<>();
+  private final HashMapDataSource<Hash32, BytesValue> nodes = new HashMapDataSource<>();
+  private final HashMapDataSource<Hash32, Long> references = new HashMapDataSource<>();
+  private final HashMapDataSource<Hash32, BeaconState> snapshots = new HashMapDataSource<>();
+
+  private MerkleNodeStateSource createSource() {
+    return new MerkleNodeStateSource(
+        records, nodes, references, snapshots, objectHasher, serializerFactory, specConstants);
+  }
+
+  @Test
+  public void storeAndRestore() {
+    MerkleNodeStateSource source = createSource();
+
+    BeaconState first = genesis();
+    Hash32 firstRoot = objectHasher.getHash(first);
+    source.put(firstRoot, first);
+    int firstNodes = nodes.getStore().size();
+
+    MutableBeaconState next = first.createMutableCopy();
+    next.setSlot(SlotNumber.of(1));
+    next.getBalances().set(ValidatorIndex.of(99), Gwei.ofEthers(31));
+    next.getBlockRoots().set(SlotNumber.ZERO, root(1));
+    BeaconState second = next.createImmutable();
+    Hash32 secondRoot = objectHasher.getHash(second);
+    source.put(secondRoot, second);
+
+    assertTrue(records.getStore().containsKey(firstRoot));
+    assertTrue(records.getStore().containsKey(secondRoot));
+    assertTrue(snapshots.getStore().isEmpty());
+    // one page of balances and one page of block roots have been changed
+    assertEquals(firstNodes + 2, nodes.getStore().size());
+
+    // a fresh source has an empty cache of pages
+    MerkleNodeStateSource restored = createSource();
+    BeaconState firstRestored = restored.get(firstRoot).get();
+    BeaconState secondRestored = restored.get(secondRoot).get();
+    assertEquals(first, firstRestored);
+    assertEquals(second, secondRestored);
+    assertEquals(firstRoot, objectHasher.getHash(firstRestored));
+    assertEquals(secondRoot, objectHasher.getHash(secondRestored));
+    // unchanged pages are shared by restored states
+    assertTrue(
+        firstRestored.getValidators().get(ValidatorIndex.ZERO)
+            == secondRestored.getValidators().get(ValidatorIndex.ZERO));
+
+    restored.remove(secondRoot);
+    assertFalse(restored.get(secondRoot).isPresent());
+    assertTrue(restored.get(firstRoot).isPresent());
+  }
+
+  @Test
+  public void unusedNodesAreRemoved() {
+    MerkleNodeStateSource source = createSource();
+
+    BeaconState first = genesis();
+    Hash32 firstRoot = objectHasher.getHash(first);
+    source.put(firstRoot, first);
+    int firstNodes = nodes.getStore().size();
+
+    MutableBeaconState next = first.createMutableCopy();
+    next.getBalances().set(ValidatorIndex.of(99), Gwei.ofEthers(31));
+    BeaconState second = next.createImmutable();
+    Hash32 secondRoot = objectHasher.getHash(second);
+    source.put(secondRoot, second);
+    // nodes of a state that is stored twice are referenced once
+    source.put(secondRoot, second);
+    assertEquals(firstNodes + 1, nodes.getStore().size());
+
+    source.remove(secondRoot);
+    assertEquals(firstNodes, nodes.getStore().size());
+    assertEquals(first, createSource().get(firstRoot).get());
+
+    source.remove(firstRoot);
+    assertTrue(nodes.getStore().isEmpty());
+    assertTrue(references.getStore().isEmpty());
+    assertTrue(records.getStore().isEmpty());
+
+    // pages are still cached while their nodes have been removed
+    source.put(firstRoot, first);
+    assertEquals(firstNodes, nodes.getStore().size());
+    assertEquals(first, createSource().get(firstRoot).get());
+  }
+
+  private BeaconState genesis() {
+    MutableBeaconState genesis = BeaconState.getEmpty(specConstants).createMutableCopy();
+    for (int i = 0; i < 100; i++) {
+      genesis.getValidators().add(validator(i));
+      genesis.getBalances().add(Gwei.ofEthers(32));
+    }
+    return genesis.createImmutable();
+  }
+
+  private ValidatorRecord validator(int index) {
+    return new ValidatorRecord(
+        BLSPubkey.wrap(Bytes48.leftPad(BytesValues.toMinimalBytes(index + 1))),
+        Hash32.ZERO,
+        Gwei.ofEthers(32),
+        false,
+        EpochNumber.ZERO,
+        EpochNumber.ZERO,
+        specConstants.getFarFutureEpoch(),
+        specConstants.getFarFutureEpoch());
+  }
+
+  private Hash32 root(long value) {
+    return Hash32.wrap(Bytes32.leftPad(BytesValues.toMinimalBytes(value)));
+  }
+}
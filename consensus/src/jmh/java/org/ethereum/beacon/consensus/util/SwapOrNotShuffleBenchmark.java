@@ -0,0 +1,58 @@
+package org.ethereum.beacon.consensus.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SwapOrNotShuffle} shuffling a list of validator indices with mainnet number of
+ * rounds, hashing on the caller thread against hashing ahead in the common pool.
+ *
+ * <p>Run with {@code ./gradlew :consensus:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwapOrNotShuffleBenchmark {
+
+  private static final int ROUND_COUNT = 90;
+
+  @Param({"16384", "65536", "300000"})
+  private int count;
+
+  @Param({"sequential", "parallel"})
+  private String mode;
+
+  private SwapOrNotShuffle shuffle;
+  private byte[] seed;
+
+  @Setup
+  public void setup() {
+    seed = new byte[32];
+    new Random(1).nextBytes(seed);
+
+    if ("sequential".equals(mode)) {
+      shuffle = SwapOrNotShuffle.sequential(ROUND_COUNT);
+    } else {
+      shuffle = SwapOrNotShuffle.parallel(ROUND_COUNT);
+    }
+  }
+
+  @Benchmark
+  public int[] shuffle() {
+    return shuffle.permutation(count, seed);
+  }
+}
@@ -21,6 +21,7 @@ import tech.pegasys.artemis.util.bytes.BytesValue;
 
 import javax.annotation.Nonnull;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 /**
@@ -114,6 +115,8 @@ public interface BeaconChainSpec
     private boolean blsVerifyProofOfPossession = true;
     private boolean verifyDepositProof = true;
     private boolean computableGenesisTime = true;
+    private ForkJoinPool epochProcessingPool = null;
+    private ForkJoinPool verifierPool = null;
 
     public static Builder createWithDefaultParams() {
       return new Builder().withConstants(BeaconChainSpec.DEFAULT_CONSTANTS)
@@ -180,6 +183,36 @@ public interface BeaconChainSpec
       return this;
     }
 
+    /**
+     * Sets a pool that per validator parts of epoch processing are split across, {@code null}
+     * processes validators on the caller thread which is the default.
+     */
+    public Builder withEpochProcessingPool(ForkJoinPool epochProcessingPool) {
+      this.epochProcessingPool = epochProcessingPool;
+      return this;
+    }
+
+    public Builder withParallelEpochProcessing(boolean parallelEpochProcessing) {
+      return withEpochProcessingPool(parallelEpochProcessing ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Sets a pool that block verifiers split attestations of a block across, {@code null} verifies
+     * them on the caller thread which is the default.
+     */
+    public Builder withVerifierPool(ForkJoinPool verifierPool) {
+      this.verifierPool = verifierPool;
+      return this;
+    }
+
+    /**
+     * Creates a dedicated verifier pool of given parallelism, a non positive value disables
+     * parallel verification.
+     */
+    public Builder withVerifierThreads(int verifierThreads) {
+      return withVerifierPool(verifierThreads > 0 ? new ForkJoinPool(verifierThreads) : null);
+    }
+
     public BeaconChainSpec build() {
       assert constants != null;
       assert hashFunction != null;
@@ -193,7 +226,9 @@ public interface BeaconChainSpec
           blsVerifyProofOfPossession,
           verifyDepositProof,
           computableGenesisTime,
-          cache);
+          cache,
+          epochProcessingPool,
+          verifierPool);
     }
   }
 }
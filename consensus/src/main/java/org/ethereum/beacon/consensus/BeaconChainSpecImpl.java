@@ -1,5 +1,6 @@
 package org.ethereum.beacon.consensus;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.core.spec.SpecConstants;
@@ -15,6 +16,8 @@ public class BeaconChainSpecImpl implements BeaconChainSpec {
   private final boolean blsVerifyProofOfPossession;
   private final boolean verifyDepositProof;
   private final boolean computableGenesisTime;
+  private final ForkJoinPool epochProcessingPool;
+  private final ForkJoinPool verifierPool;
 
   public BeaconChainSpecImpl(
       SpecConstants constants,
@@ -24,6 +27,48 @@ public class BeaconChainSpecImpl implements BeaconChainSpec {
       boolean blsVerifyProofOfPossession,
       boolean verifyDepositProof,
       boolean computableGenesisTime) {
+    this(
+        constants,
+        hashFunction,
+        objectHasher,
+        blsVerify,
+        blsVerifyProofOfPossession,
+        verifyDepositProof,
+        computableGenesisTime,
+        null);
+  }
+
+  public BeaconChainSpecImpl(
+      SpecConstants constants,
+      Function<BytesValue, Hash32> hashFunction,
+      ObjectHasher<Hash32> objectHasher,
+      boolean blsVerify,
+      boolean blsVerifyProofOfPossession,
+      boolean verifyDepositProof,
+      boolean computableGenesisTime,
+      ForkJoinPool epochProcessingPool) {
+    this(
+        constants,
+        hashFunction,
+        objectHasher,
+        blsVerify,
+        blsVerifyProofOfPossession,
+        verifyDepositProof,
+        computableGenesisTime,
+        epochProcessingPool,
+        null);
+  }
+
+  public BeaconChainSpecImpl(
+      SpecConstants constants,
+      Function<BytesValue, Hash32> hashFunction,
+      ObjectHasher<Hash32> objectHasher,
+      boolean blsVerify,
+      boolean blsVerifyProofOfPossession,
+      boolean verifyDepositProof,
+      boolean computableGenesisTime,
+      ForkJoinPool epochProcessingPool,
+      ForkJoinPool verifierPool) {
     this.constants = constants;
     this.hashFunction = hashFunction;
     this.objectHasher = objectHasher;
@@ -31,6 +76,8 @@ public class BeaconChainSpecImpl implements BeaconChainSpec {
     this.blsVerifyProofOfPossession = blsVerifyProofOfPossession;
     this.verifyDepositProof = verifyDepositProof;
     this.computableGenesisTime = computableGenesisTime;
+    this.epochProcessingPool = epochProcessingPool;
+    this.verifierPool = verifierPool;
   }
 
   @Override
@@ -67,4 +114,14 @@ public class BeaconChainSpecImpl implements BeaconChainSpec {
   public boolean isComputableGenesisTime() {
     return computableGenesisTime;
   }
+
+  @Override
+  public ForkJoinPool getEpochProcessingPool() {
+    return epochProcessingPool;
+  }
+
+  @Override
+  public ForkJoinPool getVerifierPool() {
+    return verifierPool;
+  }
 }
@@ -18,4 +18,12 @@ public interface HeadFunction {
    * @return head block
    */
   BeaconBlock getHead(Function<ValidatorIndex, Optional<LatestMessage>> latestMessageStorage);
+
+  /**
+   * Notifies about a block that has been imported to the chain. Implementations which track the
+   * block tree on their own should override it.
+   *
+   * @param block imported block
+   */
+  default void onBlock(BeaconBlock block) {}
 }
@@ -56,13 +56,15 @@ public interface BlockProcessing extends HelperFunction {
     /* Verify proposer is not slashed
     proposer = state.validator_registry[get_beacon_proposer_index(state)]
     assert not proposer.slashed */
-    ValidatorRecord proposer = state.getValidators().get(get_beacon_proposer_index(state));
+    ValidatorIndex proposer_index = get_beacon_proposer_index(state);
+    ValidatorRecord proposer = state.getValidators().get(proposer_index);
     assertTrue(!proposer.getSlashed());
 
     /* Verify proposer signature
     assert bls_verify(proposer.pubkey, signing_root(block), block.signature, get_domain(state, DOMAIN_BEACON_PROPOSER)) */
     assertTrue(bls_verify(
-        proposer.getPubKey(),
+        state,
+        proposer_index,
         signing_root(block),
         block.getSignature(),
         get_domain(state, BEACON_PROPOSER)
@@ -90,10 +92,11 @@ public interface BlockProcessing extends HelperFunction {
       proposer = state.validators[get_beacon_proposer_index(state)]
       assert bls_verify(proposer.pubkey, hash_tree_root(epoch), body.randao_reveal, get_domain(state, DOMAIN_RANDAO)) */
     EpochNumber epoch = get_current_epoch(state);
-    ValidatorRecord proposer = state.getValidators().get(get_beacon_proposer_index(state));
+    ValidatorIndex proposer_index = get_beacon_proposer_index(state);
     assertTrue(
         bls_verify(
-            proposer.getPubKey(),
+            state,
+            proposer_index,
             hash_tree_root(epoch),
             body.getRandaoReveal(),
             get_domain(state, RANDAO)));
@@ -157,7 +160,8 @@ public interface BlockProcessing extends HelperFunction {
     Stream.of(proposer_slashing.getHeader1(), proposer_slashing.getHeader2()).forEach(header -> {
       UInt64 domain = get_domain(state, BEACON_PROPOSER, compute_epoch_of_slot(header.getSlot()));
       assertTrue(bls_verify(
-          proposer.getPubKey(),
+          state,
+          proposer_slashing.getProposerIndex(),
           signing_root(header),
           header.getSignature(),
           domain
@@ -434,7 +438,8 @@ public interface BlockProcessing extends HelperFunction {
     domain = get_domain(state, DOMAIN_VOLUNTARY_EXIT, exit.epoch)
     assert bls_verify(validator.pubkey, signing_root(exit), exit.signature, domain) */
     UInt64 domain = get_domain(state, SignatureDomains.VOLUNTARY_EXIT, exit.getEpoch());
-    assertTrue(bls_verify(validator.getPubKey(), signing_root(exit), exit.getSignature(), domain));
+    assertTrue(bls_verify(
+        state, exit.getValidatorIndex(), signing_root(exit), exit.getSignature(), domain));
   }
 
   /*
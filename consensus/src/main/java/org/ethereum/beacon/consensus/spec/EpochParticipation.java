@@ -0,0 +1,374 @@
+package org.ethereum.beacon.consensus.spec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.operations.attestation.Crosslink;
+import org.ethereum.beacon.core.state.PendingAttestation;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.ShardNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * Participation of validators in attestations of the previous and the current epochs.
+ *
+ * <p>Pending attestations are walked once, each validator gets a set of flags telling which of the
+ * matching source, target and head attestations it's a part of, along with the minimal inclusion
+ * delay. Epoch processing then works with these arrays instead of lists of attesting indices.
+ *
+ * <p>Effective balances, slashed flags and pending attestations are not changed by epoch
+ * processing before {@link EpochProcessing#process_final_updates}, thus, a participation computed
+ * in the beginning of epoch processing is valid up to that point. Winning crosslinks depend on
+ * current crosslinks of the state and are computed on demand.
+ *
+ * <p>Gwei values are held by primitive longs which are treated as unsigned and overflow the same
+ * way as {@link UInt64} does.
+ */
+public class EpochParticipation {
+
+  static final int PREVIOUS_SOURCE = 1;
+  static final int PREVIOUS_TARGET = 1 << 1;
+  static final int PREVIOUS_HEAD = 1 << 2;
+  static final int CURRENT_TARGET = 1 << 3;
+  static final int ACTIVE_CURRENT = 1 << 4;
+  static final int ELIGIBLE = 1 << 5;
+  static final int SLASHED = 1 << 6;
+
+  private static final long NO_DELAY = -1L;
+
+  private final EpochProcessing spec;
+  private final EpochNumber previousEpoch;
+  private final EpochNumber currentEpoch;
+  private final int validatorCount;
+  private final long[] effectiveBalances;
+  private final int[] flags;
+  private final long[] inclusionDelays;
+  private final int[] inclusionProposers;
+  private final Map<ShardNumber, List<ShardAttestation>> previousShardAttestations = new HashMap<>();
+  private final Map<ShardNumber, List<ShardAttestation>> currentShardAttestations = new HashMap<>();
+
+  private final long totalActiveBalance;
+  private final long previousSourceBalance;
+  private final long previousTargetBalance;
+  private final long previousHeadBalance;
+  private final long currentTargetBalance;
+  private final long baseRewardDenominator;
+
+  /** Used to merge attesters of several attestations, see {@link #mark(List, Crosslink)}. */
+  private final int[] marks;
+  private int markStamp = 0;
+  private long markedBalance = 1;
+
+  EpochParticipation(EpochProcessing spec, BeaconState state) {
+    this.spec = spec;
+    this.previousEpoch = spec.get_previous_epoch(state);
+    this.currentEpoch = spec.get_current_epoch(state);
+    this.validatorCount = state.getValidators().size().getIntValue();
+    this.effectiveBalances = new long[validatorCount];
+    this.flags = new int[validatorCount];
+    this.inclusionDelays = new long[validatorCount];
+    this.inclusionProposers = new int[validatorCount];
+    this.marks = new int[validatorCount];
+    Arrays.fill(inclusionDelays, NO_DELAY);
+
+    // get_matching_source_attestations returns current epoch attestations for the genesis epoch
+    List<PendingAttestation> previousAttestations =
+        previousEpoch.equals(currentEpoch)
+            ? state.getCurrentEpochAttestations().listCopy()
+            : state.getPreviousEpochAttestations().listCopy();
+    List<PendingAttestation> currentAttestations = state.getCurrentEpochAttestations().listCopy();
+
+    if (!previousAttestations.isEmpty()) {
+      Hash32 targetRoot = spec.get_block_root(state, previousEpoch);
+      for (PendingAttestation attestation : previousAttestations) {
+        int[] attesters = getAttesters(state, attestation);
+        int flag = PREVIOUS_SOURCE;
+        if (attestation.getData().getTarget().getRoot().equals(targetRoot)) {
+          flag |= PREVIOUS_TARGET;
+        }
+        if (attestation
+            .getData()
+            .getBeaconBlockRoot()
+            .equals(
+                spec.get_block_root_at_slot(
+                    state, spec.get_attestation_data_slot(state, attestation.getData())))) {
+          flag |= PREVIOUS_HEAD;
+        }
+
+        long delay = attestation.getInclusionDelay().getValue();
+        for (int index : attesters) {
+          flags[index] |= flag;
+          // the first attestation with the minimal delay is picked, like min() does
+          if (Long.compareUnsigned(delay, inclusionDelays[index]) < 0) {
+            inclusionDelays[index] = delay;
+            inclusionProposers[index] = attestation.getProposerIndex().getIntValue();
+          }
+        }
+        addShardAttestation(previousShardAttestations, attestation, attesters);
+      }
+    }
+
+    if (!currentAttestations.isEmpty()) {
+      Hash32 targetRoot = spec.get_block_root(state, currentEpoch);
+      for (PendingAttestation attestation : currentAttestations) {
+        int[] attesters = getAttesters(state, attestation);
+        if (attestation.getData().getTarget().getRoot().equals(targetRoot)) {
+          for (int index : attesters) {
+            flags[index] |= CURRENT_TARGET;
+          }
+        }
+        addShardAttestation(currentShardAttestations, attestation, attesters);
+      }
+    }
+
+    long totalActive = 0, previousSource = 0, previousTarget = 0, previousHead = 0;
+    long currentTarget = 0;
+    int i = 0;
+    for (ValidatorIndex index : state.getValidators().size()) {
+      ValidatorRecord validator = state.getValidators().get(index);
+      long balance = validator.getEffectiveBalance().getValue();
+      effectiveBalances[i] = balance;
+      if (validator.getSlashed()) {
+        flags[i] |= SLASHED;
+      }
+      if (spec.is_active_validator(validator, currentEpoch)) {
+        flags[i] |= ACTIVE_CURRENT;
+        totalActive += balance;
+      }
+      if (spec.is_active_validator(validator, previousEpoch)
+          || (validator.getSlashed()
+              && previousEpoch.increment().less(validator.getWithdrawableEpoch()))) {
+        flags[i] |= ELIGIBLE;
+      }
+      if (isUnslashed(i, PREVIOUS_SOURCE)) {
+        previousSource += balance;
+      }
+      if (isUnslashed(i, PREVIOUS_TARGET)) {
+        previousTarget += balance;
+      }
+      if (isUnslashed(i, PREVIOUS_HEAD)) {
+        previousHead += balance;
+      }
+      if (isUnslashed(i, CURRENT_TARGET)) {
+        currentTarget += balance;
+      }
+      i++;
+    }
+
+    this.totalActiveBalance = atLeastOne(totalActive);
+    this.previousSourceBalance = atLeastOne(previousSource);
+    this.previousTargetBalance = atLeastOne(previousTarget);
+    this.previousHeadBalance = atLeastOne(previousHead);
+    this.currentTargetBalance = atLeastOne(currentTarget);
+    this.baseRewardDenominator =
+        spec.integer_squareroot(UInt64.valueOf(totalActiveBalance)).getValue();
+  }
+
+  private int[] getAttesters(BeaconState state, PendingAttestation attestation) {
+    List<ValidatorIndex> indices =
+        spec.get_attesting_indices(
+            state, attestation.getData(), attestation.getAggregationBits());
+    int[] attesters = new int[indices.size()];
+    for (int i = 0; i < attesters.length; i++) {
+      attesters[i] = indices.get(i).getIntValue();
+    }
+    return attesters;
+  }
+
+  private static void addShardAttestation(
+      Map<ShardNumber, List<ShardAttestation>> shardAttestations,
+      PendingAttestation attestation,
+      int[] attesters) {
+    Crosslink crosslink = attestation.getData().getCrosslink();
+    shardAttestations
+        .computeIfAbsent(crosslink.getShard(), s -> new ArrayList<>())
+        .add(new ShardAttestation(crosslink, attesters));
+  }
+
+  /** {@code get_total_balance} returns at least 1 Gwei. */
+  private static long atLeastOne(long balance) {
+    return balance == 0 ? 1 : balance;
+  }
+
+  /** @return validator registry size. */
+  int getValidatorCount() {
+    return validatorCount;
+  }
+
+  /** @return {@code true} if validator is not slashed and has the flag set. */
+  boolean isUnslashed(int index, int flag) {
+    return (flags[index] & (flag | SLASHED)) == flag;
+  }
+
+  /** @return {@code true} if validator has the flag set. */
+  boolean hasFlag(int index, int flag) {
+    return (flags[index] & flag) != 0;
+  }
+
+  long getEffectiveBalance(int index) {
+    return effectiveBalances[index];
+  }
+
+  /** Inclusion delay of the previous epoch attestation picked for the inclusion reward. */
+  long getInclusionDelay(int index) {
+    return inclusionDelays[index];
+  }
+
+  /** Proposer of the previous epoch attestation picked for the inclusion reward. */
+  int getInclusionProposer(int index) {
+    return inclusionProposers[index];
+  }
+
+  /** {@code get_total_active_balance} */
+  long getTotalActiveBalance() {
+    return totalActiveBalance;
+  }
+
+  /** {@code get_attesting_balance(state, get_matching_source_attestations(state, previous_epoch))} */
+  long getPreviousSourceBalance() {
+    return previousSourceBalance;
+  }
+
+  /** {@code get_attesting_balance(state, get_matching_target_attestations(state, previous_epoch))} */
+  long getPreviousTargetBalance() {
+    return previousTargetBalance;
+  }
+
+  /** {@code get_attesting_balance(state, get_matching_head_attestations(state, previous_epoch))} */
+  long getPreviousHeadBalance() {
+    return previousHeadBalance;
+  }
+
+  /** {@code get_attesting_balance(state, get_matching_target_attestations(state, current_epoch))} */
+  long getCurrentTargetBalance() {
+    return currentTargetBalance;
+  }
+
+  /** {@code get_base_reward} */
+  long getBaseReward(int index) {
+    long numerator =
+        effectiveBalances[index] * spec.getConstants().getBaseRewardFactor().getValue();
+    return Long.divideUnsigned(
+        Long.divideUnsigned(numerator, baseRewardDenominator),
+        spec.getConstants().getBaseRewardsPerEpoch().getValue());
+  }
+
+  /**
+   * {@code get_total_balance(state, crosslink_committee)}
+   *
+   * @param committee a committee.
+   * @return total balance.
+   */
+  long getTotalBalance(List<ValidatorIndex> committee) {
+    long balance = 0;
+    for (ValidatorIndex index : committee) {
+      balance += effectiveBalances[index.getIntValue()];
+    }
+    return atLeastOne(balance);
+  }
+
+  /**
+   * Computes a winning crosslink like {@code get_winning_crosslink_and_attesting_indices} does.
+   * Attesting validators of the winning crosslink are marked, call {@link #isMarked(int)} to check
+   * whether a validator is one of them, until the next call to this method.
+   *
+   * @param state a state with current crosslinks.
+   * @param epoch either previous or current epoch.
+   * @param shard a shard.
+   * @return the winning crosslink.
+   */
+  Crosslink computeWinningCrosslink(BeaconState state, EpochNumber epoch, ShardNumber shard) {
+    assert epoch.equals(previousEpoch) || epoch.equals(currentEpoch);
+    List<ShardAttestation> attestations =
+        (epoch.equals(currentEpoch) ? currentShardAttestations : previousShardAttestations)
+            .getOrDefault(shard, Collections.emptyList());
+
+    Crosslink winningCrosslink = Crosslink.EMPTY;
+    if (!attestations.isEmpty()) {
+      Hash32 root = spec.hash_tree_root(state.getCurrentCrosslinks().get(shard));
+      Map<Crosslink, Boolean> candidates = new LinkedHashMap<>();
+      for (ShardAttestation attestation : attestations) {
+        candidates.computeIfAbsent(
+            attestation.crosslink,
+            c -> root.equals(c.getParentRoot()) || root.equals(spec.hash_tree_root(c)));
+      }
+
+      long winningBalance = 0;
+      boolean found = false;
+      for (Map.Entry<Crosslink, Boolean> candidate : candidates.entrySet()) {
+        if (!candidate.getValue()) {
+          continue;
+        }
+        Crosslink crosslink = candidate.getKey();
+        long balance = mark(attestations, crosslink);
+        int comparison =
+            balance == winningBalance
+                ? crosslink
+                    .getDataRoot()
+                    .toString()
+                    .compareTo(winningCrosslink.getDataRoot().toString())
+                : Long.compareUnsigned(balance, winningBalance);
+        // the first of equal crosslinks wins, like max() does
+        if (!found || comparison > 0) {
+          winningCrosslink = crosslink;
+          winningBalance = balance;
+          found = true;
+        }
+      }
+    }
+
+    mark(attestations, winningCrosslink);
+    return winningCrosslink;
+  }
+
+  /**
+   * Marks unslashed validators attesting to the crosslink.
+   *
+   * @return their total balance, at least 1 Gwei.
+   */
+  private long mark(List<ShardAttestation> attestations, Crosslink crosslink) {
+    int stamp = ++markStamp;
+    long balance = 0;
+    for (ShardAttestation attestation : attestations) {
+      if (!attestation.crosslink.equals(crosslink)) {
+        continue;
+      }
+      for (int index : attestation.attesters) {
+        if (marks[index] != stamp && (flags[index] & SLASHED) == 0) {
+          marks[index] = stamp;
+          balance += effectiveBalances[index];
+        }
+      }
+    }
+    markedBalance = atLeastOne(balance);
+    return markedBalance;
+  }
+
+  /** @return total balance of validators marked by the last winning crosslink computation. */
+  long getMarkedBalance() {
+    return markedBalance;
+  }
+
+  /** @return {@code true} if validator attests to the last computed winning crosslink. */
+  boolean isMarked(int index) {
+    return marks[index] == markStamp;
+  }
+
+  private static class ShardAttestation {
+    private final Crosslink crosslink;
+    private final int[] attesters;
+
+    ShardAttestation(Crosslink crosslink, int[] attesters) {
+      this.crosslink = crosslink;
+      this.attesters = attesters;
+    }
+  }
+}
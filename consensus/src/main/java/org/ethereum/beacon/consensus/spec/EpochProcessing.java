@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.ethereum.beacon.core.BeaconState;
 import org.ethereum.beacon.core.MutableBeaconState;
@@ -149,6 +150,27 @@ public interface EpochProcessing extends HelperFunction {
           return
    */
   default void process_justification_and_finalization(MutableBeaconState state) {
+    process_justification_and_finalization(
+        state, epoch -> get_attesting_balance(state, get_matching_target_attestations(state, epoch)));
+  }
+
+  /**
+   * {@link #process_justification_and_finalization(MutableBeaconState)} with balances of matching
+   * target attestations taken from a precomputed participation.
+   */
+  default void process_justification_and_finalization(
+      MutableBeaconState state, EpochParticipation participation) {
+    process_justification_and_finalization(
+        state,
+        epoch ->
+            Gwei.of(
+                epoch.equals(get_current_epoch(state))
+                    ? participation.getCurrentTargetBalance()
+                    : participation.getPreviousTargetBalance()));
+  }
+
+  default void process_justification_and_finalization(
+      MutableBeaconState state, Function<EpochNumber, Gwei> target_attesting_balance) {
     if (get_current_epoch(state).lessEqual(getConstants().getGenesisEpoch().increment())) {
       return;
     }
@@ -170,9 +192,7 @@ public interface EpochProcessing extends HelperFunction {
           state.current_justified_checkpoint = Checkpoint(epoch=previous_epoch,
                                                         root=get_block_root(state, previous_epoch))
        state.justification_bits[1] = 0b1 */
-    List<PendingAttestation> matching_target_attestations =
-        get_matching_target_attestations(state, previous_epoch);
-    if (get_attesting_balance(state, matching_target_attestations).times(3)
+    if (target_attesting_balance.apply(previous_epoch).times(3)
         .greaterEqual(get_total_active_balance(state).times(2))) {
       state.setCurrentJustifiedCheckpoint(
           new Checkpoint(previous_epoch, get_block_root(state, previous_epoch)));
@@ -184,9 +204,7 @@ public interface EpochProcessing extends HelperFunction {
            state.current_justified_checkpoint = Checkpoint(epoch=current_epoch,
                                                         root=get_block_root(state, current_epoch))
            state.justification_bits[0] = 0b1 */
-    matching_target_attestations =
-        get_matching_target_attestations(state, current_epoch);
-    if (get_attesting_balance(state, matching_target_attestations).times(3)
+    if (target_attesting_balance.apply(current_epoch).times(3)
         .greaterEqual(get_total_active_balance(state).times(2))) {
       state.setCurrentJustifiedCheckpoint(
           new Checkpoint(current_epoch, get_block_root(state, current_epoch)));
@@ -261,6 +279,28 @@ public interface EpochProcessing extends HelperFunction {
     }
   }
 
+  /**
+   * {@link #process_crosslinks(MutableBeaconState)} with winning crosslinks computed over a
+   * precomputed participation.
+   */
+  default void process_crosslinks(MutableBeaconState state, EpochParticipation participation) {
+    state.getPreviousCrosslinks().setAll(state.getCurrentCrosslinks());
+
+    for (EpochNumber epoch : get_previous_epoch(state).iterateTo(get_current_epoch(state).increment())) {
+      for (UInt64 offset : UInt64s.iterate(UInt64.ZERO, get_committee_count(state, epoch))) {
+        ShardNumber shard = get_start_shard(state, epoch)
+            .plusModulo(offset, getConstants().getShardCount());
+        List<ValidatorIndex> crosslink_committee = get_crosslink_committee(state, epoch, shard);
+        Crosslink winning_crosslink = participation.computeWinningCrosslink(state, epoch, shard);
+        if (Long.compareUnsigned(
+                participation.getMarkedBalance() * 3,
+                participation.getTotalBalance(crosslink_committee) * 2) >= 0) {
+          state.getCurrentCrosslinks().set(shard, winning_crosslink);
+        }
+      }
+    }
+  }
+
   /*
     def get_base_reward(state: BeaconState, index: ValidatorIndex) -> Gwei:
       total_balance = get_total_active_balance(state)
@@ -383,6 +423,78 @@ public interface EpochProcessing extends HelperFunction {
     return new Gwei[][] { rewards, penalties };
   }
 
+  /**
+   * {@link #get_attestation_deltas(BeaconState)} computed in a single pass over validators.
+   *
+   * @return rewards and penalties, unsigned.
+   */
+  default long[][] get_attestation_deltas(BeaconState state, EpochParticipation participation) {
+    int validator_count = participation.getValidatorCount();
+    long[] rewards = new long[validator_count];
+    long[] penalties = new long[validator_count];
+
+    long total_balance = participation.getTotalActiveBalance();
+    long source_balance = participation.getPreviousSourceBalance();
+    long target_balance = participation.getPreviousTargetBalance();
+    long head_balance = participation.getPreviousHeadBalance();
+    long slots_per_epoch = getConstants().getSlotsPerEpoch().getValue();
+    long min_inclusion_delay = getConstants().getMinAttestationInclusionDelay().getValue();
+    long proposer_reward_quotient = getConstants().getProposerRewardQuotient().getValue();
+
+    EpochNumber finality_delay =
+        get_previous_epoch(state).minus(state.getFinalizedCheckpoint().getEpoch());
+    boolean inactivity_penalty =
+        finality_delay.greater(getConstants().getMinEpochsToInactivityPenalty());
+
+    for (int index = 0; index < validator_count; index++) {
+      long base_reward = participation.getBaseReward(index);
+
+      if (participation.hasFlag(index, EpochParticipation.ELIGIBLE)) {
+        // Micro-incentives for matching FFG source, FFG target, and head
+        if (participation.isUnslashed(index, EpochParticipation.PREVIOUS_SOURCE)) {
+          rewards[index] += Long.divideUnsigned(base_reward * source_balance, total_balance);
+        } else {
+          penalties[index] += base_reward;
+        }
+        if (participation.isUnslashed(index, EpochParticipation.PREVIOUS_TARGET)) {
+          rewards[index] += Long.divideUnsigned(base_reward * target_balance, total_balance);
+        } else {
+          penalties[index] += base_reward;
+        }
+        if (participation.isUnslashed(index, EpochParticipation.PREVIOUS_HEAD)) {
+          rewards[index] += Long.divideUnsigned(base_reward * head_balance, total_balance);
+        } else {
+          penalties[index] += base_reward;
+        }
+
+        // Inactivity penalty
+        if (inactivity_penalty) {
+          penalties[index] += base_reward * getConstants().getBaseRewardsPerEpoch().getValue();
+          if (!participation.isUnslashed(index, EpochParticipation.PREVIOUS_TARGET)) {
+            penalties[index] +=
+                Long.divideUnsigned(
+                    participation.getEffectiveBalance(index) * finality_delay.getValue(),
+                    getConstants().getInactivityPenaltyQuotient().getValue());
+          }
+        }
+      }
+
+      // Proposer and inclusion delay micro-rewards
+      if (participation.isUnslashed(index, EpochParticipation.PREVIOUS_SOURCE)) {
+        long proposer_reward = Long.divideUnsigned(base_reward, proposer_reward_quotient);
+        rewards[participation.getInclusionProposer(index)] += proposer_reward;
+        long max_attester_reward = base_reward - proposer_reward;
+        rewards[index] +=
+            Long.divideUnsigned(
+                max_attester_reward
+                    * (slots_per_epoch + min_inclusion_delay - participation.getInclusionDelay(index)),
+                slots_per_epoch);
+      }
+    }
+
+    return new long[][] { rewards, penalties };
+  }
+
   /*
    def get_crosslink_deltas(state: BeaconState) -> Tuple[List[Gwei], List[Gwei]]:
     rewards = [0 for index in range(len(state.validator_registry))]
@@ -433,6 +545,39 @@ public interface EpochProcessing extends HelperFunction {
     return new Gwei[][] { rewards, penalties };
   }
 
+  /**
+   * {@link #get_crosslink_deltas(BeaconState)} with winning crosslinks computed over a precomputed
+   * participation.
+   *
+   * @return rewards and penalties, unsigned.
+   */
+  default long[][] get_crosslink_deltas(BeaconState state, EpochParticipation participation) {
+    long[] rewards = new long[participation.getValidatorCount()];
+    long[] penalties = new long[participation.getValidatorCount()];
+
+    EpochNumber epoch = get_previous_epoch(state);
+    for (UInt64 offset : UInt64s.iterate(UInt64.ZERO, get_committee_count(state, epoch))) {
+      ShardNumber shard = get_start_shard(state, epoch)
+          .plusModulo(offset, getConstants().getShardCount());
+      List<ValidatorIndex> crosslink_committee = get_crosslink_committee(state, epoch, shard);
+      participation.computeWinningCrosslink(state, epoch, shard);
+      long attesting_balance = participation.getMarkedBalance();
+      long committee_balance = participation.getTotalBalance(crosslink_committee);
+      for (ValidatorIndex validator_index : crosslink_committee) {
+        int index = validator_index.getIntValue();
+        long base_reward = participation.getBaseReward(index);
+        if (participation.isMarked(index)) {
+          rewards[index] +=
+              Long.divideUnsigned(base_reward * attesting_balance, committee_balance);
+        } else {
+          penalties[index] += base_reward;
+        }
+      }
+    }
+
+    return new long[][] { rewards, penalties };
+  }
+
   /*
     def process_rewards_and_penalties(state: BeaconState) -> None:
       if get_current_epoch(state) == GENESIS_EPOCH:
@@ -459,6 +604,56 @@ public interface EpochProcessing extends HelperFunction {
     }
   }
 
+  /**
+   * {@link #process_rewards_and_penalties(MutableBeaconState)} over a precomputed participation.
+   *
+   * <p>New balances are computed by chunks of validators, see {@link ValidatorChunks}, in parallel
+   * if {@link #getEpochProcessingPool()} is set. Then each chunk is written to the state at once.
+   */
+  default void process_rewards_and_penalties(
+      MutableBeaconState state, EpochParticipation participation) {
+    if (get_current_epoch(state).equals(getConstants().getGenesisEpoch())) {
+      return;
+    }
+
+    long[][] deltas1 = get_attestation_deltas(state, participation);
+    long[] rewards1 = deltas1[0], penalties1 = deltas1[1];
+    long[][] deltas2 = get_crosslink_deltas(state, participation);
+    long[] rewards2 = deltas2[0], penalties2 = deltas2[1];
+
+    int validator_count = participation.getValidatorCount();
+    long[] balances = new long[validator_count];
+    ReadList<ValidatorIndex, Gwei> current_balances = state.getBalances();
+    ValidatorChunks.forEach(getEpochProcessingPool(), validator_count, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        long reward = rewards1[i] + rewards2[i];
+        long penalty = penalties1[i] + penalties2[i];
+        long increased = current_balances.get(ValidatorIndex.of(i)).getValue() + reward;
+        balances[i] = Long.compareUnsigned(penalty, increased) > 0 ? 0 : increased - penalty;
+      }
+    });
+
+    // validators with no deltas at the edges of a chunk are left untouched
+    ValidatorChunks.forEach(validator_count, (from, to) -> {
+      int first = from, last = to - 1;
+      while (first <= last
+          && (rewards1[first] | rewards2[first] | penalties1[first] | penalties2[first]) == 0) {
+        first++;
+      }
+      while (last >= first
+          && (rewards1[last] | rewards2[last] | penalties1[last] | penalties2[last]) == 0) {
+        last--;
+      }
+      if (first <= last) {
+        Gwei[] chunk = new Gwei[last - first + 1];
+        for (int i = first; i <= last; i++) {
+          chunk[i - first] = Gwei.of(balances[i]);
+        }
+        state.getBalances().setAll(ValidatorIndex.of(first), Arrays.asList(chunk));
+      }
+    });
+  }
+
   /*
     def process_registry_updates(state: BeaconState) -> None:
    */
@@ -530,8 +725,21 @@ public interface EpochProcessing extends HelperFunction {
   default void process_slashings(MutableBeaconState state) {
     /* epoch = get_current_epoch(state)
        total_balance = get_total_active_balance(state) */
+    process_slashings(state, get_total_active_balance(state));
+  }
+
+  /**
+   * {@link #process_slashings(MutableBeaconState)} with total active balance taken from a
+   * precomputed participation.
+   */
+  default void process_slashings(MutableBeaconState state, EpochParticipation participation) {
+    process_slashings(state, Gwei.of(participation.getTotalActiveBalance()));
+  }
+
+  default void process_slashings(MutableBeaconState state, Gwei total_balance) {
     EpochNumber epoch = get_current_epoch(state);
-    Gwei total_balance = get_total_active_balance(state);
+    Gwei increment = getConstants().getEffectiveBalanceIncrement();
+    Gwei state_slashings = state.getSlashings().stream().reduce(Gwei::plus).orElse(Gwei.ZERO);
 
     /* for index, validator in enumerate(state.validators):
         if validator.slashed and epoch + EPOCHS_PER_SLASHINGS_VECTOR // 2 == validator.withdrawable_epoch:
@@ -543,13 +751,11 @@ public interface EpochProcessing extends HelperFunction {
       ValidatorRecord validator = state.getValidators().get(index);
       if (validator.getSlashed()
           && epoch.plus(getConstants().getEpochsPerSlashingsVector().half()).equals(validator.getWithdrawableEpoch())) {
-        Gwei increment = getConstants().getEffectiveBalanceIncrement();
-        Gwei stateSlashings = state.getSlashings().stream().reduce(Gwei::plus).orElse(Gwei.ZERO);
         Gwei penalty_numerator =
             validator
                 .getEffectiveBalance()
                 .dividedBy(increment)
-                .times(UInt64s.min(stateSlashings.times(3), total_balance));
+                .times(UInt64s.min(state_slashings.times(3), total_balance));
         Gwei penalty = penalty_numerator.dividedBy(total_balance).times(increment);
         decrease_balance(state, index, penalty);
       }
@@ -579,18 +785,37 @@ public interface EpochProcessing extends HelperFunction {
           HALF_INCREMENT = EFFECTIVE_BALANCE_INCREMENT // 2
           if balance < validator.effective_balance or validator.effective_balance + 3 * HALF_INCREMENT < balance:
               validator.effective_balance = min(balance - balance % EFFECTIVE_BALANCE_INCREMENT, MAX_EFFECTIVE_BALANCE) */
-    Gwei half_increment = getConstants().getEffectiveBalanceIncrement().dividedBy(2);
-    for (ValidatorIndex index : state.getValidators().size()) {
-      ValidatorRecord validator = state.getValidators().get(index);
-      Gwei balance = state.getBalances().get(index);
-      if (balance.less(validator.getEffectiveBalance())
-          || validator.getEffectiveBalance().plus(half_increment.times(3)).less(balance)) {
-        state.getValidators().update(index,
+    int validator_count = state.getValidators().size().getIntValue();
+    long increment = getConstants().getEffectiveBalanceIncrement().getValue();
+    long half_increment = increment / 2;
+    long max_effective_balance = getConstants().getMaxEffectiveBalance().getValue();
+    // new effective balances, -1 if not updated as it's never greater than MAX_EFFECTIVE_BALANCE
+    long[] effective_balances = new long[validator_count];
+    ValidatorChunks.forEach(getEpochProcessingPool(), validator_count, (from, to) -> {
+      for (int i = from; i < to; i++) {
+        ValidatorIndex index = ValidatorIndex.of(i);
+        long effective_balance = state.getValidators().get(index).getEffectiveBalance().getValue();
+        long balance = state.getBalances().get(index).getValue();
+        if (Long.compareUnsigned(balance, effective_balance) < 0
+            || Long.compareUnsigned(effective_balance + 3 * half_increment, balance) < 0) {
+          long rounded = balance - Long.remainderUnsigned(balance, increment);
+          effective_balances[i] =
+              Long.compareUnsigned(rounded, max_effective_balance) < 0
+                  ? rounded
+                  : max_effective_balance;
+        } else {
+          effective_balances[i] = -1;
+        }
+      }
+    });
+
+    // updates are rare, only updated records are written to not rehash the rest of a chunk
+    for (int i = 0; i < validator_count; i++) {
+      if (effective_balances[i] != -1) {
+        Gwei effective_balance = Gwei.of(effective_balances[i]);
+        state.getValidators().update(ValidatorIndex.of(i),
             v -> ValidatorRecord.Builder.fromRecord(v)
-                .withEffectiveBalance(
-                    UInt64s.min(
-                        balance.minus(Gwei.castFrom(balance.modulo(getConstants().getEffectiveBalanceIncrement()))),
-                        getConstants().getMaxEffectiveBalance()))
+                .withEffectiveBalance(effective_balance)
                 .build());
       }
     }
@@ -657,14 +882,26 @@ public interface EpochProcessing extends HelperFunction {
       # @after_process_final_updates
    */
   default void process_epoch(MutableBeaconState state) {
-    process_justification_and_finalization(state);
-    process_crosslinks(state);
-    process_rewards_and_penalties(state);
+    // attestations are walked once, see EpochParticipation
+    EpochParticipation participation = get_epoch_participation(state);
+    process_justification_and_finalization(state, participation);
+    process_crosslinks(state, participation);
+    process_rewards_and_penalties(state, participation);
     process_registry_updates(state);
     // @process_reveal_deadlines
     // @process_challenge_deadlines
-    process_slashings(state);
+    process_slashings(state, participation);
     process_final_updates(state);
     // @after_process_final_updates
   }
+
+  /**
+   * Computes participation of validators in pending attestations.
+   *
+   * @param state a state in the end of epoch, before epoch processing.
+   * @return participation.
+   */
+  default EpochParticipation get_epoch_participation(BeaconState state) {
+    return new EpochParticipation(this, state);
+  }
 }
@@ -1,6 +1,7 @@
 package org.ethereum.beacon.consensus.spec;
 
 import com.google.common.collect.Ordering;
+import org.ethereum.beacon.consensus.util.SwapOrNotShuffle;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.BeaconBlockBody;
 import org.ethereum.beacon.core.BeaconBlockHeader;
@@ -42,6 +43,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -388,63 +390,27 @@ public interface HelperFunction extends SpecCommons {
    * Ported from https://github.com/protolambda/eth2-shuffle/blob/master/shuffle.go#L159
    * Note: the spec uses inverse direction of index mutations,
    *       hence round order is inverse
+   *
+   * Positions are shuffled by {@link SwapOrNotShuffle}, elements of the input are not copied.
+   * Rounds are hashed ahead in {@link #getEpochProcessingPool()} if it's set.
    */
   default List<UInt64> get_permuted_list(List<? extends UInt64> indices, Bytes32 seed) {
     if (indices.size() < 2) {
       return new ArrayList<>(indices);
     }
 
-    int listSize = indices.size();
-    List<UInt64> permutations = new ArrayList<>(indices);
-
-    for (int round = getConstants().getShuffleRoundCount() - 1; round >= 0; round--) {
-      BytesValue roundSeed = seed.concat(int_to_bytes1(round));
-      Bytes8 pivotBytes = Bytes8.wrap(hash(roundSeed), 0);
-      long pivot = bytes_to_int(pivotBytes).modulo(listSize).getValue();
-
-      long mirror = (pivot + 1) >>> 1;
-      Bytes32 source = hash(roundSeed.concat(int_to_bytes4(pivot >>> 8)));
-
-      byte byteV = source.get((int) ((pivot & 0xff) >>> 3));
-      for (long i = 0, j = pivot; i < mirror; ++i, --j) {
-        if ((j & 0xff) == 0xff) {
-          source = hash(roundSeed.concat(int_to_bytes4(j >>> 8)));
-        }
-        if ((j & 0x7) == 0x7) {
-          byteV = source.get((int) ((j & 0xff) >>> 3));
-        }
-
-        byte bitV = (byte) ((byteV >>> (j & 0x7)) & 0x1);
-        if (bitV == 1) {
-          UInt64 oldV = permutations.get((int) i);
-          permutations.set((int) i, permutations.get((int) j));
-          permutations.set((int) j, oldV);
-        }
-      }
-
-      mirror = (pivot + listSize + 1) >>> 1;
-      long end = listSize - 1;
-
-      source = hash(roundSeed.concat(int_to_bytes4(end >>> 8)));
-      byteV = source.get((int) ((end & 0xff) >>> 3));
-      for (long i = pivot + 1, j = end; i < mirror; ++i, --j) {
-        if ((j & 0xff) == 0xff) {
-          source = hash(roundSeed.concat(int_to_bytes4(j >>> 8)));
-        }
-        if ((j & 0x7) == 0x7) {
-          byteV = source.get((int) ((j & 0xff) >>> 3));
-        }
-
-        byte bitV = (byte) ((byteV >>> (j & 0x7)) & 0x1);
-        if (bitV == 1) {
-          UInt64 oldV = permutations.get((int) i);
-          permutations.set((int) i, permutations.get((int) j));
-          permutations.set((int) j, oldV);
-        }
-      }
+    int roundCount = getConstants().getShuffleRoundCount();
+    ForkJoinPool pool = getEpochProcessingPool();
+    SwapOrNotShuffle shuffle =
+        pool != null
+            ? SwapOrNotShuffle.parallel(roundCount, pool)
+            : SwapOrNotShuffle.sequential(roundCount);
+    int[] permutation = shuffle.permutation(indices.size(), seed.extractArray());
+    List<UInt64> permuted = new ArrayList<>(permutation.length);
+    for (int position : permutation) {
+      permuted.add(indices.get(position));
     }
-
-    return permutations;
+    return permuted;
   }
 
   default UInt64 bytes_to_int(Bytes8 bytes) {
@@ -531,11 +497,18 @@ public interface HelperFunction extends SpecCommons {
     return compute_committee(indices, start, end, seed);
   }
 
+  /**
+   * Shuffles each index like {@link #compute_shuffled_index(UInt64, UInt64, Bytes32)} does, see
+   * {@link SwapOrNotShuffle#shuffledIndices(int, int, int, byte[])}.
+   */
   default List<ValidatorIndex> compute_committee(List<ValidatorIndex> validator_indices, UInt64 start, UInt64 end, Bytes32 seed) {
-    List<ValidatorIndex> result = new ArrayList<>();
-    for (UInt64 i = start; i.compareTo(end) < 0; i = i.increment()) {
-      UInt64 shuffled_index = compute_shuffled_index(i, UInt64.valueOf(validator_indices.size()), seed);
-      result.add(validator_indices.get(shuffled_index.getIntValue()));
+    int[] shuffled_indices =
+        SwapOrNotShuffle.sequential(getConstants().getShuffleRoundCount())
+            .shuffledIndices(
+                start.intValue(), end.intValue(), validator_indices.size(), seed.extractArray());
+    List<ValidatorIndex> result = new ArrayList<>(shuffled_indices.length);
+    for (int shuffled_index : shuffled_indices) {
+      result.add(validator_indices.get(shuffled_index));
     }
     return result;
   }
@@ -551,8 +524,11 @@ public interface HelperFunction extends SpecCommons {
   }
 
   default List<ValidatorIndex> compute_committee2(List<ValidatorIndex> validator_indices, UInt64 start, UInt64 end, Bytes32 seed) {
+    // permuted list consists of the input elements, no need to copy them
     List<ValidatorIndex> shuffled_indices = get_permuted_list(validator_indices, seed)
-        .stream().map(ValidatorIndex::new).collect(toList());
+        .stream()
+        .map(i -> i instanceof ValidatorIndex ? (ValidatorIndex) i : new ValidatorIndex(i))
+        .collect(toList());
     return shuffled_indices.subList(start.intValue(), end.intValue());
   }
 
@@ -877,6 +853,31 @@ public interface HelperFunction extends SpecCommons {
     }
   }
 
+  /**
+   * {@link #bls_verify(BLSPubkey, Hash32, BLSSignature, UInt64)} with a public key of a validator
+   * from the registry, the key is taken from {@link #get_validator_pubkey(BeaconState,
+   * ValidatorIndex)}.
+   */
+  default boolean bls_verify(
+      BeaconState state,
+      ValidatorIndex index,
+      Hash32 message,
+      BLSSignature signature,
+      UInt64 domain) {
+    if (!isBlsVerify()) {
+      return true;
+    }
+
+    try {
+      PublicKey blsPublicKey = get_validator_pubkey(state, index);
+      MessageParameters messageParameters = MessageParameters.create(message, domain);
+      Signature blsSignature = Signature.create(signature);
+      return BLS381.verify(messageParameters, blsSignature, blsPublicKey);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
   default boolean bls_verify_multiple(
       List<PublicKey> publicKeys, List<Hash32> messages, BLSSignature signature, UInt64 domain) {
     if (!isBlsVerify()) {
@@ -900,6 +901,27 @@ public interface HelperFunction extends SpecCommons {
     return PublicKey.aggregate(publicKeys);
   }
 
+  /**
+   * Aggregates public keys of validators from the registry, keys are taken from {@link
+   * #get_validator_pubkey(BeaconState, ValidatorIndex)}.
+   */
+  default PublicKey bls_aggregate_pubkeys(BeaconState state, Iterable<ValidatorIndex> indices) {
+    if (!isBlsVerify()) {
+      return PublicKey.aggregate(Collections.emptyList());
+    }
+
+    return PublicKey.aggregate(mapIndicesToPubKeys(state, indices));
+  }
+
+  /**
+   * Returns decompressed and validated public key of a validator.
+   *
+   * @throws IllegalArgumentException if the key of the validator is not a valid G1 point.
+   */
+  default PublicKey get_validator_pubkey(BeaconState state, ValidatorIndex index) {
+    return PublicKey.create(state.getValidators().get(index).getPubKey());
+  }
+
   /*
     def get_domain(state: BeaconState, domain_type: DomainType, message_epoch: Epoch=None) -> Domain:
       """
@@ -941,11 +963,11 @@ public interface HelperFunction extends SpecCommons {
             && data_2.getTarget().getEpoch().less(data_1.getTarget().getEpoch()));
   }
 
-  default List<BLSPubkey> mapIndicesToPubKeys(BeaconState state, Iterable<ValidatorIndex> indices) {
-    List<BLSPubkey> publicKeys = new ArrayList<>();
+  default List<PublicKey> mapIndicesToPubKeys(BeaconState state, Iterable<ValidatorIndex> indices) {
+    List<PublicKey> publicKeys = new ArrayList<>();
     for (ValidatorIndex index : indices) {
       checkIndexRange(state, index);
-      publicKeys.add(state.getValidators().get(index).getPubKey());
+      publicKeys.add(get_validator_pubkey(state, index));
     }
     return publicKeys;
   }
@@ -1040,10 +1062,8 @@ public interface HelperFunction extends SpecCommons {
      */
     return bls_verify_multiple(
         Arrays.asList(
-            bls_aggregate_pubkeys(bit_0_indices.stream()
-                .map(i -> state.getValidators().get(i).getPubKey()).collect(Collectors.toList())),
-            bls_aggregate_pubkeys(bit_1_indices.stream()
-                .map(i -> state.getValidators().get(i).getPubKey()).collect(Collectors.toList()))),
+            bls_aggregate_pubkeys(state, bit_0_indices),
+            bls_aggregate_pubkeys(state, bit_1_indices)),
         Arrays.asList(
             hash_tree_root(new AttestationDataAndCustodyBit(indexed_attestation.getData(), false)),
             hash_tree_root(new AttestationDataAndCustodyBit(indexed_attestation.getData(), true))
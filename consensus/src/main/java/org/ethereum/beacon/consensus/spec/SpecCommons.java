@@ -8,6 +8,7 @@ import org.ethereum.beacon.core.types.ValidatorIndex;
 import tech.pegasys.artemis.ethereum.core.Hash32;
 import tech.pegasys.artemis.util.bytes.BytesValue;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 /**
@@ -29,6 +30,23 @@ public interface SpecCommons {
 
   boolean isComputableGenesisTime();
 
+  /**
+   * Returns a pool that per validator parts of epoch processing are split across. Shuffling
+   * hashes its rounds in this pool too.
+   *
+   * @return a pool or {@code null} if validators are processed on the caller thread.
+   */
+  ForkJoinPool getEpochProcessingPool();
+
+  /**
+   * Returns a pool that block verifiers split attestations of a block across. It's independent of
+   * {@link #getEpochProcessingPool()}, hence, verification of incoming blocks doesn't compete with
+   * epoch processing for threads.
+   *
+   * @return a pool or {@code null} if attestations are verified on the caller thread.
+   */
+  ForkJoinPool getVerifierPool();
+
   default void assertTrue(boolean assertion) {
     if (!assertion) {
       throw new SpecAssertionFailed();
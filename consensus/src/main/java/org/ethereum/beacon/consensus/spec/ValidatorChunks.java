@@ -0,0 +1,86 @@
+package org.ethereum.beacon.consensus.spec;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits validator registry into contiguous chunks of {@link #CHUNK_SIZE} validators.
+ *
+ * <p>Used by epoch processing for computations which are independent per validator. Each chunk
+ * writes to its own range of output buffers, thus, results don't depend on the number of threads
+ * and on the order chunks are processed in. Without a pool chunks are processed one by one on the
+ * caller thread.
+ */
+public class ValidatorChunks {
+
+  /** A number of validators in a chunk. */
+  public static final int CHUNK_SIZE = 1 << 11;
+
+  private ValidatorChunks() {}
+
+  /** Processes a range of validators. */
+  public interface ChunkProcessor {
+
+    /**
+     * @param from the first validator index, inclusive.
+     * @param to the last validator index, exclusive.
+     */
+    void process(int from, int to);
+  }
+
+  /**
+   * Processes chunks one by one on the caller thread.
+   *
+   * @param validatorCount a number of validators.
+   * @param processor chunk processor.
+   */
+  public static void forEach(int validatorCount, ChunkProcessor processor) {
+    for (int from = 0; from < validatorCount; from += CHUNK_SIZE) {
+      processor.process(from, Math.min(from + CHUNK_SIZE, validatorCount));
+    }
+  }
+
+  /**
+   * Processes chunks in the pool, the call returns once all chunks are processed.
+   *
+   * @param pool a pool, {@code null} to process chunks on the caller thread.
+   * @param validatorCount a number of validators.
+   * @param processor chunk processor, must be safe to call concurrently for distinct ranges.
+   */
+  public static void forEach(ForkJoinPool pool, int validatorCount, ChunkProcessor processor) {
+    if (pool == null || validatorCount <= CHUNK_SIZE) {
+      forEach(validatorCount, processor);
+    } else {
+      int chunkCount = (validatorCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      pool.invoke(new ChunkAction(0, chunkCount, validatorCount, processor));
+    }
+  }
+
+  /** Halves a range of chunks until a single chunk is left. */
+  private static class ChunkAction extends RecursiveAction {
+    private final int fromChunk;
+    private final int toChunk;
+    private final int validatorCount;
+    private final ChunkProcessor processor;
+
+    ChunkAction(int fromChunk, int toChunk, int validatorCount, ChunkProcessor processor) {
+      this.fromChunk = fromChunk;
+      this.toChunk = toChunk;
+      this.validatorCount = validatorCount;
+      this.processor = processor;
+    }
+
+    @Override
+    protected void compute() {
+      if (toChunk - fromChunk == 1) {
+        int from = fromChunk * CHUNK_SIZE;
+        processor.process(from, Math.min(from + CHUNK_SIZE, validatorCount));
+      } else {
+        int middle = (fromChunk + toChunk) >>> 1;
+        invokeAll(
+            new ChunkAction(fromChunk, middle, validatorCount, processor),
+            new ChunkAction(middle, toChunk, validatorCount, processor));
+      }
+    }
+  }
+}
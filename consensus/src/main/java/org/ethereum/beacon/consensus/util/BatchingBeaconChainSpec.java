@@ -0,0 +1,109 @@
+package org.ethereum.beacon.consensus.util;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.types.BLSPubkey;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.crypto.BLS381.PublicKey;
+import org.ethereum.beacon.crypto.BLS381.Signature;
+import org.ethereum.beacon.crypto.BatchVerifier;
+import org.ethereum.beacon.crypto.MessageParameters;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+/**
+ * A spec which collects signatures into a {@link BatchVerifier} instead of verifying them.
+ *
+ * <p>Signature checks return {@code true} if a signature and its public keys could be decoded, the
+ * signature itself is verified later by {@link BatchVerifier#verify()}. Thus, a result of a
+ * function that checks signatures is valid only if the batch passes verification.
+ *
+ * <p>Shares caches with the spec it's created from.
+ */
+public class BatchingBeaconChainSpec extends CachingBeaconChainSpec {
+
+  private final BatchVerifier batch;
+
+  public static BatchingBeaconChainSpec wrap(CachingBeaconChainSpec spec, BatchVerifier batch) {
+    BatchingBeaconChainSpec wrapped = new BatchingBeaconChainSpec(spec, batch);
+
+    // share caches between all instances to avoid cache duplication
+    wrapped.caches = spec.getCaches();
+
+    return wrapped;
+  }
+
+  private BatchingBeaconChainSpec(CachingBeaconChainSpec spec, BatchVerifier batch) {
+    super(
+        spec.getConstants(),
+        spec.getHashFunction(),
+        spec.getObjectHasher(),
+        spec.isBlsVerify(),
+        spec.isBlsVerifyProofOfPossession(),
+        spec.isVerifyDepositProof(),
+        spec.isComputableGenesisTime(),
+        spec.isCacheEnabled(),
+        spec.getEpochProcessingPool(),
+        spec.getVerifierPool());
+    this.batch = batch;
+  }
+
+  public BatchVerifier getBatch() {
+    return batch;
+  }
+
+  @Override
+  public boolean bls_verify(
+      BLSPubkey publicKey, Hash32 message, BLSSignature signature, UInt64 domain) {
+    if (!isBlsVerify()) {
+      return true;
+    }
+
+    try {
+      PublicKey blsPublicKey = PublicKey.create(publicKey);
+      batch.add(
+          MessageParameters.create(message, domain), Signature.create(signature), blsPublicKey);
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean bls_verify(
+      BeaconState state,
+      ValidatorIndex index,
+      Hash32 message,
+      BLSSignature signature,
+      UInt64 domain) {
+    if (!isBlsVerify()) {
+      return true;
+    }
+
+    try {
+      PublicKey blsPublicKey = get_validator_pubkey(state, index);
+      batch.add(
+          MessageParameters.create(message, domain), Signature.create(signature), blsPublicKey);
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean bls_verify_multiple(
+      List<PublicKey> publicKeys, List<Hash32> messages, BLSSignature signature, UInt64 domain) {
+    if (!isBlsVerify()) {
+      return true;
+    }
+
+    List<MessageParameters> messageParameters =
+        messages.stream()
+            .map(hash -> MessageParameters.create(hash, domain))
+            .collect(Collectors.toList());
+    batch.add(messageParameters, Signature.create(signature), publicKeys);
+    return true;
+  }
+}
@@ -3,27 +3,28 @@ package org.ethereum.beacon.consensus.util;
 import org.ethereum.beacon.consensus.BeaconChainSpecImpl;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
 import org.ethereum.beacon.core.BeaconState;
-import org.ethereum.beacon.core.operations.attestation.AttestationData;
 import org.ethereum.beacon.core.spec.SpecConstants;
 import org.ethereum.beacon.core.types.BLSPubkey;
 import org.ethereum.beacon.core.types.EpochNumber;
 import org.ethereum.beacon.core.types.Gwei;
 import org.ethereum.beacon.core.types.ShardNumber;
 import org.ethereum.beacon.core.types.ValidatorIndex;
-import org.ethereum.beacon.crypto.Hashes;
+import org.ethereum.beacon.crypto.BLS381.PublicKey;
 import org.ethereum.beacon.util.cache.Cache;
 import org.ethereum.beacon.util.cache.CacheFactory;
 import org.javatuples.Pair;
+import org.javatuples.Triplet;
 import tech.pegasys.artemis.ethereum.core.Hash32;
 import tech.pegasys.artemis.util.bytes.Bytes32;
 import tech.pegasys.artemis.util.bytes.BytesValue;
-import tech.pegasys.artemis.util.bytes.BytesValues;
-import tech.pegasys.artemis.util.collections.Bitlist;
 import tech.pegasys.artemis.util.uint.UInt64;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 public class CachingBeaconChainSpec extends BeaconChainSpecImpl {
@@ -39,7 +40,32 @@ public class CachingBeaconChainSpec extends BeaconChainSpecImpl {
       boolean blsVerifyProofOfPossession,
       boolean verifyDepositProof,
       boolean computableGenesisTime,
-      boolean cacheEnabled) {
+      boolean cacheEnabled,
+      ForkJoinPool epochProcessingPool) {
+    this(
+        constants,
+        hashFunction,
+        objectHasher,
+        blsVerify,
+        blsVerifyProofOfPossession,
+        verifyDepositProof,
+        computableGenesisTime,
+        cacheEnabled,
+        epochProcessingPool,
+        null);
+  }
+
+  public CachingBeaconChainSpec(
+      SpecConstants constants,
+      Function<BytesValue, Hash32> hashFunction,
+      ObjectHasher<Hash32> objectHasher,
+      boolean blsVerify,
+      boolean blsVerifyProofOfPossession,
+      boolean verifyDepositProof,
+      boolean computableGenesisTime,
+      boolean cacheEnabled,
+      ForkJoinPool epochProcessingPool,
+      ForkJoinPool verifierPool) {
     super(
         constants,
         hashFunction,
@@ -47,13 +73,36 @@ public class CachingBeaconChainSpec extends BeaconChainSpecImpl {
         blsVerify,
         blsVerifyProofOfPossession,
         verifyDepositProof,
-        computableGenesisTime);
+        computableGenesisTime,
+        epochProcessingPool,
+        verifierPool);
     this.cacheEnabled = cacheEnabled;
 
     CacheFactory factory = CacheFactory.create(cacheEnabled);
     this.caches = new Caches(factory);
   }
 
+  public CachingBeaconChainSpec(
+      SpecConstants constants,
+      Function<BytesValue, Hash32> hashFunction,
+      ObjectHasher<Hash32> objectHasher,
+      boolean blsVerify,
+      boolean blsVerifyProofOfPossession,
+      boolean verifyDepositProof,
+      boolean computableGenesisTime,
+      boolean cacheEnabled) {
+    this(
+        constants,
+        hashFunction,
+        objectHasher,
+        blsVerify,
+        blsVerifyProofOfPossession,
+        verifyDepositProof,
+        computableGenesisTime,
+        cacheEnabled,
+        null);
+  }
+
   public CachingBeaconChainSpec(
       SpecConstants constants,
       Function<BytesValue, Hash32> hashFunction,
@@ -100,61 +149,119 @@ public class CachingBeaconChainSpec extends BeaconChainSpecImpl {
     return caches.pubkeyToIndexCache.getOrDefault(pubkey, ValidatorIndex.MAX);
   }
 
+  @Override
+  public PublicKey get_validator_pubkey(BeaconState state, ValidatorIndex index) {
+    if (!cacheEnabled) {
+      return super.get_validator_pubkey(state, index);
+    }
+
+    return caches.validatorPubkeyCache.get(
+        index.getIntValue(),
+        state.getValidators().get(index).getPubKey(),
+        () -> super.get_validator_pubkey(state, index));
+  }
+
+  /**
+   * Committees are sliced out of the shuffling of the epoch, see {@link #get_shuffling(BeaconState,
+   * EpochNumber)}.
+   */
   @Override
   public List<ValidatorIndex> get_crosslink_committee(
       BeaconState state, EpochNumber epoch, ShardNumber shard) {
-    Hash32 digest =
-        getDigest(
-            objectHash(state.getValidators()),
-            get_seed(state, epoch),
-            get_start_shard(state, epoch).toBytes8(),
-            epoch.toBytes8(),
-            shard.toBytes8());
-    return caches.crosslinkCommitteesCache.get(
-        digest, s -> super.get_crosslink_committee(state, epoch, shard));
+    if (!cacheEnabled || !isActiveIndexRootKnown(state, epoch)) {
+      return super.get_crosslink_committee(state, epoch, shard);
+    }
+
+    List<ValidatorIndex> shuffling = get_shuffling(state, epoch);
+    UInt64 index =
+        shard
+            .plus(getConstants().getShardCount())
+            .minus(get_start_shard(state, epoch))
+            .modulo(getConstants().getShardCount());
+    UInt64 count = get_committee_count(state, epoch);
+    int start = index.times(shuffling.size()).dividedBy(count).intValue();
+    int end = index.increment().times(shuffling.size()).dividedBy(count).intValue();
+    return shuffling.subList(start, end);
   }
 
+  /**
+   * Returns active validator indices of the epoch permuted with the epoch seed.
+   *
+   * <p>A shuffling is identified by the epoch, the randao mix and the active index root the seed is
+   * derived from, the root commits to the active validator indices which are shuffled. Thus, the
+   * key is built without hashing the state.
+   */
+  private List<ValidatorIndex> get_shuffling(BeaconState state, EpochNumber epoch) {
+    Hash32 mix =
+        get_randao_mix(
+            state,
+            epoch.plus(
+                getConstants()
+                    .getEpochsPerHistoricalVector()
+                    .minus(getConstants().getMinSeedLookahead())
+                    .decrement()));
+    return caches.shufflingCache.get(
+        Triplet.with(epoch, mix, get_active_index_root(state, epoch)),
+        k -> {
+          List<UInt64> permuted =
+              get_permuted_list(get_active_validator_indices(state, epoch), get_seed(state, epoch));
+          ValidatorIndex[] shuffling = new ValidatorIndex[permuted.size()];
+          for (int i = 0; i < shuffling.length; i++) {
+            UInt64 index = permuted.get(i);
+            shuffling[i] =
+                index instanceof ValidatorIndex ? (ValidatorIndex) index : new ValidatorIndex(index);
+          }
+          return Collections.unmodifiableList(Arrays.asList(shuffling));
+        });
+  }
+
+  /**
+   * Active validators of the epoch are identified by its active index root, no matter which state
+   * the root is taken from.
+   */
   @Override
   public List<ValidatorIndex> get_active_validator_indices(BeaconState state, EpochNumber epoch) {
-    Hash32 digest = getDigest(objectHash(state.getValidators()), epoch.toBytes8());
+    if (!cacheEnabled || !isActiveIndexRootKnown(state, epoch)) {
+      return super.get_active_validator_indices(state, epoch);
+    }
+
     return caches.activeValidatorsCache.get(
-        digest, e -> super.get_active_validator_indices(state, epoch));
+        Pair.with(epoch, get_active_index_root(state, epoch)),
+        k -> super.get_active_validator_indices(state, epoch));
   }
 
+  /**
+   * Effective balances are updated in the end of epoch processing only, after the last call to
+   * this method within the epoch. Compact committees root of the epoch commits to effective
+   * balances of all its active validators, hence, it's used as a part of the key.
+   */
   @Override
   public Gwei get_total_active_balance(BeaconState state) {
-    Hash32 digest =
-        getDigest(objectHash(state.getValidators()), get_current_epoch(state).toBytes8());
-    return caches.totalActiveBalanceCache.get(digest, e -> super.get_total_active_balance(state));
-  }
+    EpochNumber epoch = get_current_epoch(state);
+    if (!cacheEnabled || !isActiveIndexRootKnown(state, epoch)) {
+      return super.get_total_active_balance(state);
+    }
 
-  @Override
-  public List<ValidatorIndex> get_attesting_indices(
-      BeaconState state, AttestationData attestation_data, Bitlist bitlist) {
-    Hash32 digest =
-        getDigest(
-            objectHash(state.getValidators()),
-            objectHash(state.getRandaoMixes()),
-            attestation_data.getTarget().getEpoch().toBytes8(),
-            attestation_data.getCrosslink().getShard().toBytes8(),
-            bitlist);
-    return caches.attestingIndicesCache.get(
-        digest, e -> super.get_attesting_indices(state, attestation_data, bitlist));
+    return caches.totalActiveBalanceCache.get(
+        Triplet.with(
+            epoch,
+            get_active_index_root(state, epoch),
+            state
+                .getCompactCommitteesRoots()
+                .get(epoch.modulo(getConstants().getEpochsPerHistoricalVector()))),
+        k -> super.get_total_active_balance(state));
   }
 
   /**
-   * This function introduced in order to avoid {@link #hash_tree_root(Object)} calls not related to
-   * state processing to keep benchmarks counting clean.
-   *
-   * @param object an object.
-   * @return calculated hash.
+   * Active index root is set {@code ACTIVATION_EXIT_DELAY} epochs in advance and is overwritten
+   * {@code EPOCHS_PER_HISTORICAL_VECTOR} epochs later.
    */
-  private Hash32 objectHash(Object object) {
-    return getObjectHasher().getHash(object);
-  }
-
-  private Hash32 getDigest(BytesValue... identity) {
-    return Hashes.sha256(BytesValues.concatenate(identity));
+  private boolean isActiveIndexRootKnown(BeaconState state, EpochNumber epoch) {
+    EpochNumber currentEpoch = get_current_epoch(state);
+    return epoch.lessEqual(currentEpoch.plus(getConstants().getActivationExitDelay()))
+        && epoch
+            .plus(getConstants().getEpochsPerHistoricalVector())
+            .greater(currentEpoch.plus(getConstants().getActivationExitDelay()));
   }
 
   public boolean isCacheEnabled() {
@@ -167,21 +274,20 @@ public class CachingBeaconChainSpec extends BeaconChainSpecImpl {
 
   private static class Caches {
     private final Map<BLSPubkey, ValidatorIndex> pubkeyToIndexCache = new ConcurrentHashMap<>();
+    private final ValidatorPubkeyCache validatorPubkeyCache = new ValidatorPubkeyCache();
     private Cache<Pair<List<? extends UInt64>, Bytes32>, List<UInt64>> shufflerCache;
     private Cache<Object, Hash32> hashTreeRootCache;
-    private Cache<Hash32, List<ValidatorIndex>> activeValidatorsCache;
-    private Cache<Hash32, List<ValidatorIndex>> crosslinkCommitteesCache;
-    private Cache<Hash32, Gwei> totalActiveBalanceCache;
-    private Cache<Hash32, List<ValidatorIndex>> attestingIndicesCache;
+    private Cache<Pair<EpochNumber, Hash32>, List<ValidatorIndex>> activeValidatorsCache;
+    private Cache<Triplet<EpochNumber, Hash32, Hash32>, List<ValidatorIndex>> shufflingCache;
+    private Cache<Triplet<EpochNumber, Hash32, Hash32>, Gwei> totalActiveBalanceCache;
     private ValidatorIndex maxCachedIndex = ValidatorIndex.ZERO;
 
     private Caches(CacheFactory factory) {
       this.shufflerCache = factory.createLRUCache(128);
       this.hashTreeRootCache = factory.createLRUCache(32);
-      this.crosslinkCommitteesCache = factory.createLRUCache(128);
+      this.shufflingCache = factory.createLRUCache(32);
       this.activeValidatorsCache = factory.createLRUCache(32);
       this.totalActiveBalanceCache = factory.createLRUCache(32);
-      this.attestingIndicesCache = factory.createLRUCache(1024);
     }
   }
 }
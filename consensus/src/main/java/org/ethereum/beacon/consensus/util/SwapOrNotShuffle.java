@@ -0,0 +1,257 @@
+package org.ethereum.beacon.consensus.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+/**
+ * Swap-or-not shuffle working on primitive arrays.
+ *
+ * <p>Produces the same permutation as the spec's {@code compute_shuffled_index} applied to each
+ * index, but shuffles the whole list round by round, see {@link
+ * org.ethereum.beacon.consensus.spec.HelperFunction#get_permuted_list(java.util.List,
+ * tech.pegasys.artemis.util.bytes.Bytes32)}.
+ *
+ * <p>A round consists of two parts: hashing, which yields the pivot and the source bits, and
+ * swapping, which permutes the list. Hashing of a round doesn't depend on the list, thus, with an
+ * executor, hashes of upcoming rounds are computed on other threads while the caller thread is
+ * swapping elements of the current round. Each round works with its own digest and buffers which
+ * are reused once the round is done, no objects are allocated per element.
+ */
+public class SwapOrNotShuffle {
+
+  /** Lists shorter than this are shuffled on the caller thread. */
+  private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+  /** A number of rounds hashed ahead of the round that is being applied. */
+  private static final int DEFAULT_LOOKAHEAD = 8;
+
+  private static final int HASH_SIZE = 32;
+  private static final int SEED_SIZE = 32;
+
+  private final int roundCount;
+  private final Executor executor;
+  private final int lookahead;
+
+  /**
+   * Creates a shuffle that hashes upcoming rounds in parallel.
+   *
+   * @param roundCount a number of rounds, {@code SHUFFLE_ROUND_COUNT}.
+   * @param executor an executor rounds are hashed on, {@code null} to run everything on the caller
+   *     thread.
+   * @param lookahead a number of rounds hashed ahead of the current one.
+   */
+  public SwapOrNotShuffle(int roundCount, Executor executor, int lookahead) {
+    assert roundCount > 0 && roundCount <= 256;
+    assert lookahead > 0;
+    this.roundCount = roundCount;
+    this.executor = executor;
+    this.lookahead = lookahead;
+  }
+
+  /** Creates a shuffle that runs on the caller thread. */
+  public static SwapOrNotShuffle sequential(int roundCount) {
+    return new SwapOrNotShuffle(roundCount, null, 1);
+  }
+
+  /** Creates a shuffle that hashes upcoming rounds in the common fork join pool. */
+  public static SwapOrNotShuffle parallel(int roundCount) {
+    return parallel(roundCount, ForkJoinPool.commonPool());
+  }
+
+  /** Creates a shuffle that hashes upcoming rounds in given executor. */
+  public static SwapOrNotShuffle parallel(int roundCount, Executor executor) {
+    return new SwapOrNotShuffle(roundCount, executor, DEFAULT_LOOKAHEAD);
+  }
+
+  /**
+   * Shuffles a list in place.
+   *
+   * @param list a list.
+   * @param seed a 32 bytes seed.
+   */
+  public void shuffle(int[] list, byte[] seed) {
+    assert seed.length == SEED_SIZE;
+    if (list.length < 2) {
+      return;
+    }
+
+    // the spec uses inverse direction of index mutations, hence, round order is inverse
+    if (executor == null || list.length < PARALLEL_THRESHOLD) {
+      Round round = new Round(seed, list.length);
+      for (int r = roundCount - 1; r >= 0; r--) {
+        round.hash(r);
+        round.apply(list);
+      }
+      return;
+    }
+
+    int window = Math.min(lookahead, roundCount);
+    Round[] rounds = new Round[window];
+    CompletableFuture<?>[] hashed = new CompletableFuture[window];
+    for (int i = 0; i < window; i++) {
+      rounds[i] = new Round(seed, list.length);
+      hashed[i] = hashAsync(rounds[i], roundCount - 1 - i);
+    }
+    for (int i = 0; i < roundCount; i++) {
+      int slot = i % window;
+      hashed[slot].join();
+      rounds[slot].apply(list);
+      if (i + window < roundCount) {
+        hashed[slot] = hashAsync(rounds[slot], roundCount - 1 - i - window);
+      }
+    }
+  }
+
+  /**
+   * Returns a permutation of {@code [0, count)} as {@link #shuffle(int[], byte[])} does.
+   *
+   * @param count a number of elements.
+   * @param seed a 32 bytes seed.
+   * @return shuffled indices.
+   */
+  public int[] permutation(int count, byte[] seed) {
+    int[] indices = new int[count];
+    for (int i = 0; i < count; i++) {
+      indices[i] = i;
+    }
+    shuffle(indices, seed);
+    return indices;
+  }
+
+  /**
+   * Computes shuffled positions of indices from {@code [start, end)} one by one like the spec's
+   * {@code compute_shuffled_index} does. Pivots are computed once for all the indices.
+   *
+   * @param start the first index, inclusive.
+   * @param end the last index, exclusive.
+   * @param count a number of elements in the list.
+   * @param seed a 32 bytes seed.
+   * @return shuffled positions.
+   */
+  public int[] shuffledIndices(int start, int end, int count, byte[] seed) {
+    assert 0 <= start && start <= end && end <= count;
+    assert seed.length == SEED_SIZE;
+    if (start == end) {
+      return new int[0];
+    }
+
+    SHA256Digest digest = new SHA256Digest();
+    byte[] input = new byte[SEED_SIZE + 1 + 4];
+    byte[] output = new byte[HASH_SIZE];
+    System.arraycopy(seed, 0, input, 0, SEED_SIZE);
+
+    int[] pivots = new int[roundCount];
+    for (int r = 0; r < roundCount; r++) {
+      pivots[r] = pivot(digest, input, r, output, count);
+    }
+
+    int[] positions = new int[end - start];
+    for (int i = start; i < end; i++) {
+      int index = i;
+      for (int r = 0; r < roundCount; r++) {
+        int flip = (int) (((long) pivots[r] + count - index) % count);
+        int position = Math.max(index, flip);
+        input[SEED_SIZE] = (byte) r;
+        source(digest, input, position >>> 8, output, 0);
+        if (((output[(position & 0xff) >>> 3] >>> (position & 0x7)) & 1) != 0) {
+          index = flip;
+        }
+      }
+      positions[i - start] = index;
+    }
+    return positions;
+  }
+
+  private CompletableFuture<Void> hashAsync(Round round, int r) {
+    return CompletableFuture.runAsync(() -> round.hash(r), executor);
+  }
+
+  /** {@code bytes_to_int(hash(seed + int_to_bytes1(round))[0:8]) % count} */
+  private static int pivot(SHA256Digest digest, byte[] input, int round, byte[] output, int count) {
+    input[SEED_SIZE] = (byte) round;
+    digest.update(input, 0, SEED_SIZE + 1);
+    digest.doFinal(output, 0);
+    long value = 0;
+    for (int i = 7; i >= 0; i--) {
+      value = (value << 8) | (output[i] & 0xff);
+    }
+    return (int) Long.remainderUnsigned(value, count);
+  }
+
+  /**
+   * {@code hash(seed + int_to_bytes1(round) + int_to_bytes4(chunk))}, round is expected to be set
+   * in the input already.
+   */
+  private static void source(
+      SHA256Digest digest, byte[] input, int chunk, byte[] output, int outputOffset) {
+    input[SEED_SIZE + 1] = (byte) chunk;
+    input[SEED_SIZE + 2] = (byte) (chunk >>> 8);
+    input[SEED_SIZE + 3] = (byte) (chunk >>> 16);
+    input[SEED_SIZE + 4] = 0;
+    digest.update(input, 0, input.length);
+    digest.doFinal(output, outputOffset);
+  }
+
+  /** Hashes of a single round. */
+  private static class Round {
+    private final int count;
+    private final SHA256Digest digest = new SHA256Digest();
+    private final byte[] input = new byte[SEED_SIZE + 1 + 4];
+    private final byte[] pivotHash = new byte[HASH_SIZE];
+    /**
+     * Source hashes laid out one after another, a bit for position {@code j} is the bit {@code j %
+     * 8} of the byte {@code j / 8}.
+     */
+    private final byte[] sources;
+
+    private int pivot;
+
+    Round(byte[] seed, int count) {
+      this.count = count;
+      this.sources = new byte[((count + 255) >>> 8) * HASH_SIZE];
+      System.arraycopy(seed, 0, input, 0, SEED_SIZE);
+    }
+
+    /** Computes the pivot and source hashes covering positions which are touched by swaps. */
+    void hash(int round) {
+      pivot = pivot(digest, input, round, pivotHash, count);
+
+      int mirror = (pivot + 1) >>> 1;
+      if (mirror > 0) {
+        hashSources(pivot - mirror + 1, pivot);
+      }
+      int swaps = (int) (((long) pivot + count + 1) >>> 1) - pivot - 1;
+      if (swaps > 0) {
+        hashSources(count - swaps, count - 1);
+      }
+    }
+
+    private void hashSources(int from, int to) {
+      for (int chunk = from >>> 8; chunk <= to >>> 8; chunk++) {
+        source(digest, input, chunk, sources, chunk * HASH_SIZE);
+      }
+    }
+
+    void apply(int[] list) {
+      int mirror = (pivot + 1) >>> 1;
+      for (int i = 0, j = pivot; i < mirror; i++, j--) {
+        swapIfSet(list, i, j);
+      }
+
+      mirror = (int) (((long) pivot + count + 1) >>> 1);
+      for (int i = pivot + 1, j = count - 1; i < mirror; i++, j--) {
+        swapIfSet(list, i, j);
+      }
+    }
+
+    private void swapIfSet(int[] list, int i, int j) {
+      if (((sources[j >>> 3] >>> (j & 0x7)) & 1) != 0) {
+        int tmp = list[i];
+        list[i] = list[j];
+        list[j] = tmp;
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.ethereum.beacon.consensus.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import org.ethereum.beacon.crypto.BLS381.PublicKey;
+import tech.pegasys.artemis.util.bytes.Bytes48;
+
+/**
+ * Decompressed public keys of validators held in an array indexed by validator index.
+ *
+ * <p>Validators are never removed from the registry and a public key of a validator never changes,
+ * hence, a key at an index is the same for all the states of a chain. The array grows along with
+ * the registry, a key is decompressed and validated on first access. Keys that fail validation are
+ * not cached.
+ *
+ * <p>A cached key is returned only if its encoding matches the one from the registry, thus, the
+ * cache stays correct when states of different chains are processed with the same spec.
+ *
+ * <p>Safe for concurrent use, readers don't lock.
+ */
+public class ValidatorPubkeyCache {
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  private volatile PublicKey[] keys = new PublicKey[INITIAL_CAPACITY];
+
+  /**
+   * Returns a public key of a validator.
+   *
+   * @param index validator index.
+   * @param encoded public key of the validator from the registry.
+   * @param loader decompresses the key if it's not cached yet.
+   * @return decompressed public key.
+   */
+  public PublicKey get(int index, Bytes48 encoded, Supplier<PublicKey> loader) {
+    PublicKey[] current = keys;
+    if (index < current.length) {
+      PublicKey key = current[index];
+      if (key != null && key.getEncodedBytes().equals(encoded)) {
+        return key;
+      }
+    }
+
+    PublicKey key = loader.get();
+    put(index, key);
+    return key;
+  }
+
+  private synchronized void put(int index, PublicKey key) {
+    if (index >= keys.length) {
+      keys = Arrays.copyOf(keys, Math.max(index + 1, keys.length * 2));
+    }
+    keys[index] = key;
+  }
+}
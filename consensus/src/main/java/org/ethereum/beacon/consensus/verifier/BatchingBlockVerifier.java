@@ -0,0 +1,67 @@
+package org.ethereum.beacon.consensus.verifier;
+
+import static org.ethereum.beacon.consensus.verifier.VerificationResult.PASSED;
+import static org.ethereum.beacon.consensus.verifier.VerificationResult.failedResult;
+
+import org.ethereum.beacon.consensus.util.BatchingBeaconChainSpec;
+import org.ethereum.beacon.consensus.util.CachingBeaconChainSpec;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.crypto.BatchVerifier;
+
+/**
+ * Verifies all the signatures of a block at once.
+ *
+ * <p>Runs the same verifications as {@link BeaconBlockVerifier#createEager(
+ * org.ethereum.beacon.consensus.BeaconChainSpec)} does but with a {@link BatchingBeaconChainSpec},
+ * signatures are collected while block is verified and checked in one batch afterwards.
+ *
+ * <p>If the batch fails, the block is verified once again by eager verifier to find out which
+ * signature is invalid.
+ *
+ * @see BatchVerifier
+ */
+public class BatchingBlockVerifier implements BeaconBlockVerifier {
+
+  private final CachingBeaconChainSpec spec;
+  private final BeaconBlockVerifier eagerVerifier;
+
+  public BatchingBlockVerifier(CachingBeaconChainSpec spec) {
+    this.spec = spec;
+    this.eagerVerifier = BeaconBlockVerifier.createEager(spec);
+  }
+
+  /**
+   * Creates a verifier which runs the same verifications as eager one does, but signatures are
+   * collected into the batch instead of being checked. Thus, a passed result is valid only if the
+   * batch passes verification too. A single batch can be shared by several blocks.
+   *
+   * @param batch a batch signatures are added to.
+   * @return a verifier.
+   */
+  public BeaconBlockVerifier createCollector(BatchVerifier batch) {
+    return BeaconBlockVerifier.createEager(BatchingBeaconChainSpec.wrap(spec, batch));
+  }
+
+  /** Returns a verifier which checks each signature as soon as it's met. */
+  public BeaconBlockVerifier getEagerVerifier() {
+    return eagerVerifier;
+  }
+
+  @Override
+  public VerificationResult verify(BeaconBlock block, BeaconState state) {
+    BatchVerifier batch = new BatchVerifier();
+    BeaconBlockVerifier collector = createCollector(batch);
+
+    VerificationResult result = collector.verify(block, state);
+    if (result != PASSED || batch.verify()) {
+      return result;
+    }
+
+    result = eagerVerifier.verify(block, state);
+    if (result != PASSED) {
+      return result;
+    }
+    return failedResult("batch of %d block signatures failed verification", batch.size());
+  }
+}
@@ -1,6 +1,7 @@
 package org.ethereum.beacon.consensus.verifier;
 
 import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.util.CachingBeaconChainSpec;
 import org.ethereum.beacon.consensus.verifier.block.AttestationListVerifier;
 import org.ethereum.beacon.consensus.verifier.block.AttesterSlashingListVerifier;
 import org.ethereum.beacon.consensus.verifier.block.DepositListVerifier;
@@ -21,13 +22,31 @@ import org.ethereum.beacon.core.BeaconState;
 /** A common interface for various {@link BeaconBlock} verifications defined by the spec. */
 public interface BeaconBlockVerifier {
 
+  /**
+   * Creates a verifier which checks block signatures in a single batch, see {@link
+   * BatchingBlockVerifier}. Falls back to {@link #createEager(BeaconChainSpec)} if signature
+   * verification is disabled or if the spec can't share its caches.
+   */
   static BeaconBlockVerifier createDefault(BeaconChainSpec spec) {
+    if (spec.isBlsVerify() && spec instanceof CachingBeaconChainSpec) {
+      return new BatchingBlockVerifier((CachingBeaconChainSpec) spec);
+    } else {
+      return createEager(spec);
+    }
+  }
+
+  /**
+   * Creates a verifier which checks each signature as soon as it's met. Attestations are verified
+   * in parallel if the spec has a {@link BeaconChainSpec#getVerifierPool()}.
+   */
+  static BeaconBlockVerifier createEager(BeaconChainSpec spec) {
     return CompositeBlockVerifier.Builder.createNew()
         .with(new RandaoVerifier(spec))
         .with(new BlockHeaderVerifier(spec))
         .with(new ProposerSlashingListVerifier(new ProposerSlashingVerifier(spec), spec.getConstants()))
         .with(new AttesterSlashingListVerifier(new AttesterSlashingVerifier(spec), spec.getConstants()))
-        .with(new AttestationListVerifier(new AttestationVerifier(spec), spec.getConstants()))
+        .with(new AttestationListVerifier(
+            new AttestationVerifier(spec), spec.getConstants(), spec.getVerifierPool()))
         .with(new DepositListVerifier(new DepositVerifier(spec), spec.getConstants()))
         .with(new VoluntaryExitListVerifier(new VoluntaryExitVerifier(spec), spec.getConstants()))
         .with(new TransferListVerifier(new TransferVerifier(spec), spec))
@@ -1,5 +1,6 @@
 package org.ethereum.beacon.consensus.verifier.block;
 
+import java.util.concurrent.ForkJoinPool;
 import org.ethereum.beacon.consensus.verifier.OperationVerifier;
 import org.ethereum.beacon.core.operations.Attestation;
 import org.ethereum.beacon.core.spec.SpecConstants;
@@ -13,10 +14,22 @@ public class AttestationListVerifier extends OperationListVerifier<Attestation>
 
   public AttestationListVerifier(
       OperationVerifier<Attestation> operationVerifier, SpecConstants specConstants) {
+    this(operationVerifier, specConstants, null);
+  }
+
+  /**
+   * @param pool a pool to verify attestations in parallel, {@code null} to verify them one by one
+   *     on the caller thread.
+   */
+  public AttestationListVerifier(
+      OperationVerifier<Attestation> operationVerifier,
+      SpecConstants specConstants,
+      ForkJoinPool pool) {
     super(
         operationVerifier,
         block -> block.getBody().getAttestations(),
-        specConstants.getMaxAttestations());
+        specConstants.getMaxAttestations(),
+        pool);
   }
 
   @Override
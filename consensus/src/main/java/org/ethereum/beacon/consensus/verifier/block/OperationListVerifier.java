@@ -5,6 +5,9 @@ import static org.ethereum.beacon.consensus.verifier.VerificationResult.failedRe
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.ethereum.beacon.consensus.verifier.BeaconBlockVerifier;
@@ -28,6 +31,10 @@ import tech.pegasys.artemis.util.collections.ReadList;
  *   <li>Verifies each operation in the list by applying {@link #operationVerifier} to it.
  * </ul>
  *
+ * <p>If a {@link #pool} is given, operations are verified in parallel. The result is the same as
+ * the one of sequential verification: it's reported for the first operation in the list that
+ * failed, operations following an already failed one are skipped.
+ *
  * @param <T> beacon chain operation type.
  * @see OperationVerifier
  * @see <a
@@ -40,15 +47,25 @@ public abstract class OperationListVerifier<T> implements BeaconBlockVerifier {
   private Function<BeaconBlock, Iterable<T>> operationListExtractor;
   private int maxOperationsInList;
   private List<BiFunction<Iterable<T>, BeaconState, VerificationResult>> customVerifiers;
+  private ForkJoinPool pool;
 
   protected OperationListVerifier(
       OperationVerifier<T> operationVerifier,
       Function<BeaconBlock, Iterable<T>> operationListExtractor,
       int maxOperationsInList) {
+    this(operationVerifier, operationListExtractor, maxOperationsInList, null);
+  }
+
+  protected OperationListVerifier(
+      OperationVerifier<T> operationVerifier,
+      Function<BeaconBlock, Iterable<T>> operationListExtractor,
+      int maxOperationsInList,
+      ForkJoinPool pool) {
     this.operationVerifier = operationVerifier;
     this.operationListExtractor = operationListExtractor;
     this.maxOperationsInList = maxOperationsInList;
     this.customVerifiers = new ArrayList<>();
+    this.pool = pool;
   }
 
   @Override
@@ -69,6 +86,10 @@ public abstract class OperationListVerifier<T> implements BeaconBlockVerifier {
       }
     }
 
+    if (pool != null && ReadList.sizeOf(operations) > 1) {
+      return verifyInParallel(operations, state);
+    }
+
     int i = 0;
     for (T operation : operations) {
       VerificationResult result = operationVerifier.verify(operation, state);
@@ -82,6 +103,24 @@ public abstract class OperationListVerifier<T> implements BeaconBlockVerifier {
     return PASSED;
   }
 
+  private VerificationResult verifyInParallel(Iterable<T> operations, BeaconState state) {
+    List<T> list = new ArrayList<>();
+    operations.forEach(list::add);
+
+    ParallelVerification verification = new ParallelVerification(list, state);
+    pool.invoke(verification.new VerifyAction(0, list.size()));
+
+    int i = verification.firstFailed.get();
+    if (i == Integer.MAX_VALUE) {
+      return PASSED;
+    }
+    if (verification.errors[i] != null) {
+      throw verification.errors[i];
+    }
+    return failedResult(
+        "%s #%d: %s", getType().getSimpleName(), i, verification.results[i].getMessage());
+  }
+
   protected OperationListVerifier<T> addCustomVerifier(
       BiFunction<Iterable<T>, BeaconState, VerificationResult> verifier) {
     this.customVerifiers.add(verifier);
@@ -89,4 +128,61 @@ public abstract class OperationListVerifier<T> implements BeaconBlockVerifier {
   }
 
   protected abstract Class<T> getType();
+
+  /**
+   * Holds results of parallel verification. An error thrown by operation verifier is treated as a
+   * failure and is rethrown if it's the first failure in the list.
+   */
+  private class ParallelVerification {
+    private final List<T> operations;
+    private final BeaconState state;
+    private final VerificationResult[] results;
+    private final RuntimeException[] errors;
+    private final AtomicInteger firstFailed = new AtomicInteger(Integer.MAX_VALUE);
+
+    ParallelVerification(List<T> operations, BeaconState state) {
+      this.operations = operations;
+      this.state = state;
+      this.results = new VerificationResult[operations.size()];
+      this.errors = new RuntimeException[operations.size()];
+    }
+
+    private void verify(int i) {
+      // an earlier operation has already failed, result of this one doesn't matter
+      if (i > firstFailed.get()) {
+        return;
+      }
+
+      try {
+        results[i] = operationVerifier.verify(operations.get(i), state);
+        if (results[i] == PASSED) {
+          return;
+        }
+      } catch (RuntimeException e) {
+        errors[i] = e;
+      }
+      firstFailed.accumulateAndGet(i, Math::min);
+    }
+
+    /** Halves a range of operations until a single operation is left. */
+    private class VerifyAction extends RecursiveAction {
+      private final int from;
+      private final int to;
+
+      VerifyAction(int from, int to) {
+        this.from = from;
+        this.to = to;
+      }
+
+      @Override
+      protected void compute() {
+        if (to - from == 1) {
+          verify(from);
+        } else {
+          int middle = (from + to) >>> 1;
+          invokeAll(new VerifyAction(from, middle), new VerifyAction(middle, to));
+        }
+      }
+    }
+  }
 }
@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -38,6 +39,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import tech.pegasys.artemis.ethereum.core.Hash32;
 import tech.pegasys.artemis.util.bytes.Bytes3;
+import tech.pegasys.artemis.util.bytes.Bytes32;
 import tech.pegasys.artemis.util.bytes.Bytes48;
 import tech.pegasys.artemis.util.bytes.Bytes96;
 import tech.pegasys.artemis.util.bytes.BytesValue;
@@ -102,6 +104,36 @@ public class BeaconChainSpecTest {
     System.out.println(map);
   }
 
+  @Test
+  public void permutedListDoesNotDependOnPool() {
+    SpecConstants constants = BeaconChainSpec.DEFAULT_CONSTANTS;
+    BeaconChainSpec sequential =
+        new BeaconChainSpec.Builder()
+            .withConstants(constants)
+            .withDefaultHasher(constants)
+            .withDefaultHashFunction()
+            .build();
+    ForkJoinPool pool = new ForkJoinPool(2);
+    BeaconChainSpec parallel =
+        new BeaconChainSpec.Builder()
+            .withConstants(constants)
+            .withDefaultHasher(constants)
+            .withDefaultHashFunction()
+            .withEpochProcessingPool(pool)
+            .build();
+
+    // long enough to hash rounds in the pool
+    List<UInt64> indices =
+        IntStream.range(0, 5000).mapToObj(UInt64::valueOf).collect(Collectors.toList());
+    Bytes32 seed = Hashes.sha256(BytesValue.fromHexString("aa"));
+    try {
+      assertEquals(
+          sequential.get_permuted_list(indices, seed), parallel.get_permuted_list(indices, seed));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   private DepositData createDepositData() {
     return new DepositData(
         BLSPubkey.wrap(Bytes48.TRUE),
@@ -246,6 +278,65 @@ public class BeaconChainSpecTest {
     assertEquals(validatorIndices, actualIndices);
   }
 
+  @Test
+  public void cachedCommitteesMatchUncachedOnes() {
+    Random rnd = new Random(1);
+    SpecConstants specConstants =
+        new SpecConstants() {
+          @Override
+          public SlotNumber.EpochLength getSlotsPerEpoch() {
+            return new SlotNumber.EpochLength(UInt64.valueOf(4));
+          }
+
+          @Override
+          public ShardNumber getShardCount() {
+            return ShardNumber.of(16);
+          }
+        };
+    BeaconChainSpec cachingSpec =
+        new CachingBeaconChainSpec(
+            specConstants,
+            Hashes::sha256,
+            ObjectHasher.createSSZOverSHA256(specConstants),
+            false,
+            false,
+            false,
+            true,
+            true);
+    BeaconChainSpec spec =
+        new CachingBeaconChainSpec(
+            specConstants,
+            Hashes::sha256,
+            ObjectHasher.createSSZOverSHA256(specConstants),
+            false,
+            false,
+            false,
+            true,
+            false);
+
+    List<Deposit> deposits = TestUtils.generateRandomDepositsWithoutSig(rnd, spec, 64);
+    Eth1Data eth1Data =
+        new Eth1Data(Hash32.random(rnd), UInt64.valueOf(deposits.size()), Hash32.random(rnd));
+    BeaconState state =
+        new InitialStateTransition(
+                new ChainStart(Time.of(10 * 60), eth1Data, deposits), spec)
+            .apply(spec.get_empty_block());
+
+    EpochNumber currentEpoch = spec.get_current_epoch(state);
+    for (EpochNumber epoch : currentEpoch.iterateTo(currentEpoch.plus(2))) {
+      for (ShardNumber shard : ShardNumber.ZERO.iterateTo(specConstants.getShardCount())) {
+        assertEquals(
+            spec.get_crosslink_committee(state, epoch, shard),
+            cachingSpec.get_crosslink_committee(state, epoch, shard));
+      }
+      assertEquals(
+          spec.get_active_validator_indices(state, epoch),
+          cachingSpec.get_active_validator_indices(state, epoch));
+    }
+    assertEquals(
+        spec.get_total_active_balance(state), cachingSpec.get_total_active_balance(state));
+  }
+
   @Test
   public void edgeCaseWithGetSeed() {
     BeaconChainSpec spec =
@@ -0,0 +1,41 @@
+package org.ethereum.beacon.consensus.spec;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class ValidatorChunksTest {
+
+  @Test
+  public void eachValidatorIsProcessedOnce() {
+    int chunk = ValidatorChunks.CHUNK_SIZE;
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int count : new int[] {0, 1, chunk - 1, chunk, chunk + 1, 10 * chunk + 7}) {
+        int[] expected = new int[count];
+        for (int i = 0; i < count; i++) {
+          expected[i] = i + 1;
+        }
+
+        int[] sequential = new int[count];
+        ValidatorChunks.forEach(count, (from, to) -> {
+          for (int i = from; i < to; i++) {
+            sequential[i] += i + 1;
+          }
+        });
+        assertArrayEquals(expected, sequential);
+
+        int[] parallel = new int[count];
+        ValidatorChunks.forEach(pool, count, (from, to) -> {
+          for (int i = from; i < to; i++) {
+            parallel[i] += i + 1;
+          }
+        });
+        assertArrayEquals(expected, parallel);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
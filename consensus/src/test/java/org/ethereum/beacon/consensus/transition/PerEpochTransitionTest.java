@@ -1,22 +1,41 @@
 package org.ethereum.beacon.consensus.transition;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.BeaconStateEx;
 import org.ethereum.beacon.consensus.ChainStart;
 import org.ethereum.beacon.consensus.TestUtils;
+import org.ethereum.beacon.consensus.spec.EpochParticipation;
+import org.ethereum.beacon.consensus.spec.ValidatorChunks;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.MutableBeaconState;
+import org.ethereum.beacon.core.operations.attestation.AttestationData;
+import org.ethereum.beacon.core.operations.attestation.Crosslink;
 import org.ethereum.beacon.core.operations.Deposit;
 import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Checkpoint;
 import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.state.PendingAttestation;
+import org.ethereum.beacon.core.state.ValidatorRecord;
+import org.ethereum.beacon.core.types.BLSPubkey;
+import org.ethereum.beacon.core.types.EpochNumber;
 import org.ethereum.beacon.core.types.Gwei;
+import org.ethereum.beacon.core.types.ShardNumber;
 import org.ethereum.beacon.core.types.SlotNumber;
 import org.ethereum.beacon.core.types.Time;
 import org.ethereum.beacon.core.types.ValidatorIndex;
 import org.junit.Assert;
 import org.junit.Test;
 import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes48;
+import tech.pegasys.artemis.util.collections.Bitlist;
 import tech.pegasys.artemis.util.uint.UInt64;
+import tech.pegasys.artemis.util.uint.UInt64s;
 
 public class PerEpochTransitionTest {
 
@@ -55,4 +74,197 @@ public class PerEpochTransitionTest {
       Assert.assertTrue(balanceAfter.less(balanceBefore));
     }
   }
+
+  @Test
+  public void epochProcessingOverParticipationMatchesSpec() {
+    Random rnd = new Random(1);
+    SpecConstants specConstants =
+        new SpecConstants() {
+          @Override
+          public SlotNumber.EpochLength getSlotsPerEpoch() {
+            return new SlotNumber.EpochLength(UInt64.valueOf(8));
+          }
+        };
+    BeaconChainSpec spec = BeaconChainSpec.createWithoutDepositVerification(specConstants);
+
+    List<Deposit> deposits = TestUtils.getAnyDeposits(rnd, spec, 64).getValue0();
+    Eth1Data eth1Data =
+        new Eth1Data(Hash32.random(rnd), UInt64.valueOf(deposits.size()), Hash32.random(rnd));
+    BeaconStateEx state =
+        new InitialStateTransition(new ChainStart(Time.of(0), eth1Data, deposits), spec)
+            .apply(spec.get_empty_block());
+    ExtendedSlotTransition extendedSlotTransition = ExtendedSlotTransition.create(spec);
+    while (spec.get_current_epoch(state).less(EpochNumber.of(3))
+        || !state.getSlot().increment().modulo(specConstants.getSlotsPerEpoch())
+            .equals(SlotNumber.ZERO)) {
+      state = extendedSlotTransition.apply(state);
+    }
+
+    MutableBeaconState preState = state.createMutableCopy();
+    preState.getPreviousEpochAttestations().replaceAll(
+        randomAttestations(rnd, spec, preState, spec.get_previous_epoch(preState)));
+    preState.getCurrentEpochAttestations().replaceAll(
+        randomAttestations(rnd, spec, preState, spec.get_current_epoch(preState)));
+    for (int i = 0; i < 4; i++) {
+      ValidatorIndex index = ValidatorIndex.of(rnd.nextInt(deposits.size()));
+      preState.getValidators().update(index, v -> ValidatorRecord.Builder.fromRecord(v)
+          .withSlashed(true)
+          .withWithdrawableEpoch(spec.get_current_epoch(preState).plus(4))
+          .build());
+    }
+
+    EpochParticipation participation = spec.get_epoch_participation(preState);
+    assertDeltasEqual(
+        spec.get_attestation_deltas(preState),
+        spec.get_attestation_deltas(preState, participation));
+    assertDeltasEqual(
+        spec.get_crosslink_deltas(preState),
+        spec.get_crosslink_deltas(preState, participation));
+
+    MutableBeaconState expected = preState.createImmutable().createMutableCopy();
+    spec.process_justification_and_finalization(expected);
+    spec.process_crosslinks(expected);
+    spec.process_rewards_and_penalties(expected);
+    spec.process_registry_updates(expected);
+    spec.process_slashings(expected);
+    spec.process_final_updates(expected);
+
+    MutableBeaconState actual = preState.createImmutable().createMutableCopy();
+    spec.process_epoch(actual);
+
+    Assert.assertEquals(
+        spec.hash_tree_root(expected.createImmutable()),
+        spec.hash_tree_root(actual.createImmutable()));
+  }
+
+  @Test
+  public void parallelEpochProcessingMatchesSequential() {
+    Random rnd = new Random(1);
+    SpecConstants specConstants =
+        new SpecConstants() {
+          @Override
+          public SlotNumber.EpochLength getSlotsPerEpoch() {
+            return new SlotNumber.EpochLength(UInt64.valueOf(8));
+          }
+        };
+    BeaconChainSpec sequential = BeaconChainSpec.createWithoutDepositVerification(specConstants);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    BeaconChainSpec parallel =
+        new BeaconChainSpec.Builder()
+            .withConstants(specConstants)
+            .withDefaultHashFunction()
+            .withDefaultHasher(specConstants)
+            .withVerifyDepositProof(false)
+            .withEpochProcessingPool(pool)
+            .build();
+
+    // the last slot of epoch 3, validators span three chunks, the last one is incomplete
+    MutableBeaconState preState = BeaconStateEx.getEmpty(specConstants).createMutableCopy();
+    preState.setSlot(SlotNumber.of(4 * 8 - 1));
+    int chunk = ValidatorChunks.CHUNK_SIZE;
+    for (int i = 0; i < 2 * chunk + 7; i++) {
+      // inactive validators get no deltas, the ones at chunk edges make write back trimmed
+      boolean inactive = i % 5 == 0 || i % chunk < 3 || i % chunk >= chunk - 3;
+      EpochNumber activation = inactive ? specConstants.getFarFutureEpoch() : EpochNumber.ZERO;
+      boolean slashed = !inactive && rnd.nextInt(50) == 0;
+      // effective balances of a half of validators fall behind their balances
+      Gwei balance = Gwei.ofEthers(16 + rnd.nextInt(18));
+      Gwei effectiveBalance = rnd.nextBoolean() ? Gwei.ofEthers(24) : balance;
+      preState.getValidators().add(
+          ValidatorRecord.Builder.createEmpty()
+              .withPubKey(BLSPubkey.wrap(Bytes48.random(rnd)))
+              .withWithdrawalCredentials(Hash32.random(rnd))
+              .withActivationEligibilityEpoch(activation)
+              .withActivationEpoch(activation)
+              .withExitEpoch(specConstants.getFarFutureEpoch())
+              .withWithdrawableEpoch(
+                  slashed ? EpochNumber.of(3 + 4) : specConstants.getFarFutureEpoch())
+              .withSlashed(slashed)
+              .withEffectiveBalance(
+                  UInt64s.min(effectiveBalance, specConstants.getMaxEffectiveBalance()))
+              .build());
+      preState.getBalances().add(balance);
+    }
+    preState.getPreviousEpochAttestations().replaceAll(
+        randomAttestations(rnd, sequential, preState, sequential.get_previous_epoch(preState)));
+    preState.getCurrentEpochAttestations().replaceAll(
+        randomAttestations(rnd, sequential, preState, sequential.get_current_epoch(preState)));
+
+    try {
+      MutableBeaconState expected = preState.createImmutable().createMutableCopy();
+      sequential.process_epoch(expected);
+      Hash32 expectedRoot = sequential.hash_tree_root(expected.createImmutable());
+      Assert.assertNotEquals(sequential.hash_tree_root(preState.createImmutable()), expectedRoot);
+
+      MutableBeaconState actual = preState.createImmutable().createMutableCopy();
+      parallel.process_epoch(actual);
+      Assert.assertEquals(expectedRoot, sequential.hash_tree_root(actual.createImmutable()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private List<PendingAttestation> randomAttestations(
+      Random rnd, BeaconChainSpec spec, BeaconState state, EpochNumber epoch) {
+    List<PendingAttestation> attestations = new ArrayList<>();
+    Hash32[] dataRoots = {Hash32.random(rnd), Hash32.random(rnd)};
+    for (UInt64 offset : UInt64s.iterate(UInt64.ZERO, spec.get_committee_count(state, epoch))) {
+      ShardNumber shard =
+          spec.get_start_shard(state, epoch)
+              .plusModulo(offset, spec.getConstants().getShardCount());
+      List<ValidatorIndex> committee = spec.get_crosslink_committee(state, epoch, shard);
+      Crosslink parent = state.getCurrentCrosslinks().get(shard);
+      for (int i = 0; i < 1 + rnd.nextInt(3); i++) {
+        Bitlist bits =
+            Bitlist.of(
+                committee.size(),
+                IntStream.range(0, committee.size())
+                    .filter(bit -> rnd.nextBoolean())
+                    .boxed()
+                    .collect(Collectors.toList()),
+                spec.getConstants().getMaxValidatorsPerCommittee().longValue());
+        Crosslink crosslink =
+            new Crosslink(
+                shard,
+                rnd.nextInt(4) > 0 ? spec.hash_tree_root(parent) : Hash32.random(rnd),
+                parent.getEndEpoch(),
+                epoch,
+                dataRoots[rnd.nextInt(dataRoots.length)]);
+        Hash32 targetRoot =
+            rnd.nextBoolean() ? spec.get_block_root(state, epoch) : Hash32.random(rnd);
+        AttestationData data =
+            new AttestationData(
+                Hash32.random(rnd),
+                state.getCurrentJustifiedCheckpoint(),
+                new Checkpoint(epoch, targetRoot),
+                crosslink);
+        SlotNumber slot = spec.get_attestation_data_slot(state, data);
+        if (rnd.nextBoolean() && slot.less(state.getSlot())) {
+          data =
+              new AttestationData(
+                  spec.get_block_root_at_slot(state, slot),
+                  data.getSource(),
+                  data.getTarget(),
+                  data.getCrosslink());
+        }
+        attestations.add(
+            new PendingAttestation(
+                bits,
+                data,
+                SlotNumber.of(1 + rnd.nextInt(8)),
+                ValidatorIndex.of(rnd.nextInt(state.getValidators().size().getIntValue())),
+                spec.getConstants()));
+      }
+    }
+    return attestations;
+  }
+
+  private void assertDeltasEqual(Gwei[][] expected, long[][] actual) {
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i].length, actual[i].length);
+      for (int j = 0; j < expected[i].length; j++) {
+        Assert.assertEquals(expected[i][j].getValue(), actual[i][j]);
+      }
+    }
+  }
 }
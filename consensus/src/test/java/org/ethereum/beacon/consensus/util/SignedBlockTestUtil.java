@@ -0,0 +1,143 @@
+package org.ethereum.beacon.consensus.util;
+
+import static org.ethereum.beacon.core.spec.SignatureDomains.ATTESTATION;
+import static org.ethereum.beacon.core.spec.SignatureDomains.BEACON_PROPOSER;
+import static org.ethereum.beacon.core.spec.SignatureDomains.RANDAO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.transition.PerBlockTransition;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.BeaconState;
+import org.ethereum.beacon.core.operations.Attestation;
+import org.ethereum.beacon.core.operations.attestation.AttestationData;
+import org.ethereum.beacon.core.operations.attestation.AttestationDataAndCustodyBit;
+import org.ethereum.beacon.core.operations.attestation.Crosslink;
+import org.ethereum.beacon.core.state.Checkpoint;
+import org.ethereum.beacon.core.types.BLSSignature;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.ShardNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.ValidatorIndex;
+import org.ethereum.beacon.crypto.BLS381;
+import org.ethereum.beacon.crypto.BLS381.KeyPair;
+import org.ethereum.beacon.crypto.BLS381.Signature;
+import org.ethereum.beacon.crypto.MessageParameters;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.collections.Bitlist;
+import tech.pegasys.artemis.util.uint.UInt64;
+import tech.pegasys.artemis.util.uint.UInt64s;
+
+/**
+ * Creates blocks and attestations which pass signature verification. Keys are expected to be
+ * listed in the order of validator indices.
+ */
+public abstract class SignedBlockTestUtil {
+  private SignedBlockTestUtil() {}
+
+  /**
+   * Creates a block signed by its proposer with a valid RANDAO reveal.
+   *
+   * @param state a state of the block slot produced by per-slot processing.
+   */
+  public static BeaconBlock createBlock(
+      BeaconChainSpec spec, List<KeyPair> keys, BeaconStateEx state, List<Attestation> attestations) {
+    KeyPair proposer = keys.get(spec.get_beacon_proposer_index(state).intValue());
+    BLSSignature randaoReveal =
+        sign(
+            proposer,
+            spec.hash_tree_root(spec.get_current_epoch(state)),
+            spec.get_domain(state, RANDAO));
+    BeaconBlockBody body =
+        new BeaconBlockBody(
+            randaoReveal,
+            state.getEth1Data(),
+            Bytes32.ZERO,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            attestations,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            spec.getConstants());
+    BeaconBlock block =
+        new BeaconBlock(
+            state.getSlot(),
+            spec.signing_root(state.getLatestBlockHeader()),
+            Hash32.ZERO,
+            body,
+            BLSSignature.ZERO);
+    block = block.withStateRoot(spec.hash_tree_root(new PerBlockTransition(spec).apply(state, block)));
+
+    return BeaconBlock.Builder.fromBlock(block)
+        .withSignature(
+            sign(proposer, spec.signing_root(block), spec.get_domain(state, BEACON_PROPOSER)))
+        .build();
+  }
+
+  /**
+   * Creates an attestation of the first committee of given slot of the current epoch, the
+   * attestation is signed by all the committee members.
+   *
+   * @param state a state which is ready to include the attestation.
+   */
+  public static Attestation createAttestation(
+      BeaconChainSpec spec, List<KeyPair> keys, BeaconState state, SlotNumber slot) {
+    EpochNumber epoch = spec.get_current_epoch(state);
+    UInt64 committeesPerSlot =
+        spec.get_committee_count(state, epoch).dividedBy(spec.getConstants().getSlotsPerEpoch());
+    ShardNumber shard =
+        spec.get_start_shard(state, epoch)
+            .plusModulo(
+                committeesPerSlot.times(slot.modulo(spec.getConstants().getSlotsPerEpoch())),
+                spec.getConstants().getShardCount());
+
+    Crosslink parent = state.getCurrentCrosslinks().get(shard);
+    Crosslink crosslink =
+        new Crosslink(
+            shard,
+            spec.hash_tree_root(parent),
+            parent.getEndEpoch(),
+            UInt64s.min(
+                epoch, parent.getEndEpoch().plus(spec.getConstants().getMaxEpochsPerCrosslink())),
+            Hash32.ZERO);
+    AttestationData data =
+        new AttestationData(
+            spec.get_block_root_at_slot(state, slot),
+            state.getCurrentJustifiedCheckpoint(),
+            new Checkpoint(epoch, spec.get_block_root(state, epoch)),
+            crosslink);
+
+    List<ValidatorIndex> committee = spec.get_crosslink_committee(state, epoch, shard);
+    Hash32 message = spec.hash_tree_root(new AttestationDataAndCustodyBit(data, false));
+    UInt64 domain = spec.get_domain(state, ATTESTATION, epoch);
+    List<Signature> signatures = new ArrayList<>();
+    for (ValidatorIndex index : committee) {
+      signatures.add(
+          BLS381.sign(MessageParameters.create(message, domain), keys.get(index.intValue())));
+    }
+    long maxSize = spec.getConstants().getMaxValidatorsPerCommittee().longValue();
+
+    return new Attestation(
+        Bitlist.of(
+            committee.size(),
+            IntStream.range(0, committee.size()).boxed().collect(Collectors.toList()),
+            maxSize),
+        data,
+        Bitlist.of(committee.size(), Collections.emptyList(), maxSize),
+        BLSSignature.wrap(Signature.aggregate(signatures).getEncoded()),
+        spec.getConstants());
+  }
+
+  public static BLSSignature sign(KeyPair key, Hash32 message, UInt64 domain) {
+    return BLSSignature.wrap(
+        BLS381.sign(MessageParameters.create(message, domain), key).getEncoded());
+  }
+}
@@ -0,0 +1,57 @@
+package org.ethereum.beacon.consensus.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+public class SwapOrNotShuffleTest {
+
+  private static final int ROUND_COUNT = 90;
+
+  @Test
+  public void listShufflingMatchesShufflingByIndex() {
+    Random random = new Random(1);
+    SwapOrNotShuffle shuffle = SwapOrNotShuffle.sequential(ROUND_COUNT);
+    for (int count : new int[] {1, 2, 3, 255, 256, 257, 1000}) {
+      byte[] seed = new byte[32];
+      random.nextBytes(seed);
+
+      assertArrayEquals(
+          shuffle.shuffledIndices(0, count, count, seed), shuffle.permutation(count, seed));
+    }
+  }
+
+  @Test
+  public void parallelShufflingMatchesSequentialOne() {
+    Random random = new Random(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      SwapOrNotShuffle sequential = SwapOrNotShuffle.sequential(ROUND_COUNT);
+      SwapOrNotShuffle parallel = new SwapOrNotShuffle(ROUND_COUNT, executor, 3);
+      for (int count : new int[] {1 << 12, 5000, 1 << 16}) {
+        byte[] seed = new byte[32];
+        random.nextBytes(seed);
+
+        assertArrayEquals(sequential.permutation(count, seed), parallel.permutation(count, seed));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void committeeIsSlicedOutOfShuffledList() {
+    byte[] seed = new byte[32];
+    new Random(1).nextBytes(seed);
+    int count = 1000;
+    int[] permutation = SwapOrNotShuffle.parallel(ROUND_COUNT).permutation(count, seed);
+    int[] committee = SwapOrNotShuffle.sequential(ROUND_COUNT).shuffledIndices(100, 150, count, seed);
+
+    int[] expected = new int[committee.length];
+    System.arraycopy(permutation, 100, expected, 0, expected.length);
+    assertArrayEquals(expected, committee);
+  }
+}
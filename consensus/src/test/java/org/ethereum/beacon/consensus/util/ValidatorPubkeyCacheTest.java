@@ -0,0 +1,61 @@
+package org.ethereum.beacon.consensus.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.ethereum.beacon.crypto.BLS381.PublicKey;
+import org.junit.Test;
+import tech.pegasys.artemis.util.bytes.Bytes48;
+
+public class ValidatorPubkeyCacheTest {
+
+  @Test
+  public void keyIsLoadedOncePerIndex() {
+    Random random = new Random(1);
+    ValidatorPubkeyCache cache = new ValidatorPubkeyCache();
+    AtomicInteger loads = new AtomicInteger();
+
+    int count = 5000;
+    Bytes48[] encoded = new Bytes48[count];
+    PublicKey[] keys = new PublicKey[count];
+    for (int i = 0; i < count; i++) {
+      encoded[i] = randomBytes48(random);
+      Bytes48 bytes = encoded[i];
+      keys[i] =
+          cache.get(
+              i,
+              bytes,
+              () -> {
+                loads.incrementAndGet();
+                return PublicKey.createWithoutValidation(bytes);
+              });
+    }
+    assertEquals(count, loads.get());
+
+    for (int i = count - 1; i >= 0; i--) {
+      assertSame(keys[i], cache.get(i, encoded[i], () -> {
+        throw new AssertionError("Key should be cached");
+      }));
+    }
+  }
+
+  @Test
+  public void keyIsReloadedIfEncodingDiffers() {
+    Random random = new Random(1);
+    ValidatorPubkeyCache cache = new ValidatorPubkeyCache();
+    Bytes48 first = randomBytes48(random);
+    Bytes48 second = randomBytes48(random);
+
+    cache.get(7, first, () -> PublicKey.createWithoutValidation(first));
+    PublicKey key = cache.get(7, second, () -> PublicKey.createWithoutValidation(second));
+    assertEquals(second, key.getEncodedBytes());
+  }
+
+  private static Bytes48 randomBytes48(Random random) {
+    byte[] bytes = new byte[48];
+    random.nextBytes(bytes);
+    return Bytes48.wrap(bytes);
+  }
+}
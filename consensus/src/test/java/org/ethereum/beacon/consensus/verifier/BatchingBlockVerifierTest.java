@@ -0,0 +1,145 @@
+package org.ethereum.beacon.consensus.verifier;
+
+import static org.ethereum.beacon.core.spec.SignatureDomains.RANDAO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.BeaconStateEx;
+import org.ethereum.beacon.consensus.ChainStart;
+import org.ethereum.beacon.consensus.TestUtils;
+import org.ethereum.beacon.consensus.transition.ExtendedSlotTransition;
+import org.ethereum.beacon.consensus.transition.InitialStateTransition;
+import org.ethereum.beacon.consensus.util.CachingBeaconChainSpec;
+import org.ethereum.beacon.consensus.util.SignedBlockTestUtil;
+import org.ethereum.beacon.core.BeaconBlock;
+import org.ethereum.beacon.core.BeaconBlockBody;
+import org.ethereum.beacon.core.operations.Attestation;
+import org.ethereum.beacon.core.operations.Deposit;
+import org.ethereum.beacon.core.spec.SpecConstants;
+import org.ethereum.beacon.core.state.Eth1Data;
+import org.ethereum.beacon.core.types.EpochNumber;
+import org.ethereum.beacon.core.types.SlotNumber;
+import org.ethereum.beacon.core.types.Time;
+import org.ethereum.beacon.crypto.BLS381.KeyPair;
+import org.javatuples.Pair;
+import org.junit.Test;
+import tech.pegasys.artemis.ethereum.core.Hash32;
+import tech.pegasys.artemis.util.uint.UInt64;
+
+public class BatchingBlockVerifierTest {
+
+  private final SpecConstants constants =
+      new SpecConstants() {
+        @Override
+        public SlotNumber.EpochLength getSlotsPerEpoch() {
+          return new SlotNumber.EpochLength(UInt64.valueOf(4));
+        }
+      };
+  private final BeaconChainSpec spec = BeaconChainSpec.createWithoutDepositVerification(constants);
+
+  private final List<KeyPair> keys;
+  private final BeaconStateEx state;
+
+  public BatchingBlockVerifierTest() {
+    Random rnd = new Random(1);
+    Pair<List<Deposit>, List<KeyPair>> deposits = TestUtils.getAnyDeposits(rnd, spec, 16);
+    keys = deposits.getValue1();
+    Eth1Data eth1Data =
+        new Eth1Data(
+            Hash32.random(rnd), UInt64.valueOf(deposits.getValue0().size()), Hash32.random(rnd));
+    BeaconStateEx genesis =
+        new InitialStateTransition(
+                new ChainStart(Time.of(0), eth1Data, deposits.getValue0()), spec)
+            .apply(spec.get_empty_block());
+    // a state of slot 2 which includes attestations of slots 0 and 1
+    ExtendedSlotTransition slotTransition = ExtendedSlotTransition.create(spec);
+    state = slotTransition.apply(slotTransition.apply(genesis));
+  }
+
+  @Test
+  public void validBlockPasses() {
+    BeaconBlock block =
+        SignedBlockTestUtil.createBlock(
+            spec, keys, state, Arrays.asList(attestation(0), attestation(1)));
+
+    VerificationResult result = new BatchingBlockVerifier((CachingBeaconChainSpec) spec)
+        .verify(block, state);
+    assertTrue(result.toString(), result.isPassed());
+  }
+
+  @Test
+  public void wrongAttestationSignatureFailsAsEagerVerification() {
+    Attestation valid = attestation(0);
+    Attestation other = attestation(1);
+    Attestation wrong =
+        new Attestation(
+            other.getAggregationBits(),
+            other.getData(),
+            other.getCustodyBits(),
+            valid.getSignature(),
+            constants);
+    BeaconBlock block =
+        SignedBlockTestUtil.createBlock(spec, keys, state, Arrays.asList(valid, wrong));
+
+    assertFailsAsEagerVerification(block);
+  }
+
+  @Test
+  public void wrongRandaoRevealFailsAsEagerVerification() {
+    BeaconBlock valid =
+        SignedBlockTestUtil.createBlock(spec, keys, state, Arrays.asList(attestation(0)));
+    BeaconBlockBody body = valid.getBody();
+    // a reveal of the next epoch
+    BeaconBlockBody wrongBody =
+        new BeaconBlockBody(
+            SignedBlockTestUtil.sign(
+                keys.get(spec.get_beacon_proposer_index(state).intValue()),
+                spec.hash_tree_root(EpochNumber.of(1)),
+                spec.get_domain(state, RANDAO)),
+            body.getEth1Data(),
+            body.getGraffiti(),
+            body.getProposerSlashings(),
+            body.getAttesterSlashings(),
+            body.getAttestations(),
+            body.getDeposits(),
+            body.getVoluntaryExits(),
+            body.getTransfers(),
+            constants);
+    BeaconBlock block = BeaconBlock.Builder.fromBlock(valid).withBody(wrongBody).build();
+
+    assertFailsAsEagerVerification(block);
+  }
+
+  @Test
+  public void defaultVerifierIsBatchingOnlyIfSignaturesAreVerified() {
+    assertTrue(BeaconBlockVerifier.createDefault(spec) instanceof BatchingBlockVerifier);
+
+    BeaconChainSpec noBlsSpec =
+        new BeaconChainSpec.Builder()
+            .withConstants(constants)
+            .withDefaultHasher(constants)
+            .withDefaultHashFunction()
+            .withBlsVerify(false)
+            .build();
+    assertFalse(BeaconBlockVerifier.createDefault(noBlsSpec) instanceof BatchingBlockVerifier);
+  }
+
+  private void assertFailsAsEagerVerification(BeaconBlock block) {
+    VerificationResult expected = BeaconBlockVerifier.createEager(spec).verify(block, state);
+    VerificationResult actual =
+        new BatchingBlockVerifier((CachingBeaconChainSpec) spec).verify(block, state);
+
+    assertFalse(expected.isPassed());
+    assertFalse(actual.isPassed());
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  private Attestation attestation(int slot) {
+    return SignedBlockTestUtil.createAttestation(spec, keys, state, SlotNumber.of(slot));
+  }
+}
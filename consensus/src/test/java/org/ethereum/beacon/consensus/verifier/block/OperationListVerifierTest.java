@@ -0,0 +1,84 @@
+package org.ethereum.beacon.consensus.verifier.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.ethereum.beacon.consensus.verifier.OperationVerifier;
+import org.ethereum.beacon.consensus.verifier.VerificationResult;
+import org.junit.Test;
+
+public class OperationListVerifierTest {
+
+  @Test
+  public void parallelResultMatchesSequential() {
+    List<Integer> operations = new ArrayList<>();
+    for (int i = 0; i < 128; i++) {
+      operations.add(i);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int failing : new int[] {-1, 0, 1, 63, 127}) {
+        OperationVerifier<Integer> verifier =
+            (operation, state) ->
+                failing >= 0 && (operation == failing || operation == failing + 10)
+                    ? VerificationResult.failedResult("failed %d", operation)
+                    : VerificationResult.PASSED;
+
+        VerificationResult sequential =
+            new IntegerListVerifier(verifier, operations, null).verify(null, null);
+        VerificationResult parallel =
+            new IntegerListVerifier(verifier, operations, pool).verify(null, null);
+
+        assertEquals(sequential.isPassed(), parallel.isPassed());
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+        if (failing < 0) {
+          assertSame(VerificationResult.PASSED, parallel);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void firstErrorIsRethrown() {
+    List<Integer> operations = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      operations.add(i);
+    }
+    OperationVerifier<Integer> verifier =
+        (operation, state) -> {
+          if (operation >= 5) {
+            throw new IllegalStateException("error " + operation);
+          }
+          return VerificationResult.PASSED;
+        };
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      new IntegerListVerifier(verifier, operations, pool).verify(null, null);
+      fail("Error should be rethrown");
+    } catch (IllegalStateException e) {
+      assertEquals("error 5", e.getMessage());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static class IntegerListVerifier extends OperationListVerifier<Integer> {
+
+    IntegerListVerifier(
+        OperationVerifier<Integer> verifier, List<Integer> operations, ForkJoinPool pool) {
+      super(verifier, block -> operations, operations.size(), pool);
+    }
+
+    @Override
+    protected Class<Integer> getType() {
+      return Integer.class;
+    }
+  }
+}
@@ -150,6 +150,16 @@ public class BLS381 {
     return lhs.equals(rhs);
   }
 
+  /**
+   * Maps message to <code>G<sub>2</sub></code> point.
+   *
+   * @param message a message.
+   * @return a point that message signatures are calculated for.
+   */
+  static ECP2 mapMessage(MessageParameters message) {
+    return MESSAGE_MAPPER.map(message);
+  }
+
   /**
    * Calculates ate pairing product for given elliptic curve points.
    *
@@ -301,13 +311,25 @@ public class BLS381 {
     }
   }
 
-  /** {@code BLS12-381} public key. */
+  /**
+   * {@code BLS12-381} public key.
+   *
+   * <p>Keys created from a point or validated upon creation hold the decoded point, thus, it's not
+   * decompressed again each time the key is used.
+   */
   public static class PublicKey implements java.security.PublicKey {
 
     private final Bytes48 encoded;
+    /** Decoded point, {@code null} if it has not been decoded upon creation. */
+    private final ECP point;
 
     private PublicKey(Bytes48 encoded) {
+      this(encoded, null);
+    }
+
+    private PublicKey(Bytes48 encoded, ECP point) {
       this.encoded = encoded;
+      this.point = point;
     }
 
     /**
@@ -329,7 +351,7 @@ public class BLS381 {
      * @see ECP
      */
     public static PublicKey create(ECP ecPoint) {
-      return new PublicKey(G1.encode(ecPoint));
+      return new PublicKey(G1.encode(ecPoint), copyOf(ecPoint));
     }
 
     /**
@@ -343,7 +365,8 @@ public class BLS381 {
       BIG x = BIGs.fromBigInteger(ecPoint.getAffineXCoord().toBigInteger());
       BIG y = BIGs.fromBigInteger(ecPoint.getAffineYCoord().toBigInteger());
 
-      return new PublicKey(G1.encode(new ECP(x, y)));
+      ECP point = new ECP(x, y);
+      return new PublicKey(G1.encode(point), point);
     }
 
     /**
@@ -372,6 +395,8 @@ public class BLS381 {
         checkArgument(
             orderCheck.is_infinity(),
             "Failed to instantiate public key, given point is not a G1 member");
+
+        return new PublicKey(encoded, point);
       }
 
       return new PublicKey(encoded);
@@ -427,10 +452,18 @@ public class BLS381 {
     /**
      * Decodes public key to {@link ECP} point.
      *
+     * <p>Milagro points are mutable, hence, a copy of the decoded point is returned.
+     *
      * @return public key point.
      */
     ECP asEcPoint() {
-      return G1.decode(encoded);
+      return point == null ? G1.decode(encoded) : copyOf(point);
+    }
+
+    private static ECP copyOf(ECP point) {
+      ECP copy = new ECP();
+      copy.copy(point);
+      return copy;
     }
   }
 
@@ -0,0 +1,156 @@
+package org.ethereum.beacon.crypto;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.milagro.amcl.BLS381.BIG;
+import org.apache.milagro.amcl.BLS381.ECP;
+import org.apache.milagro.amcl.BLS381.ECP2;
+import org.apache.milagro.amcl.BLS381.FP12;
+import org.apache.milagro.amcl.BLS381.PAIR;
+import org.ethereum.beacon.crypto.BLS381.PublicKey;
+import org.ethereum.beacon.crypto.BLS381.Signature;
+import org.ethereum.beacon.crypto.bls.milagro.BIGs;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+/**
+ * Verifies a batch of signatures at once.
+ *
+ * <p>Each signature <code>s<sub>i</sub></code> is multiplied by a random non-zero 64-bit scalar
+ * <code>r<sub>i</sub></code>, public keys that the signature is checked against are multiplied by
+ * the same scalar. Then a single equation is checked:
+ *
+ * <p><code>e(g, sum(r<sub>i</sub> * s<sub>i</sub>)) == prod(e(sum(r<sub>i</sub> * pk<sub>ij
+ * </sub>), H(m<sub>j</sub>)))</code>
+ *
+ * <p>Public keys signing the same message are summed up before pairing, hence, there is one Miller
+ * loop per distinct message and one final exponentiation per batch. If at least one signature is
+ * invalid the equation holds with negligible probability.
+ *
+ * <p>Successful verification of a batch means that each signature of the batch is valid, failed
+ * verification doesn't tell which signature is invalid, use {@link BLS381#verify(MessageParameters,
+ * Signature, PublicKey)} and {@link BLS381#verifyMultiple(List, Signature, List)} to find it.
+ *
+ * <p>Safe for concurrent use.
+ */
+public class BatchVerifier {
+
+  private static final int SCALAR_BITS = 64;
+
+  private final Random random;
+  private final List<Entry> entries = new ArrayList<>();
+
+  public BatchVerifier() {
+    this(new SecureRandom());
+  }
+
+  public BatchVerifier(Random random) {
+    this.random = random;
+  }
+
+  /**
+   * Adds a signature of a message to the batch.
+   *
+   * @param message a message.
+   * @param signature a signature.
+   * @param publicKey a public key.
+   */
+  public void add(MessageParameters message, Signature signature, PublicKey publicKey) {
+    add(Collections.singletonList(message), signature, Collections.singletonList(publicKey));
+  }
+
+  /**
+   * Adds an aggregated signature of a number of messages to the batch.
+   *
+   * @param messages a list of messages.
+   * @param signature an aggregated signature.
+   * @param publicKeys a list of public keys, index of a key must match the index of its message.
+   * @throws AssertionError if {@code messages.size()} is not equal to {@code publicKeys.size()}
+   * @see BLS381#verifyMultiple(List, Signature, List)
+   */
+  public synchronized void add(
+      List<MessageParameters> messages, Signature signature, List<PublicKey> publicKeys) {
+    assert messages.size() == publicKeys.size();
+    entries.add(new Entry(messages, signature, publicKeys));
+  }
+
+  /** @return a number of signatures added to the batch. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Verifies all the signatures of the batch.
+   *
+   * @return {@code true} if each signature is valid, {@code false} otherwise. Empty batch is valid.
+   */
+  public synchronized boolean verify() {
+    if (entries.isEmpty()) {
+      return true;
+    }
+
+    ECP2 signatureSum = new ECP2();
+    Map<BytesValue, MessageGroup> groups = new LinkedHashMap<>();
+    for (Entry entry : entries) {
+      BIG scalar = randomScalar();
+      signatureSum.add(entry.signature.asEcPoint().mul(scalar));
+      for (int i = 0; i < entry.messages.size(); i++) {
+        MessageParameters message = entry.messages.get(i);
+        BytesValue key = message.getHash().concat(message.getDomain());
+        groups
+            .computeIfAbsent(key, k -> new MessageGroup(message))
+            .publicKeySum
+            .add(entry.publicKeys.get(i).asEcPoint().mul(scalar));
+      }
+    }
+
+    FP12 product = new FP12(1);
+    for (MessageGroup group : groups.values()) {
+      if (!group.publicKeySum.is_infinity()) {
+        product.mul(PAIR.ate(BLS381.mapMessage(group.message), group.publicKeySum));
+      }
+    }
+    if (!signatureSum.is_infinity()) {
+      ECP negatedGenerator = ECP.generator();
+      negatedGenerator.neg();
+      product.mul(PAIR.ate(signatureSum, negatedGenerator));
+    }
+
+    return PAIR.fexp(product).isunity();
+  }
+
+  private BIG randomScalar() {
+    BigInteger scalar;
+    do {
+      scalar = new BigInteger(SCALAR_BITS, random);
+    } while (scalar.signum() == 0);
+    return BIGs.fromBigInteger(scalar);
+  }
+
+  private static class Entry {
+    private final List<MessageParameters> messages;
+    private final Signature signature;
+    private final List<PublicKey> publicKeys;
+
+    Entry(List<MessageParameters> messages, Signature signature, List<PublicKey> publicKeys) {
+      this.messages = messages;
+      this.signature = signature;
+      this.publicKeys = publicKeys;
+    }
+  }
+
+  /** Public keys signing the same message, multiplied by their scalars and summed up. */
+  private static class MessageGroup {
+    private final MessageParameters message;
+    private final ECP publicKeySum = new ECP();
+
+    MessageGroup(MessageParameters message) {
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package org.ethereum.beacon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.ethereum.beacon.crypto.BLS381.KeyPair;
+import org.ethereum.beacon.crypto.BLS381.Signature;
+import org.ethereum.beacon.crypto.MessageParameters.Impl;
+import org.junit.Test;
+import tech.pegasys.artemis.util.bytes.Bytes8;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+public class BatchVerifierTest {
+
+  @Test
+  public void emptyBatchIsValid() {
+    assertThat(new BatchVerifier().verify()).isTrue();
+  }
+
+  @Test
+  public void checkBatchOfValidSignatures() {
+    BatchVerifier verifier = fillBatch(new BatchVerifier(), randomParams());
+    assertThat(verifier.size()).isEqualTo(4);
+    assertThat(verifier.verify()).isTrue();
+  }
+
+  @Test
+  public void failBatchIfOneSignatureIsWrong() {
+    MessageParameters wrongMessage = randomParams();
+    BatchVerifier verifier = fillBatch(new BatchVerifier(), wrongMessage);
+
+    KeyPair keyPair = KeyPair.generate();
+    Signature wrongSignature = BLS381.sign(wrongMessage, keyPair);
+    verifier.add(randomParams(), wrongSignature, keyPair.getPublic());
+
+    assertThat(verifier.verify()).isFalse();
+  }
+
+  @Test
+  public void failBatchIfSignaturesAreSwapped() {
+    KeyPair keyPair1 = KeyPair.generate();
+    KeyPair keyPair2 = KeyPair.generate();
+    MessageParameters params1 = randomParams();
+    MessageParameters params2 = randomParams();
+
+    BatchVerifier verifier = new BatchVerifier();
+    verifier.add(params1, BLS381.sign(params2, keyPair2), keyPair1.getPublic());
+    verifier.add(params2, BLS381.sign(params1, keyPair1), keyPair2.getPublic());
+
+    assertThat(verifier.verify()).isFalse();
+  }
+
+  /**
+   * Adds a single signature, an aggregated signature of distinct messages and two signatures of
+   * {@code sharedMessage} made with different keys.
+   */
+  BatchVerifier fillBatch(BatchVerifier verifier, MessageParameters sharedMessage) {
+    KeyPair keyPair1 = KeyPair.generate();
+    KeyPair keyPair2 = KeyPair.generate();
+    MessageParameters params1 = randomParams();
+    MessageParameters params2 = randomParams();
+
+    verifier.add(params1, BLS381.sign(params1, keyPair1), keyPair1.getPublic());
+
+    Signature aggregated =
+        Signature.aggregate(
+            Arrays.asList(BLS381.sign(params1, keyPair1), BLS381.sign(params2, keyPair2)));
+    verifier.add(
+        Arrays.asList(params1, params2),
+        aggregated,
+        Arrays.asList(keyPair1.getPublic(), keyPair2.getPublic()));
+
+    verifier.add(sharedMessage, BLS381.sign(sharedMessage, keyPair1), keyPair1.getPublic());
+    verifier.add(sharedMessage, BLS381.sign(sharedMessage, keyPair2), keyPair2.getPublic());
+
+    return verifier;
+  }
+
+  MessageParameters randomParams() {
+    Random random = new Random();
+    byte[] message = new byte[32];
+    random.nextBytes(message);
+    byte[] domain = new byte[8];
+    random.nextBytes(domain);
+    return new Impl(Hashes.sha256(BytesValue.wrap(message)), Bytes8.wrap(domain));
+  }
+}
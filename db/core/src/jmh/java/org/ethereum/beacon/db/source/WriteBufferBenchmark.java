@@ -0,0 +1,87 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.artemis.util.bytes.Bytes32;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+/**
+ * Compares {@link WriteBuffer} with {@link ConcurrentWriteBuffer} under mixed read/write load.
+ *
+ * <p>Each operation is either a read or a write of a random key, a share of writes is set by
+ * {@code writePercent}. Every {@code flushEvery} operation a thread flushes the buffer to imitate
+ * commits made by a chain importer while other threads keep reading and writing.
+ *
+ * <p>Run with {@code ./gradlew :db:core:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class WriteBufferBenchmark {
+
+  private static final int KEY_SPACE = 1 << 16;
+
+  @Param({"locked", "concurrent"})
+  private String buffer;
+
+  @Param({"10", "50"})
+  private int writePercent;
+
+  @Param({"10000"})
+  private int flushEvery;
+
+  private DataSource<BytesValue, BytesValue> source;
+  private BytesValue[] keys;
+  private BytesValue value;
+
+  @Setup
+  public void setup() {
+    HashMapDataSource<BytesValue, BytesValue> upstream = new HashMapDataSource<>();
+    Random random = new Random(1);
+    keys = new BytesValue[KEY_SPACE];
+    for (int i = 0; i < KEY_SPACE; i++) {
+      keys[i] = Bytes32.random(random);
+      upstream.put(keys[i], keys[i]);
+    }
+    value = Bytes32.random(random);
+
+    if ("locked".equals(buffer)) {
+      source = new WriteBuffer<>(upstream, false);
+    } else {
+      source = new ConcurrentWriteBuffer<>(upstream, false);
+    }
+  }
+
+  @Benchmark
+  public void mixedLoad(Blackhole blackhole) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    BytesValue key = keys[random.nextInt(KEY_SPACE)];
+    int dice = random.nextInt(flushEvery * 100);
+    if (dice < 100) {
+      source.flush();
+    } else if (dice % 100 < writePercent) {
+      source.put(key, value);
+    } else {
+      blackhole.consume(source.get(key));
+    }
+  }
+}
@@ -1,18 +1,37 @@
 package org.ethereum.beacon.db;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import org.ethereum.beacon.db.mmap.MappedSegmentSource;
+import org.ethereum.beacon.db.rocksdb.ColumnFamilyConfig;
 import org.ethereum.beacon.db.rocksdb.RocksDbSource;
 import org.ethereum.beacon.db.source.DataSource;
-import org.ethereum.beacon.db.source.StorageEngineSource;
 import tech.pegasys.artemis.util.bytes.BytesValue;
 
 public interface Database {
 
+  /** Archives of a database at {@code path} are kept in {@code path + ARCHIVE_SUFFIX}. */
+  String ARCHIVE_SUFFIX = "-archive";
+
   /**
    * Creates named key value storage if not yet exists or returns existing
    */
   DataSource<BytesValue, BytesValue> createStorage(String name);
 
+  /**
+   * Creates named storage for immutable data if not yet exists or returns existing. Keys are 8-byte
+   * big-endian indices, entries can't be overwritten or removed once they have been put.
+   *
+   * <p>Default implementation falls back to {@link #createStorage(String)}. A database might keep
+   * archives apart from other storages, in that case they are persisted by {@link #commit()} before
+   * changes made to other storages.
+   */
+  default DataSource<BytesValue, BytesValue> createArchive(String name) {
+    return createStorage(name);
+  }
+
   /**
    * Calling commit indicates that all current data is in consistent state
    * and it is a safe point to persist the data
@@ -24,6 +43,12 @@ public interface Database {
    */
   void close();
 
+  /**
+   * Persists pending changes and compacts underlying database storage. Intended to be called after
+   * a bulk removal of data, might take a while.
+   */
+  default void compact() {}
+
   /**
    * Creates in-memory database instance.
    *
@@ -42,7 +67,58 @@ public interface Database {
    * @return an instance of database driven by RocksDB.
    */
   static Database rocksDB(String dbPath, long bufferLimitInBytes) {
-    StorageEngineSource<BytesValue> source = new RocksDbSource(Paths.get(dbPath));
-    return EngineDrivenDatabase.create(source, bufferLimitInBytes);
+    return rocksDB(dbPath, bufferLimitInBytes, Collections.emptyMap());
+  }
+
+  /**
+   * Creates database instance driven by <a href="https://github.com/facebook/rocksdb">RocksDB</a>
+   * storage engine. Each storage is kept in its own column family tuned with corresponding config.
+   *
+   * <p><strong>Note:</strong> databases created before column families were introduced are opened
+   * in a legacy mode with all the storages sharing default column family.
+   *
+   * @param dbPath path to database folder.
+   * @param bufferLimitInBytes limit of write buffer in bytes.
+   * @param storageConfigs storage name to column family config map, {@link
+   *     ColumnFamilyConfig#DEFAULT} is used for storages missing in the map.
+   * @return an instance of database driven by RocksDB.
+   */
+  static Database rocksDB(
+      String dbPath, long bufferLimitInBytes, Map<String, ColumnFamilyConfig> storageConfigs) {
+    return rocksDB(dbPath, bufferLimitInBytes, storageConfigs, 0);
+  }
+
+  /**
+   * Creates database instance driven by <a href="https://github.com/facebook/rocksdb">RocksDB</a>
+   * storage engine which writes flushed changes on a background thread.
+   *
+   * <p>Archives are kept in segment files memory-mapped by {@link MappedSegmentSource}, see
+   * {@link #ARCHIVE_SUFFIX}.
+   *
+   * @param dbPath path to database folder.
+   * @param bufferLimitInBytes limit of write buffer in bytes.
+   * @param storageConfigs storage name to column family config map.
+   * @param writeBehindBacklog a number of flushed buffers that may wait for a write before next
+   *     flush gets blocked, zero turns background writes off.
+   * @return an instance of database driven by RocksDB.
+   * @see #rocksDB(String, long, Map)
+   */
+  static Database rocksDB(
+      String dbPath,
+      long bufferLimitInBytes,
+      Map<String, ColumnFamilyConfig> storageConfigs,
+      int writeBehindBacklog) {
+    Path path = Paths.get(dbPath);
+    Path archivePath = Paths.get(dbPath + ARCHIVE_SUFFIX);
+    if (RocksDbSource.isSinglePartition(path)) {
+      return EngineDrivenDatabase.create(
+          new RocksDbSource(path), bufferLimitInBytes, writeBehindBacklog, archivePath);
+    } else {
+      return EngineDrivenDatabase.createPartitioned(
+          new RocksDbSource(path, storageConfigs),
+          bufferLimitInBytes,
+          writeBehindBacklog,
+          archivePath);
+    }
   }
 }
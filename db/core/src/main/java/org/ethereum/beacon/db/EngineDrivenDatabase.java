@@ -1,18 +1,28 @@
 package org.ethereum.beacon.db;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ethereum.beacon.crypto.Hashes;
 import org.ethereum.beacon.db.flush.BufferSizeObserver;
 import org.ethereum.beacon.db.flush.DatabaseFlusher;
 import org.ethereum.beacon.db.flush.InstantFlusher;
+import org.ethereum.beacon.db.mmap.MappedSegmentSource;
+import org.ethereum.beacon.db.source.BatchUpdateDataSource;
 import org.ethereum.beacon.db.source.BatchWriter;
-import org.ethereum.beacon.db.source.CacheSizeEvaluator;
+import org.ethereum.beacon.db.source.CacheDataSource;
+import org.ethereum.beacon.db.source.ConcurrentWriteBuffer;
 import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.source.PartitionedStorageEngineSource;
 import org.ethereum.beacon.db.source.StorageEngineSource;
-import org.ethereum.beacon.db.source.WriteBuffer;
+import org.ethereum.beacon.db.source.WriteBehindBatchWriter;
 import org.ethereum.beacon.db.source.impl.MemSizeEvaluators;
+import org.ethereum.beacon.db.source.impl.PartitionDataSource;
+import org.ethereum.beacon.db.source.impl.PartitionRouter;
 import org.ethereum.beacon.db.source.impl.XorDataSource;
 import tech.pegasys.artemis.util.bytes.BytesValue;
 
@@ -24,26 +34,52 @@ import tech.pegasys.artemis.util.bytes.BytesValue;
  *
  * <ul>
  *   <li>source of {@link StorageEngineSource} type -- represents underlying storage engine
- *   <li>an instance of {@link WriteBuffer} -- memory buffer that accumulates changes made between
- *       flushes
+ *   <li>an instance of {@link ConcurrentWriteBuffer} -- memory buffer that accumulates changes
+ *       made between flushes
  *   <li>an instance of {@link DatabaseFlusher} -- flushing strategy
+ *   <li>optional {@link WriteBehindBatchWriter} -- takes writes to the storage engine off the
+ *       thread that commits changes
+ *   <li>optional archive directory -- keeps {@link #createArchive(String)} storages in
+ *       append-only {@link MappedSegmentSource} segments apart from the storage engine, they are
+ *       not buffered
  * </ul>
+ *
+ * <p>Logical storages are multiplexed either by {@link XorDataSource} over a single key space or,
+ * if database is created with {@link #createPartitioned(PartitionedStorageEngineSource, long)}, by
+ * {@link PartitionDataSource} over separate partitions of the storage engine.
  */
 public class EngineDrivenDatabase implements Database {
 
   private static final Logger logger = LogManager.getLogger(EngineDrivenDatabase.class);
 
   private final StorageEngineSource<BytesValue> source;
-  private final WriteBuffer<BytesValue, BytesValue> writeBuffer;
+  private final CacheDataSource<BytesValue, BytesValue> writeBuffer;
   private final DatabaseFlusher flusher;
+  private final boolean partitioned;
+  @Nullable private final WriteBehindBatchWriter<BytesValue, BytesValue> writeBehind;
+  @Nullable private final Path archivePath;
+  private final Map<String, MappedSegmentSource> archives = new ConcurrentHashMap<>();
 
   EngineDrivenDatabase(
       StorageEngineSource<BytesValue> source,
-      WriteBuffer<BytesValue, BytesValue> writeBuffer,
+      CacheDataSource<BytesValue, BytesValue> writeBuffer,
       DatabaseFlusher flusher) {
+    this(source, writeBuffer, flusher, false, null, null);
+  }
+
+  EngineDrivenDatabase(
+      StorageEngineSource<BytesValue> source,
+      CacheDataSource<BytesValue, BytesValue> writeBuffer,
+      DatabaseFlusher flusher,
+      boolean partitioned,
+      @Nullable WriteBehindBatchWriter<BytesValue, BytesValue> writeBehind,
+      @Nullable Path archivePath) {
     this.source = source;
     this.writeBuffer = writeBuffer;
     this.flusher = flusher;
+    this.partitioned = partitioned;
+    this.writeBehind = writeBehind;
+    this.archivePath = archivePath;
   }
 
   /**
@@ -59,18 +95,141 @@ public class EngineDrivenDatabase implements Database {
    */
   public static EngineDrivenDatabase create(
       StorageEngineSource<BytesValue> storageEngineSource, long bufferLimitInBytes) {
-    BatchWriter<BytesValue, BytesValue> batchWriter = new BatchWriter<>(storageEngineSource);
-    WriteBuffer<BytesValue, BytesValue> buffer =
-        new WriteBuffer<>(
+    return create(storageEngineSource, bufferLimitInBytes, 0);
+  }
+
+  /**
+   * Creates an instance that writes flushed changes to the storage engine either synchronously or
+   * on a background thread.
+   *
+   * @param storageEngineSource an engine-based source.
+   * @param bufferLimitInBytes a buffer limit in bytes.
+   * @param writeBehindBacklog if greater than zero then flushed changes are written by {@link
+   *     WriteBehindBatchWriter} with this backlog limit, otherwise, they are written synchronously.
+   * @return a new instance.
+   * @see #create(StorageEngineSource, long)
+   */
+  public static EngineDrivenDatabase create(
+      StorageEngineSource<BytesValue> storageEngineSource,
+      long bufferLimitInBytes,
+      int writeBehindBacklog) {
+    return create(storageEngineSource, bufferLimitInBytes, writeBehindBacklog, null);
+  }
+
+  /**
+   * Creates an instance which keeps archives apart from the storage engine.
+   *
+   * @param storageEngineSource an engine-based source.
+   * @param bufferLimitInBytes a buffer limit in bytes.
+   * @param writeBehindBacklog a backlog of background writes, zero turns them off.
+   * @param archivePath if not {@code null} then archives are kept by {@link MappedSegmentSource}
+   *     in subdirectories of this directory, otherwise, they are regular storages.
+   * @return a new instance.
+   * @see #create(StorageEngineSource, long, int)
+   */
+  public static EngineDrivenDatabase create(
+      StorageEngineSource<BytesValue> storageEngineSource,
+      long bufferLimitInBytes,
+      int writeBehindBacklog,
+      @Nullable Path archivePath) {
+    return create(
+        storageEngineSource,
+        storageEngineSource,
+        bufferLimitInBytes,
+        writeBehindBacklog,
+        false,
+        archivePath);
+  }
+
+  /**
+   * Creates an instance which keeps each logical storage in a separate partition of given storage
+   * engine.
+   *
+   * <p>Changes made to all the storages are still accumulated in one buffer and are flushed
+   * atomically by {@link PartitionedStorageEngineSource#batchUpdatePartitions(java.util.Map)}.
+   *
+   * @param storageEngineSource a partitioned engine-based source.
+   * @param bufferLimitInBytes a buffer limit in bytes.
+   * @return a new instance.
+   * @see #create(StorageEngineSource, long)
+   */
+  public static EngineDrivenDatabase createPartitioned(
+      PartitionedStorageEngineSource<BytesValue> storageEngineSource, long bufferLimitInBytes) {
+    return createPartitioned(storageEngineSource, bufferLimitInBytes, 0);
+  }
+
+  /**
+   * Creates partitioned instance that writes flushed changes to the storage engine either
+   * synchronously or on a background thread.
+   *
+   * @param storageEngineSource a partitioned engine-based source.
+   * @param bufferLimitInBytes a buffer limit in bytes.
+   * @param writeBehindBacklog if greater than zero then flushed changes are written by {@link
+   *     WriteBehindBatchWriter} with this backlog limit, otherwise, they are written synchronously.
+   * @return a new instance.
+   * @see #createPartitioned(PartitionedStorageEngineSource, long)
+   */
+  public static EngineDrivenDatabase createPartitioned(
+      PartitionedStorageEngineSource<BytesValue> storageEngineSource,
+      long bufferLimitInBytes,
+      int writeBehindBacklog) {
+    return createPartitioned(storageEngineSource, bufferLimitInBytes, writeBehindBacklog, null);
+  }
+
+  /**
+   * Creates partitioned instance which keeps archives apart from the storage engine.
+   *
+   * @param storageEngineSource a partitioned engine-based source.
+   * @param bufferLimitInBytes a buffer limit in bytes.
+   * @param writeBehindBacklog a backlog of background writes, zero turns them off.
+   * @param archivePath if not {@code null} then archives are kept by {@link MappedSegmentSource}
+   *     in subdirectories of this directory, otherwise, they are regular storages.
+   * @return a new instance.
+   * @see #createPartitioned(PartitionedStorageEngineSource, long, int)
+   */
+  public static EngineDrivenDatabase createPartitioned(
+      PartitionedStorageEngineSource<BytesValue> storageEngineSource,
+      long bufferLimitInBytes,
+      int writeBehindBacklog,
+      @Nullable Path archivePath) {
+    return create(
+        storageEngineSource,
+        new PartitionRouter<>(storageEngineSource),
+        bufferLimitInBytes,
+        writeBehindBacklog,
+        true,
+        archivePath);
+  }
+
+  private static EngineDrivenDatabase create(
+      StorageEngineSource<BytesValue> storageEngineSource,
+      BatchUpdateDataSource<BytesValue, BytesValue> upstream,
+      long bufferLimitInBytes,
+      int writeBehindBacklog,
+      boolean partitioned,
+      @Nullable Path archivePath) {
+    WriteBehindBatchWriter<BytesValue, BytesValue> writeBehind = null;
+    DataSource<BytesValue, BytesValue> batchWriter;
+    if (writeBehindBacklog > 0) {
+      writeBehind = new WriteBehindBatchWriter<>(upstream, writeBehindBacklog);
+      batchWriter = writeBehind;
+    } else {
+      batchWriter = new BatchWriter<>(upstream);
+    }
+
+    ConcurrentWriteBuffer<BytesValue, BytesValue> buffer =
+        new ConcurrentWriteBuffer<>(
             batchWriter,
-            CacheSizeEvaluator.getInstance(MemSizeEvaluators.BytesValueEvaluator),
+            MemSizeEvaluators.BytesValueEvaluator,
+            MemSizeEvaluators.BytesValueEvaluator,
             true);
     DatabaseFlusher flusher =
         bufferLimitInBytes > 0
             ? BufferSizeObserver.create(buffer, bufferLimitInBytes)
             : new InstantFlusher(buffer);
 
-    return new EngineDrivenDatabase(storageEngineSource, buffer, flusher);
+    return new EngineDrivenDatabase(
+        storageEngineSource, buffer, flusher, partitioned, writeBehind, archivePath);
   }
 
   /**
@@ -87,23 +246,59 @@ public class EngineDrivenDatabase implements Database {
   @Override
   public DataSource<BytesValue, BytesValue> createStorage(String name) {
     source.open();
-    return new XorDataSource<>(writeBuffer, Hashes.sha256(BytesValue.wrap(name.getBytes())));
+    if (partitioned) {
+      return new PartitionDataSource<>(writeBuffer, name);
+    } else {
+      return new XorDataSource<>(writeBuffer, Hashes.sha256(BytesValue.wrap(name.getBytes())));
+    }
+  }
+
+  @Override
+  public DataSource<BytesValue, BytesValue> createArchive(String name) {
+    if (archivePath == null) {
+      return createStorage(name);
+    }
+    return archives.computeIfAbsent(
+        name,
+        n -> {
+          MappedSegmentSource archive = new MappedSegmentSource(archivePath.resolve(n));
+          archive.open();
+          return archive;
+        });
   }
 
   @Override
   public void commit() {
+    // archived data must be persisted before changes that might refer to it
+    archives.values().forEach(MappedSegmentSource::flush);
     flusher.commit();
   }
 
   @Override
   public void close() {
     logger.info("Closing underlying database storage...");
+    archives.values().forEach(MappedSegmentSource::close);
+    try {
+      flusher.flush();
+      if (writeBehind != null) {
+        writeBehind.close();
+      }
+    } finally {
+      source.close();
+    }
+  }
+
+  @Override
+  public void compact() {
     flusher.flush();
-    source.close();
+    if (writeBehind != null) {
+      writeBehind.awaitWritten();
+    }
+    source.compact();
   }
 
   @VisibleForTesting
-  WriteBuffer<BytesValue, BytesValue> getWriteBuffer() {
+  CacheDataSource<BytesValue, BytesValue> getWriteBuffer() {
     return writeBuffer;
   }
 }
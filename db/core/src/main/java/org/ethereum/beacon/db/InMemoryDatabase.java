@@ -1,15 +1,24 @@
 package org.ethereum.beacon.db;
 
-import java.util.function.Function;
+import org.ethereum.beacon.db.source.DataSource;
 import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.ethereum.beacon.db.source.impl.PartitionDataSource;
+import tech.pegasys.artemis.util.bytes.BytesValue;
 
 /**
- * In memory database implementation based on {@link HashMapDataSource}.
+ * In memory database implementation based on sorted {@link HashMapDataSource}.
+ *
+ * <p>Storages are multiplexed by {@link PartitionDataSource}, hence, each of them supports ordered
+ * iteration.
  */
-public class InMemoryDatabase extends XorKeyDatabase {
+public class InMemoryDatabase implements Database {
 
-  public InMemoryDatabase() {
-    super(new HashMapDataSource<>(), Function.identity());
+  private final HashMapDataSource<BytesValue, BytesValue> backingDataSource =
+      HashMapDataSource.sorted();
+
+  @Override
+  public DataSource<BytesValue, BytesValue> createStorage(String name) {
+    return new PartitionDataSource<>(backingDataSource, name);
   }
 
   @Override
@@ -17,4 +26,8 @@ public class InMemoryDatabase extends XorKeyDatabase {
 
   @Override
   public void close() {}
+
+  public DataSource<BytesValue, BytesValue> getBackingDataSource() {
+    return backingDataSource;
+  }
 }
@@ -2,6 +2,7 @@ package org.ethereum.beacon.db.flush;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ethereum.beacon.db.source.CacheDataSource;
 import org.ethereum.beacon.db.source.WriteBuffer;
 
 /**
@@ -13,19 +14,19 @@ public class BufferSizeObserver implements DatabaseFlusher {
   private static final Logger logger = LogManager.getLogger(BufferSizeObserver.class);
 
   /** A buffer. */
-  private final WriteBuffer buffer;
+  private final CacheDataSource buffer;
   /** A commit track. Aids forced flushes consistency. */
   private final WriteBuffer commitTrack;
   /** A limit of buffer size in bytes. */
   private final long bufferSizeLimit;
 
-  BufferSizeObserver(WriteBuffer buffer, WriteBuffer commitTrack, long bufferSizeLimit) {
+  BufferSizeObserver(CacheDataSource buffer, WriteBuffer commitTrack, long bufferSizeLimit) {
     this.buffer = buffer;
     this.commitTrack = commitTrack;
     this.bufferSizeLimit = bufferSizeLimit;
   }
 
-  public static <K, V> BufferSizeObserver create(WriteBuffer<K, V> buffer, long bufferSizeLimit) {
+  public static <K, V> BufferSizeObserver create(CacheDataSource<K, V> buffer, long bufferSizeLimit) {
     WriteBuffer<K, V> commitTrack = new WriteBuffer<>(buffer, false);
     return new BufferSizeObserver(buffer, commitTrack, bufferSizeLimit);
   }
@@ -1,13 +1,13 @@
 package org.ethereum.beacon.db.flush;
 
-import org.ethereum.beacon.db.source.WriteBuffer;
+import org.ethereum.beacon.db.source.CacheDataSource;
 
 /** A trivial strategy that flushes data per each commit. */
 public class InstantFlusher implements DatabaseFlusher {
 
-  private final WriteBuffer buffer;
+  private final CacheDataSource buffer;
 
-  public InstantFlusher(WriteBuffer buffer) {
+  public InstantFlusher(CacheDataSource buffer) {
     this.buffer = buffer;
   }
 
@@ -0,0 +1,413 @@
+package org.ethereum.beacon.db.mmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.StorageEngineSource;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+import tech.pegasys.artemis.util.bytes.Bytes8;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+/**
+ * Append-only storage engine for immutable data like finalized blocks.
+ *
+ * <p>Keys are 8-byte big-endian indices, e.g. slot numbers, see {@link #key(long)}. Values are
+ * appended to a segment file each prefixed with its length, a dense index file keeps an offset of
+ * a value for each index. The segment file is memory-mapped in chunks of fixed size and values
+ * never cross chunk boundaries, hence, {@link #get(BytesValue)} returns a slice of a mapped buffer
+ * without copying the value to the heap.
+ *
+ * <p>An entry can't be overwritten or removed once it has been put. Entries may be put in any
+ * order, though, ascending one keeps the segment sorted by keys which suits sequential reads.
+ *
+ * <p>Appended values are persisted by {@link #flush()}, the index is written only after the
+ * segment has been forced to the disk. A crash may lose entries put after the last flush but never
+ * leaves an index entry pointing to a missing value.
+ */
+public class MappedSegmentSource implements StorageEngineSource<BytesValue> {
+
+  private static final Logger logger = LogManager.getLogger(MappedSegmentSource.class);
+
+  public static final int DEFAULT_CHUNK_SIZE = 64 << 20; // 64Mb
+
+  static final String SEGMENT_FILE = "segment.dat";
+  static final String INDEX_FILE = "index.dat";
+
+  private static final int LENGTH_SIZE = Integer.BYTES;
+  private static final int MAX_INDEX = Integer.MAX_VALUE - 8;
+  /** Index entries keep an offset plus one, zero marks a missing entry. */
+  private static final long NONE = 0;
+
+  private final Path dbPath;
+  private final int chunkSize;
+
+  private final ReadWriteLock dbLock = new ReentrantReadWriteLock();
+  private final AutoCloseableLock readLock = AutoCloseableLock.wrap(dbLock.readLock());
+  private final AutoCloseableLock writeLock = AutoCloseableLock.wrap(dbLock.writeLock());
+
+  private FileChannel segment;
+  private FileChannel index;
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+  private long[] offsets = new long[0];
+  /** A number of index entries, that is, the greatest index plus one. */
+  private int size = 0;
+  /** Entries below this index are not changed since the last flush. */
+  private int persistedSize = 0;
+  /** Index entries above persisted size that have been put since the last flush. */
+  private final List<Integer> pendingEntries = new ArrayList<>();
+  private long segmentEnd = 0;
+  private int firstDirtyChunk = Integer.MAX_VALUE;
+  private boolean opened = false;
+
+  public MappedSegmentSource(Path dbPath) {
+    this(dbPath, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param dbPath a directory keeping segment and index files.
+   * @param chunkSize a size of mapped chunks of the segment file, must be greater than the
+   *     greatest value stored.
+   */
+  public MappedSegmentSource(Path dbPath, int chunkSize) {
+    this.dbPath = dbPath;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Encodes an index as a key of this source.
+   *
+   * @param index an index.
+   * @return 8-byte big-endian key.
+   */
+  public static BytesValue key(long index) {
+    return Bytes8.longToBytes8(index);
+  }
+
+  @Override
+  public void open() {
+    try (AutoCloseableLock l = writeLock.lock()) {
+      if (opened) {
+        return;
+      }
+
+      Files.createDirectories(dbPath);
+      segment =
+          FileChannel.open(
+              dbPath.resolve(SEGMENT_FILE),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      index =
+          FileChannel.open(
+              dbPath.resolve(INDEX_FILE),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+
+      readIndex();
+      for (long position = 0; position < segment.size(); position += chunkSize) {
+        chunk((int) (position / chunkSize));
+      }
+      segmentEnd = 0;
+      for (int i = 0; i < size; i++) {
+        if (offsets[i] != NONE) {
+          long offset = offsets[i] - 1;
+          segmentEnd = Math.max(segmentEnd, offset + LENGTH_SIZE + readLength(offset));
+        }
+      }
+
+      opened = true;
+    } catch (IOException e) {
+      logger.error("Failed to open segment {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void readIndex() throws IOException {
+    // a trailing partially written entry is dropped
+    int entries = (int) (index.size() / Long.BYTES);
+    index.truncate((long) entries * Long.BYTES);
+
+    ByteBuffer buffer = ByteBuffer.allocate(entries * Long.BYTES);
+    while (buffer.hasRemaining()) {
+      if (index.read(buffer, buffer.position()) < 0) {
+        throw new IOException("Unexpected end of index file");
+      }
+    }
+    buffer.flip();
+
+    offsets = new long[Math.max(entries, 1024)];
+    buffer.asLongBuffer().get(offsets, 0, entries);
+    size = entries;
+    persistedSize = entries;
+  }
+
+  private MappedByteBuffer chunk(int i) throws IOException {
+    while (chunks.size() <= i) {
+      // mapping a region beyond the end extends the file
+      chunks.add(segment.map(MapMode.READ_WRITE, (long) chunks.size() * chunkSize, chunkSize));
+    }
+    return chunks.get(i);
+  }
+
+  private int readLength(long offset) {
+    return chunks.get((int) (offset / chunkSize)).getInt((int) (offset % chunkSize));
+  }
+
+  @Override
+  public void close() {
+    try (AutoCloseableLock l = writeLock.lock()) {
+      if (!opened) {
+        return;
+      }
+      doFlush();
+      // mapped buffers are released by GC, values returned by get() remain readable
+      chunks.clear();
+      segment.close();
+      index.close();
+      opened = false;
+    } catch (IOException e) {
+      logger.error("Failed to close segment {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Optional<BytesValue> get(@Nonnull BytesValue key) {
+    assert opened;
+    Objects.requireNonNull(key);
+
+    int i = toIndex(key);
+    try (AutoCloseableLock l = readLock.lock()) {
+      if (i >= size || offsets[i] == NONE) {
+        return Optional.empty();
+      }
+      long offset = offsets[i] - 1;
+      int position = (int) (offset % chunkSize);
+      ByteBuffer value = chunks.get((int) (offset / chunkSize)).duplicate();
+      int length = value.getInt(position);
+      value.limit(position + LENGTH_SIZE + length).position(position + LENGTH_SIZE);
+      return Optional.of(BytesValue.wrapBuffer(value));
+    }
+  }
+
+  /**
+   * Appends a value.
+   *
+   * @throws IllegalArgumentException if an entry with given key already exists or the value
+   *     doesn't fit a chunk.
+   */
+  @Override
+  public void put(@Nonnull BytesValue key, @Nonnull BytesValue value) {
+    assert opened;
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    try (AutoCloseableLock l = writeLock.lock()) {
+      append(toIndex(key), value);
+    } catch (IOException e) {
+      logger.error("Failed to put({}): {}", key, e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void append(int i, BytesValue value) throws IOException {
+    if (i < size && offsets[i] != NONE) {
+      throw new IllegalArgumentException("Entry " + i + " already exists in " + dbPath);
+    }
+    int length = LENGTH_SIZE + value.size();
+    if (length > chunkSize) {
+      throw new IllegalArgumentException(
+          "Value of " + value.size() + " bytes doesn't fit chunk of " + chunkSize + " bytes");
+    }
+
+    int chunkIndex = (int) (segmentEnd / chunkSize);
+    int position = (int) (segmentEnd % chunkSize);
+    if (position + length > chunkSize) {
+      chunkIndex += 1;
+      position = 0;
+    }
+    ByteBuffer buffer = chunk(chunkIndex).duplicate();
+    buffer.position(position);
+    buffer.putInt(value.size());
+    buffer.put(value.getArrayUnsafe());
+    firstDirtyChunk = Math.min(firstDirtyChunk, chunkIndex);
+
+    if (i >= offsets.length) {
+      offsets = Arrays.copyOf(offsets, Math.max(i + 1, offsets.length * 2));
+    }
+    offsets[i] = (long) chunkIndex * chunkSize + position + 1;
+    size = Math.max(size, i + 1);
+    if (i < persistedSize) {
+      pendingEntries.add(i);
+    }
+    segmentEnd = (long) chunkIndex * chunkSize + position + length;
+  }
+
+  /**
+   * Removal is not supported.
+   *
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public void remove(@Nonnull BytesValue key) {
+    throw new UnsupportedOperationException("Entries of " + dbPath + " can't be removed");
+  }
+
+  /**
+   * Appends values in ascending order of their keys.
+   *
+   * @throws UnsupportedOperationException if updates contain removals.
+   */
+  @Override
+  public void batchUpdate(Map<BytesValue, BytesValue> updates) {
+    assert opened;
+    try (AutoCloseableLock l = writeLock.lock()) {
+      for (Map.Entry<BytesValue, BytesValue> entry : new TreeMap<>(updates).entrySet()) {
+        if (entry.getValue() == null) {
+          throw new UnsupportedOperationException("Entries of " + dbPath + " can't be removed");
+        }
+        append(toIndex(entry.getKey()), entry.getValue());
+      }
+    } catch (IOException e) {
+      logger.error("Failed to do batchUpdate: {}", e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Iterates over entries existing at the moment of the call in ascending order of keys. Bounds
+   * are read as signed indices and are clamped to the range of existing entries.
+   */
+  @Override
+  public CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterate(
+      @Nullable BytesValue from, @Nullable BytesValue to) {
+    assert opened;
+    try (AutoCloseableLock l = readLock.lock()) {
+      int start = from == null ? 0 : toBound(from);
+      int end = to == null ? size : toBound(to);
+      return new SegmentIterator(start, end);
+    }
+  }
+
+  @Override
+  public void flush() {
+    assert opened;
+    try (AutoCloseableLock l = writeLock.lock()) {
+      doFlush();
+    } catch (IOException e) {
+      logger.error("Failed to flush segment {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void doFlush() throws IOException {
+    if (firstDirtyChunk == Integer.MAX_VALUE) {
+      return;
+    }
+    for (int i = firstDirtyChunk; i < chunks.size(); i++) {
+      chunks.get(i).force();
+    }
+    firstDirtyChunk = Integer.MAX_VALUE;
+
+    for (int i : pendingEntries) {
+      writeIndex(i, i + 1);
+    }
+    pendingEntries.clear();
+    writeIndex(persistedSize, size);
+    index.force(false);
+    persistedSize = size;
+  }
+
+  private void writeIndex(int from, int to) throws IOException {
+    if (from >= to) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((to - from) * Long.BYTES);
+    buffer.asLongBuffer().put(offsets, from, to - from);
+    long position = (long) from * Long.BYTES;
+    while (buffer.hasRemaining()) {
+      position += index.write(buffer, position);
+    }
+  }
+
+  private static int toIndex(BytesValue key) {
+    if (key.size() != Long.BYTES) {
+      throw new IllegalArgumentException("Expected 8-byte key but got " + key);
+    }
+    long index = BytesValues.extractLong(key);
+    if (index < 0 || index > MAX_INDEX) {
+      throw new IllegalArgumentException("Key is out of range: " + key);
+    }
+    return (int) index;
+  }
+
+  /** Converts a range bound to an index in {@code [0, size]}, must be called under a lock. */
+  private int toBound(BytesValue key) {
+    if (key.size() != Long.BYTES) {
+      throw new IllegalArgumentException("Expected 8-byte key but got " + key);
+    }
+    long index = BytesValues.extractLong(key);
+    return (int) Math.max(0, Math.min(index, size));
+  }
+
+  /** Reads values lazily, entries that are put after the iterator is created are not visited. */
+  private class SegmentIterator implements CloseableIterator<Map.Entry<BytesValue, BytesValue>> {
+
+    private final int end;
+    private int next;
+    @Nullable private Map.Entry<BytesValue, BytesValue> entry;
+
+    SegmentIterator(int start, int end) {
+      this.next = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (entry == null && next < end) {
+        BytesValue key = key(next++);
+        entry = get(key).map(value -> new SimpleImmutableEntry<>(key, value)).orElse(null);
+      }
+      return entry != null;
+    }
+
+    @Override
+    public Map.Entry<BytesValue, BytesValue> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<BytesValue, BytesValue> ret = entry;
+      entry = null;
+      return ret;
+    }
+
+    @Override
+    public void close() {
+      next = end;
+      entry = null;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package org.ethereum.beacon.db.rocksdb;
+
+import com.google.common.base.MoreObjects;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+
+/**
+ * Tuning of a column family that backs a partition of {@link RocksDbSource}.
+ *
+ * <p>Instances are immutable, use {@code with*} methods to derive a modified copy.
+ */
+public class ColumnFamilyConfig {
+
+  /** Settings that are used by default, equal to those the database had before partitioning. */
+  public static final ColumnFamilyConfig DEFAULT =
+      new ColumnFamilyConfig(16 * 1024, 32 << 20, 10, 64 << 20, CompressionType.LZ4_COMPRESSION);
+
+  /**
+   * Suits storages with tiny entries like indices: small blocks make point lookups cheaper, while
+   * small write buffer keeps memtable from holding too much of a cold data.
+   */
+  public static final ColumnFamilyConfig SMALL_VALUES =
+      new ColumnFamilyConfig(4 * 1024, 8 << 20, 10, 16 << 20, CompressionType.LZ4_COMPRESSION);
+
+  /**
+   * Suits storages with values that are hundreds of kilobytes or larger, like serialized states.
+   * Large blocks reduce index size, large write buffer reduces a number of flushes and compactions.
+   */
+  public static final ColumnFamilyConfig LARGE_VALUES =
+      new ColumnFamilyConfig(64 * 1024, 64 << 20, 6, 128 << 20, CompressionType.ZSTD_COMPRESSION);
+
+  private final long blockSize;
+  private final long blockCacheSize;
+  private final int bloomBitsPerKey;
+  private final long writeBufferSize;
+  private final CompressionType compressionType;
+
+  public ColumnFamilyConfig(
+      long blockSize,
+      long blockCacheSize,
+      int bloomBitsPerKey,
+      long writeBufferSize,
+      CompressionType compressionType) {
+    this.blockSize = blockSize;
+    this.blockCacheSize = blockCacheSize;
+    this.bloomBitsPerKey = bloomBitsPerKey;
+    this.writeBufferSize = writeBufferSize;
+    this.compressionType = compressionType;
+  }
+
+  public ColumnFamilyConfig withBlockSize(long blockSize) {
+    return new ColumnFamilyConfig(
+        blockSize, blockCacheSize, bloomBitsPerKey, writeBufferSize, compressionType);
+  }
+
+  public ColumnFamilyConfig withBlockCacheSize(long blockCacheSize) {
+    return new ColumnFamilyConfig(
+        blockSize, blockCacheSize, bloomBitsPerKey, writeBufferSize, compressionType);
+  }
+
+  public ColumnFamilyConfig withBloomBitsPerKey(int bloomBitsPerKey) {
+    return new ColumnFamilyConfig(
+        blockSize, blockCacheSize, bloomBitsPerKey, writeBufferSize, compressionType);
+  }
+
+  public ColumnFamilyConfig withWriteBufferSize(long writeBufferSize) {
+    return new ColumnFamilyConfig(
+        blockSize, blockCacheSize, bloomBitsPerKey, writeBufferSize, compressionType);
+  }
+
+  public ColumnFamilyConfig withCompressionType(CompressionType compressionType) {
+    return new ColumnFamilyConfig(
+        blockSize, blockCacheSize, bloomBitsPerKey, writeBufferSize, compressionType);
+  }
+
+  public long getBlockSize() {
+    return blockSize;
+  }
+
+  public long getBlockCacheSize() {
+    return blockCacheSize;
+  }
+
+  public int getBloomBitsPerKey() {
+    return bloomBitsPerKey;
+  }
+
+  public long getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
+  public CompressionType getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * Creates column family options with this config applied.
+   *
+   * <p><strong>Note:</strong> returned object holds native resources and MUST be closed by the
+   * caller after column family is closed.
+   *
+   * @return column family options.
+   */
+  ColumnFamilyOptions toOptions() {
+    ColumnFamilyOptions options = new ColumnFamilyOptions();
+    options.setCompressionType(compressionType);
+    options.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+    options.setLevelCompactionDynamicLevelBytes(true);
+    options.setWriteBufferSize(writeBufferSize);
+
+    BlockBasedTableConfig tableCfg = new BlockBasedTableConfig();
+    tableCfg.setBlockSize(blockSize);
+    tableCfg.setBlockCacheSize(blockCacheSize);
+    tableCfg.setCacheIndexAndFilterBlocks(true);
+    tableCfg.setPinL0FilterAndIndexBlocksInCache(true);
+    if (bloomBitsPerKey > 0) {
+      tableCfg.setFilter(new BloomFilter(bloomBitsPerKey, false));
+    }
+    options.setTableFormatConfig(tableCfg);
+
+    return options;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("blockSize", blockSize)
+        .add("blockCacheSize", blockCacheSize)
+        .add("bloomBitsPerKey", bloomBitsPerKey)
+        .add("writeBufferSize", writeBufferSize)
+        .add("compressionType", compressionType)
+        .toString();
+  }
+}
@@ -1,46 +1,137 @@
 package org.ethereum.beacon.db.rocksdb;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.ethereum.beacon.db.source.StorageEngineSource;
+import org.ethereum.beacon.db.source.BatchUpdateDataSource;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.PartitionedStorageEngineSource;
 import org.ethereum.beacon.db.util.AutoCloseableLock;
-import org.rocksdb.BlockBasedTableConfig;
-import org.rocksdb.BloomFilter;
-import org.rocksdb.CompressionType;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import tech.pegasys.artemis.util.bytes.BytesValue;
 
 /**
  * Data source supplied by <a href="https://github.com/facebook/rocksdb">RocksDB</a> storage engine.
+ *
+ * <p>Partitions are backed by column families. Each column family is tuned with {@link
+ * ColumnFamilyConfig} supplied for its name or with {@link ColumnFamilyConfig#DEFAULT} if no config
+ * has been supplied. Methods of {@link org.ethereum.beacon.db.source.StorageEngineSource} operate
+ * on the default column family.
+ *
+ * <p>Iterators that are still open when the source gets closed are closed forcibly.
  */
-public class RocksDbSource implements StorageEngineSource<BytesValue> {
+public class RocksDbSource implements PartitionedStorageEngineSource<BytesValue> {
 
   private static final Logger logger = LogManager.getLogger(RocksDbSource.class);
 
+  private static final String DEFAULT_PARTITION =
+      new String(RocksDB.DEFAULT_COLUMN_FAMILY, StandardCharsets.UTF_8);
+
   private ReadOptions readOptions;
   private final Path dbPath;
+  private final Map<String, ColumnFamilyConfig> partitionConfigs;
 
   private final ReadWriteLock dbLock = new ReentrantReadWriteLock();
   private final AutoCloseableLock crudLock = AutoCloseableLock.wrap(dbLock.readLock());
   private final AutoCloseableLock openCloseLock = AutoCloseableLock.wrap(dbLock.writeLock());
 
+  private final Map<String, ColumnFamilyHandle> columnFamilies = new ConcurrentHashMap<>();
+  private final List<ColumnFamilyOptions> columnFamilyOptions =
+      Collections.synchronizedList(new ArrayList<>());
+
+  private final Set<RocksDbIterator> openIterators = ConcurrentHashMap.newKeySet();
+
   private RocksDB db;
-  private boolean opened = false;
+  private volatile boolean opened = false;
+  private volatile boolean layoutMarked = false;
 
   public RocksDbSource(Path dbPath) {
+    this(dbPath, Collections.emptyMap());
+  }
+
+  /**
+   * @param dbPath path to database folder.
+   * @param partitionConfigs partition name to column family config map.
+   */
+  public RocksDbSource(Path dbPath, Map<String, ColumnFamilyConfig> partitionConfigs) {
     this.dbPath = dbPath;
+    this.partitionConfigs = partitionConfigs;
+  }
+
+  /**
+   * A key of default column family which marks a database that keeps its storages in partitions.
+   * Keys of legacy databases are 32 bytes long, hence, the marker can't collide with them.
+   */
+  private static final byte[] LAYOUT_KEY =
+      "beacon-chain-java.layout".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] PARTITIONED_LAYOUT = "partitioned".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Checks whether database at given path has been created without partitions, i.e. all logical
+   * storages of such a database share one key space and must be accessed accordingly.
+   *
+   * <p>A database is partitioned if it has the layout marker or column families other than the
+   * default one. A database having neither but holding no data is a partitioned one which has
+   * not been written to yet.
+   *
+   * @param dbPath path to database folder.
+   * @return {@code true} if database exists, has no layout marker, has nothing but default column
+   *     family and the family is not empty, {@code false} otherwise.
+   */
+  public static boolean isSinglePartition(Path dbPath) {
+    if (!Files.exists(dbPath.resolve("CURRENT"))) {
+      return false;
+    }
+
+    RocksDB.loadLibrary();
+    try (Options options = new Options()) {
+      if (RocksDB.listColumnFamilies(options, dbPath.toString()).size() > 1) {
+        return false;
+      }
+
+      try (RocksDB db = RocksDB.openReadOnly(options, dbPath.toString());
+          RocksIterator iterator = db.newIterator()) {
+        if (db.get(LAYOUT_KEY) != null) {
+          return false;
+        }
+        iterator.seekToFirst();
+        return iterator.isValid();
+      }
+    } catch (RocksDBException e) {
+      logger.error("Failed to read layout of {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
   }
 
   @Override
@@ -51,68 +142,219 @@ public class RocksDbSource implements StorageEngineSource<BytesValue> {
 
     RocksDB.loadLibrary();
     try (AutoCloseableLock l = openCloseLock.lock();
-        Options options = new Options()) {
+        DBOptions options = new DBOptions()) {
+      if (opened) {
+        return;
+      }
+
       options.setCreateIfMissing(true);
-      options.setCompressionType(CompressionType.LZ4_COMPRESSION);
-      options.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
-      options.setLevelCompactionDynamicLevelBytes(true);
+      options.setCreateMissingColumnFamilies(true);
       options.setMaxOpenFiles(512);
       options.setIncreaseParallelism(Math.min(1, Runtime.getRuntime().availableProcessors() / 2));
 
-      final BlockBasedTableConfig tableCfg = new BlockBasedTableConfig();
-      tableCfg.setBlockSize(16 * 1024);
-      tableCfg.setBlockCacheSize(32 * 1024 * 1024);
-      tableCfg.setCacheIndexAndFilterBlocks(true);
-      tableCfg.setPinL0FilterAndIndexBlocksInCache(true);
-      tableCfg.setFilter(new BloomFilter(10, false));
-      options.setTableFormatConfig(tableCfg);
+      List<String> names = new ArrayList<>();
+      names.add(DEFAULT_PARTITION);
+      if (Files.exists(dbPath.resolve("CURRENT"))) {
+        try (Options listOptions = new Options()) {
+          for (byte[] name : RocksDB.listColumnFamilies(listOptions, dbPath.toString())) {
+            String partition = new String(name, StandardCharsets.UTF_8);
+            if (!names.contains(partition)) {
+              names.add(partition);
+            }
+          }
+        }
+      }
+
+      List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+      for (String name : names) {
+        descriptors.add(
+            new ColumnFamilyDescriptor(name.getBytes(StandardCharsets.UTF_8), createOptions(name)));
+      }
 
       readOptions = new ReadOptions();
       readOptions = readOptions.setPrefixSameAsStart(true);
 
-      db = RocksDB.open(options, dbPath.toString());
+      List<ColumnFamilyHandle> handles = new ArrayList<>();
+      db = RocksDB.open(options, dbPath.toString(), descriptors, handles);
+      for (int i = 0; i < names.size(); i++) {
+        columnFamilies.put(names.get(i), handles.get(i));
+      }
+      layoutMarked = db.get(LAYOUT_KEY) != null;
+
       opened = true;
+      if (names.size() > 1) {
+        markPartitioned();
+      }
     } catch (RocksDBException e) {
       logger.error("Failed to open database {}: {}", dbPath.toString(), e.getMessage());
       throw new RuntimeException(e);
     }
   }
 
+  private ColumnFamilyOptions createOptions(String partition) {
+    ColumnFamilyConfig config =
+        partitionConfigs.getOrDefault(partition, ColumnFamilyConfig.DEFAULT);
+    ColumnFamilyOptions options = config.toOptions();
+    columnFamilyOptions.add(options);
+    return options;
+  }
+
+  /** Persists the layout marker once a database starts using partitions. */
+  private void markPartitioned() {
+    if (layoutMarked) {
+      return;
+    }
+    try {
+      db.put(LAYOUT_KEY, PARTITIONED_LAYOUT);
+      layoutMarked = true;
+    } catch (RocksDBException e) {
+      logger.error("Failed to mark layout of {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private ColumnFamilyHandle columnFamily(String partition) {
+    if (!DEFAULT_PARTITION.equals(partition)) {
+      markPartitioned();
+    }
+    return columnFamilies.computeIfAbsent(
+        partition,
+        name -> {
+          try {
+            logger.info("Creating column family {} in {}", name, dbPath.toString());
+            return db.createColumnFamily(
+                new ColumnFamilyDescriptor(
+                    name.getBytes(StandardCharsets.UTF_8), createOptions(name)));
+          } catch (RocksDBException e) {
+            logger.error("Failed to create column family {}: {}", name, e.getMessage());
+            throw new RuntimeException(e);
+          }
+        });
+  }
+
   @Override
   public void close() {
     try (AutoCloseableLock l = openCloseLock.lock()) {
+      if (!opened) {
+        return;
+      }
+      openIterators.forEach(RocksDbIterator::close);
+      columnFamilies.values().forEach(ColumnFamilyHandle::close);
+      columnFamilies.clear();
       db.close();
+      columnFamilyOptions.forEach(ColumnFamilyOptions::close);
+      columnFamilyOptions.clear();
+      readOptions.close();
       opened = false;
     }
   }
 
   @Override
-  public void batchUpdate(Map<BytesValue, BytesValue> updates) {
+  public void compact() {
+    assert opened;
+    long s = System.nanoTime();
+    try (AutoCloseableLock l = crudLock.lock()) {
+      for (ColumnFamilyHandle columnFamily : columnFamilies.values()) {
+        db.compactRange(columnFamily);
+      }
+    } catch (RocksDBException e) {
+      logger.error("Failed to compact {}: {}", dbPath.toString(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+    logger.info(
+        "Compacted {} in {}s",
+        dbPath.toString(),
+        String.format("%.3f", (System.nanoTime() - s) / 1_000_000_000d));
+  }
+
+  @Override
+  public BatchUpdateDataSource<BytesValue, BytesValue> getPartition(String name) {
+    assert opened;
+    return new Partition(name);
+  }
+
+  @Override
+  public void batchUpdatePartitions(Map<String, Map<BytesValue, BytesValue>> updates) {
     assert opened;
     try (AutoCloseableLock l = crudLock.lock();
         WriteBatch batch = new WriteBatch();
         WriteOptions writeOptions = new WriteOptions()) {
-      for (Map.Entry<BytesValue, BytesValue> entry : updates.entrySet()) {
-        if (entry.getValue() == null) {
-          batch.remove(entry.getKey().getArrayUnsafe());
-        } else {
-          batch.put(entry.getKey().getArrayUnsafe(), entry.getValue().getArrayUnsafe());
-        }
+      for (Map.Entry<String, Map<BytesValue, BytesValue>> partition : updates.entrySet()) {
+        fillBatch(batch, columnFamily(partition.getKey()), partition.getValue());
       }
       db.write(writeOptions, batch);
     } catch (RocksDBException e) {
-      logger.error("Failed to do batchUpdate: {}", e.getMessage());
+      logger.error("Failed to do batchUpdatePartitions: {}", e.getMessage());
       throw new RuntimeException(e);
     }
   }
 
+  @Override
+  public void batchUpdate(Map<BytesValue, BytesValue> updates) {
+    batchUpdate(DEFAULT_PARTITION, updates);
+  }
+
   @Override
   public Optional<BytesValue> get(@Nonnull BytesValue key) {
+    return get(DEFAULT_PARTITION, key);
+  }
+
+  @Override
+  public Map<BytesValue, BytesValue> getAll(@Nonnull Collection<BytesValue> keys) {
+    return getAll(DEFAULT_PARTITION, keys);
+  }
+
+  @Override
+  public void put(@Nonnull BytesValue key, @Nonnull BytesValue value) {
+    put(DEFAULT_PARTITION, key, value);
+  }
+
+  @Override
+  public void remove(@Nonnull BytesValue key) {
+    remove(DEFAULT_PARTITION, key);
+  }
+
+  @Override
+  public CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterate(
+      @Nullable BytesValue from, @Nullable BytesValue to) {
+    return iterate(DEFAULT_PARTITION, from, to);
+  }
+
+  @Override
+  public void flush() {
+    // flushes are managed by RocksDB
+  }
+
+  private void fillBatch(
+      WriteBatch batch, ColumnFamilyHandle columnFamily, Map<BytesValue, BytesValue> updates) {
+    for (Map.Entry<BytesValue, BytesValue> entry : updates.entrySet()) {
+      if (entry.getValue() == null) {
+        batch.remove(columnFamily, entry.getKey().getArrayUnsafe());
+      } else {
+        batch.put(columnFamily, entry.getKey().getArrayUnsafe(), entry.getValue().getArrayUnsafe());
+      }
+    }
+  }
+
+  private void batchUpdate(String partition, Map<BytesValue, BytesValue> updates) {
+    assert opened;
+    try (AutoCloseableLock l = crudLock.lock();
+        WriteBatch batch = new WriteBatch();
+        WriteOptions writeOptions = new WriteOptions()) {
+      fillBatch(batch, columnFamily(partition), updates);
+      db.write(writeOptions, batch);
+    } catch (RocksDBException e) {
+      logger.error("Failed to do batchUpdate: {}", e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Optional<BytesValue> get(String partition, @Nonnull BytesValue key) {
     assert opened;
     Objects.requireNonNull(key);
 
     try (AutoCloseableLock l = crudLock.lock()) {
-      return Optional.ofNullable(db.get(readOptions, key.getArrayUnsafe()))
+      return Optional.ofNullable(db.get(columnFamily(partition), readOptions, key.getArrayUnsafe()))
           .flatMap(bytes -> Optional.of(BytesValue.wrap(bytes)));
     } catch (RocksDBException e) {
       logger.error("Failed to get({}): {}", key, e.getMessage());
@@ -120,35 +362,177 @@ public class RocksDbSource implements StorageEngineSource<BytesValue> {
     }
   }
 
-  @Override
-  public void put(@Nonnull BytesValue key, @Nonnull BytesValue value) {
+  private Map<BytesValue, BytesValue> getAll(
+      String partition, @Nonnull Collection<BytesValue> keys) {
+    assert opened;
+    if (keys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    // multiGet result is keyed by identity of passed arrays
+    Map<byte[], BytesValue> requested = new IdentityHashMap<>();
+    for (BytesValue key : new LinkedHashSet<>(keys)) {
+      requested.put(key.extractArray(), key);
+    }
+    List<byte[]> keyList = new ArrayList<>(requested.keySet());
+
+    try (AutoCloseableLock l = crudLock.lock()) {
+      List<ColumnFamilyHandle> handles =
+          Collections.nCopies(keyList.size(), columnFamily(partition));
+      Map<byte[], byte[]> found = db.multiGet(readOptions, handles, keyList);
+      Map<BytesValue, BytesValue> ret = new HashMap<>();
+      for (Map.Entry<byte[], byte[]> entry : found.entrySet()) {
+        BytesValue key = requested.get(entry.getKey());
+        if (key != null && entry.getValue() != null) {
+          ret.put(key, BytesValue.wrap(entry.getValue()));
+        }
+      }
+      return ret;
+    } catch (RocksDBException e) {
+      logger.error("Failed to getAll({} keys): {}", keyList.size(), e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void put(String partition, @Nonnull BytesValue key, @Nonnull BytesValue value) {
     assert opened;
     Objects.requireNonNull(key);
     Objects.requireNonNull(value);
 
     try (AutoCloseableLock l = crudLock.lock()) {
-      db.put(key.getArrayUnsafe(), value.getArrayUnsafe());
+      db.put(columnFamily(partition), key.getArrayUnsafe(), value.getArrayUnsafe());
     } catch (RocksDBException e) {
       logger.error("Failed to put({}, {}): {}", key, value, e.getMessage());
       throw new RuntimeException(e);
     }
   }
 
-  @Override
-  public void remove(@Nonnull BytesValue key) {
+  private void remove(String partition, @Nonnull BytesValue key) {
     assert opened;
     Objects.requireNonNull(key);
 
     try (AutoCloseableLock l = crudLock.lock()) {
-      db.delete(key.getArrayUnsafe());
+      db.delete(columnFamily(partition), key.getArrayUnsafe());
     } catch (RocksDBException e) {
       logger.error("Failed to remove({}): {}", key, e.getMessage());
       throw new RuntimeException(e);
     }
   }
 
-  @Override
-  public void flush() {
-    // flushes are managed by RocksDB
+  private CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterate(
+      String partition, @Nullable BytesValue from, @Nullable BytesValue to) {
+    assert opened;
+
+    try (AutoCloseableLock l = crudLock.lock()) {
+      RocksIterator iterator = db.newIterator(columnFamily(partition));
+      if (from != null) {
+        iterator.seek(from.getArrayUnsafe());
+      } else {
+        iterator.seekToFirst();
+      }
+
+      RocksDbIterator ret = new RocksDbIterator(iterator, to);
+      openIterators.add(ret);
+      return ret;
+    }
+  }
+
+  /**
+   * Wraps native iterator. Native resources are released once iterator is exhausted or closed.
+   *
+   * <p>Methods are synchronized as the iterator could be closed by {@link #close()} of the source
+   * from another thread.
+   */
+  private class RocksDbIterator implements CloseableIterator<Map.Entry<BytesValue, BytesValue>> {
+
+    private final RocksIterator iterator;
+    @Nullable private final BytesValue upperBound;
+    private boolean closed = false;
+
+    RocksDbIterator(RocksIterator iterator, @Nullable BytesValue upperBound) {
+      this.iterator = iterator;
+      this.upperBound = upperBound;
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+      if (closed) {
+        return false;
+      }
+      if (!iterator.isValid()
+          || (upperBound != null && BytesValue.wrap(iterator.key()).compareTo(upperBound) >= 0)) {
+        close();
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public synchronized Map.Entry<BytesValue, BytesValue> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<BytesValue, BytesValue> entry =
+          new SimpleImmutableEntry<>(
+              BytesValue.wrap(iterator.key()), BytesValue.wrap(iterator.value()));
+      iterator.next();
+      return entry;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      openIterators.remove(this);
+      iterator.close();
+    }
+  }
+
+  /** A view on a single column family. */
+  private class Partition implements BatchUpdateDataSource<BytesValue, BytesValue> {
+
+    private final String name;
+
+    Partition(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void batchUpdate(Map<BytesValue, BytesValue> updates) {
+      RocksDbSource.this.batchUpdate(name, updates);
+    }
+
+    @Override
+    public Optional<BytesValue> get(@Nonnull BytesValue key) {
+      return RocksDbSource.this.get(name, key);
+    }
+
+    @Override
+    public Map<BytesValue, BytesValue> getAll(@Nonnull Collection<BytesValue> keys) {
+      return RocksDbSource.this.getAll(name, keys);
+    }
+
+    @Override
+    public void put(@Nonnull BytesValue key, @Nonnull BytesValue value) {
+      RocksDbSource.this.put(name, key, value);
+    }
+
+    @Override
+    public void remove(@Nonnull BytesValue key) {
+      RocksDbSource.this.remove(name, key);
+    }
+
+    @Override
+    public CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterate(
+        @Nullable BytesValue from, @Nullable BytesValue to) {
+      return RocksDbSource.this.iterate(name, from, to);
+    }
+
+    @Override
+    public void flush() {
+      // flushes are managed by RocksDB
+    }
   }
 }
@@ -1,9 +1,11 @@
 package org.ethereum.beacon.db.source;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * A clue in between {@link DataSource} of any kind and {@link BatchUpdateDataSource}.
@@ -30,6 +32,17 @@ public class BatchWriter<KeyType, ValueType>
     return getUpstream().get(key);
   }
 
+  @Override
+  public Map<KeyType, ValueType> getAll(@Nonnull Collection<KeyType> keys) {
+    return getUpstream().getAll(keys);
+  }
+
+  @Override
+  public CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable KeyType from, @Nullable KeyType to) {
+    return getUpstream().iterate(from, to);
+  }
+
   @Override
   public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
     buffer.put(key, value);
@@ -0,0 +1,98 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.impl.LruCache;
+import org.ethereum.beacon.db.source.impl.TinyLfuCache;
+
+/**
+ * An in-memory key-value store bounded by evaluated size of its entries. When the bound is
+ * exceeded entries are evicted according to the policy of an implementation.
+ *
+ * <p><strong>Note:</strong> implementations are not thread-safe.
+ *
+ * @param <KeyType> a key type.
+ * @param <ValueType> a value type.
+ * @see ReadCache
+ */
+public interface BoundedCache<KeyType, ValueType> {
+
+  /**
+   * Returns cached value and registers an access to it.
+   *
+   * @param key a key.
+   * @return a value or {@code null} if it's not cached.
+   */
+  @Nullable
+  ValueType get(@Nonnull KeyType key);
+
+  /**
+   * Returns cached value without registering an access to it.
+   *
+   * @param key a key.
+   * @return a value or {@code null} if it's not cached.
+   */
+  @Nullable
+  ValueType peek(@Nonnull KeyType key);
+
+  /**
+   * Puts entry to the cache evicting other entries if needed. An entry which size exceeds the
+   * bound of the cache is not cached at all.
+   *
+   * @param key a key.
+   * @param value a value.
+   */
+  void put(@Nonnull KeyType key, @Nonnull ValueType value);
+
+  /**
+   * Removes entry from the cache. Doesn't count as an eviction.
+   *
+   * @param key a key.
+   */
+  void invalidate(@Nonnull KeyType key);
+
+  /** Removes all entries from the cache. */
+  void invalidateAll();
+
+  /** @return a number of entries in the cache. */
+  int size();
+
+  /** @return total evaluated size of cached entries in bytes. */
+  long getEvaluatedSize();
+
+  /** @return a number of entries evicted since the cache has been created. */
+  long getEvictionCount();
+
+  /**
+   * Creates a cache which evicts least recently used entries.
+   *
+   * @param maxSize max evaluated size in bytes.
+   * @param keyEvaluator key size evaluator.
+   * @param valueEvaluator value size evaluator.
+   * @return a new instance.
+   */
+  static <KeyType, ValueType> BoundedCache<KeyType, ValueType> lru(
+      long maxSize,
+      Function<KeyType, Long> keyEvaluator,
+      Function<ValueType, Long> valueEvaluator) {
+    return new LruCache<>(maxSize, keyEvaluator, valueEvaluator);
+  }
+
+  /**
+   * Creates a cache with W-TinyLFU policy, i.e. newcomers get into a small LRU window and are
+   * admitted to the main area only if they are accessed more frequently than an eviction victim.
+   * It resists scans that would flush an LRU cache.
+   *
+   * @param maxSize max evaluated size in bytes.
+   * @param keyEvaluator key size evaluator.
+   * @param valueEvaluator value size evaluator.
+   * @return a new instance.
+   */
+  static <KeyType, ValueType> BoundedCache<KeyType, ValueType> tinyLfu(
+      long maxSize,
+      Function<KeyType, Long> keyEvaluator,
+      Function<ValueType, Long> valueEvaluator) {
+    return new TinyLfuCache<>(maxSize, keyEvaluator, valueEvaluator);
+  }
+}
@@ -0,0 +1,76 @@
+package org.ethereum.beacon.db.source;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of {@link ReadCache} counters.
+ *
+ * @see ReadCache#getStats()
+ */
+public class CacheStats {
+
+  private final String name;
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int entryCount;
+  private final long evaluatedSize;
+
+  public CacheStats(
+      String name,
+      long hitCount,
+      long missCount,
+      long evictionCount,
+      int entryCount,
+      long evaluatedSize) {
+    this.name = name;
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.entryCount = entryCount;
+    this.evaluatedSize = evaluatedSize;
+  }
+
+  /** @return a name of the storage that is cached. */
+  public String getName() {
+    return name;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  public long getEvaluatedSize() {
+    return evaluatedSize;
+  }
+
+  /** @return a ratio of hits to all the reads, or {@code 1.0} if there were no reads. */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("name", name)
+        .add("hits", hitCount)
+        .add("misses", missCount)
+        .add("evictions", evictionCount)
+        .add("entries", entryCount)
+        .add("size", evaluatedSize)
+        .toString();
+  }
+}
@@ -0,0 +1,76 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * An iterator which may hold resources of underlying storage, like native iterators or snapshots.
+ *
+ * <p><strong>Note:</strong> an iterator MUST be closed after use, best with try-with-resources
+ * statement.
+ *
+ * @param <T> an element type.
+ * @see DataSource#iterate(Object, Object)
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+
+  /** Releases underlying resources. Subsequent {@link #hasNext()} calls return {@code false}. */
+  @Override
+  void close();
+
+  /**
+   * Creates an iterator that applies given function to each element of this iterator.
+   *
+   * @param mapper a function.
+   * @param <R> a type of new elements.
+   * @return new iterator which closes this iterator when gets closed.
+   */
+  default <R> CloseableIterator<R> map(Function<? super T, ? extends R> mapper) {
+    CloseableIterator<T> self = this;
+    return new CloseableIterator<R>() {
+      @Override
+      public boolean hasNext() {
+        return self.hasNext();
+      }
+
+      @Override
+      public R next() {
+        return mapper.apply(self.next());
+      }
+
+      @Override
+      public void close() {
+        self.close();
+      }
+    };
+  }
+
+  /**
+   * Wraps an iterator that holds no resources.
+   *
+   * @param iterator an iterator.
+   * @param <T> an element type.
+   * @return closeable iterator.
+   */
+  static <T> CloseableIterator<T> wrap(Iterator<T> iterator) {
+    return new CloseableIterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  static <T> CloseableIterator<T> empty() {
+    return wrap(Collections.emptyIterator());
+  }
+}
@@ -1,8 +1,14 @@
 package org.ethereum.beacon.db.source;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -17,7 +23,11 @@ import static java.util.Objects.requireNonNull;
 public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
     AbstractLinkedDataSource<KeyType, ValueType, UpKeyType, UpValueType> {
 
+  /** Results of {@link #getAll(Collection)} of this size and bigger are decoded in parallel */
+  static final int PARALLEL_DECODE_THRESHOLD = 32;
+
   private final Function<KeyType, UpKeyType> keyCoder;
+  @Nullable private final Function<UpKeyType, KeyType> keyDecoder;
   private final Function<ValueType, UpValueType> valueCoder;
   private final Function<UpValueType, ValueType> valueDecoder;
 
@@ -38,8 +48,24 @@ public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
                      @Nonnull final Function<KeyType, UpKeyType> keyCoder,
                      @Nonnull final Function<ValueType, UpValueType> valueCoder,
                      @Nonnull final Function<UpValueType, ValueType> valueDecoder) {
+    this(upstreamSource, keyCoder, null, valueCoder, valueDecoder);
+  }
+
+  /**
+   * Creates a codec which is also capable of {@link #iterate(Object, Object)}
+   * @param keyDecoder Converts upstream UpKeyType back to target KeyType.
+   *                   Ordered iteration makes sense only if keyCoder preserves the order of keys.
+   *                   If <code>null</code> is passed iteration is not supported
+   * @see #CodecSource(DataSource, Function, Function, Function)
+   */
+  public CodecSource(@Nonnull final DataSource<UpKeyType, UpValueType> upstreamSource,
+                     @Nonnull final Function<KeyType, UpKeyType> keyCoder,
+                     @Nullable final Function<UpKeyType, KeyType> keyDecoder,
+                     @Nonnull final Function<ValueType, UpValueType> valueCoder,
+                     @Nonnull final Function<UpValueType, ValueType> valueDecoder) {
     super(upstreamSource, true);
     this.keyCoder = requireNonNull(keyCoder);
+    this.keyDecoder = keyDecoder;
     this.valueCoder = requireNonNull(valueCoder);
     this.valueDecoder = requireNonNull(valueDecoder);
   }
@@ -49,6 +75,33 @@ public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
     return getUpstream().get(keyCoder.apply(key)).map(valueDecoder);
   }
 
+  @Override
+  public Map<KeyType, ValueType> getAll(@Nonnull final Collection<KeyType> keys) {
+    Map<UpKeyType, KeyType> upKeys = encodeKeys(keys);
+    Map<UpKeyType, UpValueType> upValues = getUpstream().getAll(upKeys.keySet());
+    if (upValues.size() < PARALLEL_DECODE_THRESHOLD) {
+      Map<KeyType, ValueType> ret = new HashMap<>();
+      upValues.forEach((upKey, upValue) -> ret.put(upKeys.get(upKey), valueDecoder.apply(upValue)));
+      return ret;
+    }
+    return upValues.entrySet().parallelStream()
+        .collect(Collectors.toMap(
+            entry -> upKeys.get(entry.getKey()), entry -> valueDecoder.apply(entry.getValue())));
+  }
+
+  /**
+   * Encodes keys remembering the origin of each upstream key
+   * @param keys Target keys
+   * @return upstream key to target key map
+   */
+  protected Map<UpKeyType, KeyType> encodeKeys(@Nonnull final Collection<KeyType> keys) {
+    Map<UpKeyType, KeyType> upKeys = new HashMap<>();
+    for (KeyType key : keys) {
+      upKeys.put(keyCoder.apply(key), key);
+    }
+    return upKeys;
+  }
+
   @Override
   public void put(@Nonnull final KeyType key, @Nonnull final ValueType value) {
     getUpstream().put(keyCoder.apply(key), valueCoder.apply(value));
@@ -59,6 +112,19 @@ public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
     getUpstream().remove(keyCoder.apply(key));
   }
 
+  @Override
+  public CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable final KeyType from, @Nullable final KeyType to) {
+    if (keyDecoder == null) {
+      throw new UnsupportedOperationException(
+          getClass().getSimpleName() + " can't iterate without key decoder");
+    }
+    return getUpstream()
+        .iterate(from == null ? null : keyCoder.apply(from), to == null ? null : keyCoder.apply(to))
+        .map(entry -> new SimpleImmutableEntry<>(
+            keyDecoder.apply(entry.getKey()), valueDecoder.apply(entry.getValue())));
+  }
+
   /**
    * Shortcut {@link CodecSource} subclass when only key conversion is needed
    */
@@ -66,7 +132,23 @@ public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
       CodecSource<KeyType, ValueType, UpKeyType, ValueType> {
     public KeyOnly(@Nonnull final DataSource<UpKeyType, ValueType> upstreamSource,
                    @Nonnull final Function<KeyType, UpKeyType> keyCoder) {
-      super(upstreamSource, keyCoder, Function.identity(), Function.identity());
+      this(upstreamSource, keyCoder, null);
+    }
+
+    public KeyOnly(@Nonnull final DataSource<UpKeyType, ValueType> upstreamSource,
+                   @Nonnull final Function<KeyType, UpKeyType> keyCoder,
+                   @Nullable final Function<UpKeyType, KeyType> keyDecoder) {
+      super(upstreamSource, keyCoder, keyDecoder, Function.identity(), Function.identity());
+    }
+
+    @Override
+    public Map<KeyType, ValueType> getAll(@Nonnull final Collection<KeyType> keys) {
+      // values are passed as is, nothing to decode in parallel
+      Map<UpKeyType, KeyType> upKeys = encodeKeys(keys);
+      Map<KeyType, ValueType> ret = new HashMap<>();
+      getUpstream().getAll(upKeys.keySet())
+          .forEach((upKey, value) -> ret.put(upKeys.get(upKey), value));
+      return ret;
     }
   }
 
@@ -78,7 +160,7 @@ public class CodecSource<KeyType, ValueType, UpKeyType, UpValueType> extends
     public ValueOnly(@Nonnull final DataSource<KeyType, UpValueType> upstreamSource,
                      @Nonnull final Function<ValueType, UpValueType> valueCoder,
                      @Nonnull final Function<UpValueType, ValueType> valueDecoder) {
-      super(upstreamSource, Function.identity(), valueCoder, valueDecoder);
+      super(upstreamSource, Function.identity(), Function.identity(), valueCoder, valueDecoder);
     }
   }
 }
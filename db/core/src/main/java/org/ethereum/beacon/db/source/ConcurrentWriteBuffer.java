@@ -0,0 +1,212 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+import org.ethereum.beacon.db.util.KeyRanges;
+
+/**
+ * A concurrent alternative to {@link WriteBuffer}.
+ *
+ * <p>Changes are accumulated in a generation backed by {@link ConcurrentHashMap}, hence, reads and
+ * writes of different keys don't contend with each other. Reads take no locks at all, writes share
+ * a lock that is exclusively taken only for a short moment when {@link #flush()} swaps the active
+ * generation with a new empty one. Swapped generation is written to the upstream while readers and
+ * writers proceed with the new generation; until the upstream is flushed swapped generation is
+ * still visible to readers.
+ *
+ * <p>Size of buffered entries is evaluated with given key and value evaluators which must be
+ * thread-safe.
+ *
+ * @param <K> a key type.
+ * @param <V> a value type.
+ */
+public class ConcurrentWriteBuffer<K, V> extends AbstractLinkedDataSource<K, V, K, V>
+    implements CacheDataSource<K, V> {
+
+  private final Function<K, Long> keyEvaluator;
+  private final Function<V, Long> valueEvaluator;
+  private final boolean upstreamFlush;
+
+  /** Changes that are accumulated since the last flush. */
+  private volatile Generation<K, V> active = new Generation<>();
+  /** Changes that are being written to the upstream. */
+  @Nullable private volatile Generation<K, V> flushing;
+
+  private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+  private final AutoCloseableLock writeLock = AutoCloseableLock.wrap(swapLock.readLock());
+  private final AutoCloseableLock swapGenerationLock =
+      AutoCloseableLock.wrap(swapLock.writeLock());
+  private final AutoCloseableLock flushLock = AutoCloseableLock.wrap(new ReentrantLock());
+
+  public ConcurrentWriteBuffer(
+      @Nonnull final DataSource<K, V> upstreamSource,
+      @Nonnull final Function<K, Long> keyEvaluator,
+      @Nonnull final Function<V, Long> valueEvaluator,
+      final boolean upstreamFlush) {
+    // upstream is flushed by doFlush() to keep swapped generation visible until it's done
+    super(upstreamSource, false);
+    this.keyEvaluator = Objects.requireNonNull(keyEvaluator);
+    this.valueEvaluator = Objects.requireNonNull(valueEvaluator);
+    this.upstreamFlush = upstreamFlush;
+  }
+
+  public ConcurrentWriteBuffer(
+      @Nonnull final DataSource<K, V> upstreamSource, final boolean upstreamFlush) {
+    this(upstreamSource, key -> 0L, value -> 0L, upstreamFlush);
+  }
+
+  @Override
+  public Optional<V> get(@Nonnull final K key) {
+    Objects.requireNonNull(key);
+    Optional<Optional<V>> entry = getCacheEntry(key);
+    return entry.isPresent() ? entry.get() : getUpstream().get(key);
+  }
+
+  @Override
+  public Map<K, V> getAll(@Nonnull final Collection<K> keys) {
+    Map<K, V> ret = new HashMap<>();
+    List<K> missed = new ArrayList<>();
+    for (K key : keys) {
+      Optional<Optional<V>> entry = getCacheEntry(key);
+      if (!entry.isPresent()) {
+        missed.add(key);
+      } else {
+        entry.get().ifPresent(value -> ret.put(key, value));
+      }
+    }
+    if (!missed.isEmpty()) {
+      ret.putAll(getUpstream().getAll(missed));
+    }
+    return ret;
+  }
+
+  @Override
+  public void put(@Nonnull final K key, @Nonnull final V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    try (AutoCloseableLock l = writeLock.lock()) {
+      Generation<K, V> generation = active;
+      Optional<V> previous = generation.entries.put(key, Optional.of(value));
+      if (previous != null && previous.isPresent()) {
+        generation.size.add(valueEvaluator.apply(value) - valueEvaluator.apply(previous.get()));
+      } else {
+        generation.size.add(keyEvaluator.apply(key) + valueEvaluator.apply(value));
+      }
+    }
+  }
+
+  @Override
+  public void remove(@Nonnull final K key) {
+    Objects.requireNonNull(key);
+    try (AutoCloseableLock l = writeLock.lock()) {
+      Generation<K, V> generation = active;
+      Optional<V> previous = generation.entries.put(key, Optional.empty());
+      if (previous != null && previous.isPresent()) {
+        generation.size.add(-keyEvaluator.apply(key) - valueEvaluator.apply(previous.get()));
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Buffered changes that fall into the range are copied to a snapshot, its cost is linear to
+   * the size of the buffer.
+   */
+  @Override
+  public CloseableIterator<Map.Entry<K, V>> iterate(@Nullable K from, @Nullable K to) {
+    // generations are read from the newest to the oldest, the same way as by get()
+    Generation<K, V> newest = active;
+    Generation<K, V> oldest = flushing;
+
+    NavigableMap<K, V> snapshot = OverlayIterator.newSnapshot();
+    if (oldest != null) {
+      oldest.copyTo(snapshot, from, to);
+    }
+    newest.copyTo(snapshot, from, to);
+    return new OverlayIterator<>(
+        snapshot, getUpstream().iterate(from, to), snapshot.comparator());
+  }
+
+  @Override
+  protected void doFlush() {
+    try (AutoCloseableLock fl = flushLock.lock()) {
+      Generation<K, V> snapshot;
+      try (AutoCloseableLock l = swapGenerationLock.lock()) {
+        snapshot = active;
+        if (snapshot.entries.isEmpty()) {
+          return;
+        }
+        // readers look at active generation first, so it must be replaced last
+        flushing = snapshot;
+        active = new Generation<>();
+      }
+
+      for (Map.Entry<K, Optional<V>> entry : snapshot.entries.entrySet()) {
+        if (entry.getValue().isPresent()) {
+          getUpstream().put(entry.getKey(), entry.getValue().get());
+        } else {
+          getUpstream().remove(entry.getKey());
+        }
+      }
+      if (upstreamFlush) {
+        getUpstream().flush();
+      }
+      flushing = null;
+    }
+  }
+
+  @Override
+  public Optional<Optional<V>> getCacheEntry(@Nonnull final K key) {
+    Objects.requireNonNull(key);
+
+    Generation<K, V> newest = active;
+    Optional<V> entry = newest.entries.get(key);
+    if (entry == null) {
+      Generation<K, V> oldest = flushing;
+      entry = oldest == null ? null : oldest.entries.get(key);
+    }
+    return Optional.ofNullable(entry);
+  }
+
+  @Override
+  public long evaluateSize() {
+    Generation<K, V> oldest = flushing;
+    return active.size.sum() + (oldest == null ? 0 : oldest.size.sum());
+  }
+
+  /**
+   * Changes accumulated between two flushes, removal is stored as an empty value.
+   *
+   * @param <K> a key type.
+   * @param <V> a value type.
+   */
+  private static final class Generation<K, V> {
+
+    private final Map<K, Optional<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    private void copyTo(NavigableMap<K, V> snapshot, @Nullable K from, @Nullable K to) {
+      for (Map.Entry<K, Optional<V>> entry : entries.entrySet()) {
+        if (KeyRanges.inRange(entry.getKey(), from, to, snapshot.comparator())) {
+          snapshot.put(entry.getKey(), entry.getValue().orElse(null));
+        }
+      }
+    }
+  }
+}
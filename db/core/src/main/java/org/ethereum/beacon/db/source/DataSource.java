@@ -1,6 +1,10 @@
 package org.ethereum.beacon.db.source;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,6 +26,22 @@ public interface DataSource<KeyType, ValueType> extends ReadonlyDataSource<KeyTy
   @Override
   Optional<ValueType> get(@Nonnull KeyType key);
 
+  /**
+   * Returns values corresponding to the keys.
+   *
+   * Implementations backed by a storage engine should override this method
+   * to fetch all the keys in a single request.
+   * @param keys Keys in key-value Source
+   * @return key-value pairs of existing entries, keys that have no entry are omitted
+   */
+  default Map<KeyType, ValueType> getAll(@Nonnull Collection<KeyType> keys) {
+    Map<KeyType, ValueType> ret = new HashMap<>();
+    for (KeyType key : keys) {
+      get(key).ifPresent(value -> ret.put(key, value));
+    }
+    return ret;
+  }
+
   /**
    * Stores key-value entry.
    * If an entry with this key already exists, its value is overwritten
@@ -37,6 +57,28 @@ public interface DataSource<KeyType, ValueType> extends ReadonlyDataSource<KeyTy
    */
   void remove(@Nonnull KeyType key);
 
+  /**
+   * Iterates over entries which keys are in range <code>[from, to)</code> in ascending order of
+   * keys. Passing <code>null</code> bound makes the range unbounded on that side, hence,
+   * <code>iterate(key, null)</code> seeks to the key and <code>iterate(null, null)</code> scans
+   * the whole source.
+   *
+   * Iterator reflects the state of the source at the moment of the call, later updates may not be
+   * visible to it. Iterator MUST be closed after use.
+   *
+   * Optional method, supported by sources which maintain key order.
+   *
+   * @param from inclusive lower bound
+   * @param to exclusive upper bound
+   * @return iterator over entries
+   * @throws UnsupportedOperationException if the source doesn't support ordered iteration
+   */
+  default CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable KeyType from, @Nullable KeyType to) {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " doesn't support ordered iteration");
+  }
+
   /**
    * If the implementation class accumulates any updates this method
    * should flush all the updates into underlying storage
@@ -1,5 +1,8 @@
 package org.ethereum.beacon.db.source;
 
+import com.google.common.collect.AbstractIterator;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -28,6 +31,38 @@ public interface HoleyList<V> {
    */
   Optional<V> get(long idx);
 
+  /**
+   * Iterates over elements with indices in range <code>[from, to)</code> in ascending order of
+   * indices, missing elements are skipped. Bounds are clamped to <code>[0, size())</code>.
+   *
+   * Default implementation reads elements one by one, implementations backed by an ordered
+   * storage may read the range in one pass.
+   *
+   * @param from inclusive lower bound
+   * @param to exclusive upper bound
+   * @return iterator over index-element pairs, MUST be closed after use
+   */
+  default CloseableIterator<Map.Entry<Long, V>> iterate(long from, long to) {
+    long start = Math.max(from, 0);
+    long end = Math.min(to, size());
+    return CloseableIterator.wrap(
+        new AbstractIterator<Map.Entry<Long, V>>() {
+          private long idx = start;
+
+          @Override
+          protected Map.Entry<Long, V> computeNext() {
+            while (idx < end) {
+              long cur = idx++;
+              Optional<V> value = get(cur);
+              if (value.isPresent()) {
+                return new SimpleImmutableEntry<>(cur, value.get());
+              }
+            }
+            return endOfData();
+          }
+        });
+  }
+
   /**
    * Puts element with index <code>size()</code>
    */
@@ -0,0 +1,127 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.util.KeyRanges;
+
+/**
+ * Merges buffered changes with upstream entries, both ordered by key. A buffered change shadows
+ * upstream entry with the same key, a change with {@code null} value hides it.
+ *
+ * <p>Used by buffering sources to implement {@link DataSource#iterate(Object, Object)}.
+ *
+ * @param <K> a key type.
+ * @param <V> a value type.
+ */
+class OverlayIterator<K, V> implements CloseableIterator<Entry<K, V>> {
+
+  private final Iterator<Entry<K, V>> overlay;
+  private final CloseableIterator<Entry<K, V>> upstream;
+  private final Comparator<? super K> comparator;
+
+  private Entry<K, V> overlayHead;
+  private Entry<K, V> upstreamHead;
+  private Entry<K, V> next;
+
+  OverlayIterator(
+      NavigableMap<K, V> overlay,
+      CloseableIterator<Entry<K, V>> upstream,
+      Comparator<? super K> comparator) {
+    this.overlay = overlay.entrySet().iterator();
+    this.upstream = upstream;
+    this.comparator = comparator;
+  }
+
+  /**
+   * Creates an empty overlay snapshot. Its entries are compared by natural order of keys.
+   *
+   * @return an empty snapshot that permits {@code null} values.
+   */
+  static <K, V> NavigableMap<K, V> newSnapshot() {
+    return new TreeMap<>(KeyRanges.<K>naturalOrder());
+  }
+
+  /**
+   * Copies changes that fall into a range to a snapshot, later copied changes override earlier.
+   *
+   * @param snapshot a snapshot.
+   * @param changes changes, {@code null} value stands for removal.
+   * @param from inclusive lower bound.
+   * @param to exclusive upper bound.
+   */
+  static <K, V> void addToSnapshot(
+      NavigableMap<K, V> snapshot, Map<K, V> changes, @Nullable K from, @Nullable K to) {
+    for (Entry<K, V> change : changes.entrySet()) {
+      if (KeyRanges.inRange(change.getKey(), from, to, snapshot.comparator())) {
+        snapshot.put(change.getKey(), change.getValue());
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = advance();
+    }
+    return next != null;
+  }
+
+  @Override
+  public Entry<K, V> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Entry<K, V> ret = next;
+    next = null;
+    return ret;
+  }
+
+  @Nullable
+  private Entry<K, V> advance() {
+    while (true) {
+      if (overlayHead == null && overlay.hasNext()) {
+        overlayHead = overlay.next();
+      }
+      if (upstreamHead == null && upstream.hasNext()) {
+        upstreamHead = upstream.next();
+      }
+      if (overlayHead == null && upstreamHead == null) {
+        return null;
+      }
+
+      if (overlayHead == null) {
+        Entry<K, V> ret = upstreamHead;
+        upstreamHead = null;
+        return ret;
+      }
+
+      int cmp =
+          upstreamHead == null ? -1 : comparator.compare(overlayHead.getKey(), upstreamHead.getKey());
+      if (cmp > 0) {
+        Entry<K, V> ret = upstreamHead;
+        upstreamHead = null;
+        return ret;
+      }
+      if (cmp == 0) {
+        // shadowed by a buffered change
+        upstreamHead = null;
+      }
+      Entry<K, V> ret = overlayHead;
+      overlayHead = null;
+      if (ret.getValue() != null) {
+        return ret;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    upstream.close();
+  }
+}
@@ -0,0 +1,36 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.Map;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+/**
+ * Storage engine that is capable of keeping logical storages in physically separated partitions,
+ * like column families in RocksDB.
+ *
+ * <p>Each partition is an independent key space and MAY be tuned by the engine according to the
+ * nature of data it holds. Methods inherited from {@link StorageEngineSource} operate on a default
+ * partition.
+ *
+ * @param <ValueType> a value type.
+ */
+public interface PartitionedStorageEngineSource<ValueType> extends StorageEngineSource<ValueType> {
+
+  /**
+   * Returns a source bound to a partition with given name. Partition is created if it does not
+   * exist yet.
+   *
+   * <p><strong>Note:</strong> storage MUST be opened before this method is called.
+   *
+   * @param name partition name.
+   * @return partition source.
+   */
+  BatchUpdateDataSource<BytesValue, ValueType> getPartition(String name);
+
+  /**
+   * Atomically applies updates spread across several partitions.
+   *
+   * @param updates partition name to updates map, updates follow the same rules as in {@link
+   *     BatchUpdateDataSource#batchUpdate(Map)}.
+   */
+  void batchUpdatePartitions(Map<String, Map<BytesValue, ValueType>> updates);
+}
@@ -0,0 +1,220 @@
+package org.ethereum.beacon.db.source;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+
+/**
+ * A read-through cache bounded by evaluated size of cached entries.
+ *
+ * <p>Values read from the upstream are put to {@link BoundedCache} which eviction policy decides
+ * what to keep. Writes go straight to the upstream and update the cache, hence, it's safe to stack
+ * this source on top of a {@link WriteBuffer}, both at a level of raw bytes and at a level of
+ * decoded objects, i.e. on top of a {@link CodecSource}. In the latter case the cache saves
+ * deserialization as well.
+ *
+ * <p>Absent values are not cached.
+ *
+ * <p>This implementation is thread-safe.
+ *
+ * @param <KeyType> a key type.
+ * @param <ValueType> a value type.
+ */
+public class ReadCache<KeyType, ValueType>
+    extends AbstractLinkedDataSource<KeyType, ValueType, KeyType, ValueType>
+    implements CacheDataSource<KeyType, ValueType> {
+
+  private final String name;
+  private final BoundedCache<KeyType, ValueType> cache;
+
+  private final AutoCloseableLock lock = AutoCloseableLock.wrap(new ReentrantLock());
+  /** Incremented on each write, prevents a stale upstream read from being cached. */
+  private long modificationCount;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  /**
+   * @param upstreamSource an upstream source.
+   * @param name a name of cached storage, used in stats.
+   * @param cache a cache.
+   */
+  public ReadCache(
+      @Nonnull DataSource<KeyType, ValueType> upstreamSource,
+      @Nonnull String name,
+      @Nonnull BoundedCache<KeyType, ValueType> cache) {
+    super(upstreamSource, true);
+    this.name = Objects.requireNonNull(name);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  /**
+   * Creates a cache with LRU eviction policy.
+   *
+   * @see BoundedCache#lru(long, Function, Function)
+   */
+  public static <KeyType, ValueType> ReadCache<KeyType, ValueType> lru(
+      DataSource<KeyType, ValueType> upstreamSource,
+      String name,
+      long maxSize,
+      Function<KeyType, Long> keyEvaluator,
+      Function<ValueType, Long> valueEvaluator) {
+    return new ReadCache<>(
+        upstreamSource, name, BoundedCache.lru(maxSize, keyEvaluator, valueEvaluator));
+  }
+
+  /**
+   * Creates a cache with W-TinyLFU eviction policy.
+   *
+   * @see BoundedCache#tinyLfu(long, Function, Function)
+   */
+  public static <KeyType, ValueType> ReadCache<KeyType, ValueType> tinyLfu(
+      DataSource<KeyType, ValueType> upstreamSource,
+      String name,
+      long maxSize,
+      Function<KeyType, Long> keyEvaluator,
+      Function<ValueType, Long> valueEvaluator) {
+    return new ReadCache<>(
+        upstreamSource, name, BoundedCache.tinyLfu(maxSize, keyEvaluator, valueEvaluator));
+  }
+
+  @Override
+  public Optional<ValueType> get(@Nonnull KeyType key) {
+    Objects.requireNonNull(key);
+
+    long stamp;
+    try (AutoCloseableLock l = lock.lock()) {
+      ValueType cached = cache.get(key);
+      if (cached != null) {
+        hitCount.increment();
+        return Optional.of(cached);
+      }
+      stamp = modificationCount;
+    }
+
+    missCount.increment();
+    Optional<ValueType> value = getUpstream().get(key);
+    if (value.isPresent()) {
+      try (AutoCloseableLock l = lock.lock()) {
+        if (stamp == modificationCount) {
+          cache.put(key, value.get());
+        }
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public Map<KeyType, ValueType> getAll(@Nonnull Collection<KeyType> keys) {
+    Map<KeyType, ValueType> ret = new HashMap<>();
+    List<KeyType> missed = new ArrayList<>();
+    long stamp;
+    try (AutoCloseableLock l = lock.lock()) {
+      for (KeyType key : keys) {
+        ValueType cached = cache.get(key);
+        if (cached != null) {
+          ret.put(key, cached);
+        } else {
+          missed.add(key);
+        }
+      }
+      stamp = modificationCount;
+    }
+    hitCount.add(ret.size());
+    if (missed.isEmpty()) {
+      return ret;
+    }
+
+    missCount.add(missed.size());
+    Map<KeyType, ValueType> loaded = getUpstream().getAll(missed);
+    try (AutoCloseableLock l = lock.lock()) {
+      if (stamp == modificationCount) {
+        loaded.forEach(cache::put);
+      }
+    }
+    ret.putAll(loaded);
+    return ret;
+  }
+
+  /** Iterates over upstream entries, neither uses nor populates the cache. */
+  @Override
+  public CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable KeyType from, @Nullable KeyType to) {
+    return getUpstream().iterate(from, to);
+  }
+
+  @Override
+  public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    getUpstream().put(key, value);
+    try (AutoCloseableLock l = lock.lock()) {
+      modificationCount += 1;
+      cache.put(key, value);
+    }
+  }
+
+  @Override
+  public void remove(@Nonnull KeyType key) {
+    Objects.requireNonNull(key);
+
+    getUpstream().remove(key);
+    try (AutoCloseableLock l = lock.lock()) {
+      modificationCount += 1;
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Drops all cached entries. Must be called if upstream has been modified bypassing this source.
+   */
+  public void invalidateAll() {
+    try (AutoCloseableLock l = lock.lock()) {
+      modificationCount += 1;
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public Optional<Optional<ValueType>> getCacheEntry(@Nonnull KeyType key) {
+    Objects.requireNonNull(key);
+    try (AutoCloseableLock l = lock.lock()) {
+      return Optional.ofNullable(cache.peek(key)).map(Optional::of);
+    }
+  }
+
+  @Override
+  public long evaluateSize() {
+    try (AutoCloseableLock l = lock.lock()) {
+      return cache.getEvaluatedSize();
+    }
+  }
+
+  /** @return a snapshot of cache counters. */
+  public CacheStats getStats() {
+    try (AutoCloseableLock l = lock.lock()) {
+      return new CacheStats(
+          name,
+          hitCount.sum(),
+          missCount.sum(),
+          cache.getEvictionCount(),
+          cache.size(),
+          cache.getEvaluatedSize());
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+}
@@ -22,4 +22,12 @@ public interface StorageEngineSource<ValueType>
 
   /** Closes key-value storage. */
   void close();
+
+  /**
+   * Compacts key-value storage reclaiming space occupied by removed entries.
+   *
+   * <p>Default implementation does nothing, which suits engines that either have no such
+   * operation or take care of it on their own.
+   */
+  default void compact() {}
 }
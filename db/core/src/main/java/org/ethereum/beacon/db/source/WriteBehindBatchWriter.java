@@ -0,0 +1,239 @@
+package org.ethereum.beacon.db.source;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ethereum.beacon.db.util.AutoCloseableLock;
+
+/**
+ * An asynchronous counterpart of {@link BatchWriter}.
+ *
+ * <p>Accumulates changes in an active buffer. Upon a flush the active buffer is frozen, replaced
+ * with a fresh one and then passed to {@link BatchUpdateDataSource#batchUpdate(Map)} on a
+ * background thread. Hence, a thread calling {@link #flush()} doesn't wait for the storage engine.
+ *
+ * <p>Reads fall through the active buffer and frozen buffers, from the newest to the oldest one,
+ * until a frozen buffer is written to the upstream.
+ *
+ * <p>If a write fails, the failed buffer and all the following ones stay frozen and readable, the
+ * failure is rethrown by the next {@link #flush()}, {@link #awaitWritten()} or {@link #close()}.
+ *
+ * <p>A number of frozen buffers waiting for the write is bounded by a backlog limit. When the limit
+ * is reached {@link #flush()} blocks until the oldest buffer is written.
+ *
+ * <p>Removals are stored as key-value pairs with value equal to {@code null}.
+ *
+ * @param <KeyType> a key type.
+ * @param <ValueType> a value type.
+ */
+public class WriteBehindBatchWriter<KeyType, ValueType>
+    extends AbstractLinkedDataSource<KeyType, ValueType, KeyType, ValueType> {
+
+  private static final Logger logger = LogManager.getLogger(WriteBehindBatchWriter.class);
+
+  /** Active buffer. */
+  private Map<KeyType, ValueType> buffer = new HashMap<>();
+  /** Frozen buffers that are not yet written, the newest goes first. */
+  private final Deque<Map<KeyType, ValueType>> frozen = new ConcurrentLinkedDeque<>();
+
+  private final int backlogLimit;
+  private final Semaphore backlog;
+  private final ExecutorService writer;
+  private volatile Throwable writeFailure;
+
+  private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+  private final AutoCloseableLock readLock = AutoCloseableLock.wrap(rwLock.readLock());
+  private final AutoCloseableLock writeLock = AutoCloseableLock.wrap(rwLock.writeLock());
+
+  /**
+   * @param upstreamSource an upstream source.
+   * @param backlogLimit max number of frozen buffers waiting to be written.
+   */
+  public WriteBehindBatchWriter(
+      @Nonnull BatchUpdateDataSource<KeyType, ValueType> upstreamSource, int backlogLimit) {
+    super(upstreamSource);
+    if (backlogLimit <= 0) {
+      throw new IllegalArgumentException("Backlog limit must be positive: " + backlogLimit);
+    }
+    this.backlogLimit = backlogLimit;
+    this.backlog = new Semaphore(backlogLimit);
+    this.writer =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("db-write-behind-%d").setDaemon(true).build());
+  }
+
+  @Override
+  public Optional<ValueType> get(@Nonnull KeyType key) {
+    try (AutoCloseableLock l = readLock.lock()) {
+      if (buffer.containsKey(key)) {
+        return Optional.ofNullable(buffer.get(key));
+      }
+    }
+    for (Map<KeyType, ValueType> batch : frozen) {
+      if (batch.containsKey(key)) {
+        return Optional.ofNullable(batch.get(key));
+      }
+    }
+    return getUpstream().get(key);
+  }
+
+  @Override
+  public Map<KeyType, ValueType> getAll(@Nonnull Collection<KeyType> keys) {
+    Map<KeyType, ValueType> ret = new HashMap<>();
+    List<KeyType> missed = new ArrayList<>();
+    try (AutoCloseableLock l = readLock.lock()) {
+      for (KeyType key : keys) {
+        if (buffer.containsKey(key)) {
+          ValueType value = buffer.get(key);
+          if (value != null) {
+            ret.put(key, value);
+          }
+        } else {
+          missed.add(key);
+        }
+      }
+    }
+    for (Map<KeyType, ValueType> batch : frozen) {
+      if (missed.isEmpty()) {
+        break;
+      }
+      List<KeyType> stillMissed = new ArrayList<>();
+      for (KeyType key : missed) {
+        if (batch.containsKey(key)) {
+          ValueType value = batch.get(key);
+          if (value != null) {
+            ret.put(key, value);
+          }
+        } else {
+          stillMissed.add(key);
+        }
+      }
+      missed = stillMissed;
+    }
+    if (!missed.isEmpty()) {
+      ret.putAll(getUpstream().getAll(missed));
+    }
+    return ret;
+  }
+
+  @Override
+  public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
+    try (AutoCloseableLock l = writeLock.lock()) {
+      buffer.put(key, value);
+    }
+  }
+
+  @Override
+  public void remove(@Nonnull KeyType key) {
+    try (AutoCloseableLock l = writeLock.lock()) {
+      buffer.put(key, null);
+    }
+  }
+
+  @Override
+  public CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable KeyType from, @Nullable KeyType to) {
+    NavigableMap<KeyType, ValueType> snapshot = OverlayIterator.newSnapshot();
+    try (AutoCloseableLock l = readLock.lock()) {
+      // frozen buffers are copied from the oldest to the newest, then the active one;
+      // upstream iterator is created afterwards, hence, a buffer that has been written
+      // and dropped in between is either copied or visible to the upstream iterator
+      for (Iterator<Map<KeyType, ValueType>> it = frozen.descendingIterator(); it.hasNext(); ) {
+        OverlayIterator.addToSnapshot(snapshot, it.next(), from, to);
+      }
+      OverlayIterator.addToSnapshot(snapshot, buffer, from, to);
+      return new OverlayIterator<>(
+          snapshot, getUpstream().iterate(from, to), snapshot.comparator());
+    }
+  }
+
+  @Override
+  protected void doFlush() {
+    checkWriteFailure();
+
+    // wait for a free slot in the backlog before locking the buffer, readers must not be stalled
+    backlog.acquireUninterruptibly();
+
+    Map<KeyType, ValueType> batch;
+    try (AutoCloseableLock l = writeLock.lock()) {
+      batch = buffer;
+      if (!batch.isEmpty()) {
+        frozen.addFirst(batch);
+        buffer = new HashMap<>();
+      }
+    }
+
+    if (batch.isEmpty()) {
+      backlog.release();
+      return;
+    }
+
+    writer.execute(
+        () -> {
+          try {
+            // batches following a failed one are not written to keep upstream consistent
+            if (writeFailure == null) {
+              ((BatchUpdateDataSource<KeyType, ValueType>) getUpstream()).batchUpdate(batch);
+              frozen.removeLast();
+            }
+          } catch (Throwable t) {
+            logger.error("Failed to write a batch of {} entries", batch.size(), t);
+            writeFailure = t;
+          } finally {
+            backlog.release();
+          }
+        });
+  }
+
+  /**
+   * Blocks until all frozen buffers are written to the upstream.
+   *
+   * <p><strong>Note:</strong> doesn't flush active buffer.
+   *
+   * @throws IllegalStateException if a background write has failed. Buffers that have not been
+   *     written are kept and remain readable.
+   */
+  public void awaitWritten() {
+    backlog.acquireUninterruptibly(backlogLimit);
+    backlog.release(backlogLimit);
+    checkWriteFailure();
+  }
+
+  /**
+   * Waits for frozen buffers to be written and stops the background thread.
+   *
+   * <p><strong>Note:</strong> doesn't flush active buffer.
+   *
+   * @throws IllegalStateException if a background write has failed.
+   */
+  public void close() {
+    try {
+      awaitWritten();
+    } finally {
+      writer.shutdown();
+    }
+  }
+
+  private void checkWriteFailure() {
+    if (writeFailure != null) {
+      throw new IllegalStateException("Background write has failed", writeFailure);
+    }
+  }
+}
@@ -2,13 +2,18 @@ package org.ethereum.beacon.db.source;
 
 import com.googlecode.concurentlocks.ReadWriteUpdateLock;
 import com.googlecode.concurentlocks.ReentrantReadWriteUpdateLock;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.ethereum.beacon.db.util.AutoCloseableLock;
+import org.ethereum.beacon.db.util.KeyRanges;
 
 /**
  * Accumulates changes made to underlying data source and flushes them upon a {@link #flush()} call.
@@ -63,6 +68,26 @@ public class WriteBuffer<K, V> extends AbstractLinkedDataSource<K, V, K, V>
     }
   }
 
+  @Override
+  public Map<K, V> getAll(@Nonnull final Collection<K> keys) {
+    Map<K, V> ret = new HashMap<>();
+    List<K> missed = new ArrayList<>();
+    try (AutoCloseableLock l = readLock.lock()) {
+      for (K key : keys) {
+        CacheEntry<V> entry = buffer.get(key);
+        if (entry == null) {
+          missed.add(key);
+        } else if (entry != CacheEntry.REMOVED) {
+          ret.put(key, entry.value);
+        }
+      }
+      if (!missed.isEmpty()) {
+        ret.putAll(getUpstream().getAll(missed));
+      }
+    }
+    return ret;
+  }
+
   @Override
   public void put(@Nonnull final K key, @Nonnull final V value) {
     Objects.requireNonNull(key);
@@ -85,6 +110,26 @@ public class WriteBuffer<K, V> extends AbstractLinkedDataSource<K, V, K, V>
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Buffered changes that fall into the range are copied to a snapshot, its cost is linear to
+   * the size of the buffer.
+   */
+  @Override
+  public CloseableIterator<Map.Entry<K, V>> iterate(@Nullable K from, @Nullable K to) {
+    NavigableMap<K, V> snapshot = OverlayIterator.newSnapshot();
+    try (AutoCloseableLock l = readLock.lock()) {
+      for (Map.Entry<K, CacheEntry<V>> entry : buffer.entrySet()) {
+        if (KeyRanges.inRange(entry.getKey(), from, to, snapshot.comparator())) {
+          snapshot.put(entry.getKey(), entry.getValue().value);
+        }
+      }
+      return new OverlayIterator<>(
+          snapshot, getUpstream().iterate(from, to), snapshot.comparator());
+    }
+  }
+
   @Override
   public void doFlush() {
     try (AutoCloseableLock rl = updateLock.lock()) {
@@ -17,6 +17,7 @@
  */
 package org.ethereum.beacon.db.source.impl;
 
+import org.ethereum.beacon.db.source.CloseableIterator;
 import org.ethereum.beacon.db.source.CodecSource;
 import org.ethereum.beacon.db.source.DataSource;
 import org.ethereum.beacon.db.source.HoleyList;
@@ -25,6 +26,9 @@ import tech.pegasys.artemis.util.bytes.BytesValues;
 
 import javax.annotation.Nonnull;
 import java.util.AbstractList;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -36,12 +40,14 @@ public class DataSourceList<V> implements HoleyList<V> {
 
   private final DataSource<BytesValue, BytesValue> src;
   private final DataSource<BytesValue, V> valSsrc;
+  private final Function<BytesValue, V> valueDecoder;
   private long size = -1;
 
   public DataSourceList(DataSource<BytesValue, BytesValue> src,
                         @Nonnull final Function<V, BytesValue> valueCoder,
                         @Nonnull final Function<BytesValue, V> valueDecoder) {
     this.src = src;
+    this.valueDecoder = valueDecoder;
     valSsrc = new CodecSource.ValueOnly<>(src, valueCoder, valueDecoder);
   }
 
@@ -60,6 +66,76 @@ public class DataSourceList<V> implements HoleyList<V> {
     return valSsrc.get(BytesValues.toMinimalBytes(idx));
   }
 
+  /**
+   * Keys are minimal big-endian encodings of indices, thus, only keys of the same length follow the
+   * order of indices, shorter keys are interleaved with them. Elements with the longest keys, i.e.
+   * the tail of the list, are read in one pass over the source, the rest are read one by one. If
+   * the source doesn't support iteration all the elements are read one by one.
+   */
+  @Override
+  public CloseableIterator<Map.Entry<Long, V>> iterate(long from, long to) {
+    long start = Math.max(from, 0);
+    long end = Math.min(to, size());
+    int keyLength = end > 0 ? BytesValues.toMinimalBytes(end - 1).size() : 0;
+    long scanStart = keyLength > 0 ? Math.max(start, 1L << (8 * (keyLength - 1))) : end;
+    if (scanStart >= end) {
+      return HoleyList.super.iterate(start, end);
+    }
+
+    BytesValue upperBound = BytesValues.toMinimalBytes(end);
+    CloseableIterator<Map.Entry<BytesValue, BytesValue>> scan;
+    try {
+      scan =
+          src.iterate(
+              BytesValues.toMinimalBytes(scanStart),
+              upperBound.size() == keyLength ? upperBound : null);
+    } catch (UnsupportedOperationException e) {
+      return HoleyList.super.iterate(start, end);
+    }
+
+    CloseableIterator<Map.Entry<Long, V>> head = HoleyList.super.iterate(start, scanStart);
+    return new CloseableIterator<Map.Entry<Long, V>>() {
+      private Map.Entry<Long, V> next;
+
+      @Override
+      public boolean hasNext() {
+        if (next != null) {
+          return true;
+        }
+        if (head.hasNext()) {
+          next = head.next();
+          return true;
+        }
+        while (scan.hasNext()) {
+          Map.Entry<BytesValue, BytesValue> entry = scan.next();
+          if (entry.getKey().size() == keyLength) {
+            next =
+                new SimpleImmutableEntry<>(
+                    BytesValues.extractLong(entry.getKey()),
+                    valueDecoder.apply(entry.getValue()));
+            return true;
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public Map.Entry<Long, V> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        Map.Entry<Long, V> ret = next;
+        next = null;
+        return ret;
+      }
+
+      @Override
+      public void close() {
+        scan.close();
+      }
+    };
+  }
+
   @Override
   public long size() {
     if (size < 0) {
@@ -1,8 +1,12 @@
 package org.ethereum.beacon.db.source.impl;
 
+import org.ethereum.beacon.db.source.CloseableIterator;
 import org.ethereum.beacon.db.source.DataSource;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public class DelegateDataSource<KeyType, ValueType> implements DataSource<KeyType, ValueType> {
@@ -17,6 +21,11 @@ public class DelegateDataSource<KeyType, ValueType> implements DataSource<KeyTyp
     return delegate.get(key);
   }
 
+  @Override
+  public Map<KeyType, ValueType> getAll(@Nonnull Collection<KeyType> keys) {
+    return delegate.getAll(keys);
+  }
+
   @Override
   public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
     delegate.put(key, value);
@@ -27,6 +36,12 @@ public class DelegateDataSource<KeyType, ValueType> implements DataSource<KeyTyp
     delegate.remove(key);
   }
 
+  @Override
+  public CloseableIterator<Map.Entry<KeyType, ValueType>> iterate(
+      @Nullable KeyType from, @Nullable KeyType to) {
+    return delegate.iterate(from, to);
+  }
+
   @Override
   public void flush() {
     delegate.flush();
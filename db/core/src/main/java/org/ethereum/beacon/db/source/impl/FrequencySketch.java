@@ -0,0 +1,97 @@
+package org.ethereum.beacon.db.source.impl;
+
+/**
+ * A probabilistic estimator of key access frequency used by {@link TinyLfuCache} admission policy.
+ *
+ * <p>Implemented as a count-min sketch with four 4-bit counters per key. Each {@code long} of the
+ * table holds sixteen counters. To keep the history fresh all counters are halved once a number of
+ * increments reaches a sample size which is ten times the table length.
+ *
+ * <p>Based on <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache
+ * Admission Policy</a> paper.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNTER = 15;
+
+  private long[] table = new long[0];
+  private int tableMask;
+  private int sampleSize;
+  private int additions;
+
+  /**
+   * Grows the sketch if it's too small for given number of keys. Counters are dropped upon growth.
+   *
+   * @param maxKeys expected max number of tracked keys.
+   */
+  void ensureCapacity(int maxKeys) {
+    int length = ceilingPowerOfTwo(Math.min(Math.max(maxKeys, 16), 1 << 26));
+    if (table.length >= length) {
+      return;
+    }
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = 10 * length;
+    additions = 0;
+  }
+
+  /** @return estimated access frequency of a key, a number in a range of {@code [0, 15]}. */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNTER;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int offset = (index & 15) << 2;
+      int count = (int) ((table[(index >>> 4) & tableMask] >>> offset) & MAX_COUNTER);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /** Registers an access to a key. */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int slot = (index >>> 4) & tableMask;
+      int offset = (index & 15) << 2;
+      if (((table[slot] >>> offset) & MAX_COUNTER) < MAX_COUNTER) {
+        table[slot] += 1L << offset;
+        added = true;
+      }
+    }
+
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /** Halves all the counters. */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions >>>= 1;
+  }
+
+  private static int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
+}
@@ -1,18 +1,47 @@
 package org.ethereum.beacon.db.source.impl;
 
+import org.ethereum.beacon.db.source.CloseableIterator;
 import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.util.KeyRanges;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Created by Anton Nashatyrev on 19.11.2018.
+ *
+ * <p>Ordered iteration is cheap if the store is a {@link NavigableMap}, see {@link #sorted()},
+ * otherwise, a sorted copy of the store is made upon each {@link #iterate(Object, Object)} call.
  */
 public class HashMapDataSource<K, V> implements DataSource<K, V> {
 
-  Map<K, V> store = new ConcurrentHashMap<>();
+  final Map<K, V> store;
+
+  public HashMapDataSource() {
+    this(new ConcurrentHashMap<>());
+  }
+
+  public HashMapDataSource(Map<K, V> store) {
+    this.store = store;
+  }
+
+  /**
+   * Creates a source which keeps entries sorted by natural order of keys.
+   *
+   * @return a new instance.
+   */
+  public static <K extends Comparable<? super K>, V> HashMapDataSource<K, V> sorted() {
+    return new HashMapDataSource<>(new ConcurrentSkipListMap<>());
+  }
 
   @Override
   public Optional<V> get(@Nonnull K key) {
@@ -29,6 +58,39 @@ public class HashMapDataSource<K, V> implements DataSource<K, V> {
     store.remove(key);
   }
 
+  @Override
+  public CloseableIterator<Map.Entry<K, V>> iterate(@Nullable K from, @Nullable K to) {
+    if (store instanceof NavigableMap) {
+      NavigableMap<K, V> sorted = (NavigableMap<K, V>) store;
+      Comparator<? super K> comparator =
+          sorted.comparator() != null ? sorted.comparator() : KeyRanges.naturalOrder();
+      NavigableMap<K, V> range;
+      if (from != null && to != null) {
+        if (comparator.compare(from, to) >= 0) {
+          return CloseableIterator.empty();
+        }
+        range = sorted.subMap(from, true, to, false);
+      } else if (from != null) {
+        range = sorted.tailMap(from, true);
+      } else if (to != null) {
+        range = sorted.headMap(to, false);
+      } else {
+        range = sorted;
+      }
+      return CloseableIterator.wrap(range.entrySet().iterator());
+    }
+
+    Comparator<K> comparator = KeyRanges.naturalOrder();
+    List<Map.Entry<K, V>> entries = new ArrayList<>();
+    for (Map.Entry<K, V> entry : store.entrySet()) {
+      if (KeyRanges.inRange(entry.getKey(), from, to, comparator)) {
+        entries.add(new SimpleImmutableEntry<>(entry));
+      }
+    }
+    entries.sort(Map.Entry.comparingByKey(comparator));
+    return CloseableIterator.wrap(entries.iterator());
+  }
+
   @Override
   public void flush() {
     // nothing to do
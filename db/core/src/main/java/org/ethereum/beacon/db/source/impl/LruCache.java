@@ -0,0 +1,116 @@
+package org.ethereum.beacon.db.source.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.BoundedCache;
+
+/**
+ * Size bounded cache that evicts least recently used entries.
+ *
+ * @param <KeyType> a key type.
+ * @param <ValueType> a value type.
+ */
+public class LruCache<KeyType, ValueType> implements BoundedCache<KeyType, ValueType> {
+
+  private final long maxSize;
+  private final Function<KeyType, Long> keyEvaluator;
+  private final Function<ValueType, Long> valueEvaluator;
+
+  /** Entries in order of access, the eldest goes first. */
+  private final LinkedHashMap<KeyType, Entry<ValueType>> entries = new LinkedHashMap<>();
+
+  private long size;
+  private long evictionCount;
+
+  public LruCache(
+      long maxSize, Function<KeyType, Long> keyEvaluator, Function<ValueType, Long> valueEvaluator) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.keyEvaluator = keyEvaluator;
+    this.valueEvaluator = valueEvaluator;
+  }
+
+  @Nullable
+  @Override
+  public ValueType get(@Nonnull KeyType key) {
+    Entry<ValueType> entry = entries.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    entries.put(key, entry);
+    return entry.value;
+  }
+
+  @Nullable
+  @Override
+  public ValueType peek(@Nonnull KeyType key) {
+    Entry<ValueType> entry = entries.get(key);
+    return entry == null ? null : entry.value;
+  }
+
+  @Override
+  public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
+    long weight = keyEvaluator.apply(key) + valueEvaluator.apply(value);
+    Entry<ValueType> old = entries.remove(key);
+    if (old != null) {
+      size -= old.weight;
+    }
+    if (weight > maxSize) {
+      return;
+    }
+
+    entries.put(key, new Entry<>(value, weight));
+    size += weight;
+
+    Iterator<Entry<ValueType>> eldest = entries.values().iterator();
+    while (size > maxSize && eldest.hasNext()) {
+      size -= eldest.next().weight;
+      eldest.remove();
+      evictionCount += 1;
+    }
+  }
+
+  @Override
+  public void invalidate(@Nonnull KeyType key) {
+    Entry<ValueType> old = entries.remove(key);
+    if (old != null) {
+      size -= old.weight;
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    entries.clear();
+    size = 0;
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public long getEvaluatedSize() {
+    return size;
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  private static final class Entry<V> {
+    private final V value;
+    private final long weight;
+
+    private Entry(V value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
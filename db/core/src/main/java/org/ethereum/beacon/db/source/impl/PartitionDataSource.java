@@ -0,0 +1,111 @@
+package org.ethereum.beacon.db.source.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.CodecSource;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.util.KeyRanges;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+/**
+ * Qualifies keys with a partition name. An alternative to {@link XorDataSource} for storage
+ * multiplexing which, unlike xor, is reversible, hence, keys could be routed to a physical
+ * partition by {@link PartitionRouter}.
+ *
+ * <p>Qualified key layout: {@code [name length: 1 byte][name bytes][key bytes]}. Since the tag is a
+ * common prefix, the order of keys is preserved and {@link #iterate(BytesValue, BytesValue)} is
+ * supported if upstream supports it.
+ *
+ * @param <TValue> a value type.
+ */
+public class PartitionDataSource<TValue>
+    extends CodecSource.KeyOnly<BytesValue, TValue, BytesValue> {
+
+  private static final int MAX_NAME_LENGTH = 0xFF;
+
+  private final BytesValue tag;
+
+  public PartitionDataSource(
+      @Nonnull DataSource<BytesValue, TValue> upstreamSource, String partition) {
+    this(upstreamSource, tag(partition));
+  }
+
+  private PartitionDataSource(
+      @Nonnull DataSource<BytesValue, TValue> upstreamSource, BytesValue tag) {
+    super(upstreamSource, key -> tag.concat(key));
+    this.tag = tag;
+  }
+
+  @Override
+  public CloseableIterator<Map.Entry<BytesValue, TValue>> iterate(
+      @Nullable BytesValue from, @Nullable BytesValue to) {
+    // unbounded sides are limited by the partition boundaries
+    BytesValue lower = from == null ? tag : tag.concat(from);
+    BytesValue upper = to == null ? KeyRanges.prefixUpperBound(tag) : tag.concat(to);
+    return getUpstream()
+        .iterate(lower, upper)
+        .map(entry -> new SimpleImmutableEntry<>(extractKey(entry.getKey()), entry.getValue()));
+  }
+
+  /**
+   * Builds a tag that prefixes every key of a partition.
+   *
+   * @param partition partition name.
+   * @return a tag.
+   */
+  public static BytesValue tag(String partition) {
+    byte[] name = partition.getBytes(StandardCharsets.UTF_8);
+    if (name.length == 0 || name.length > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException("Invalid partition name: " + partition);
+    }
+    byte[] tag = new byte[name.length + 1];
+    tag[0] = (byte) name.length;
+    System.arraycopy(name, 0, tag, 1, name.length);
+    return BytesValue.wrap(tag);
+  }
+
+  /**
+   * Extracts a tag from qualified key.
+   *
+   * @param qualifiedKey a key qualified with partition tag.
+   * @return partition tag.
+   */
+  public static BytesValue extractTag(BytesValue qualifiedKey) {
+    return qualifiedKey.slice(0, tagLength(qualifiedKey));
+  }
+
+  /**
+   * Extracts original key from qualified key.
+   *
+   * @param qualifiedKey a key qualified with partition tag.
+   * @return a key.
+   */
+  public static BytesValue extractKey(BytesValue qualifiedKey) {
+    return qualifiedKey.slice(tagLength(qualifiedKey));
+  }
+
+  /**
+   * Decodes partition name from a tag.
+   *
+   * @param tag partition tag.
+   * @return partition name.
+   */
+  public static String partitionName(BytesValue tag) {
+    return new String(tag.slice(1).extractArray(), StandardCharsets.UTF_8);
+  }
+
+  private static int tagLength(BytesValue qualifiedKey) {
+    if (qualifiedKey.isEmpty()) {
+      throw new IllegalArgumentException("Key is not qualified with partition tag");
+    }
+    int length = (qualifiedKey.get(0) & 0xFF) + 1;
+    if (length > qualifiedKey.size()) {
+      throw new IllegalArgumentException("Key is not qualified with partition tag: " + qualifiedKey);
+    }
+    return length;
+  }
+}
@@ -0,0 +1,125 @@
+package org.ethereum.beacon.db.source.impl;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.BatchUpdateDataSource;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.PartitionedStorageEngineSource;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+/**
+ * Routes keys qualified by {@link PartitionDataSource} to corresponding partitions of {@link
+ * PartitionedStorageEngineSource}.
+ *
+ * <p>Batch updates are grouped by partition and passed to {@link
+ * PartitionedStorageEngineSource#batchUpdatePartitions(Map)}, hence, the atomicity of the batch is
+ * preserved.
+ *
+ * @param <ValueType> a value type.
+ */
+public class PartitionRouter<ValueType> implements BatchUpdateDataSource<BytesValue, ValueType> {
+
+  private final PartitionedStorageEngineSource<ValueType> engine;
+  private final Map<BytesValue, BatchUpdateDataSource<BytesValue, ValueType>> partitions =
+      new ConcurrentHashMap<>();
+
+  public PartitionRouter(PartitionedStorageEngineSource<ValueType> engine) {
+    this.engine = engine;
+  }
+
+  private BatchUpdateDataSource<BytesValue, ValueType> partition(BytesValue qualifiedKey) {
+    return partitions.computeIfAbsent(
+        PartitionDataSource.extractTag(qualifiedKey).copy(),
+        tag -> engine.getPartition(PartitionDataSource.partitionName(tag)));
+  }
+
+  @Override
+  public Optional<ValueType> get(@Nonnull BytesValue key) {
+    Objects.requireNonNull(key);
+    return partition(key).get(PartitionDataSource.extractKey(key));
+  }
+
+  /** Keys are grouped by partition, each partition is requested once. */
+  @Override
+  public Map<BytesValue, ValueType> getAll(@Nonnull Collection<BytesValue> keys) {
+    Map<BytesValue, List<BytesValue>> grouped = new HashMap<>();
+    for (BytesValue key : keys) {
+      grouped
+          .computeIfAbsent(PartitionDataSource.extractTag(key), tag -> new ArrayList<>())
+          .add(PartitionDataSource.extractKey(key));
+    }
+
+    Map<BytesValue, ValueType> ret = new HashMap<>();
+    for (Map.Entry<BytesValue, List<BytesValue>> group : grouped.entrySet()) {
+      BytesValue tag = group.getKey();
+      partition(tag)
+          .getAll(group.getValue())
+          .forEach((key, value) -> ret.put(tag.concat(key), value));
+    }
+    return ret;
+  }
+
+  @Override
+  public void put(@Nonnull BytesValue key, @Nonnull ValueType value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    partition(key).put(PartitionDataSource.extractKey(key), value);
+  }
+
+  @Override
+  public void remove(@Nonnull BytesValue key) {
+    Objects.requireNonNull(key);
+    partition(key).remove(PartitionDataSource.extractKey(key));
+  }
+
+  /**
+   * Iterates over a range of a single partition.
+   *
+   * @param from qualified lower bound, it determines the partition.
+   * @param to qualified upper bound, if it belongs to another partition then the range is
+   *     unbounded within the partition.
+   * @return an iterator over qualified keys.
+   */
+  @Override
+  public CloseableIterator<Map.Entry<BytesValue, ValueType>> iterate(
+      @Nullable BytesValue from, @Nullable BytesValue to) {
+    if (from == null) {
+      throw new IllegalArgumentException("Lower bound must be qualified with partition tag");
+    }
+    BytesValue tag = PartitionDataSource.extractTag(from);
+    BytesValue upper =
+        to != null && to.size() >= tag.size() && to.slice(0, tag.size()).equals(tag)
+            ? PartitionDataSource.extractKey(to)
+            : null;
+    return partition(from)
+        .iterate(PartitionDataSource.extractKey(from), upper)
+        .map(entry -> new SimpleImmutableEntry<>(tag.concat(entry.getKey()), entry.getValue()));
+  }
+
+  @Override
+  public void batchUpdate(Map<BytesValue, ValueType> updates) {
+    Map<String, Map<BytesValue, ValueType>> grouped = new HashMap<>();
+    for (Map.Entry<BytesValue, ValueType> entry : updates.entrySet()) {
+      String name =
+          PartitionDataSource.partitionName(PartitionDataSource.extractTag(entry.getKey()));
+      grouped
+          .computeIfAbsent(name, n -> new HashMap<>())
+          .put(PartitionDataSource.extractKey(entry.getKey()), entry.getValue());
+    }
+    engine.batchUpdatePartitions(grouped);
+  }
+
+  @Override
+  public void flush() {
+    engine.flush();
+  }
+}
@@ -0,0 +1,260 @@
+package org.ethereum.beacon.db.source.impl;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.BoundedCache;
+
+/**
+ * Size bounded cache with W-TinyLFU eviction policy.
+ *
+ * <p>The cache is split onto two areas:
+ *
+ * <ul>
+ *   <li>window -- a small LRU area which accepts all newcomers, takes {@code 1%} of max size
+ *   <li>main -- a segmented LRU area which consists of probation and protected segments, entries
+ *       that are accessed while in probation segment are promoted to the protected one, protected
+ *       segment takes {@code 80%} of main area
+ * </ul>
+ *
+ * <p>An entry evicted from the window is a candidate to the main area. If there is no room for it
+ * then the candidate competes with the eldest entry of the main area, the one with higher access
+ * frequency estimated by {@link FrequencySketch} stays in the cache. Entries that are larger than
+ * the window are passed to the admission straight away.
+ *
+ * <p>Based on <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache
+ * Admission Policy</a> paper.
+ *
+ * @param <KeyType> a key type.
+ * @param <ValueType> a value type.
+ */
+public class TinyLfuCache<KeyType, ValueType> implements BoundedCache<KeyType, ValueType> {
+
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.8;
+
+  private final long maxMainSize;
+  private final long maxWindowSize;
+  private final long maxProtectedSize;
+  private final Function<KeyType, Long> keyEvaluator;
+  private final Function<ValueType, Long> valueEvaluator;
+
+  private final Map<KeyType, Node<KeyType, ValueType>> index = new HashMap<>();
+  private final Segment<KeyType, ValueType> window = new Segment<>();
+  private final Segment<KeyType, ValueType> probation = new Segment<>();
+  private final Segment<KeyType, ValueType> protectedSegment = new Segment<>();
+  private final FrequencySketch sketch = new FrequencySketch();
+
+  private long evictionCount;
+
+  public TinyLfuCache(
+      long maxSize, Function<KeyType, Long> keyEvaluator, Function<ValueType, Long> valueEvaluator) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+    }
+    this.maxWindowSize = Math.max(1, (long) (maxSize * WINDOW_RATIO));
+    this.maxMainSize = maxSize - maxWindowSize;
+    this.maxProtectedSize = (long) (maxMainSize * PROTECTED_RATIO);
+    this.keyEvaluator = keyEvaluator;
+    this.valueEvaluator = valueEvaluator;
+    this.sketch.ensureCapacity(0);
+  }
+
+  @Nullable
+  @Override
+  public ValueType get(@Nonnull KeyType key) {
+    sketch.increment(key);
+    Node<KeyType, ValueType> node = index.get(key);
+    if (node == null) {
+      return null;
+    }
+    onAccess(node);
+    return node.value;
+  }
+
+  @Nullable
+  @Override
+  public ValueType peek(@Nonnull KeyType key) {
+    Node<KeyType, ValueType> node = index.get(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public void put(@Nonnull KeyType key, @Nonnull ValueType value) {
+    sketch.increment(key);
+    long weight = keyEvaluator.apply(key) + valueEvaluator.apply(value);
+
+    Node<KeyType, ValueType> node = index.get(key);
+    if (node != null) {
+      if (weight > maxMainSize + maxWindowSize) {
+        invalidate(key);
+        return;
+      }
+      node.segment.resize(node, weight);
+      node.value = value;
+      onAccess(node);
+    } else {
+      if (weight > maxMainSize + maxWindowSize) {
+        return;
+      }
+      node = new Node<>(key, value, weight);
+      index.put(key, node);
+      window.addLast(node);
+      sketch.ensureCapacity(index.size());
+    }
+
+    evict();
+  }
+
+  @Override
+  public void invalidate(@Nonnull KeyType key) {
+    Node<KeyType, ValueType> node = index.remove(key);
+    if (node != null) {
+      node.segment.remove(node);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    index.clear();
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public long getEvaluatedSize() {
+    return window.size + probation.size + protectedSegment.size;
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  private void onAccess(Node<KeyType, ValueType> node) {
+    if (node.segment == probation) {
+      probation.remove(node);
+      protectedSegment.addLast(node);
+      while (protectedSegment.size > maxProtectedSize) {
+        probation.addLast(protectedSegment.pollFirst());
+      }
+    } else {
+      node.segment.moveToEnd(node);
+    }
+  }
+
+  private void evict() {
+    while (window.size > maxWindowSize) {
+      admit(window.pollFirst());
+    }
+    // updated entries may grow main area over its limit
+    while (mainSize() > maxMainSize) {
+      evictEntry(mainVictim());
+    }
+  }
+
+  private void admit(Node<KeyType, ValueType> candidate) {
+    if (mainSize() + candidate.weight <= maxMainSize) {
+      probation.addLast(candidate);
+      return;
+    }
+
+    Node<KeyType, ValueType> victim = mainVictim();
+    if (victim == null
+        || candidate.weight > maxMainSize
+        || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+      index.remove(candidate.key);
+      evictionCount += 1;
+      return;
+    }
+
+    while (mainSize() + candidate.weight > maxMainSize) {
+      evictEntry(mainVictim());
+    }
+    probation.addLast(candidate);
+  }
+
+  @Nullable
+  private Node<KeyType, ValueType> mainVictim() {
+    Node<KeyType, ValueType> victim = probation.first();
+    return victim != null ? victim : protectedSegment.first();
+  }
+
+  private void evictEntry(Node<KeyType, ValueType> node) {
+    node.segment.remove(node);
+    index.remove(node.key);
+    evictionCount += 1;
+  }
+
+  private long mainSize() {
+    return probation.size + protectedSegment.size;
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private V value;
+    private long weight;
+    private Segment<K, V> segment;
+
+    private Node(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /** LRU ordered segment of the cache, the eldest node goes first. */
+  private static final class Segment<K, V> {
+    private final LinkedHashMap<K, Node<K, V>> nodes = new LinkedHashMap<>();
+    private long size;
+
+    private void addLast(Node<K, V> node) {
+      nodes.put(node.key, node);
+      node.segment = this;
+      size += node.weight;
+    }
+
+    private void remove(Node<K, V> node) {
+      nodes.remove(node.key);
+      node.segment = null;
+      size -= node.weight;
+    }
+
+    private void moveToEnd(Node<K, V> node) {
+      nodes.remove(node.key);
+      nodes.put(node.key, node);
+    }
+
+    private void resize(Node<K, V> node, long weight) {
+      size += weight - node.weight;
+      node.weight = weight;
+    }
+
+    @Nullable
+    private Node<K, V> first() {
+      Iterator<Node<K, V>> it = nodes.values().iterator();
+      return it.hasNext() ? it.next() : null;
+    }
+
+    private Node<K, V> pollFirst() {
+      Node<K, V> node = first();
+      remove(node);
+      return node;
+    }
+
+    private void clear() {
+      nodes.clear();
+      size = 0;
+    }
+  }
+}
@@ -7,6 +7,12 @@ import tech.pegasys.artemis.util.bytes.MutableBytesValue;
 
 import javax.annotation.Nonnull;
 
+/**
+ * Multiplexes storages over one key space by xoring keys with a storage specific modifier.
+ *
+ * <p>Xored keys neither preserve the order nor can be decoded back, hence, {@link
+ * #iterate(BytesValue, BytesValue)} is not supported, use {@link PartitionDataSource} instead.
+ */
 public class XorDataSource<TValue> extends CodecSource.KeyOnly<BytesValue, TValue, BytesValue> {
 
   public XorDataSource(@Nonnull DataSource<BytesValue, TValue> upstreamSource,
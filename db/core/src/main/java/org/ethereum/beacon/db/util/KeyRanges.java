@@ -0,0 +1,72 @@
+package org.ethereum.beacon.db.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.DataSource;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.MutableBytesValue;
+
+/** Helpers for key range iteration over {@link DataSource}. */
+public abstract class KeyRanges {
+  private KeyRanges() {}
+
+  /**
+   * Returns the least key that is greater than any key starting with given prefix.
+   *
+   * @param prefix a prefix.
+   * @return exclusive upper bound or {@code null} if there is no such key, i.e. when prefix
+   *     consists of {@code 0xFF} bytes only.
+   */
+  @Nullable
+  public static BytesValue prefixUpperBound(BytesValue prefix) {
+    for (int i = prefix.size() - 1; i >= 0; i--) {
+      if ((prefix.get(i) & 0xFF) != 0xFF) {
+        MutableBytesValue bound = prefix.slice(0, i + 1).mutableCopy();
+        bound.set(i, (byte) (bound.get(i) + 1));
+        return bound;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Iterates over entries which keys start with given prefix.
+   *
+   * @param source a source.
+   * @param prefix a prefix.
+   * @param <V> a value type.
+   * @return an iterator that MUST be closed after use.
+   */
+  public static <V> CloseableIterator<Map.Entry<BytesValue, V>> prefix(
+      DataSource<BytesValue, V> source, BytesValue prefix) {
+    return source.iterate(prefix, prefixUpperBound(prefix));
+  }
+
+  /**
+   * Checks whether key falls into a range.
+   *
+   * @param key a key.
+   * @param from inclusive lower bound, {@code null} stands for unbounded.
+   * @param to exclusive upper bound, {@code null} stands for unbounded.
+   * @param comparator key comparator.
+   * @return {@code true} if key is in range, {@code false} otherwise.
+   */
+  public static <K> boolean inRange(
+      K key, @Nullable K from, @Nullable K to, Comparator<? super K> comparator) {
+    return (from == null || comparator.compare(key, from) >= 0)
+        && (to == null || comparator.compare(key, to) < 0);
+  }
+
+  /**
+   * Returns natural order comparator for keys that implement {@link Comparable}.
+   *
+   * @param <K> a key type.
+   * @return a comparator that throws {@link ClassCastException} for keys which aren't comparable.
+   */
+  @SuppressWarnings("unchecked")
+  public static <K> Comparator<K> naturalOrder() {
+    return (Comparator<K>) Comparator.naturalOrder();
+  }
+}
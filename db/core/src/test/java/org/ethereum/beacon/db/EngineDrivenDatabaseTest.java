@@ -162,6 +162,38 @@ public class EngineDrivenDatabaseTest {
         db.getWriteBuffer().evaluateSize());
   }
 
+  @Test
+  public void checkWriteBehind() {
+    TestStorageSource engineSource = new TestStorageSource();
+    EngineDrivenDatabase db = EngineDrivenDatabase.create(engineSource, -1, 2);
+
+    DataSource<BytesValue, BytesValue> storage = db.createStorage("test");
+
+    storage.put(wrap("ONE"), wrap("FIRST"));
+    storage.put(wrap("TWO"), wrap("SECOND"));
+    db.commit();
+
+    // whether write has landed or not values must be visible
+    assertEquals(wrap("FIRST"), storage.get(wrap("ONE")).get());
+    assertEquals(wrap("SECOND"), storage.get(wrap("TWO")).get());
+
+    storage.remove(wrap("TWO"));
+    storage.put(wrap("THREE"), wrap("THIRD"));
+    db.commit();
+
+    assertEquals(wrap("FIRST"), storage.get(wrap("ONE")).get());
+    assertFalse(storage.get(wrap("TWO")).isPresent());
+    assertEquals(wrap("THIRD"), storage.get(wrap("THREE")).get());
+
+    // waits for background writes
+    db.close();
+
+    assertTrue(engineSource.source.containsValue(wrap("FIRST")));
+    assertFalse(engineSource.source.containsValue(wrap("SECOND")));
+    assertTrue(engineSource.source.containsValue(wrap("THIRD")));
+    assertFalse(storage.get(wrap("TWO")).isPresent());
+  }
+
   @Test
   @Ignore
   public void checkWithConcurrentAccessTake1() throws InterruptedException {
@@ -2,8 +2,11 @@ package org.ethereum.beacon.db;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import org.ethereum.beacon.db.rocksdb.RocksDbSource;
 import org.ethereum.beacon.db.source.DataSource;
 import org.ethereum.beacon.db.util.FileUtil;
 import org.junit.After;
@@ -88,6 +91,47 @@ public class RocksDbDrivenDatabaseTest {
     db.close();
   }
 
+  @Test
+  public void legacyLayoutIsReadable() {
+    Database legacy = EngineDrivenDatabase.create(new RocksDbSource(Paths.get("test-db")), -1);
+
+    DataSource<BytesValue, BytesValue> storage = legacy.createStorage("uno");
+    storage.put(wrap("ONE"), wrap("FIRST"));
+    storage.put(wrap("TWO"), wrap("SECOND"));
+    legacy.commit();
+    legacy.close();
+
+    assertTrue(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+
+    Database db = Database.rocksDB("test-db", -1);
+    storage = db.createStorage("uno");
+    assertEquals(wrap("FIRST"), storage.get(wrap("ONE")).get());
+    assertEquals(wrap("SECOND"), storage.get(wrap("TWO")).get());
+    assertFalse(db.createStorage("dos").get(wrap("ONE")).isPresent());
+
+    db.close();
+  }
+
+  @Test
+  public void unwrittenPartitionedDatabaseIsNotLegacy() {
+    Database db = Database.rocksDB("test-db", -1);
+    db.createStorage("uno");
+    db.close();
+
+    assertFalse(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+
+    db = Database.rocksDB("test-db", -1);
+    DataSource<BytesValue, BytesValue> storage = db.createStorage("uno");
+    storage.put(wrap("ONE"), wrap("FIRST"));
+    db.commit();
+    db.close();
+
+    assertFalse(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+    db = Database.rocksDB("test-db", -1);
+    assertEquals(wrap("FIRST"), db.createStorage("uno").get(wrap("ONE")).get());
+    db.close();
+  }
+
   private BytesValue wrap(String value) {
     return BytesValue.wrap(value.getBytes());
   }
@@ -0,0 +1,156 @@
+package org.ethereum.beacon.db.mmap;
+
+import static org.ethereum.beacon.db.mmap.MappedSegmentSource.key;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.util.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+public class MappedSegmentSourceTest {
+
+  private static final int CHUNK_SIZE = 64;
+
+  @After
+  @Before
+  public void cleanUp() throws IOException {
+    FileUtil.removeRecursively("test-segment");
+  }
+
+  @Test
+  public void basicOperations() {
+    MappedSegmentSource segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+
+    segment.put(key(0), wrap("ZERO"));
+    segment.put(key(3), wrap("THREE"));
+
+    assertEquals(wrap("ZERO"), segment.get(key(0)).get());
+    assertEquals(wrap("THREE"), segment.get(key(3)).get());
+    assertFalse(segment.get(key(1)).isPresent());
+    assertFalse(segment.get(key(4)).isPresent());
+
+    Map<BytesValue, BytesValue> batch = new HashMap<>();
+    batch.put(key(2), wrap("TWO"));
+    batch.put(key(1), wrap("ONE"));
+    segment.batchUpdate(batch);
+
+    assertEquals(wrap("ONE"), segment.get(key(1)).get());
+    assertEquals(wrap("TWO"), segment.get(key(2)).get());
+
+    segment.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void entriesAreNotOverwritten() {
+    MappedSegmentSource segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+    try {
+      segment.put(key(0), wrap("ZERO"));
+      segment.put(key(0), wrap("ANOTHER ZERO"));
+    } finally {
+      segment.close();
+    }
+  }
+
+  @Test
+  public void valuesSpanSeveralChunks() {
+    MappedSegmentSource segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+
+    List<BytesValue> values = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      byte[] value = new byte[i + 1];
+      Arrays.fill(value, (byte) i);
+      values.add(BytesValue.wrap(value));
+      segment.put(key(i), values.get(i));
+    }
+
+    for (int i = 0; i < values.size(); i++) {
+      assertEquals(values.get(i), segment.get(key(i)).get());
+    }
+
+    List<BytesValue> iterated = new ArrayList<>();
+    try (CloseableIterator<Map.Entry<BytesValue, BytesValue>> it =
+        segment.iterate(key(10), key(20))) {
+      while (it.hasNext()) {
+        iterated.add(it.next().getValue());
+      }
+    }
+    assertEquals(values.subList(10, 20), iterated);
+
+    segment.close();
+  }
+
+  @Test
+  public void entriesArePersisted() {
+    MappedSegmentSource segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+    segment.put(key(0), wrap("ZERO"));
+    segment.put(key(2), wrap("TWO"));
+    segment.flush();
+    // fills a hole below persisted entries
+    segment.put(key(1), wrap("ONE"));
+    segment.close();
+
+    segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+    assertEquals(wrap("ZERO"), segment.get(key(0)).get());
+    assertEquals(wrap("ONE"), segment.get(key(1)).get());
+    assertEquals(wrap("TWO"), segment.get(key(2)).get());
+
+    segment.put(key(3), wrap("THREE"));
+    assertEquals(wrap("THREE"), segment.get(key(3)).get());
+    assertEquals(wrap("TWO"), segment.get(key(2)).get());
+    segment.close();
+  }
+
+  @Test
+  public void iterationBoundsAreClamped() {
+    MappedSegmentSource segment = new MappedSegmentSource(Paths.get("test-segment"), CHUNK_SIZE);
+    segment.open();
+    for (int i = 0; i < 5; i++) {
+      segment.put(key(i), wrap("VALUE " + i));
+    }
+
+    assertEquals(Arrays.asList(key(2), key(3), key(4)), keys(segment, key(2), key(Long.MAX_VALUE)));
+    assertEquals(Arrays.asList(key(0), key(1)), keys(segment, key(-5), key(2)));
+    assertEquals(
+        Arrays.asList(key(0), key(1), key(2), key(3), key(4)),
+        keys(segment, key(Long.MIN_VALUE), key(Long.MAX_VALUE)));
+    assertEquals(Arrays.asList(key(4)), keys(segment, key(4), null));
+    assertTrue(keys(segment, key(Long.MAX_VALUE), null).isEmpty());
+    assertTrue(keys(segment, key(6), key(10)).isEmpty());
+    assertTrue(keys(segment, key(0), key(-1)).isEmpty());
+    assertTrue(keys(segment, key(3), key(2)).isEmpty());
+
+    segment.close();
+  }
+
+  private static List<BytesValue> keys(
+      MappedSegmentSource segment, BytesValue from, BytesValue to) {
+    List<BytesValue> keys = new ArrayList<>();
+    try (CloseableIterator<Map.Entry<BytesValue, BytesValue>> it = segment.iterate(from, to)) {
+      while (it.hasNext()) {
+        keys.add(it.next().getKey());
+      }
+    }
+    return keys;
+  }
+
+  private static BytesValue wrap(String value) {
+    return BytesValue.wrap(value.getBytes());
+  }
+}
@@ -2,11 +2,18 @@ package org.ethereum.beacon.db.rocksdb;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.ethereum.beacon.db.source.BatchUpdateDataSource;
+import org.ethereum.beacon.db.source.CloseableIterator;
 import org.ethereum.beacon.db.util.FileUtil;
 import org.junit.After;
 import org.junit.Before;
@@ -59,6 +66,127 @@ public class RocksDbSourceTest {
     rocksDb.close();
   }
 
+  @Test
+  public void partitionsAreIsolated() {
+    RocksDbSource rocksDb = new RocksDbSource(Paths.get("test-db"));
+
+    rocksDb.open();
+    BatchUpdateDataSource<BytesValue, BytesValue> uno = rocksDb.getPartition("uno");
+    BatchUpdateDataSource<BytesValue, BytesValue> dos = rocksDb.getPartition("dos");
+
+    rocksDb.put(wrap("ONE"), wrap("DEFAULT_FIRST"));
+    uno.put(wrap("ONE"), wrap("UNO_FIRST"));
+
+    Map<String, Map<BytesValue, BytesValue>> batch = new HashMap<>();
+    batch.computeIfAbsent("uno", name -> new HashMap<>()).put(wrap("TWO"), wrap("UNO_SECOND"));
+    batch.computeIfAbsent("dos", name -> new HashMap<>()).put(wrap("ONE"), wrap("DOS_FIRST"));
+    rocksDb.batchUpdatePartitions(batch);
+
+    assertEquals(wrap("DEFAULT_FIRST"), rocksDb.get(wrap("ONE")).get());
+    assertEquals(wrap("UNO_FIRST"), uno.get(wrap("ONE")).get());
+    assertEquals(wrap("UNO_SECOND"), uno.get(wrap("TWO")).get());
+    assertEquals(wrap("DOS_FIRST"), dos.get(wrap("ONE")).get());
+    assertFalse(rocksDb.get(wrap("TWO")).isPresent());
+    assertFalse(dos.get(wrap("TWO")).isPresent());
+
+    rocksDb.close();
+    assertFalse(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+    rocksDb.open();
+
+    dos.remove(wrap("ONE"));
+    assertEquals(wrap("DEFAULT_FIRST"), rocksDb.get(wrap("ONE")).get());
+    assertEquals(wrap("UNO_FIRST"), uno.get(wrap("ONE")).get());
+    assertEquals(wrap("UNO_SECOND"), uno.get(wrap("TWO")).get());
+    assertFalse(dos.get(wrap("ONE")).isPresent());
+
+    rocksDb.close();
+  }
+
+  @Test
+  public void layoutDetection() {
+    RocksDbSource rocksDb = new RocksDbSource(Paths.get("test-db"));
+
+    // created but not written yet
+    rocksDb.open();
+    rocksDb.close();
+    assertFalse(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+
+    // legacy layout, default column family only
+    rocksDb.open();
+    rocksDb.put(wrap("ONE"), wrap("FIRST"));
+    rocksDb.close();
+    assertTrue(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+
+    // layout marker is persisted once partitions are in use
+    rocksDb.open();
+    rocksDb.getPartition("uno").put(wrap("ONE"), wrap("UNO_FIRST"));
+    assertTrue(rocksDb.get(wrap("beacon-chain-java.layout")).isPresent());
+    rocksDb.close();
+    assertFalse(RocksDbSource.isSinglePartition(Paths.get("test-db")));
+  }
+
+  @Test
+  public void rangeIteration() {
+    RocksDbSource rocksDb = new RocksDbSource(Paths.get("test-db"));
+
+    rocksDb.open();
+    BatchUpdateDataSource<BytesValue, BytesValue> uno = rocksDb.getPartition("uno");
+    for (String key : new String[] {"A1", "A2", "B1", "B2", "C1"}) {
+      uno.put(wrap(key), wrap(key.toLowerCase()));
+    }
+    rocksDb.put(wrap("B3"), wrap("default"));
+
+    assertEquals(keys("A1", "A2", "B1", "B2", "C1"), collectKeys(uno.iterate(null, null)));
+    assertEquals(keys("B1", "B2", "C1"), collectKeys(uno.iterate(wrap("B"), null)));
+    assertEquals(keys("A2", "B1"), collectKeys(uno.iterate(wrap("A2"), wrap("B2"))));
+    assertEquals(keys("B3"), collectKeys(rocksDb.iterate(wrap("B"), wrap("C"))));
+
+    CloseableIterator<Map.Entry<BytesValue, BytesValue>> unclosed = uno.iterate(null, null);
+    assertTrue(unclosed.hasNext());
+    rocksDb.close();
+    assertFalse(unclosed.hasNext());
+  }
+
+  @Test
+  public void multiGet() {
+    RocksDbSource rocksDb = new RocksDbSource(Paths.get("test-db"));
+
+    rocksDb.open();
+    BatchUpdateDataSource<BytesValue, BytesValue> uno = rocksDb.getPartition("uno");
+    uno.put(wrap("ONE"), wrap("UNO_FIRST"));
+    uno.put(wrap("TWO"), wrap("UNO_SECOND"));
+    rocksDb.put(wrap("THREE"), wrap("DEFAULT_THIRD"));
+
+    Map<BytesValue, BytesValue> expected = new HashMap<>();
+    expected.put(wrap("ONE"), wrap("UNO_FIRST"));
+    expected.put(wrap("TWO"), wrap("UNO_SECOND"));
+    assertEquals(
+        expected, uno.getAll(Arrays.asList(wrap("ONE"), wrap("TWO"), wrap("THREE"), wrap("ONE"))));
+    assertEquals(
+        Collections.singletonMap(wrap("THREE"), wrap("DEFAULT_THIRD")),
+        rocksDb.getAll(Arrays.asList(wrap("ONE"), wrap("THREE"))));
+    assertTrue(uno.getAll(Collections.emptyList()).isEmpty());
+
+    rocksDb.close();
+  }
+
+  private List<BytesValue> collectKeys(
+      CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterator) {
+    List<BytesValue> keys = new ArrayList<>();
+    try (CloseableIterator<Map.Entry<BytesValue, BytesValue>> it = iterator) {
+      it.forEachRemaining(entry -> keys.add(entry.getKey()));
+    }
+    return keys;
+  }
+
+  private List<BytesValue> keys(String... values) {
+    List<BytesValue> keys = new ArrayList<>();
+    for (String value : values) {
+      keys.add(wrap(value));
+    }
+    return keys;
+  }
+
   private BytesValue wrap(String value) {
     return BytesValue.wrap(value.getBytes());
   }
@@ -0,0 +1,87 @@
+package org.ethereum.beacon.db.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+
+public class ConcurrentWriteBufferTest {
+
+  @Test
+  public void bufferAndFlush() {
+    HashMapDataSource<Integer, String> upstream = new HashMapDataSource<>();
+    ConcurrentWriteBuffer<Integer, String> buffer =
+        new ConcurrentWriteBuffer<>(upstream, k -> 4L, v -> (long) v.length(), false);
+    upstream.put(0, "zero");
+
+    buffer.put(1, "one");
+    buffer.put(2, "two");
+    buffer.put(2, "dos");
+    buffer.remove(0);
+    assertEquals(2 * (4 + 3), buffer.evaluateSize());
+    assertEquals(Optional.of("dos"), buffer.get(2));
+    assertFalse(buffer.get(0).isPresent());
+    assertEquals(Optional.of(Optional.empty()), buffer.getCacheEntry(0));
+    assertTrue(upstream.getStore().containsKey(0));
+    assertFalse(upstream.getStore().containsKey(1));
+
+    buffer.remove(1);
+    assertEquals(4 + 3, buffer.evaluateSize());
+
+    buffer.flush();
+    assertEquals(0, buffer.evaluateSize());
+    assertFalse(buffer.getCacheEntry(2).isPresent());
+    assertEquals(Optional.of("dos"), upstream.get(2));
+    assertFalse(upstream.get(0).isPresent());
+    assertFalse(upstream.get(1).isPresent());
+  }
+
+  @Test
+  public void concurrentWritesAndFlushes() throws Exception {
+    HashMapDataSource<Integer, Integer> upstream = new HashMapDataSource<>();
+    ConcurrentWriteBuffer<Integer, Integer> buffer = new ConcurrentWriteBuffer<>(upstream, false);
+    int threads = 4;
+    int keysPerThread = 10_000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int base = t * keysPerThread;
+      writers.add(
+          executor.submit(
+              () -> {
+                for (int i = base; i < base + keysPerThread; i++) {
+                  buffer.put(i, i);
+                  if (!buffer.get(i).isPresent()) {
+                    throw new AssertionError("Lost write: " + i);
+                  }
+                }
+              }));
+    }
+    Future<?> flusher =
+        executor.submit(
+            () -> {
+              while (!writers.stream().allMatch(Future::isDone)) {
+                buffer.flush();
+              }
+            });
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    flusher.get();
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    buffer.flush();
+    assertEquals(threads * keysPerThread, upstream.getStore().size());
+  }
+}
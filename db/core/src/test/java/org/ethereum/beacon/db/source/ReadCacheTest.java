@@ -0,0 +1,86 @@
+package org.ethereum.beacon.db.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+
+public class ReadCacheTest {
+
+  @Test
+  public void lruEviction() {
+    HashMapDataSource<Integer, String> upstream = new HashMapDataSource<>();
+    ReadCache<Integer, String> cache = ReadCache.lru(upstream, "test", 3, k -> 0L, v -> 1L);
+    for (int i = 1; i <= 4; i++) {
+      upstream.put(i, "value-" + i);
+    }
+
+    assertEquals(Optional.of("value-1"), cache.get(1));
+    assertEquals(Optional.of("value-2"), cache.get(2));
+    assertEquals(Optional.of("value-3"), cache.get(3));
+    assertEquals(Optional.of("value-1"), cache.get(1));
+    assertEquals(Optional.of("value-4"), cache.get(4));
+
+    assertTrue(cache.getCacheEntry(1).isPresent());
+    assertFalse(cache.getCacheEntry(2).isPresent());
+    assertEquals(3, cache.evaluateSize());
+
+    CacheStats stats = cache.getStats();
+    assertEquals("test", stats.getName());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(4, stats.getMissCount());
+    assertEquals(1, stats.getEvictionCount());
+  }
+
+  @Test
+  public void writeThrough() {
+    HashMapDataSource<Integer, String> upstream = new HashMapDataSource<>();
+    ReadCache<Integer, String> cache = ReadCache.tinyLfu(upstream, "test", 100, k -> 0L, v -> 1L);
+
+    cache.put(1, "one");
+    assertEquals(Optional.of("one"), upstream.get(1));
+    assertEquals(Optional.of(Optional.of("one")), cache.getCacheEntry(1));
+
+    cache.put(1, "uno");
+    assertEquals(Optional.of("uno"), cache.get(1));
+    assertEquals(Optional.of("uno"), upstream.get(1));
+
+    cache.remove(1);
+    assertFalse(upstream.get(1).isPresent());
+    assertFalse(cache.getCacheEntry(1).isPresent());
+    assertFalse(cache.get(1).isPresent());
+    assertEquals(1, cache.getStats().getHitCount());
+  }
+
+  @Test
+  public void tinyLfuResistsScan() {
+    HashMapDataSource<Integer, String> upstream = new HashMapDataSource<>();
+    ReadCache<Integer, String> cache = ReadCache.tinyLfu(upstream, "test", 100, k -> 0L, v -> 1L);
+    for (int i = 0; i < 2000; i++) {
+      upstream.put(i, "value-" + i);
+    }
+
+    int hotKeys = 50;
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < hotKeys; i++) {
+        cache.get(i);
+      }
+    }
+    for (int i = 1000; i < 2000; i++) {
+      cache.get(i);
+    }
+
+    long hitsBefore = cache.getStats().getHitCount();
+    for (int i = 0; i < hotKeys; i++) {
+      cache.get(i);
+    }
+    long hotHits = cache.getStats().getHitCount() - hitsBefore;
+
+    assertTrue("hot keys evicted by scan: " + hotHits, hotHits >= hotKeys * 9 / 10);
+    assertTrue(cache.evaluateSize() <= 100);
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+  }
+}
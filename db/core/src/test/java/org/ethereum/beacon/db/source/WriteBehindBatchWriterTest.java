@@ -0,0 +1,81 @@
+package org.ethereum.beacon.db.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.junit.Test;
+
+public class WriteBehindBatchWriterTest {
+
+  @Test
+  public void batchesAreWritten() {
+    FailingSource upstream = new FailingSource();
+    WriteBehindBatchWriter<String, String> writer = new WriteBehindBatchWriter<>(upstream, 2);
+
+    writer.put("ONE", "FIRST");
+    writer.flush();
+    writer.put("TWO", "SECOND");
+    writer.remove("ONE");
+    writer.flush();
+    writer.close();
+
+    assertFalse(upstream.get("ONE").isPresent());
+    assertEquals("SECOND", upstream.get("TWO").get());
+  }
+
+  @Test
+  public void failedBatchStaysReadable() {
+    FailingSource upstream = new FailingSource();
+    WriteBehindBatchWriter<String, String> writer = new WriteBehindBatchWriter<>(upstream, 4);
+
+    writer.put("ONE", "FIRST");
+    writer.flush();
+    writer.awaitWritten();
+
+    upstream.failing = true;
+    writer.put("TWO", "SECOND");
+    writer.flush();
+
+    try {
+      writer.awaitWritten();
+      fail("Write failure should be rethrown");
+    } catch (IllegalStateException e) {
+      assertEquals("disk is gone", e.getCause().getMessage());
+    }
+
+    assertEquals("FIRST", writer.get("ONE").get());
+    assertEquals("SECOND", writer.get("TWO").get());
+    assertFalse(upstream.get("TWO").isPresent());
+
+    try {
+      writer.close();
+      fail("Write failure should be rethrown");
+    } catch (IllegalStateException e) {
+      assertEquals("disk is gone", e.getCause().getMessage());
+    }
+  }
+
+  private static class FailingSource extends HashMapDataSource<String, String>
+      implements BatchUpdateDataSource<String, String> {
+
+    private volatile boolean failing = false;
+
+    @Override
+    public void batchUpdate(Map<String, String> updates) {
+      if (failing) {
+        throw new RuntimeException("disk is gone");
+      }
+      updates.forEach(
+          (key, value) -> {
+            if (value == null) {
+              remove(key);
+            } else {
+              put(key, value);
+            }
+          });
+    }
+  }
+}
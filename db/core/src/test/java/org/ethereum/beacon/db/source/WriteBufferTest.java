@@ -0,0 +1,119 @@
+package org.ethereum.beacon.db.source;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.ethereum.beacon.db.source.impl.HashMapDataSource;
+import org.ethereum.beacon.db.source.impl.PartitionDataSource;
+import org.ethereum.beacon.db.util.KeyRanges;
+import org.junit.Test;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+
+public class WriteBufferTest {
+
+  @Test
+  public void iterateOverBufferedChanges() {
+    HashMapDataSource<BytesValue, BytesValue> engine = HashMapDataSource.sorted();
+    WriteBuffer<BytesValue, BytesValue> buffer = new WriteBuffer<>(engine, false);
+    DataSource<BytesValue, BytesValue> uno = new PartitionDataSource<>(buffer, "uno");
+    DataSource<BytesValue, BytesValue> dos = new PartitionDataSource<>(buffer, "dos");
+
+    for (String key : new String[] {"A1", "A2", "B1", "B2", "C1"}) {
+      uno.put(wrap(key), wrap(key));
+      dos.put(wrap(key), wrap(key));
+    }
+    buffer.flush();
+
+    uno.put(wrap("B0"), wrap("B0"));
+    uno.put(wrap("B2"), wrap("B2-updated"));
+    uno.remove(wrap("A2"));
+    uno.remove(wrap("C1"));
+    dos.put(wrap("A0"), wrap("A0"));
+
+    assertEquals(
+        entries("A1", "A1", "B0", "B0", "B1", "B1", "B2", "B2-updated"),
+        collect(uno.iterate(null, null)));
+    assertEquals(entries("B0", "B0", "B1", "B1"), collect(uno.iterate(wrap("A2"), wrap("B2"))));
+    assertEquals(
+        entries("B0", "B0", "B1", "B1", "B2", "B2-updated"),
+        collect(KeyRanges.prefix(uno, wrap("B"))));
+    assertEquals(
+        entries("A0", "A0", "A1", "A1", "A2", "A2"), collect(KeyRanges.prefix(dos, wrap("A"))));
+  }
+
+  @Test
+  public void getAllThroughLayers() {
+    HashMapDataSource<BytesValue, BytesValue> engine = HashMapDataSource.sorted();
+    WriteBuffer<BytesValue, BytesValue> buffer = new WriteBuffer<>(engine, false);
+    DataSource<String, String> uno =
+        new CodecSource<>(
+            new PartitionDataSource<>(buffer, "uno"),
+            this::wrap,
+            this::wrap,
+            value -> new String(value.extractArray()));
+
+    Map<String, String> expected = new HashMap<>();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String key = "key-" + i;
+      keys.add(key);
+      uno.put(key, "value-" + i);
+      expected.put(key, "value-" + i);
+    }
+    buffer.flush();
+
+    uno.put("key-0", "value-0-updated");
+    expected.put("key-0", "value-0-updated");
+    uno.remove("key-1");
+    expected.remove("key-1");
+    uno.put("key-new", "value-new");
+    expected.put("key-new", "value-new");
+    keys.add("key-new");
+    keys.add("key-absent");
+
+    assertEquals(expected, uno.getAll(keys));
+    Map<String, String> small = new HashMap<>();
+    small.put("key-0", "value-0-updated");
+    small.put("key-2", "value-2");
+    assertEquals(small, uno.getAll(Arrays.asList("key-0", "key-1", "key-2")));
+  }
+
+  @Test
+  public void prefixUpperBound() {
+    assertEquals(
+        BytesValue.fromHexString("0x0102"),
+        KeyRanges.prefixUpperBound(BytesValue.fromHexString("0x0101")));
+    assertEquals(
+        BytesValue.fromHexString("0x02"),
+        KeyRanges.prefixUpperBound(BytesValue.fromHexString("0x01ffff")));
+    assertEquals(null, KeyRanges.prefixUpperBound(BytesValue.fromHexString("0xffff")));
+  }
+
+  private List<String> collect(CloseableIterator<Map.Entry<BytesValue, BytesValue>> iterator) {
+    List<String> ret = new ArrayList<>();
+    try (CloseableIterator<Map.Entry<BytesValue, BytesValue>> it = iterator) {
+      it.forEachRemaining(
+          entry -> {
+            ret.add(new String(entry.getKey().extractArray()));
+            ret.add(new String(entry.getValue().extractArray()));
+          });
+    }
+    return ret;
+  }
+
+  private List<String> entries(String... keyValues) {
+    List<String> ret = new ArrayList<>();
+    for (String keyValue : keyValues) {
+      ret.add(keyValue);
+    }
+    return ret;
+  }
+
+  private BytesValue wrap(String value) {
+    return BytesValue.wrap(value.getBytes());
+  }
+}
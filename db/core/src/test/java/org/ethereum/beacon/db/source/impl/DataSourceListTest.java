@@ -0,0 +1,67 @@
+package org.ethereum.beacon.db.source.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.ethereum.beacon.db.source.CloseableIterator;
+import org.ethereum.beacon.db.source.DataSource;
+import org.ethereum.beacon.db.source.HoleyList;
+import org.junit.Test;
+import tech.pegasys.artemis.util.bytes.BytesValue;
+import tech.pegasys.artemis.util.bytes.BytesValues;
+
+public class DataSourceListTest {
+
+  @Test
+  public void rangeIteration() {
+    HashMapDataSource<BytesValue, BytesValue> sorted = HashMapDataSource.sorted();
+    checkRanges(sorted);
+  }
+
+  @Test
+  public void rangeIterationOverUnorderedSource() {
+    HashMapDataSource<BytesValue, BytesValue> sorted = HashMapDataSource.sorted();
+    checkRanges(new XorDataSource<>(sorted, BytesValue.fromHexString("0x0102")));
+  }
+
+  private void checkRanges(DataSource<BytesValue, BytesValue> source) {
+    HoleyList<Long> list =
+        new DataSourceList<>(source, BytesValues::toMinimalBytes, BytesValues::extractLong);
+    // spans keys of 0, 1, 2 and 3 bytes long, every third index is missing
+    List<Long> indices = new ArrayList<>();
+    for (long i = 0; i < 70_000; i++) {
+      if (i % 3 != 1) {
+        list.put(i, i * 10);
+        indices.add(i);
+      }
+    }
+
+    long[][] ranges = {
+      {0, 1}, {0, 300}, {250, 260}, {255, 65_537}, {65_530, 65_540}, {69_990, Long.MAX_VALUE},
+      {200, 65_536}, {-5, 3}, {70_000, 80_000}, {10, 10}, {0, Long.MAX_VALUE}
+    };
+    for (long[] range : ranges) {
+      List<Long> expected = new ArrayList<>();
+      for (Long i : indices) {
+        if (i >= range[0] && i < range[1]) {
+          expected.add(i);
+        }
+      }
+      assertEquals(expected, collect(list.iterate(range[0], range[1])));
+    }
+  }
+
+  private List<Long> collect(CloseableIterator<Map.Entry<Long, Long>> iterator) {
+    List<Long> ret = new ArrayList<>();
+    try (CloseableIterator<Map.Entry<Long, Long>> it = iterator) {
+      while (it.hasNext()) {
+        Map.Entry<Long, Long> entry = it.next();
+        assertEquals(entry.getKey() * 10, (long) entry.getValue());
+        ret.add(entry.getKey());
+      }
+    }
+    return ret;
+  }
+}
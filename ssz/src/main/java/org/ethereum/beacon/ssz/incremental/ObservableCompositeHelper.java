@@ -46,6 +46,13 @@ public class ObservableCompositeHelper implements UpdateListener, ObservableComp
                 ObservableCompositeHelper.this.childUpdated(index);
               }
 
+              @Override
+              public void childrenUpdated(int fromIndex, int count) {
+                if (count > 0) {
+                  ObservableCompositeHelper.this.childUpdated(index);
+                }
+              }
+
               @Override
               public UpdateListener fork() {
                 return this;
@@ -112,10 +119,9 @@ public class ObservableCompositeHelper implements UpdateListener, ObservableComp
     listeners.values().forEach(l -> l.childUpdated(childIndex));
   }
 
+  @Override
   public void childrenUpdated(int fromIdx, int count) {
-    for (int i = 0; i < count; i++) {
-      childUpdated(fromIdx + i);
-    }
+    listeners.values().forEach(l -> l.childrenUpdated(fromIdx, count));
   }
 
   /**
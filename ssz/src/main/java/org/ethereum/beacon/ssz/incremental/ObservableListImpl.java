@@ -174,6 +174,12 @@ public class ObservableListImpl<IndexType extends Number, ValueType>
     observableHelper.childrenUpdated(0, size().intValue());
   }
 
+  @Override
+  public void setAll(IndexType fromIndex, List<? extends ValueType> values) {
+    delegate.setAll(fromIndex, values);
+    observableHelper.childrenUpdated(fromIndex.intValue(), values.size());
+  }
+
   /** ***** read methods ***** */
   @Override
   public IndexType size() {
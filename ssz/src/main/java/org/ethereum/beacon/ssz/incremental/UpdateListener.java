@@ -12,6 +12,18 @@ public interface UpdateListener {
    */
   void childUpdated(int childIndex);
 
+  /**
+   * Notifies that children with indices from <code>fromIndex</code> to
+   * <code>fromIndex + count</code> exclusive were updated.
+   * Bulk updates are reported with a single call, a listener may handle
+   * the range at once instead of element by element.
+   */
+  default void childrenUpdated(int fromIndex, int count) {
+    for (int i = 0; i < count; i++) {
+      childUpdated(fromIndex + i);
+    }
+  }
+
   /**
    * Creates an independent copy of this {@link UpdateListener} which will be tracking
    * updates independently of this listener updates.
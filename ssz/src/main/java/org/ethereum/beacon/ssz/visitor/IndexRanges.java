@@ -0,0 +1,110 @@
+package org.ethereum.beacon.ssz.visitor;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * A set of indices kept as disjoint ranges of consecutive indices, hence, an update of a whole
+ * list is recorded as a single range rather than element by element.
+ *
+ * <p><strong>Note:</strong> this class is not thread-safe.
+ */
+final class IndexRanges implements Iterable<Integer> {
+
+  /** Starts of ranges mapped to their exclusive ends. */
+  private final TreeMap<Integer, Integer> ranges;
+
+  IndexRanges() {
+    this(new TreeMap<>());
+  }
+
+  private IndexRanges(TreeMap<Integer, Integer> ranges) {
+    this.ranges = ranges;
+  }
+
+  void add(int index) {
+    addRange(index, index + 1);
+  }
+
+  /**
+   * Adds indices merging the range with overlapping and adjacent ones.
+   *
+   * @param from the first index.
+   * @param to an index following the last one.
+   */
+  void addRange(int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    Map.Entry<Integer, Integer> floor = ranges.floorEntry(from);
+    if (floor != null && floor.getValue() >= from) {
+      if (floor.getValue() >= to) {
+        return;
+      }
+      from = floor.getKey();
+    }
+    Map.Entry<Integer, Integer> next;
+    while ((next = ranges.ceilingEntry(from)) != null && next.getKey() <= to) {
+      to = Math.max(to, next.getValue());
+      ranges.remove(next.getKey());
+    }
+    ranges.put(from, to);
+  }
+
+  boolean isEmpty() {
+    return ranges.isEmpty();
+  }
+
+  void clear() {
+    ranges.clear();
+  }
+
+  IndexRanges copy() {
+    return new IndexRanges(new TreeMap<>(ranges));
+  }
+
+  /**
+   * @param valuesPerChunk a number of values packed into a chunk.
+   * @return indices of chunks which contain values with indices of this set.
+   */
+  IndexRanges toChunks(int valuesPerChunk) {
+    IndexRanges chunks = new IndexRanges();
+    ranges.forEach(
+        (from, to) -> chunks.addRange(from / valuesPerChunk, (to - 1) / valuesPerChunk + 1));
+    return chunks;
+  }
+
+  /** Iterates over indices in ascending order. */
+  @Override
+  public Iterator<Integer> iterator() {
+    Iterator<Map.Entry<Integer, Integer>> rangeIterator = ranges.entrySet().iterator();
+    return new Iterator<Integer>() {
+      private int next = 0;
+      private int end = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (next < end) {
+          return true;
+        }
+        if (!rangeIterator.hasNext()) {
+          return false;
+        }
+        Map.Entry<Integer, Integer> range = rangeIterator.next();
+        next = range.getKey();
+        end = range.getValue();
+        return true;
+      }
+
+      @Override
+      public Integer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return next++;
+      }
+    };
+  }
+}
@@ -20,6 +20,22 @@ public class MerkleTrie {
     return Hash32.wrap(Bytes32.leftPad(nodes[0]));
   }
 
+  /**
+   * Returns a number of leaves of the trie which is always a power of 2. Leaves take indices from
+   * {@code width} to {@code 2 * width - 1}.
+   */
+  public int getWidth() {
+    return nodes.length / 2;
+  }
+
+  /**
+   * Returns a node by its generalized index, i.e. {@code 1} is a pure root and children of node
+   * {@code i} are {@code 2 * i} and {@code 2 * i + 1}.
+   */
+  public BytesValue getNode(int index) {
+    return nodes[index];
+  }
+
   public void setFinalRoot(Hash32 mixedInLengthHash) {
     nodes[0] = mixedInLengthHash;
   }
@@ -1,7 +1,6 @@
 package org.ethereum.beacon.ssz.visitor;
 
 import static java.lang.Math.min;
-import static java.util.stream.Collectors.toList;
 import static org.ethereum.beacon.ssz.type.SSZType.Type.BASIC;
 import static org.ethereum.beacon.ssz.type.SSZType.Type.LIST;
 import static org.ethereum.beacon.ssz.type.SSZType.Type.VECTOR;
@@ -9,10 +8,8 @@ import static tech.pegasys.artemis.util.bytes.BytesValue.concat;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.ethereum.beacon.ssz.incremental.ObservableComposite;
@@ -27,10 +24,10 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
   private static final String INCREMENTAL_HASHER_OBSERVER_ID = "Hasher";
 
   static class SSZIncrementalTracker implements UpdateListener {
-    TreeSet<Integer> elementsUpdated = new TreeSet<>();
+    IndexRanges elementsUpdated = new IndexRanges();
     MerkleTrie merkleTree;
 
-    public SSZIncrementalTracker(TreeSet<Integer> elementsUpdated,
+    public SSZIncrementalTracker(IndexRanges elementsUpdated,
         MerkleTrie merkleTree) {
       this.elementsUpdated = elementsUpdated;
       this.merkleTree = merkleTree;
@@ -44,10 +41,15 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
       elementsUpdated.add(childIndex);
     }
 
+    @Override
+    public void childrenUpdated(int fromIndex, int count) {
+      elementsUpdated.addRange(fromIndex, fromIndex + count);
+    }
+
     @Override
     public UpdateListener fork() {
       return new SSZIncrementalTracker(
-          (TreeSet<Integer>) elementsUpdated.clone(),
+          elementsUpdated.copy(),
           merkleTree == null ? null : merkleTree.copy());
     }
   }
@@ -58,6 +60,29 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
     super(serializer, hashFunction, bytesPerChunk);
   }
 
+  /**
+   * Returns a trie that has been built for the value by the recent run of incremental hasher.
+   *
+   * @param value a value.
+   * @return the trie or nothing if the value hasn't been hashed incrementally yet or has been
+   *     updated since then.
+   */
+  public static Optional<MerkleTrie> getCachedTrie(Object value) {
+    if (!(value instanceof ObservableComposite)) {
+      return Optional.empty();
+    }
+    UpdateListener listener =
+        ((ObservableComposite) value).getUpdateListener(INCREMENTAL_HASHER_OBSERVER_ID, () -> null);
+    if (!(listener instanceof SSZIncrementalTracker)) {
+      return Optional.empty();
+    }
+    SSZIncrementalTracker tracker = (SSZIncrementalTracker) listener;
+    if (tracker.merkleTree == null || !tracker.elementsUpdated.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(tracker.merkleTree);
+  }
+
   @Override
   public MerkleTrie visitComposite(SSZCompositeType type, Object rawValue,
       ChildVisitor<Object, MerkleTrie> childVisitor) {
@@ -90,7 +115,7 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
       Object value,
       BiFunction<Integer, Object, MerkleTrie> childVisitor,
       MerkleTrie merkleTree,
-      SortedSet<Integer> elementsUpdated) {
+      IndexRanges elementsUpdated) {
 
     return updateTrie(
         type,
@@ -105,7 +130,7 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
       SSZListType type,
       Object value,
       MerkleTrie oldTrie,
-      SortedSet<Integer> elementsUpdated) {
+      IndexRanges elementsUpdated) {
 
     int typeSize = type.getElementType().getSize();
     int valsPerChunk = bytesPerChunk / typeSize;
@@ -116,7 +141,7 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
         idx -> serializePackedChunk(type, value, idx),
         (type.getChildrenCount(value) - 1) / valsPerChunk + 1,
         oldTrie,
-        elementsUpdated.stream().map(i -> i / valsPerChunk).distinct().collect(toList()));
+        elementsUpdated.toChunks(valsPerChunk));
   }
 
   private MerkleTrie updateTrie(
@@ -125,7 +150,7 @@ public class SSZIncrementalHasher extends SSZSimpleHasher {
       Function<Integer, BytesValue> childChunkSupplier,
       int newChunksCount,
       MerkleTrie oldTrie,
-      Collection<Integer> chunksUpdated) {
+      Iterable<Integer> chunksUpdated) {
 
     MerkleTrie newTrie = copyWithSize(oldTrie, newChunksCount);
     int newTrieWidth = newTrie.nodes.length / 2;
@@ -1,5 +1,7 @@
 package org.ethereum.beacon.ssz;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.function.Function;
@@ -378,6 +380,44 @@ public class SSZIncrementalTest {
     }
   }
 
+  @Test
+  public void testPackedListSetRange() {
+    SSZBuilder sszBuilder = new SSZBuilder();
+    TypeResolver typeResolver = sszBuilder.getTypeResolver();
+
+    SSZVisitorHost visitorHost = new SSZVisitorHost();
+    SSZSerializer serializer = new SSZSerializer(visitorHost, typeResolver);
+    CountingHash countingHashSimp = new CountingHash();
+    CountingHash countingHashInc = new CountingHash();
+    SSZIncrementalHasher incrementalHasher = new SSZIncrementalHasher(serializer, countingHashInc,
+        32);
+    SSZSimpleHasher simpleHasher = new SSZSimpleHasher(serializer, countingHashSimp, 32);
+
+    WriteList<Integer, UInt64> list1 = new ObservableListImpl<>(WriteList.create(Integer::valueOf));
+    for (int i = 0; i < 1000; i++) {
+      list1.add(UInt64.valueOf(0xF00000000L + i));
+    }
+    SSZType sszListType = typeResolver.resolveSSZType(SSZField.resolveFromValue(list1));
+    visitorHost.handleAny(sszListType, list1, incrementalHasher);
+
+    Random rnd = new Random(1);
+    for (int i = 0; i < 50; i++) {
+      int from = rnd.nextInt(list1.size());
+      List<UInt64> values = new ArrayList<>();
+      for (int j = from; j < Math.min(from + rnd.nextInt(40), list1.size()); j++) {
+        values.add(UInt64.valueOf(rnd.nextLong()));
+      }
+      list1.setAll(from, values);
+
+      countingHashInc.counter = 0;
+      countingHashSimp.counter = 0;
+      MerkleTrie mt2 = visitorHost.handleAny(sszListType, list1, simpleHasher);
+      MerkleTrie mt3 = visitorHost.handleAny(sszListType, list1, incrementalHasher);
+      Assert.assertEquals(mt2.getFinalRoot(), mt3.getFinalRoot());
+      Assert.assertTrue(countingHashInc.counter < countingHashSimp.counter);
+    }
+  }
+
   @Test
   public void testNonPackedListRandom() {
     listRandomTest(
@@ -0,0 +1,59 @@
+package org.ethereum.beacon.ssz.visitor;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class IndexRangesTest {
+
+  @Test
+  public void rangesAreMerged() {
+    IndexRanges ranges = new IndexRanges();
+    assertTrue(ranges.isEmpty());
+
+    ranges.addRange(10, 13);
+    ranges.add(5);
+    ranges.add(13);
+    ranges.addRange(20, 20);
+    assertEquals(asList(5, 10, 11, 12, 13), list(ranges));
+
+    IndexRanges copy = ranges.copy();
+    // overlaps the first two ranges and is adjacent to the third one
+    ranges.addRange(25, 27);
+    ranges.addRange(4, 25);
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 4; i < 27; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, list(ranges));
+    assertEquals(asList(5, 10, 11, 12, 13), list(copy));
+
+    ranges.addRange(6, 9);
+    assertEquals(expected, list(ranges));
+
+    ranges.clear();
+    assertTrue(ranges.isEmpty());
+    assertEquals(Collections.emptyList(), list(ranges));
+  }
+
+  @Test
+  public void indicesAreMappedToChunks() {
+    IndexRanges ranges = new IndexRanges();
+    ranges.add(1);
+    ranges.addRange(3, 5);
+    ranges.addRange(16, 17);
+    ranges.addRange(31, 40);
+    assertEquals(asList(0, 1, 4, 7, 8, 9), list(ranges.toChunks(4)));
+  }
+
+  private List<Integer> list(IndexRanges ranges) {
+    List<Integer> ret = new ArrayList<>();
+    ranges.forEach(ret::add);
+    return ret;
+  }
+}
@@ -348,6 +348,7 @@ public class BenchmarkReport {
     TOP_METHOD_LIST.put(
         BenchmarkRoutine.EPOCH,
         new String[] {
+          "get_epoch_participation",
           "process_justification_and_finalization",
           "process_crosslinks",
           "process_rewards_and_penalties",
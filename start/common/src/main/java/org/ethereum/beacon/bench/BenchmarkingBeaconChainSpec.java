@@ -5,10 +5,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.hasher.ObjectHasher;
+import org.ethereum.beacon.consensus.spec.EpochParticipation;
 import org.ethereum.beacon.consensus.util.CachingBeaconChainSpec;
 import org.ethereum.beacon.core.BeaconBlock;
 import org.ethereum.beacon.core.BeaconBlockBody;
@@ -50,7 +52,9 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
         spec.isBlsVerifyProofOfPossession(),
         spec.isVerifyDepositProof(),
         spec.isComputableGenesisTime(),
-        spec instanceof CachingBeaconChainSpec && ((CachingBeaconChainSpec) spec).isCacheEnabled());
+        spec instanceof CachingBeaconChainSpec && ((CachingBeaconChainSpec) spec).isCacheEnabled(),
+        spec.getEpochProcessingPool(),
+        spec.getVerifierPool());
 
     // share caches between all instances to avoid cache duplication
     if (spec instanceof CachingBeaconChainSpec) {
@@ -68,7 +72,9 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
       boolean blsVerifyProofOfPossession,
       boolean verifyDepositProof,
       boolean computableGenesisTime,
-      boolean cacheEnabled) {
+      boolean cacheEnabled,
+      ForkJoinPool epochProcessingPool,
+      ForkJoinPool verifierPool) {
     super(
         constants,
         hashFunction,
@@ -77,7 +83,9 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
         blsVerifyProofOfPossession,
         verifyDepositProof,
         computableGenesisTime,
-        cacheEnabled);
+        cacheEnabled,
+        epochProcessingPool,
+        verifierPool);
   }
 
   @Override
@@ -103,6 +111,17 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
         "bls_verify", () -> super.bls_verify(publicKey, message, signature, domain));
   }
 
+  @Override
+  public boolean bls_verify(
+      BeaconState state,
+      ValidatorIndex index,
+      Hash32 message,
+      BLSSignature signature,
+      UInt64 domain) {
+    return callAndTrack(
+        "bls_verify", () -> super.bls_verify(state, index, message, signature, domain));
+  }
+
   @Override
   public boolean bls_verify_multiple(
       List<PublicKey> publicKeys, List<Hash32> messages, BLSSignature signature, UInt64 domain) {
@@ -117,6 +136,12 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
         "bls_aggregate_pubkeys", () -> super.bls_aggregate_pubkeys(publicKeysBytes));
   }
 
+  @Override
+  public PublicKey bls_aggregate_pubkeys(BeaconState state, Iterable<ValidatorIndex> indices) {
+    return callAndTrack(
+        "bls_aggregate_pubkeys", () -> super.bls_aggregate_pubkeys(state, indices));
+  }
+
   /** HELPERS */
   @Override
   public Hash32 hash_tree_root(Object object) {
@@ -272,6 +297,37 @@ public class BenchmarkingBeaconChainSpec extends CachingBeaconChainSpec {
     callAndTrack("process_slashings", () -> super.process_slashings(state));
   }
 
+  @Override
+  public EpochParticipation get_epoch_participation(BeaconState state) {
+    return callAndTrack("get_epoch_participation", () -> super.get_epoch_participation(state));
+  }
+
+  @Override
+  public void process_justification_and_finalization(
+      MutableBeaconState state, EpochParticipation participation) {
+    callAndTrack(
+        "process_justification_and_finalization",
+        () -> super.process_justification_and_finalization(state, participation));
+  }
+
+  @Override
+  public void process_crosslinks(MutableBeaconState state, EpochParticipation participation) {
+    callAndTrack("process_crosslinks", () -> super.process_crosslinks(state, participation));
+  }
+
+  @Override
+  public void process_rewards_and_penalties(
+      MutableBeaconState state, EpochParticipation participation) {
+    callAndTrack(
+        "process_rewards_and_penalties",
+        () -> super.process_rewards_and_penalties(state, participation));
+  }
+
+  @Override
+  public void process_slashings(MutableBeaconState state, EpochParticipation participation) {
+    callAndTrack("process_slashings", () -> super.process_slashings(state, participation));
+  }
+
   @Override
   public void process_final_updates(MutableBeaconState state) {
     callAndTrack("process_final_updates", () -> super.process_final_updates(state));
@@ -4,18 +4,27 @@ import static org.ethereum.beacon.chain.observer.ObservableStateProcessorImpl.DE
 
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import org.ethereum.beacon.chain.BeaconChainPruner;
+import org.ethereum.beacon.chain.BlockImportPipeline;
+import org.ethereum.beacon.chain.CheckpointStateCache;
 import org.ethereum.beacon.chain.DefaultBeaconChain;
+import org.ethereum.beacon.chain.LMDGhostHeadFunction;
 import org.ethereum.beacon.chain.MutableBeaconChain;
 import org.ethereum.beacon.chain.ProposedBlockProcessor;
 import org.ethereum.beacon.chain.ProposedBlockProcessorImpl;
+import org.ethereum.beacon.chain.ProtoArrayHeadFunction;
 import org.ethereum.beacon.chain.SlotTicker;
+import org.ethereum.beacon.chain.VoteTracker;
 import org.ethereum.beacon.chain.observer.ObservableStateProcessor;
 import org.ethereum.beacon.chain.observer.ObservableStateProcessorImpl;
 import org.ethereum.beacon.chain.storage.BeaconChainStorage;
 import org.ethereum.beacon.chain.storage.BeaconChainStorageFactory;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
 import org.ethereum.beacon.consensus.ChainStart;
+import org.ethereum.beacon.consensus.HeadFunction;
 import org.ethereum.beacon.consensus.transition.EmptySlotTransition;
 import org.ethereum.beacon.consensus.transition.ExtendedSlotTransition;
 import org.ethereum.beacon.consensus.transition.InitialStateTransition;
@@ -29,6 +38,7 @@ import org.ethereum.beacon.core.operations.Attestation;
 import org.ethereum.beacon.core.spec.SpecConstants;
 import org.ethereum.beacon.core.spec.SpecConstantsResolver;
 import org.ethereum.beacon.db.Database;
+import org.ethereum.beacon.db.rocksdb.ColumnFamilyConfig;
 import org.ethereum.beacon.pow.DepositContract;
 import org.ethereum.beacon.schedulers.Schedulers;
 import org.ethereum.beacon.ssz.SSZBuilder;
@@ -57,13 +67,31 @@ import tech.pegasys.artemis.util.uint.UInt64;
 
 public class NodeLauncher {
 
+  /** Implementations of the fork choice rule. */
+  public enum ForkChoice {
+    /** {@link ProtoArrayHeadFunction}, keeps block weights between head updates. */
+    PROTO_ARRAY,
+    /** {@link LMDGhostHeadFunction}, walks the block tree and counts all the votes. */
+    LMD_GHOST
+  }
+
   private final static long DB_BUFFER_SIZE = 64L << 20; // 64Mb
+  private final static int DB_WRITE_BEHIND_BACKLOG = 2;
+  // a state kept by thinning must be a snapshot, hence, snapshot interval has to divide the period
+  public final static int STATE_THINNING_EPOCHS = 4;
+  private final static Map<String, ColumnFamilyConfig> DB_STORAGE_CONFIGS = new HashMap<>();
+
+  static {
+    DB_STORAGE_CONFIGS.put("beacon-state", ColumnFamilyConfig.LARGE_VALUES);
+    DB_STORAGE_CONFIGS.put("beacon-block-index", ColumnFamilyConfig.SMALL_VALUES);
+  }
 
   private final BeaconChainSpec spec;
   private final DepositContract depositContract;
   private final List<BLS381Credentials> validatorCred;
   private final BeaconChainStorageFactory storageFactory;
   private final Schedulers schedulers;
+  private final ForkChoice forkChoice;
 
   private InitialStateTransition initialTransition;
   private PerSlotTransition perSlotTransition;
@@ -104,6 +132,26 @@ public class NodeLauncher {
       BeaconChainStorageFactory storageFactory,
       Schedulers schedulers,
       boolean startSyncManager) {
+    this(
+        spec,
+        depositContract,
+        validatorCred,
+        connectionManager,
+        storageFactory,
+        schedulers,
+        startSyncManager,
+        ForkChoice.PROTO_ARRAY);
+  }
+
+  public NodeLauncher(
+      BeaconChainSpec spec,
+      DepositContract depositContract,
+      List<BLS381Credentials> validatorCred,
+      ConnectionManager<?> connectionManager,
+      BeaconChainStorageFactory storageFactory,
+      Schedulers schedulers,
+      boolean startSyncManager,
+      ForkChoice forkChoice) {
 
     this.spec = spec;
     this.depositContract = depositContract;
@@ -112,6 +160,7 @@ public class NodeLauncher {
     this.storageFactory = storageFactory;
     this.schedulers = schedulers;
     this.startSyncManager = startSyncManager;
+    this.forkChoice = forkChoice;
 
     if (depositContract != null) {
       Mono.from(depositContract.getChainStartMono()).subscribe(this::chainStarted);
@@ -127,13 +176,18 @@ public class NodeLauncher {
         new ExtendedSlotTransition(perEpochTransition, perSlotTransition, spec);
     emptySlotTransition = new EmptySlotTransition(extendedSlotTransition);
 
-    db = Database.rocksDB(Paths.get(computeDbName(chainStartEvent)).toString(), DB_BUFFER_SIZE);
+    db =
+        Database.rocksDB(
+            Paths.get(computeDbName(chainStartEvent)).toString(),
+            DB_BUFFER_SIZE,
+            DB_STORAGE_CONFIGS,
+            DB_WRITE_BEHIND_BACKLOG);
     beaconChainStorage = storageFactory.create(db);
 
     blockVerifier = BeaconBlockVerifier.createDefault(spec);
     stateVerifier = BeaconStateVerifier.createDefault(spec);
 
-    beaconChain =
+    DefaultBeaconChain defaultBeaconChain =
         new DefaultBeaconChain(
             spec,
             initialTransition,
@@ -142,7 +196,22 @@ public class NodeLauncher {
             blockVerifier,
             stateVerifier,
             beaconChainStorage,
-            schedulers);
+            schedulers,
+            new BeaconChainPruner(
+                spec,
+                beaconChainStorage,
+                db,
+                schedulers.newSingleThreadDaemon("beacon-chain-pruner"),
+                STATE_THINNING_EPOCHS));
+    beaconChain =
+        new BlockImportPipeline(
+            spec,
+            defaultBeaconChain,
+            beaconChainStorage,
+            emptySlotTransition,
+            blockVerifier,
+            schedulers.cpuHeavy(),
+            schedulers.newSingleThreadDaemon("block-importer"));
     beaconChain.init();
 
     slotTicker =
@@ -152,6 +221,13 @@ public class NodeLauncher {
     DirectProcessor<Attestation> allAttestations = DirectProcessor.create();
 
 
+    VoteTracker voteTracker = new VoteTracker();
+    CheckpointStateCache checkpointStates =
+        new CheckpointStateCache(beaconChainStorage, spec, emptySlotTransition);
+    HeadFunction headFunction =
+        forkChoice == ForkChoice.LMD_GHOST
+            ? new LMDGhostHeadFunction(beaconChainStorage, spec, checkpointStates)
+            : new ProtoArrayHeadFunction(beaconChainStorage, spec, voteTracker, checkpointStates);
     observableStateProcessor = new ObservableStateProcessorImpl(
         beaconChainStorage,
         slotTicker.getTickerStream(),
@@ -160,7 +236,9 @@ public class NodeLauncher {
         spec,
         emptySlotTransition,
         schedulers,
-        validatorCred != null ? Integer.MAX_VALUE : DEFAULT_EMPTY_SLOT_TRANSITIONS_LIMIT);
+        validatorCred != null ? Integer.MAX_VALUE : DEFAULT_EMPTY_SLOT_TRANSITIONS_LIMIT,
+        headFunction,
+        voteTracker);
     observableStateProcessor.start();
 
     SSZSerializer ssz = new SSZBuilder()
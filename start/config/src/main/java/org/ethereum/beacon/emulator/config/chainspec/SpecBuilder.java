@@ -39,6 +39,8 @@ public class SpecBuilder {
         .withBlsVerify(specHelpersOptions.isBlsVerify())
         .withBlsVerifyProofOfPossession(specHelpersOptions.isBlsVerifyProofOfPossession())
         .withCache(spec.getSpecHelpersOptions().isEnableCache())
+        .withParallelEpochProcessing(specHelpersOptions.isParallelEpochProcessing())
+        .withVerifierThreads(specHelpersOptions.getVerifierThreads())
         .withVerifyDepositProof(specHelpersOptions.isVerifyDepositProof())
         .withComputableGenesisTime(specHelpersOptions.isComputableGenesisTime())
         .build();
@@ -15,6 +15,10 @@ public class SpecHelpersData {
 
   private boolean enableCache = true;
 
+  private boolean parallelEpochProcessing = false;
+
+  private int verifierThreads = 0;
+
   public boolean isBlsVerify() {
     return blsVerify;
   }
@@ -47,6 +51,22 @@ public class SpecHelpersData {
     this.enableCache = enableCache;
   }
 
+  public boolean isParallelEpochProcessing() {
+    return parallelEpochProcessing;
+  }
+
+  public void setParallelEpochProcessing(boolean parallelEpochProcessing) {
+    this.parallelEpochProcessing = parallelEpochProcessing;
+  }
+
+  public int getVerifierThreads() {
+    return verifierThreads;
+  }
+
+  public void setVerifierThreads(int verifierThreads) {
+    this.verifierThreads = verifierThreads;
+  }
+
   public boolean isVerifyDepositProof() {
     return verifyDepositProof;
   }
@@ -8,6 +8,9 @@ import org.ethereum.beacon.emulator.config.main.network.Network;
 public class Configuration {
   private String name;
   private String db;
+  private String forkChoice;
+  private String stateStorage;
+  private Long stateSnapshotInterval;
   private List<Network> networks = new ArrayList<>();
   private Validator validator;
 
@@ -27,6 +30,30 @@ public class Configuration {
     this.db = db;
   }
 
+  public String getForkChoice() {
+    return forkChoice;
+  }
+
+  public void setForkChoice(String forkChoice) {
+    this.forkChoice = forkChoice;
+  }
+
+  public String getStateStorage() {
+    return stateStorage;
+  }
+
+  public void setStateStorage(String stateStorage) {
+    this.stateStorage = stateStorage;
+  }
+
+  public Long getStateSnapshotInterval() {
+    return stateSnapshotInterval;
+  }
+
+  public void setStateSnapshotInterval(Long stateSnapshotInterval) {
+    this.stateSnapshotInterval = stateSnapshotInterval;
+  }
+
   public List<Network> getNetworks() {
     return networks;
   }
@@ -22,6 +22,7 @@ import org.apache.logging.log4j.ThreadContext;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.ethereum.beacon.chain.storage.BeaconChainStorageFactory;
 import org.ethereum.beacon.chain.storage.impl.SSZBeaconChainStorageFactory;
 import org.ethereum.beacon.chain.storage.impl.SerializerFactory;
 import org.ethereum.beacon.consensus.BeaconChainSpec;
@@ -44,6 +45,7 @@ import org.ethereum.beacon.schedulers.DefaultSchedulers;
 import org.ethereum.beacon.schedulers.Scheduler;
 import org.ethereum.beacon.schedulers.Schedulers;
 import org.ethereum.beacon.start.common.NodeLauncher;
+import org.ethereum.beacon.start.common.NodeLauncher.ForkChoice;
 import org.ethereum.beacon.start.common.util.MDCControlledSchedulers;
 import org.ethereum.beacon.validator.crypto.BLS381Credentials;
 import org.ethereum.beacon.wire.net.ConnectionManager;
@@ -177,11 +179,11 @@ public class NodeCommandLauncher implements Runnable {
         this.depositContract,
         credentials,
         connectionManager,
-        new SSZBeaconChainStorageFactory(
-            spec.getObjectHasher(),
-            SerializerFactory.createSSZ(specConstants)),
+        createStorageFactory(
+            config.getConfig().getStateStorage(), config.getConfig().getStateSnapshotInterval()),
         schedulers,
-        true);
+        true,
+        parseForkChoice(config.getConfig().getForkChoice()));
 
     Runtime.getRuntime().addShutdownHook(new Thread(node::stop));
 
@@ -194,6 +196,60 @@ public class NodeCommandLauncher implements Runnable {
     }
   }
 
+  private BeaconChainStorageFactory createStorageFactory(
+      String stateStorage, Long stateSnapshotInterval) {
+    SerializerFactory serializerFactory = SerializerFactory.createSSZ(specConstants);
+    if (stateStorage == null || "delta".equals(stateStorage)) {
+      return new SSZBeaconChainStorageFactory(
+          spec.getObjectHasher(),
+          serializerFactory,
+          checkSnapshotInterval(stateSnapshotInterval));
+    } else if (stateSnapshotInterval != null) {
+      throw new IllegalArgumentException(
+          "State snapshot interval is applicable to delta state storage only");
+    } else if ("full".equals(stateStorage)) {
+      return new SSZBeaconChainStorageFactory(spec.getObjectHasher(), serializerFactory);
+    } else if ("merkle-node".equals(stateStorage)) {
+      return SSZBeaconChainStorageFactory.createWithMerkleNodeStates(
+          spec.getObjectHasher(), serializerFactory, specConstants);
+    } else {
+      throw new IllegalArgumentException(
+          "Unknown state storage: " + stateStorage + ", expected delta, full or merkle-node");
+    }
+  }
+
+  private long checkSnapshotInterval(Long stateSnapshotInterval) {
+    long slotsPerEpoch = specConstants.getSlotsPerEpoch().getValue();
+    if (stateSnapshotInterval == null) {
+      return slotsPerEpoch;
+    }
+    long thinningSlots = NodeLauncher.STATE_THINNING_EPOCHS * slotsPerEpoch;
+    if (stateSnapshotInterval <= 0
+        || stateSnapshotInterval % slotsPerEpoch != 0
+        || thinningSlots % stateSnapshotInterval != 0) {
+      throw new IllegalArgumentException(
+          "State snapshot interval should be a positive multiple of "
+              + slotsPerEpoch
+              + " slots dividing "
+              + thinningSlots
+              + " slots of state thinning period, but was "
+              + stateSnapshotInterval);
+    }
+    return stateSnapshotInterval;
+  }
+
+  private static ForkChoice parseForkChoice(String forkChoice) {
+    if (forkChoice == null) {
+      return ForkChoice.PROTO_ARRAY;
+    }
+    try {
+      return ForkChoice.valueOf(forkChoice.trim().toUpperCase().replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Unknown fork choice: " + forkChoice + ", expected proto-array or lmd-ghost");
+    }
+  }
+
   public static class Builder {
     private MainConfig config;
     private Level logLevel = Level.INFO;
@@ -1,6 +1,8 @@
 package org.ethereum.beacon.test;
 
 import org.ethereum.beacon.consensus.BeaconChainSpec;
+import org.ethereum.beacon.consensus.util.SwapOrNotShuffle;
+import org.ethereum.beacon.core.types.ValidatorIndex;
 import org.ethereum.beacon.test.runner.shuffle.ShuffleRunner;
 import org.ethereum.beacon.test.type.shuffle.ShuffleTestCase;
 import org.junit.Test;
@@ -9,7 +11,9 @@ import tech.pegasys.artemis.util.uint.UInt64;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /** Committee shuffle test */
 public class ShuffleTests extends TestUtils {
@@ -66,4 +70,30 @@ public class ShuffleTests extends TestUtils {
           return testRunner.run();
         });
   }
+
+  /** Runs tests on {@link SwapOrNotShuffle} applied to an array of indices. */
+  @Test
+  public void testShufflingOnArrays() {
+    runSpecTestsInResourceDirs(
+        MINIMAL_TESTS,
+        MAINNET_TESTS,
+        SUBDIR,
+        ShuffleTestCase.class,
+        input -> {
+          ShuffleRunner testRunner =
+              new ShuffleRunner(
+                  input.getValue0(),
+                  input.getValue1(),
+                  objects -> {
+                    int[] permutation =
+                        SwapOrNotShuffle.parallel(
+                                input.getValue1().getConstants().getShuffleRoundCount())
+                            .permutation(objects.getValue2(), objects.getValue1().extractArray());
+                    return Arrays.stream(permutation)
+                        .mapToObj(ValidatorIndex::new)
+                        .collect(Collectors.toList());
+                  });
+          return testRunner.run();
+        });
+  }
 }
@@ -0,0 +1,74 @@
+package tech.pegasys.artemis.util.bytes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * A read-only {@link BytesValue} backed by a region of {@link ByteBuffer}, which might be a
+ * direct or a memory-mapped one. Bytes are read from the buffer on demand and are never copied
+ * unless {@link #extractArray()} is called.
+ */
+class ByteBufferWrappingBytesValue extends AbstractBytesValue {
+
+  private final ByteBuffer buffer;
+  private final int offset;
+  private final int size;
+
+  ByteBufferWrappingBytesValue(ByteBuffer buffer, int offset, int size) {
+    checkArgument(size >= 0, "Invalid negative length provided");
+    checkArgument(offset >= 0 && offset + size <= buffer.limit(),
+        "Provided length %s is too big: the buffer has limit %s and has only %s bytes from %s",
+        size, buffer.limit(), buffer.limit() - offset, offset);
+
+    this.buffer = buffer;
+    this.offset = offset;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public byte get(int i) {
+    checkElementIndex(i, size);
+    return buffer.get(offset + i);
+  }
+
+  @Override
+  public BytesValue slice(int index, int length) {
+    if (index == 0 && length == size) {
+      return this;
+    }
+    if (length == 0) {
+      return BytesValue.EMPTY;
+    }
+
+    checkElementIndex(index, size);
+    checkArgument(index + length <= size,
+        "Provided length %s is too big: the value has size %s and has only %s bytes from %s",
+        length, size, size - index, index);
+
+    return new ByteBufferWrappingBytesValue(buffer, offset + index, length);
+  }
+
+  @Override
+  public byte[] extractArray() {
+    byte[] array = new byte[size];
+    ByteBuffer region = buffer.duplicate();
+    region.position(offset);
+    region.get(array);
+    return array;
+  }
+
+  @Override
+  public void update(MessageDigest digest) {
+    ByteBuffer region = buffer.duplicate();
+    region.limit(offset + size).position(offset);
+    digest.update(region);
+  }
+}
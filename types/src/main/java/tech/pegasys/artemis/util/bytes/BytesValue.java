@@ -17,6 +17,7 @@ import com.google.common.annotations.VisibleForTesting;
 import io.netty.buffer.ByteBuf;
 import io.vertx.core.buffer.Buffer;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.util.List;
 
@@ -176,6 +177,23 @@ public interface BytesValue extends Comparable<BytesValue> {
     return MutableBytesValue.wrapBuffer(buffer, offset, size);
   }
 
+  /**
+   * Wraps remaining bytes of a {@link ByteBuffer} as a read-only {@link BytesValue}.
+   *
+   * <p>
+   * Bytes are not copied, hence, it's a way to expose a region of a direct or a memory-mapped
+   * buffer. Changes of the position and the limit of the buffer are not reflected in the returned
+   * value while changes of its content are.
+   *
+   * @param buffer The buffer to wrap.
+   * @return A {@link BytesValue} that exposes bytes of {@code buffer} from its position to its
+   * limit.
+   */
+  static BytesValue wrapBuffer(ByteBuffer buffer) {
+    return new ByteBufferWrappingBytesValue(buffer.duplicate(), buffer.position(),
+        buffer.remaining());
+  }
+
   /**
    * Creates a newly allocated value that contains the provided bytes in their provided order.
    *
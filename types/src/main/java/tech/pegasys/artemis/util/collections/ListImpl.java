@@ -186,6 +186,20 @@ class ListImpl<IndexType extends Number, ValueType> implements WriteList<IndexTy
     }
   }
 
+  @Override
+  public void setAll(IndexType fromIndex, List<? extends ValueType> values) {
+    int from = fromIndex.intValue();
+    if (from < 0 || from + values.size() > backedList.size()) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Cannot set %s elements from index %s, size is %s",
+              values.size(), from, backedList.size()));
+    }
+    for (int i = 0; i < values.size(); i++) {
+      backedList.set(from + i, values.get(i));
+    }
+  }
+
   @Override
   public void add(IndexType index, ValueType element) {
     checkCapacity(size().longValue() + 1);
@@ -21,6 +21,14 @@ public interface WriteVector<IndexType extends Number, ValueType>
 
   void setAll(Iterable<ValueType> singleValue);
 
+  /**
+   * Replaces elements starting from {@code fromIndex} with given values.
+   *
+   * @param fromIndex index of the first element to replace.
+   * @param values new values, replaced range must fit into this vector.
+   */
+  void setAll(IndexType fromIndex, List<? extends ValueType> values);
+
   ReadList<IndexType, ValueType> createImmutableCopy();
 
   default ValueType update(IndexType index, Function<ValueType, ValueType> updater) {
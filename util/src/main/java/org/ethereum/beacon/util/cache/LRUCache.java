@@ -65,6 +65,10 @@ public class LRUCache<K, V> implements Cache<K, V> {
     return Optional.ofNullable(cacheData.get(key));
   }
 
+  public void put(K key, V value) {
+    cacheData.put(key, value);
+  }
+
   public long getHits() {
     return hits.get();
   }
@@ -1,10 +1,11 @@
 package org.ethereum.beacon.wire;
 
-import static org.ethereum.beacon.util.Utils.optionalFlatMap;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -44,13 +45,17 @@ public class WireApiSyncServer implements WireApiSync {
               "Too many block roots requested: " + requestMessage.getCount()));
     } else {
       List<BlockRootSlot> roots = new ArrayList<>();
-      for (SlotNumber slot : requestMessage.getStartSlot().iterateTo(
-          requestMessage.getStartSlot().plus(requestMessage.getCount()))) {
-        List<Hash32> slotRoots = storage.getBlockStorage().getSlotBlocks(slot);
-        for (Hash32 slotRoot : slotRoots) {
-          roots.add(new BlockRootSlot(slotRoot, slot));
-        }
-      }
+      storage
+          .getBlockStorage()
+          .getSlotBlocks(
+              requestMessage.getStartSlot(),
+              requestMessage.getStartSlot().plus(requestMessage.getCount()))
+          .forEach(
+              (slot, slotRoots) -> {
+                for (Hash32 slotRoot : slotRoots) {
+                  roots.add(new BlockRootSlot(slotRoot, slot));
+                }
+              });
       ret.complete(new BlockRootsResponseMessage(roots));
     }
     return ret;
@@ -70,18 +75,28 @@ public class WireApiSyncServer implements WireApiSync {
     }
 
     if (slot != null) {
-      List<BeaconBlockHeader> headers = new ArrayList<>();
+      List<Hash32> headerRoots = new ArrayList<>();
       int increment = requestMessage.getSkipSlots().getIntValue() + 1;
+      int maxHeaders = requestMessage.getMaxHeaders().intValue();
       SlotNumber maxSlot = storage.getBlockStorage().getMaxSlot();
+      // consecutive slots are read from the index at once
+      SlotNumber rangeStart = slot;
+      SlotNumber rangeEnd = increment == 1 ? slot.plus(maxHeaders) : slot;
+      NavigableMap<SlotNumber, List<Hash32>> range =
+          storage.getBlockStorage().getSlotBlocks(rangeStart, rangeEnd);
       SlotNumber prevSlot = SlotNumber.ZERO;
-      for(int i = 0; i < requestMessage.getMaxHeaders().intValue(); i++) {
+      for(int i = 0; i < maxHeaders; i++) {
         if (slot.greater(maxSlot)) {
           break;
         }
         List<Hash32> slotBlocks = Collections.emptyList();
         SlotNumber nonEmptySlot = slot;
         while (nonEmptySlot.greater(prevSlot)) {
-          slotBlocks = storage.getBlockStorage().getSlotBlocks(nonEmptySlot);
+          if (nonEmptySlot.greaterEqual(rangeStart) && nonEmptySlot.less(rangeEnd)) {
+            slotBlocks = range.getOrDefault(nonEmptySlot, Collections.emptyList());
+          } else {
+            slotBlocks = storage.getBlockStorage().getSlotBlocks(nonEmptySlot);
+          }
           if (!slotBlocks.isEmpty()) {
             break;
           }
@@ -89,12 +104,18 @@ public class WireApiSyncServer implements WireApiSync {
         }
 
         if (nonEmptySlot.greater(prevSlot)) {
-          headers.add(storage.getBlockHeaderStorage().get(slotBlocks.get(0)).get());
+          headerRoots.add(slotBlocks.get(0));
         }
         slot = slot.plus(increment);
         prevSlot = nonEmptySlot;
       }
-      ret.complete(new BlockHeadersResponseMessage(headers));
+      Map<Hash32, BeaconBlockHeader> headers =
+          storage.getBlockHeaderStorage().getAll(headerRoots);
+      ret.complete(new BlockHeadersResponseMessage(
+          headerRoots.stream()
+              .map(headers::get)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList())));
     } else {
       ret.complete(new BlockHeadersResponseMessage(Collections.emptyList()));
     }
@@ -107,9 +128,12 @@ public class WireApiSyncServer implements WireApiSync {
   public CompletableFuture<Feedback<BlockBodiesResponseMessage>> requestBlockBodies(
       BlockBodiesRequestMessage requestMessage) {
 
-    List<BeaconBlockBody> bodyList = requestMessage.getBlockTreeRoots().stream()
-        .map(blockRoot -> storage.getBlockStorage().get(blockRoot))
-        .flatMap(optionalFlatMap(BeaconBlock::getBody))
+    List<Hash32> blockRoots = requestMessage.getBlockTreeRoots();
+    Map<Hash32, BeaconBlock> blocks = storage.getBlockStorage().getAll(blockRoots);
+    List<BeaconBlockBody> bodyList = blockRoots.stream()
+        .map(blocks::get)
+        .filter(Objects::nonNull)
+        .map(BeaconBlock::getBody)
         .collect(Collectors.toList());
     return CompletableFuture.completedFuture(
         Feedback.of(new BlockBodiesResponseMessage(bodyList)));
@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.lang.Math.max;
 import static org.ethereum.beacon.chain.MutableBeaconChain.ImportResult.ExistingBlock;
@@ -46,6 +47,11 @@ public class SyncManagerImpl implements SyncManager {
 
   private static final Logger logger = LogManager.getLogger(SyncManagerImpl.class);
 
+  /** Max number of ready blocks that are imported at once. */
+  private static final int IMPORT_BATCH_SIZE = 64;
+  /** Max time a ready block waits for the batch to be filled up. */
+  private static final Duration IMPORT_BATCH_TIMEOUT = Duration.ofMillis(100);
+
   private final Publisher<BeaconTupleDetails> blockStatesStream;
   private final BeaconChainSpec spec;
   private final WireApiSync syncApi;
@@ -128,22 +134,14 @@ public class SyncManagerImpl implements SyncManager {
 
     readyBlocksStreamSub =
         Flux.from(syncQueue.getBlocksStream())
+            .bufferTimeout(IMPORT_BATCH_SIZE, IMPORT_BATCH_TIMEOUT, delayScheduler.toReactor())
             .subscribe(
-                block -> {
-                  ImportResult result = chain.insert(block.get());
-                  if (result == InvalidBlock || result == StateMismatch || result == ExpiredBlock) {
-                    block.feedbackError(
-                        new WireInvalidConsensusDataException(
-                            "Couldn't insert block: " + block.get()));
-                  } else {
-                    block.feedbackSuccess();
-                    if (result == NoParent) {
-                      logger.warn("No parent for block: " + block.get());
-                    } else if (result == ExistingBlock) {
-                      logger.info("Trying to import existing block: " + block.get());
-                    } else if (result != OK) {
-                      logger.info("Other error importing block: " + block.get());
-                    }
+                blocks -> {
+                  List<ImportResult> results =
+                      chain.insertBatch(
+                          blocks.stream().map(Feedback::get).collect(Collectors.toList()));
+                  for (int i = 0; i < blocks.size(); i++) {
+                    onImportResult(blocks.get(i), results.get(i));
                   }
                 });
 
@@ -161,6 +159,22 @@ public class SyncManagerImpl implements SyncManager {
             .distinctUntilChanged();
   }
 
+  private void onImportResult(Feedback<BeaconBlock> block, ImportResult result) {
+    if (result == InvalidBlock || result == StateMismatch || result == ExpiredBlock) {
+      block.feedbackError(
+          new WireInvalidConsensusDataException("Couldn't insert block: " + block.get()));
+    } else {
+      block.feedbackSuccess();
+      if (result == NoParent) {
+        logger.warn("No parent for block: " + block.get());
+      } else if (result == ExistingBlock) {
+        logger.info("Trying to import existing block: " + block.get());
+      } else if (result != OK) {
+        logger.info("Other error importing block: " + block.get());
+      }
+    }
+  }
+
   @Override
   public Publisher<Feedback<BeaconBlock>> getBlocksReadyToImport() {
     return syncQueue.getBlocksStream();